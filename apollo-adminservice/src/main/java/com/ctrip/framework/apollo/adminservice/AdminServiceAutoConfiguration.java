@@ -18,9 +18,17 @@ package com.ctrip.framework.apollo.adminservice;
 
 import com.ctrip.framework.apollo.adminservice.filter.AdminServiceAuthenticationFilter;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.repository.ItemRepository;
+import com.ctrip.framework.apollo.biz.repository.NamespaceRepository;
+import com.ctrip.framework.apollo.biz.repository.ReleaseRepository;
+import com.ctrip.framework.apollo.biz.service.ItemSearchIndex;
+import com.ctrip.framework.apollo.biz.service.NamespaceService;
+import com.ctrip.framework.apollo.biz.service.NamespaceUnpublishedChangesBackfiller;
+import com.ctrip.framework.apollo.biz.service.ReleaseConfigurationsMigrator;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Configuration
 public class AdminServiceAutoConfiguration {
@@ -49,4 +57,25 @@ public class AdminServiceAutoConfiguration {
 
     return filterRegistrationBean;
   }
+
+  /**
+   * Only the admin service, which writes the releases, converts their stored configurations.
+   */
+  @Bean
+  public ReleaseConfigurationsMigrator releaseConfigurationsMigrator(
+      ReleaseRepository releaseRepository, TransactionTemplate transactionTemplate) {
+    return new ReleaseConfigurationsMigrator(releaseRepository, bizConfig, transactionTemplate);
+  }
+
+  @Bean
+  public NamespaceUnpublishedChangesBackfiller namespaceUnpublishedChangesBackfiller(
+      NamespaceRepository namespaceRepository, NamespaceService namespaceService) {
+    return new NamespaceUnpublishedChangesBackfiller(namespaceRepository, namespaceService,
+        bizConfig);
+  }
+
+  @Bean
+  public ItemSearchIndex itemSearchIndex(ItemRepository itemRepository) {
+    return new ItemSearchIndex(itemRepository, bizConfig);
+  }
 }
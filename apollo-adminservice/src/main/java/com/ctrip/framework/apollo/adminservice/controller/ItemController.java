@@ -23,6 +23,7 @@ import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.biz.service.CommitService;
+import com.ctrip.framework.apollo.biz.service.ItemSearchIndex;
 import com.ctrip.framework.apollo.biz.service.ItemService;
 import com.ctrip.framework.apollo.biz.service.NamespaceService;
 import com.ctrip.framework.apollo.biz.service.ReleaseService;
@@ -60,15 +61,17 @@ public class ItemController {
   private final CommitService commitService;
   private final ReleaseService releaseService;
   private final BizConfig bizConfig;
+  private final ItemSearchIndex itemSearchIndex;
 
   public ItemController(final ItemService itemService, final NamespaceService namespaceService,
       final CommitService commitService, final ReleaseService releaseService,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig, final ItemSearchIndex itemSearchIndex) {
     this.itemService = itemService;
     this.namespaceService = namespaceService;
     this.commitService = commitService;
     this.releaseService = releaseService;
     this.bizConfig = bizConfig;
+    this.itemSearchIndex = itemSearchIndex;
   }
 
   @PreAcquireNamespaceLock
@@ -223,7 +226,8 @@ public class ItemController {
   public PageDTO<ItemInfoDTO> getItemInfoBySearch(
       @RequestParam(value = "key", required = false) String key,
       @RequestParam(value = "value", required = false) String value, Pageable limit) {
-    Page<ItemInfoDTO> pageItemInfoDTO = itemService.getItemInfoBySearch(key, value, limit);
+    Page<ItemInfoDTO> pageItemInfoDTO = itemSearchIndex.search(key, value, limit)
+        .orElseGet(() -> itemService.getItemInfoBySearch(key, value, limit));
     return new PageDTO<>(pageItemInfoDTO.getContent(), limit, pageItemInfoDTO.getTotalElements());
   }
 
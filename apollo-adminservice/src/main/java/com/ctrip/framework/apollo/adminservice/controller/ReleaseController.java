@@ -120,6 +120,8 @@ public class ReleaseController {
       @RequestParam(name = "comment", required = false) String releaseComment,
       @RequestParam("operator") String operator, @RequestParam(name = "isEmergencyPublish",
           defaultValue = "false") boolean isEmergencyPublish) {
+    // locked before anything is read, see NamespaceService#lock
+    namespaceService.lock(appId, clusterName, namespaceName);
     Namespace namespace = namespaceService.findOne(appId, clusterName, namespaceName);
     if (namespace == null) {
       throw NotFoundException.namespaceNotFound(appId, clusterName, namespaceName);
@@ -158,6 +160,8 @@ public class ReleaseController {
       @RequestParam(name = "releaseComment", required = false) String releaseComment,
       @RequestParam(name = "isEmergencyPublish", defaultValue = "false") boolean isEmergencyPublish,
       @RequestBody ItemChangeSets changeSets) {
+    // locked before anything is read, see NamespaceService#lock
+    namespaceService.lock(appId, clusterName, namespaceName);
     Namespace namespace = namespaceService.findOne(appId, clusterName, namespaceName);
     if (namespace == null) {
       throw NotFoundException.namespaceNotFound(appId, clusterName, namespaceName);
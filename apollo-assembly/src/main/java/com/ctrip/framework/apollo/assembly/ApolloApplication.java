@@ -18,6 +18,8 @@ package com.ctrip.framework.apollo.assembly;
 
 import com.ctrip.framework.apollo.adminservice.AdminServiceApplication;
 import com.ctrip.framework.apollo.audit.configuration.ApolloAuditAutoConfiguration;
+import com.ctrip.framework.apollo.biz.message.InProcessReleaseMessageTransport;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageTransport;
 import com.ctrip.framework.apollo.configservice.ConfigServiceApplication;
 import com.ctrip.framework.apollo.portal.PortalApplication;
 
@@ -25,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
 import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
@@ -32,6 +35,7 @@ import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfigurat
 import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.cloud.context.scope.refresh.RefreshScope;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
 
 @SpringBootApplication(exclude = {DataSourceAutoConfiguration.class,
     DataSourceTransactionManagerAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
@@ -84,4 +88,16 @@ public class ApolloApplication {
     MDC.clear();
   }
 
+  /**
+   * Admin service and config service share the common context, so release messages could be
+   * pushed to config service directly instead of waiting for the database scan. Only the releases
+   * of this admin service are pushed, the ones of the other admin services sharing the ConfigDB
+   * are still found by the scan.
+   */
+  @Bean
+  @ConditionalOnProperty(value = "apollo.release-message.push.enabled", havingValue = "true")
+  public ReleaseMessageTransport releaseMessageTransport() {
+    return new InProcessReleaseMessageTransport();
+  }
+
 }
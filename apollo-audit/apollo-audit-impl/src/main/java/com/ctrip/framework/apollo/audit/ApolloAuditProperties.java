@@ -23,6 +23,8 @@ public class ApolloAuditProperties {
 
   private boolean enabled = false;
 
+  private Sink sink = new Sink();
+
   public boolean isEnabled() {
     return enabled;
   }
@@ -30,4 +32,86 @@ public class ApolloAuditProperties {
   public void setEnabled(boolean enabled) {
     this.enabled = enabled;
   }
+
+  public Sink getSink() {
+    return sink;
+  }
+
+  public void setSink(Sink sink) {
+    this.sink = sink;
+  }
+
+  public static class Sink {
+
+    /**
+     * false: the records are saved in the transaction of the caller one by one
+     * <p>
+     * true: the records are buffered and written in batches, so the ones still buffered are lost
+     * if the process crashes
+     */
+    private boolean async = false;
+
+    private int bufferSize = 8192;
+
+    private int batchSize = 500;
+
+    private long flushIntervalInMillis = 1000;
+
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+    public boolean isAsync() {
+      return async;
+    }
+
+    public void setAsync(boolean async) {
+      this.async = async;
+    }
+
+    public int getBufferSize() {
+      return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+      this.bufferSize = bufferSize;
+    }
+
+    public int getBatchSize() {
+      return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+      this.batchSize = batchSize;
+    }
+
+    public long getFlushIntervalInMillis() {
+      return flushIntervalInMillis;
+    }
+
+    public void setFlushIntervalInMillis(long flushIntervalInMillis) {
+      this.flushIntervalInMillis = flushIntervalInMillis;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+      return overflowPolicy;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+      this.overflowPolicy = overflowPolicy;
+    }
+  }
+
+  /**
+   * What to do with a record when the buffer of the async sink is full.
+   */
+  public enum OverflowPolicy {
+    /**
+     * wait until the buffer has room, so that no record is lost
+     */
+    BLOCK,
+    /**
+     * drop the record, so that the caller is never held up by the audit log, the dropped records
+     * are counted and logged
+     */
+    DROP
+  }
 }
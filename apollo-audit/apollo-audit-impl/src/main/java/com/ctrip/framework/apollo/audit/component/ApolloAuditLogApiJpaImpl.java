@@ -16,7 +16,6 @@
  */
 package com.ctrip.framework.apollo.audit.component;
 
-import com.ctrip.framework.apollo.audit.annotation.ApolloAuditLogDataInfluenceTableField;
 import com.ctrip.framework.apollo.audit.annotation.OpType;
 import com.ctrip.framework.apollo.audit.api.ApolloAuditLogApi;
 import com.ctrip.framework.apollo.audit.context.ApolloAuditScope;
@@ -28,8 +27,9 @@ import com.ctrip.framework.apollo.audit.dto.ApolloAuditLogDetailsDTO;
 import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
 import com.ctrip.framework.apollo.audit.service.ApolloAuditLogDataInfluenceService;
 import com.ctrip.framework.apollo.audit.service.ApolloAuditLogService;
+import com.ctrip.framework.apollo.audit.util.ApolloAuditEntityMetadata;
+import com.ctrip.framework.apollo.audit.util.ApolloAuditEntityMetadata.AuditedField;
 import com.ctrip.framework.apollo.audit.util.ApolloAuditUtil;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
@@ -96,27 +96,19 @@ public class ApolloAuditLogApiJpaImpl implements ApolloAuditLogApi {
 
   @Override
   public void appendDataInfluences(List<Object> entities, Class<?> beanDefinition) {
-    String tableName = ApolloAuditUtil.getApolloAuditLogTableName(beanDefinition);
-    if (Objects.isNull(tableName) || Objects.equals(tableName, "")) {
+    ApolloAuditEntityMetadata metadata = ApolloAuditEntityMetadata.of(beanDefinition);
+    if (!metadata.isAudited()) {
       return;
     }
-    List<Field> dataInfluenceFields = ApolloAuditUtil
-        .getAnnotatedFields(ApolloAuditLogDataInfluenceTableField.class, beanDefinition);
-    Field idField = ApolloAuditUtil.getPersistenceIdFieldByAnnotation(beanDefinition);
+    String tableName = metadata.getTableName();
     entities.forEach(e -> {
-      try {
-        idField.setAccessible(true);
-        String tableId = idField.get(e).toString();
-        for (Field f : dataInfluenceFields) {
-          f.setAccessible(true);
-          String val = String.valueOf(f.get(e));
-          String fieldName =
-              f.getAnnotation(ApolloAuditLogDataInfluenceTableField.class).fieldName();
-          appendDataInfluence(tableName, tableId, fieldName, val);
-        }
-      } catch (IllegalAccessException ex) {
+      if (!beanDefinition.isInstance(e)) {
         throw new IllegalArgumentException("failed append data influence, "
-            + "might due to wrong beanDefinition for entity audited", ex);
+            + "might due to wrong beanDefinition for entity audited");
+      }
+      String tableId = metadata.getId(e);
+      for (AuditedField field : metadata.getAuditedFields()) {
+        appendDataInfluence(tableName, tableId, field.getFieldName(), field.getValue(e));
       }
     });
   }
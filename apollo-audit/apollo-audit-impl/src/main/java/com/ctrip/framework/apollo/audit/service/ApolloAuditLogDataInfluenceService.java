@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.audit.service;
 
 import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
 import com.ctrip.framework.apollo.audit.repository.ApolloAuditLogDataInfluenceRepository;
+import com.ctrip.framework.apollo.audit.sink.ApolloAuditLogSink;
 import java.util.List;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -29,14 +30,19 @@ import org.springframework.data.domain.Sort.Order;
 public class ApolloAuditLogDataInfluenceService {
 
   private final ApolloAuditLogDataInfluenceRepository dataInfluenceRepository;
+  private final ApolloAuditLogSink sink;
 
   public ApolloAuditLogDataInfluenceService(
-      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository) {
+      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository, ApolloAuditLogSink sink) {
     this.dataInfluenceRepository = dataInfluenceRepository;
+    this.sink = sink;
   }
 
-  public ApolloAuditLogDataInfluence save(ApolloAuditLogDataInfluence dataInfluence) {
-    return dataInfluenceRepository.save(dataInfluence);
+  /**
+   * Hands the data influence to the sink, which might write it later.
+   */
+  public void save(ApolloAuditLogDataInfluence dataInfluence) {
+    sink.appendDataInfluence(dataInfluence);
   }
 
   public List<ApolloAuditLogDataInfluence> findBySpanId(String spanId) {
@@ -19,6 +19,7 @@ package com.ctrip.framework.apollo.audit.service;
 import com.ctrip.framework.apollo.audit.context.ApolloAuditSpan;
 import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
 import com.ctrip.framework.apollo.audit.repository.ApolloAuditLogRepository;
+import com.ctrip.framework.apollo.audit.sink.ApolloAuditLogSink;
 import java.util.Date;
 import java.util.List;
 import org.springframework.data.domain.PageRequest;
@@ -30,9 +31,11 @@ import org.springframework.data.domain.Sort.Order;
 public class ApolloAuditLogService {
 
   private final ApolloAuditLogRepository logRepository;
+  private final ApolloAuditLogSink sink;
 
-  public ApolloAuditLogService(ApolloAuditLogRepository logRepository) {
+  public ApolloAuditLogService(ApolloAuditLogRepository logRepository, ApolloAuditLogSink sink) {
     this.logRepository = logRepository;
+    this.sink = sink;
   }
 
   public ApolloAuditLog save(ApolloAuditLog auditLog) {
@@ -46,7 +49,7 @@ public class ApolloAuditLogService {
         .operator(span.operator() != null ? span.operator() : "anonymous").opName(span.getOpName())
         .opType(span.getOpType().toString()).description(span.getDescription())
         .happenedTime(new Date()).build();
-    logRepository.save(auditLog);
+    sink.appendLog(auditLog);
   }
 
   public List<ApolloAuditLog> findByTraceId(String traceId) {
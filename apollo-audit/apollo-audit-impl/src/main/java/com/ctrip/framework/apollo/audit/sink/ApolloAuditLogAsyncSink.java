@@ -0,0 +1,304 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.sink;
+
+import com.ctrip.framework.apollo.audit.ApolloAuditProperties;
+import com.ctrip.framework.apollo.audit.ApolloAuditProperties.OverflowPolicy;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
+import com.ctrip.framework.apollo.audit.entity.BaseEntity;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Buffers the records in a bounded queue, and writes them with batched INSERTs in a background
+ * thread, so that the callers don't pay for an INSERT per record.
+ * <p>
+ * The records appended in a transaction are buffered once it commits and discarded if it rolls
+ * back, as they would be by the synchronous sink. A batch is written once it is full, or at the
+ * flush interval. When the buffer is full, the records are dropped or the callers wait, according
+ * to the overflow policy.
+ */
+public class ApolloAuditLogAsyncSink implements ApolloAuditLogSink, InitializingBean,
+    DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ApolloAuditLogAsyncSink.class);
+
+  private static final String INSERT_LOG_SQL = "INSERT INTO `AuditLog` (`TraceId`, `SpanId`, "
+      + "`ParentSpanId`, `FollowsFromSpanId`, `Operator`, `OpType`, `OpName`, `Description`, "
+      + "`DataChange_CreatedTime`, `DataChange_LastTime`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final String INSERT_DATA_INFLUENCE_SQL = "INSERT INTO `AuditLogDataInfluence` "
+      + "(`SpanId`, `InfluenceEntityId`, `InfluenceEntityName`, `FieldName`, `FieldOldValue`, "
+      + "`FieldNewValue`, `DataChange_CreatedTime`, `DataChange_LastTime`) "
+      + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+  private static final long SHUTDOWN_TIMEOUT_IN_MILLIS = 5000;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final int batchSize;
+  private final long flushIntervalInMillis;
+  private final OverflowPolicy overflowPolicy;
+  private final BlockingQueue<BaseEntity> buffer;
+  private final AtomicLong droppedSinceLastFlush = new AtomicLong();
+
+  private final Counter writtenCounter;
+  private final Counter droppedCounter;
+  private final Counter failedCounter;
+  private final Timer flushTimer;
+
+  private volatile boolean running;
+  private Thread flushThread;
+
+  public ApolloAuditLogAsyncSink(JdbcTemplate jdbcTemplate, ApolloAuditProperties.Sink properties,
+      MeterRegistry meterRegistry) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.batchSize = properties.getBatchSize();
+    this.flushIntervalInMillis = properties.getFlushIntervalInMillis();
+    this.overflowPolicy = properties.getOverflowPolicy();
+    this.buffer = new ArrayBlockingQueue<>(properties.getBufferSize());
+
+    Gauge.builder("apollo.audit.sink.buffer.size", buffer, Collection::size)
+        .description("Audit records waiting to be written").register(meterRegistry);
+    this.writtenCounter = recordsCounter(meterRegistry, "written");
+    this.droppedCounter = recordsCounter(meterRegistry, "dropped");
+    this.failedCounter = recordsCounter(meterRegistry, "failed");
+    this.flushTimer = Timer.builder("apollo.audit.sink.flush")
+        .description("Time of writing a batch of audit records").register(meterRegistry);
+  }
+
+  private static Counter recordsCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("apollo.audit.sink.records").tag("result", result)
+        .description("Audit records handled by the async sink").register(meterRegistry);
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    running = true;
+    flushThread = new Thread(this::run, "ApolloAuditLogAsyncSink");
+    flushThread.setDaemon(true);
+    flushThread.start();
+  }
+
+  @Override
+  public void destroy() throws Exception {
+    running = false;
+    if (flushThread != null) {
+      // the records left in the buffer are written before the thread exits
+      flushThread.join(flushIntervalInMillis + SHUTDOWN_TIMEOUT_IN_MILLIS);
+    }
+  }
+
+  @Override
+  public void appendLog(ApolloAuditLog auditLog) {
+    append(auditLog);
+  }
+
+  @Override
+  public void appendDataInfluence(ApolloAuditLogDataInfluence dataInfluence) {
+    append(dataInfluence);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void append(BaseEntity record) {
+    if (record.getDataChangeCreatedTime() == null) {
+      record.setDataChangeCreatedTime(new Date());
+    }
+    if (record.getDataChangeLastModifiedTime() == null) {
+      record.setDataChangeLastModifiedTime(record.getDataChangeCreatedTime());
+    }
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      offer(record);
+      return;
+    }
+    List<BaseEntity> pending = (List<BaseEntity>) TransactionSynchronizationManager.getResource(
+        this);
+    if (pending == null) {
+      pending = new ArrayList<>();
+      TransactionSynchronizationManager.bindResource(this, pending);
+      TransactionSynchronizationManager.registerSynchronization(new PendingRecords(pending));
+    }
+    pending.add(record);
+  }
+
+  private void offer(BaseEntity record) {
+    if (overflowPolicy == OverflowPolicy.BLOCK) {
+      try {
+        buffer.put(record);
+        return;
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+    } else if (buffer.offer(record)) {
+      return;
+    }
+    droppedCounter.increment();
+    droppedSinceLastFlush.incrementAndGet();
+  }
+
+  private void run() {
+    List<BaseEntity> batch = new ArrayList<>(batchSize);
+    while (running || !buffer.isEmpty()) {
+      try {
+        collect(batch);
+      } catch (InterruptedException ex) {
+        buffer.drainTo(batch);
+        running = false;
+      }
+      flush(batch);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Waits until the batch is full or the flush interval elapses.
+   */
+  private void collect(List<BaseEntity> batch) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + flushIntervalInMillis;
+    while (batch.size() < batchSize) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        break;
+      }
+      BaseEntity record = buffer.poll(remaining, TimeUnit.MILLISECONDS);
+      if (record == null) {
+        break;
+      }
+      batch.add(record);
+      buffer.drainTo(batch, batchSize - batch.size());
+    }
+  }
+
+  private void flush(List<BaseEntity> batch) {
+    long dropped = droppedSinceLastFlush.getAndSet(0);
+    if (dropped > 0) {
+      logger.warn("Dropped {} audit records as the buffer is full", dropped);
+    }
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<ApolloAuditLog> auditLogs = new ArrayList<>();
+    List<ApolloAuditLogDataInfluence> dataInfluences = new ArrayList<>();
+    for (BaseEntity record : batch) {
+      if (record instanceof ApolloAuditLog) {
+        auditLogs.add((ApolloAuditLog) record);
+      } else {
+        dataInfluences.add((ApolloAuditLogDataInfluence) record);
+      }
+    }
+    flushTimer.record(() -> {
+      writeAuditLogs(auditLogs);
+      writeDataInfluences(dataInfluences);
+    });
+  }
+
+  private void writeAuditLogs(List<ApolloAuditLog> auditLogs) {
+    if (auditLogs.isEmpty()) {
+      return;
+    }
+    try {
+      jdbcTemplate.batchUpdate(INSERT_LOG_SQL, auditLogs, auditLogs.size(), (ps, auditLog) -> {
+        ps.setString(1, auditLog.getTraceId());
+        ps.setString(2, auditLog.getSpanId());
+        ps.setString(3, auditLog.getParentSpanId());
+        ps.setString(4, auditLog.getFollowsFromSpanId());
+        ps.setString(5, auditLog.getOperator());
+        ps.setString(6, auditLog.getOpType());
+        ps.setString(7, auditLog.getOpName());
+        ps.setString(8, auditLog.getDescription());
+        ps.setTimestamp(9, new Timestamp(auditLog.getDataChangeCreatedTime().getTime()));
+        ps.setTimestamp(10, new Timestamp(auditLog.getDataChangeLastModifiedTime().getTime()));
+      });
+      writtenCounter.increment(auditLogs.size());
+    } catch (Throwable ex) {
+      failedCounter.increment(auditLogs.size());
+      logger.error("Write {} audit logs failed", auditLogs.size(), ex);
+    }
+  }
+
+  private void writeDataInfluences(List<ApolloAuditLogDataInfluence> dataInfluences) {
+    if (dataInfluences.isEmpty()) {
+      return;
+    }
+    try {
+      jdbcTemplate.batchUpdate(INSERT_DATA_INFLUENCE_SQL, dataInfluences, dataInfluences.size(),
+          (ps, dataInfluence) -> {
+            ps.setString(1, dataInfluence.getSpanId());
+            ps.setString(2, dataInfluence.getInfluenceEntityId());
+            ps.setString(3, dataInfluence.getInfluenceEntityName());
+            ps.setString(4, dataInfluence.getFieldName());
+            ps.setString(5, dataInfluence.getFieldOldValue());
+            ps.setString(6, dataInfluence.getFieldNewValue());
+            ps.setTimestamp(7, new Timestamp(dataInfluence.getDataChangeCreatedTime().getTime()));
+            ps.setTimestamp(8,
+                new Timestamp(dataInfluence.getDataChangeLastModifiedTime().getTime()));
+          });
+      writtenCounter.increment(dataInfluences.size());
+    } catch (Throwable ex) {
+      failedCounter.increment(dataInfluences.size());
+      logger.error("Write {} audit data influences failed", dataInfluences.size(), ex);
+    }
+  }
+
+  /**
+   * Holds the records appended in a transaction until it completes.
+   */
+  private class PendingRecords implements TransactionSynchronization {
+
+    private final List<BaseEntity> records;
+
+    private PendingRecords(List<BaseEntity> records) {
+      this.records = records;
+    }
+
+    @Override
+    public void suspend() {
+      TransactionSynchronizationManager.unbindResource(ApolloAuditLogAsyncSink.this);
+    }
+
+    @Override
+    public void resume() {
+      TransactionSynchronizationManager.bindResource(ApolloAuditLogAsyncSink.this, records);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(ApolloAuditLogAsyncSink.this);
+      if (status == STATUS_COMMITTED) {
+        records.forEach(ApolloAuditLogAsyncSink.this::offer);
+      }
+    }
+  }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.sink;
+
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
+
+/**
+ * Where the audit logs and data influences are written to.
+ */
+public interface ApolloAuditLogSink {
+
+  void appendLog(ApolloAuditLog auditLog);
+
+  void appendDataInfluence(ApolloAuditLogDataInfluence dataInfluence);
+}
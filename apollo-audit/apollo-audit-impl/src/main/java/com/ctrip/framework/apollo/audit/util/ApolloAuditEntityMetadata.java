@@ -0,0 +1,133 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.util;
+
+import com.ctrip.framework.apollo.audit.annotation.ApolloAuditLogDataInfluenceTableField;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The audit definition of an entity class, i.e. its data influence table name and the getters of
+ * its id and audited fields. It is resolved once per class, instead of looking up the annotated
+ * fields every time the data influences of the entities are appended.
+ */
+public class ApolloAuditEntityMetadata {
+
+  private static final ConcurrentMap<Class<?>, ApolloAuditEntityMetadata> METADATA_CACHE =
+      new ConcurrentHashMap<>();
+  private static final ApolloAuditEntityMetadata NOT_AUDITED =
+      new ApolloAuditEntityMetadata(null, null, Collections.emptyList());
+  private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+  private final String tableName;
+  private final MethodHandle idGetter;
+  private final List<AuditedField> auditedFields;
+
+  private ApolloAuditEntityMetadata(String tableName, MethodHandle idGetter,
+      List<AuditedField> auditedFields) {
+    this.tableName = tableName;
+    this.idGetter = idGetter;
+    this.auditedFields = auditedFields;
+  }
+
+  public static ApolloAuditEntityMetadata of(Class<?> beanDefinition) {
+    return METADATA_CACHE.computeIfAbsent(beanDefinition, ApolloAuditEntityMetadata::resolve);
+  }
+
+  private static ApolloAuditEntityMetadata resolve(Class<?> beanDefinition) {
+    String tableName = ApolloAuditUtil.getApolloAuditLogTableName(beanDefinition);
+    if (Objects.isNull(tableName) || Objects.equals(tableName, "")) {
+      return NOT_AUDITED;
+    }
+    Field idField = ApolloAuditUtil.getPersistenceIdFieldByAnnotation(beanDefinition);
+    if (idField == null) {
+      throw new IllegalArgumentException("no id field found in " + beanDefinition.getName());
+    }
+    List<AuditedField> auditedFields = new ArrayList<>();
+    for (Field field : ApolloAuditUtil
+        .getAnnotatedFields(ApolloAuditLogDataInfluenceTableField.class, beanDefinition)) {
+      String fieldName = field.getAnnotation(ApolloAuditLogDataInfluenceTableField.class)
+          .fieldName();
+      auditedFields.add(new AuditedField(fieldName, getter(field)));
+    }
+    return new ApolloAuditEntityMetadata(tableName, getter(idField),
+        Collections.unmodifiableList(auditedFields));
+  }
+
+  private static MethodHandle getter(Field field) {
+    field.setAccessible(true);
+    try {
+      return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+    } catch (IllegalAccessException ex) {
+      throw new IllegalArgumentException("failed to access field " + field, ex);
+    }
+  }
+
+  private static Object get(MethodHandle getter, Object entity) {
+    try {
+      return (Object) getter.invokeExact(entity);
+    } catch (Throwable ex) {
+      throw new IllegalArgumentException("failed to read the audited entity " + entity, ex);
+    }
+  }
+
+  /**
+   * @return false if the class is not marked as a data influence table
+   */
+  public boolean isAudited() {
+    return tableName != null;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public String getId(Object entity) {
+    return get(idGetter, entity).toString();
+  }
+
+  public List<AuditedField> getAuditedFields() {
+    return auditedFields;
+  }
+
+  public static class AuditedField {
+
+    private final String fieldName;
+    private final MethodHandle getter;
+
+    private AuditedField(String fieldName, MethodHandle getter) {
+      this.fieldName = fieldName;
+      this.getter = getter;
+    }
+
+    public String getFieldName() {
+      return fieldName;
+    }
+
+    public String getValue(Object entity) {
+      return String.valueOf(get(getter, entity));
+    }
+  }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.sink;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.ctrip.framework.apollo.audit.ApolloAuditProperties;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLog;
+import com.ctrip.framework.apollo.audit.entity.ApolloAuditLogDataInfluence;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+public class ApolloAuditLogAsyncSinkTest {
+
+  private JdbcTemplate jdbcTemplate;
+  private SimpleMeterRegistry meterRegistry;
+  private ApolloAuditProperties.Sink properties;
+
+  @BeforeEach
+  void setUp() {
+    jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+    meterRegistry = new SimpleMeterRegistry();
+    properties = new ApolloAuditProperties.Sink();
+    properties.setBatchSize(2);
+    properties.setFlushIntervalInMillis(10);
+  }
+
+  @AfterEach
+  void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testWriteInBatches() throws Exception {
+    ApolloAuditLogAsyncSink sink =
+        new ApolloAuditLogAsyncSink(jdbcTemplate, properties, meterRegistry);
+    sink.appendLog(ApolloAuditLog.builder().spanId("span").build());
+    for (int i = 0; i < 3; i++) {
+      sink.appendDataInfluence(ApolloAuditLogDataInfluence.builder().spanId("span").build());
+    }
+
+    sink.afterPropertiesSet();
+    sink.destroy();
+
+    ArgumentCaptor<List<Object>> captor = ArgumentCaptor.forClass(List.class);
+    Mockito.verify(jdbcTemplate, Mockito.times(3)).batchUpdate(Mockito.anyString(),
+        captor.capture(), Mockito.anyInt(),
+        Mockito.any(ParameterizedPreparedStatementSetter.class));
+    assertEquals(1, captor.getAllValues().get(0).size());
+    assertEquals(1, captor.getAllValues().get(1).size());
+    assertEquals(2, captor.getAllValues().get(2).size());
+    assertEquals(4, recordsCount("written"));
+  }
+
+  @Test
+  public void testDropWhenBufferIsFull() {
+    properties.setBufferSize(1);
+    properties.setOverflowPolicy(ApolloAuditProperties.OverflowPolicy.DROP);
+    ApolloAuditLogAsyncSink sink =
+        new ApolloAuditLogAsyncSink(jdbcTemplate, properties, meterRegistry);
+
+    sink.appendLog(ApolloAuditLog.builder().spanId("span").build());
+    sink.appendLog(ApolloAuditLog.builder().spanId("anotherSpan").build());
+
+    assertEquals(1, bufferSize());
+    assertEquals(1, recordsCount("dropped"));
+  }
+
+  @Test
+  public void testAppendAfterCommit() {
+    ApolloAuditLogAsyncSink sink =
+        new ApolloAuditLogAsyncSink(jdbcTemplate, properties, meterRegistry);
+
+    TransactionSynchronizationManager.initSynchronization();
+    sink.appendLog(ApolloAuditLog.builder().spanId("span").build());
+    sink.appendDataInfluence(ApolloAuditLogDataInfluence.builder().spanId("span").build());
+    assertEquals(0, bufferSize());
+    complete(TransactionSynchronization.STATUS_COMMITTED);
+
+    assertEquals(2, bufferSize());
+  }
+
+  @Test
+  public void testDiscardOnRollback() {
+    ApolloAuditLogAsyncSink sink =
+        new ApolloAuditLogAsyncSink(jdbcTemplate, properties, meterRegistry);
+
+    TransactionSynchronizationManager.initSynchronization();
+    sink.appendLog(ApolloAuditLog.builder().spanId("span").build());
+    complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+    assertEquals(0, bufferSize());
+  }
+
+  private void complete(int status) {
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    TransactionSynchronizationManager.clearSynchronization();
+    TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations, status);
+  }
+
+  private double bufferSize() {
+    return meterRegistry.get("apollo.audit.sink.buffer.size").gauge().value();
+  }
+
+  private double recordsCount(String result) {
+    return meterRegistry.get("apollo.audit.sink.records").tag("result", result).counter()
+        .count();
+  }
+}
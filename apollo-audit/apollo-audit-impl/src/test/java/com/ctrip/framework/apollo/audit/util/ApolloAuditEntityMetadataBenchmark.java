@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.util;
+
+import com.ctrip.framework.apollo.audit.MockDataInfluenceEntity;
+import com.ctrip.framework.apollo.audit.annotation.ApolloAuditLogDataInfluenceTableField;
+import com.ctrip.framework.apollo.audit.util.ApolloAuditEntityMetadata.AuditedField;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Compares extracting the data influences of the entities with {@link ApolloAuditEntityMetadata}
+ * and with the reflection it replaced in ApolloAuditLogApiJpaImpl, run it with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApolloAuditEntityMetadataBenchmark {
+
+  @Param({"10000"})
+  private int entityNum;
+
+  private List<Object> entities;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    entities = new ArrayList<>(entityNum);
+    for (int i = 0; i < entityNum; i++) {
+      MockDataInfluenceEntity entity = new MockDataInfluenceEntity();
+      entity.setId(i + 1);
+      entity.setMarkedAttribute("value" + i);
+      entities.add(entity);
+    }
+  }
+
+  @Benchmark
+  public void metadata(Blackhole blackhole) {
+    ApolloAuditEntityMetadata metadata =
+        ApolloAuditEntityMetadata.of(MockDataInfluenceEntity.class);
+    String tableName = metadata.getTableName();
+    for (Object e : entities) {
+      String tableId = metadata.getId(e);
+      for (AuditedField field : metadata.getAuditedFields()) {
+        consume(blackhole, tableName, tableId, field.getFieldName(), field.getValue(e));
+      }
+    }
+  }
+
+  @Benchmark
+  public void reflection(Blackhole blackhole) throws IllegalAccessException {
+    Class<?> beanDefinition = MockDataInfluenceEntity.class;
+    String tableName = ApolloAuditUtil.getApolloAuditLogTableName(beanDefinition);
+    List<Field> dataInfluenceFields = ApolloAuditUtil
+        .getAnnotatedFields(ApolloAuditLogDataInfluenceTableField.class, beanDefinition);
+    Field idField = ApolloAuditUtil.getPersistenceIdFieldByAnnotation(beanDefinition);
+    for (Object e : entities) {
+      idField.setAccessible(true);
+      String tableId = idField.get(e).toString();
+      for (Field f : dataInfluenceFields) {
+        f.setAccessible(true);
+        String val = String.valueOf(f.get(e));
+        String fieldName =
+            f.getAnnotation(ApolloAuditLogDataInfluenceTableField.class).fieldName();
+        consume(blackhole, tableName, tableId, fieldName, val);
+      }
+    }
+  }
+
+  private static void consume(Blackhole blackhole, String tableName, String tableId,
+      String fieldName, String value) {
+    blackhole.consume(tableName);
+    blackhole.consume(tableId);
+    blackhole.consume(fieldName);
+    blackhole.consume(value);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(ApolloAuditEntityMetadataBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.audit.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ctrip.framework.apollo.audit.MockDataInfluenceEntity;
+import com.ctrip.framework.apollo.audit.util.ApolloAuditEntityMetadata.AuditedField;
+import org.junit.jupiter.api.Test;
+
+public class ApolloAuditEntityMetadataTest {
+
+  @Test
+  public void testResolveAuditedEntity() {
+    MockDataInfluenceEntity entity = new MockDataInfluenceEntity();
+    entity.setId(10);
+    entity.setMarkedAttribute("someValue");
+
+    ApolloAuditEntityMetadata metadata =
+        ApolloAuditEntityMetadata.of(MockDataInfluenceEntity.class);
+
+    assertTrue(metadata.isAudited());
+    assertSame(metadata, ApolloAuditEntityMetadata.of(MockDataInfluenceEntity.class));
+    assertEquals("MockTableName", metadata.getTableName());
+    assertEquals("10", metadata.getId(entity));
+    assertEquals(1, metadata.getAuditedFields().size());
+    AuditedField field = metadata.getAuditedFields().get(0);
+    assertEquals("MarkedAttribute", field.getFieldName());
+    assertEquals("someValue", field.getValue(entity));
+
+    entity.setMarkedAttribute(null);
+    assertEquals("null", field.getValue(entity));
+  }
+
+  @Test
+  public void testResolveNotAuditedEntity() {
+    assertFalse(ApolloAuditEntityMetadata.of(Object.class).isAudited());
+  }
+
+  @Test
+  public void testReadWrongEntity() {
+    ApolloAuditEntityMetadata metadata =
+        ApolloAuditEntityMetadata.of(MockDataInfluenceEntity.class);
+
+    assertThrows(IllegalArgumentException.class, () -> metadata.getId(new Object()));
+  }
+}
@@ -29,18 +29,26 @@ import com.ctrip.framework.apollo.audit.repository.ApolloAuditLogDataInfluenceRe
 import com.ctrip.framework.apollo.audit.repository.ApolloAuditLogRepository;
 import com.ctrip.framework.apollo.audit.service.ApolloAuditLogDataInfluenceService;
 import com.ctrip.framework.apollo.audit.service.ApolloAuditLogService;
+import com.ctrip.framework.apollo.audit.sink.ApolloAuditLogAsyncSink;
+import com.ctrip.framework.apollo.audit.sink.ApolloAuditLogSink;
+import com.ctrip.framework.apollo.audit.sink.ApolloAuditLogSyncSink;
 import com.ctrip.framework.apollo.audit.spi.ApolloAuditLogQueryApiPreAuthorizer;
 import com.ctrip.framework.apollo.audit.spi.ApolloAuditOperatorSupplier;
 import com.ctrip.framework.apollo.audit.spi.defaultimpl.ApolloAuditLogQueryApiDefaultPreAuthorizer;
 import com.ctrip.framework.apollo.audit.spi.defaultimpl.ApolloAuditOperatorDefaultSupplier;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import javax.sql.DataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 @Configuration
 @EnableConfigurationProperties(ApolloAuditProperties.class)
@@ -57,15 +65,29 @@ public class ApolloAuditAutoConfiguration {
     logger.info("ApolloAuditAutoConfigure initializing...");
   }
 
+  @Bean
+  public ApolloAuditLogSink apolloAuditLogSink(ApolloAuditLogRepository logRepository,
+      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository, DataSource dataSource,
+      ObjectProvider<MeterRegistry> meterRegistry) {
+    ApolloAuditProperties.Sink sink = apolloAuditProperties.getSink();
+    if (!sink.isAsync()) {
+      return new ApolloAuditLogSyncSink(logRepository, dataInfluenceRepository);
+    }
+    return new ApolloAuditLogAsyncSink(new JdbcTemplate(dataSource), sink,
+        meterRegistry.getIfAvailable(() -> Metrics.globalRegistry));
+  }
+
   @Bean
   public ApolloAuditLogDataInfluenceService apolloAuditLogDataInfluenceService(
-      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository) {
-    return new ApolloAuditLogDataInfluenceService(dataInfluenceRepository);
+      ApolloAuditLogDataInfluenceRepository dataInfluenceRepository,
+      ApolloAuditLogSink apolloAuditLogSink) {
+    return new ApolloAuditLogDataInfluenceService(dataInfluenceRepository, apolloAuditLogSink);
   }
 
   @Bean
-  public ApolloAuditLogService apolloAuditLogService(ApolloAuditLogRepository logRepository) {
-    return new ApolloAuditLogService(logRepository);
+  public ApolloAuditLogService apolloAuditLogService(ApolloAuditLogRepository logRepository,
+      ApolloAuditLogSink apolloAuditLogSink) {
+    return new ApolloAuditLogService(logRepository, apolloAuditLogSink);
   }
 
   @Bean
@@ -49,14 +49,18 @@ public class BizConfig extends RefreshableConfig {
 
   private static final int DEFAULT_APPNAMESPACE_CACHE_REBUILD_INTERVAL = 60; // 60s
   private static final int DEFAULT_GRAY_RELEASE_RULE_SCAN_INTERVAL = 60; // 60s
+  private static final int DEFAULT_GRAY_RELEASE_RULE_RECONCILE_INTERVAL = 600; // 600s
   private static final int DEFAULT_APPNAMESPACE_CACHE_SCAN_INTERVAL = 1; // 1s
   private static final int DEFAULT_ACCESS_KEY_CACHE_SCAN_INTERVAL = 1; // 1s
   private static final int DEFAULT_ACCESS_KEY_CACHE_REBUILD_INTERVAL = 60; // 60s
   private static final int DEFAULT_ACCESS_KEY_AUTH_TIME_DIFF_TOLERANCE = 60; // 60s
+  private static final int DEFAULT_ACCESS_KEY_AUTH_SIGNATURE_CACHE_SIZE = 0; // disabled
   private static final int DEFAULT_RELEASE_MESSAGE_CACHE_SCAN_INTERVAL = 1; // 1s
   private static final int DEFAULT_RELEASE_MESSAGE_SCAN_INTERVAL_IN_MS = 1000; // 1000ms
+  private static final int DEFAULT_ITEM_SEARCH_INDEX_VALUE_MAX_LENGTH = 128;
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH = 100;
   private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI = 100;// 100ms
+  private static final int DEFAULT_RELEASE_MESSAGE_NOTIFICATION_DISPATCHER_THREADS = 4;
   private static final int DEFAULT_LONG_POLLING_TIMEOUT = 60; // 60s
   public static final int DEFAULT_RELEASE_HISTORY_RETENTION_SIZE = -1;
 
@@ -64,6 +68,24 @@ public class BizConfig extends RefreshableConfig {
   private static final int DEFAULT_INSTANCE_CACHE_MAX_SIZE = 50000;
   private static final int DEFAULT_INSTANCE_CONFIG_CACHE_MAX_SIZE = 50000;
   private static final int DEFAULT_INSTANCE_CONFIG_AUDIT_TIME_THRESHOLD_IN_MINUTE = 10;// 10 minutes
+  private static final int DEFAULT_INSTANCE_CONFIG_AUDIT_WORKERS = 2;
+  private static final int DEFAULT_INSTANCE_CONFIG_AUDIT_BATCH_SIZE = 100;
+  private static final int DEFAULT_INSTANCE_CONFIG_AUDIT_FLUSH_INTERVAL_IN_MILLI = 1000;
+  private static final int DEFAULT_CONFIG_SERVICE_RESPONSE_CACHE_MAX_SIZE_IN_MB = 64;
+  private static final int DEFAULT_CONFIG_SERVICE_CONFIG_FILE_CACHE_MAX_SIZE_IN_MB = 50;
+  private static final int DEFAULT_CONFIG_SERVICE_CONFIG_FILE_CACHE_EXPIRE_IN_MINUTES = 30;
+  private static final int DEFAULT_CONFIG_SERVICE_INCREMENTAL_CHANGE_RELEASE_CACHE_MAX_KEYS =
+      1000000;
+  private static final int DEFAULT_CONFIG_SERVICE_INCREMENTAL_CHANGE_DIFF_CACHE_MAX_CHANGES =
+      100000;
+  private static final int DEFAULT_CONFIG_SERVICE_SNAPSHOT_LOAD_THREADS = 4;
+  private static final int DEFAULT_CONFIG_SERVICE_SNAPSHOT_LOAD_PAGE_SIZE = 500;
+  private static final int DEFAULT_RELEASE_MESSAGE_CACHE_LOAD_PAGE_SIZE = 500;
+  private static final int DEFAULT_CACHE_LOAD_PAGE_SIZE = 1000;
+  private static final int DEFAULT_RELEASE_MESSAGE_CACHE_MAX_IDLE_DAYS = 0; // disabled
+  private static final int DEFAULT_RELEASE_INCREMENTAL_BUILD_MAX_COMMITS = 500;
+  private static final int DEFAULT_RELEASE_CONFIGURATIONS_MIGRATION_BATCH_SIZE = 100;
+  private static final int DEFAULT_RELEASE_CONFIGURATIONS_MIGRATION_BATCH_INTERVAL_IN_MILLI = 1000;
 
   private static final Gson GSON = new Gson();
 
@@ -100,6 +122,16 @@ public class BizConfig extends RefreshableConfig {
     return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_GRAY_RELEASE_RULE_SCAN_INTERVAL);
   }
 
+  /**
+   * The interval to reload all the gray release rules, while the scans in between only load the
+   * new and updated ones
+   */
+  public int grayReleaseRuleReconcileInterval() {
+    int interval = getIntProperty("apollo.gray-release-rule-reconcile.interval",
+        DEFAULT_GRAY_RELEASE_RULE_RECONCILE_INTERVAL);
+    return checkInt(interval, 1, Integer.MAX_VALUE, DEFAULT_GRAY_RELEASE_RULE_RECONCILE_INTERVAL);
+  }
+
   public long longPollingTimeoutInMilli() {
     int timeout = getIntProperty("long.polling.timeout", DEFAULT_LONG_POLLING_TIMEOUT);
     // java client's long polling timeout is 90 seconds, so server side long polling timeout must be
@@ -152,6 +184,90 @@ public class BizConfig extends RefreshableConfig {
     return checkInt(limit, 5, Integer.MAX_VALUE, DEFAULT_MAX_ITEM_NUM);
   }
 
+  /**
+   * Whether the admin service keeps an in-memory index of the item keys and values for the item
+   * search, instead of scanning the Item table with LIKE.
+   * <p>
+   * Every trigram of a key or a held value costs 8 bytes. With 30 char keys and 50 char values,
+   * expect roughly 1 GB of heap per million items, or 0.4 GB when only the keys are indexed with
+   * item.search-index.value.max-length = 0.
+   */
+  public boolean isItemSearchIndexEnabled() {
+    return getBooleanProperty("item.search-index.enabled", false);
+  }
+
+  /**
+   * The values longer than this are not held by the item search index, a value search checks the
+   * items having such values in the database. 0 indexes the keys only.
+   */
+  public int itemSearchIndexValueMaxLength() {
+    int length = getIntProperty("item.search-index.value.max-length",
+        DEFAULT_ITEM_SEARCH_INDEX_VALUE_MAX_LENGTH);
+    return checkInt(length, 0, Integer.MAX_VALUE, DEFAULT_ITEM_SEARCH_INDEX_VALUE_MAX_LENGTH);
+  }
+
+  /**
+   * Whether to build the release of a namespace from the commits since its previous release,
+   * instead of loading all its items
+   */
+  public boolean isReleaseIncrementalBuildEnabled() {
+    return getBooleanProperty("release.incremental-build.enabled", false);
+  }
+
+  /**
+   * The max number of commits applied to the previous release, the release is built from all the
+   * items when there are more
+   */
+  public int releaseIncrementalBuildMaxCommits() {
+    int maxCommits = getIntProperty("release.incremental-build.max-commits",
+        DEFAULT_RELEASE_INCREMENTAL_BUILD_MAX_COMMITS);
+    return checkInt(maxCommits, 1, Integer.MAX_VALUE,
+        DEFAULT_RELEASE_INCREMENTAL_BUILD_MAX_COMMITS);
+  }
+
+  /**
+   * The codec the configurations of new releases are stored with, plain or gzip
+   */
+  public String releaseConfigurationsCodec() {
+    return getValue("release.configurations.codec", "plain");
+  }
+
+  /**
+   * Whether to convert the stored configurations of existing releases to the configured codec in
+   * the background
+   */
+  public boolean isReleaseConfigurationsMigrationEnabled() {
+    return getBooleanProperty("release.configurations.migration.enabled", false);
+  }
+
+  public int releaseConfigurationsMigrationBatchSize() {
+    int batchSize = getIntProperty("release.configurations.migration.batch.size",
+        DEFAULT_RELEASE_CONFIGURATIONS_MIGRATION_BATCH_SIZE);
+    return checkInt(batchSize, 1, 1000, DEFAULT_RELEASE_CONFIGURATIONS_MIGRATION_BATCH_SIZE);
+  }
+
+  public int releaseConfigurationsMigrationBatchIntervalInMilli() {
+    int interval = getIntProperty("release.configurations.migration.batch.interval.millis",
+        DEFAULT_RELEASE_CONFIGURATIONS_MIGRATION_BATCH_INTERVAL_IN_MILLI);
+    return checkInt(interval, 0, Integer.MAX_VALUE,
+        DEFAULT_RELEASE_CONFIGURATIONS_MIGRATION_BATCH_INTERVAL_IN_MILLI);
+  }
+
+  /**
+   * Whether namespacePublishInfo only checks the namespaces marked with unpublished changes, enable
+   * it after the marks are backfilled
+   */
+  public boolean isNamespacePublishInfoIndexEnabled() {
+    return getBooleanProperty("namespace.publish-info.index.enabled", false);
+  }
+
+  /**
+   * Whether to mark the existing namespaces with unpublished changes in the background
+   */
+  public boolean isNamespacePublishInfoBackfillEnabled() {
+    return getBooleanProperty("namespace.publish-info.backfill.enabled", false);
+  }
+
   public boolean isNamespaceLockSwitchOff() {
     return !getBooleanProperty("namespace.lock.switch", false);
   }
@@ -203,6 +319,15 @@ public class BizConfig extends RefreshableConfig {
         DEFAULT_ACCESS_KEY_AUTH_TIME_DIFF_TOLERANCE);
   }
 
+  /**
+   * The max size of the cache of the verified signatures, 0 means disabled
+   */
+  public int accessKeyAuthSignatureCacheSize() {
+    int cacheSize = getIntProperty("apollo.access-key.auth-signature-cache.size",
+        DEFAULT_ACCESS_KEY_AUTH_SIGNATURE_CACHE_SIZE);
+    return checkInt(cacheSize, 0, Integer.MAX_VALUE, DEFAULT_ACCESS_KEY_AUTH_SIGNATURE_CACHE_SIZE);
+  }
+
   public int releaseHistoryRetentionSize() {
     int count = getIntProperty("apollo.release-history.retention.size",
         DEFAULT_RELEASE_HISTORY_RETENTION_SIZE);
@@ -225,12 +350,48 @@ public class BizConfig extends RefreshableConfig {
     return TimeUnit.SECONDS;
   }
 
+  public int releaseMessageCacheLoadPageSize() {
+    int pageSize = getIntProperty("apollo.release-message-cache.load-page-size",
+        DEFAULT_RELEASE_MESSAGE_CACHE_LOAD_PAGE_SIZE);
+    return checkInt(pageSize, 1, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_CACHE_LOAD_PAGE_SIZE);
+  }
+
+  /**
+   * The page size of loading the app namespaces and the gray release rules into the caches of the
+   * config service
+   */
+  public int cacheLoadPageSize() {
+    int pageSize = getIntProperty("apollo.cache.load-page-size", DEFAULT_CACHE_LOAD_PAGE_SIZE);
+    return checkInt(pageSize, 1, Integer.MAX_VALUE, DEFAULT_CACHE_LOAD_PAGE_SIZE);
+  }
+
+  /**
+   * The release messages which are not published for the days are evicted from the cache, e.g.
+   * the ones of the deleted namespaces, 0 means never
+   */
+  public int releaseMessageCacheMaxIdleDays() {
+    int days = getIntProperty("apollo.release-message-cache.max-idle-days",
+        DEFAULT_RELEASE_MESSAGE_CACHE_MAX_IDLE_DAYS);
+    return checkInt(days, 0, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_CACHE_MAX_IDLE_DAYS);
+  }
+
   public int releaseMessageScanIntervalInMilli() {
     int interval =
         getIntProperty("apollo.message-scan.interval", DEFAULT_RELEASE_MESSAGE_SCAN_INTERVAL_IN_MS);
     return checkInt(interval, 100, Integer.MAX_VALUE, DEFAULT_RELEASE_MESSAGE_SCAN_INTERVAL_IN_MS);
   }
 
+  /**
+   * The database scan interval when release messages are pushed, the same as
+   * apollo.message-scan.interval by default, as only the releases of the admin services sharing
+   * the transport are pushed. Only lengthen it when all the admin services push to this one.
+   */
+  public int releaseMessagePushScanIntervalInMilli() {
+    int scanInterval = releaseMessageScanIntervalInMilli();
+    int interval = getIntProperty("apollo.message-scan.push.interval", scanInterval);
+    return checkInt(interval, 100, Integer.MAX_VALUE, scanInterval);
+  }
+
   public int releaseMessageNotificationBatch() {
     int batch = getIntProperty("apollo.release-message.notification.batch",
         DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH);
@@ -244,10 +405,50 @@ public class BizConfig extends RefreshableConfig {
         DEFAULT_RELEASE_MESSAGE_NOTIFICATION_BATCH_INTERVAL_IN_MILLI);
   }
 
+  public int releaseMessageNotificationDispatcherThreads() {
+    int threads = getIntProperty("apollo.release-message.notification.dispatcher.threads",
+        DEFAULT_RELEASE_MESSAGE_NOTIFICATION_DISPATCHER_THREADS);
+    return checkInt(threads, 1, Integer.MAX_VALUE,
+        DEFAULT_RELEASE_MESSAGE_NOTIFICATION_DISPATCHER_THREADS);
+  }
+
+  /**
+   * @return the max notifications per second of the async notification, defaults to the rate of
+   * one batch per batch interval
+   */
+  public double releaseMessageNotificationRateLimit() {
+    int rateLimit = getIntProperty("apollo.release-message.notification.rate-limit", 0);
+    if (rateLimit > 0) {
+      return rateLimit;
+    }
+    return releaseMessageNotificationBatch() * 1000.0
+        / releaseMessageNotificationBatchIntervalInMilli();
+  }
+
   public boolean isConfigServiceCacheEnabled() {
     return getBooleanProperty("config-service.cache.enabled", false);
   }
 
+  /**
+   * whether to load all the latest active releases into memory at startup, takes precedence over
+   * config-service.cache.enabled
+   */
+  public boolean isConfigServiceSnapshotEnabled() {
+    return getBooleanProperty("config-service.snapshot.enabled", false);
+  }
+
+  public int configServiceSnapshotLoadThreads() {
+    int threads = getIntProperty("config-service.snapshot.load.threads",
+        DEFAULT_CONFIG_SERVICE_SNAPSHOT_LOAD_THREADS);
+    return checkInt(threads, 1, 64, DEFAULT_CONFIG_SERVICE_SNAPSHOT_LOAD_THREADS);
+  }
+
+  public int configServiceSnapshotLoadPageSize() {
+    int pageSize = getIntProperty("config-service.snapshot.load.page-size",
+        DEFAULT_CONFIG_SERVICE_SNAPSHOT_LOAD_PAGE_SIZE);
+    return checkInt(pageSize, 1, 10000, DEFAULT_CONFIG_SERVICE_SNAPSHOT_LOAD_PAGE_SIZE);
+  }
+
   public boolean isConfigServiceCacheStatsEnabled() {
     return getBooleanProperty("config-service.cache.stats.enabled", false);
   }
@@ -256,6 +457,39 @@ public class BizConfig extends RefreshableConfig {
     return getBooleanProperty("config-service.cache.key.ignore-case", false);
   }
 
+  public boolean isConfigServiceResponseCacheEnabled() {
+    return getBooleanProperty("config-service.response.cache.enabled", false);
+  }
+
+  public boolean isConfigServiceResponseCacheGzipEnabled() {
+    return getBooleanProperty("config-service.response.cache.gzip.enabled", false);
+  }
+
+  public int configServiceResponseCacheMaxSizeInMB() {
+    int maxSize = getIntProperty("config-service.response.cache.max-size-in-mb",
+        DEFAULT_CONFIG_SERVICE_RESPONSE_CACHE_MAX_SIZE_IN_MB);
+    return checkInt(maxSize, 1, Integer.MAX_VALUE,
+        DEFAULT_CONFIG_SERVICE_RESPONSE_CACHE_MAX_SIZE_IN_MB);
+  }
+
+  public int configServiceConfigFileCacheMaxSizeInMB() {
+    int maxSize = getIntProperty("config-service.config-file.cache.max-size-in-mb",
+        DEFAULT_CONFIG_SERVICE_CONFIG_FILE_CACHE_MAX_SIZE_IN_MB);
+    return checkInt(maxSize, 1, Integer.MAX_VALUE,
+        DEFAULT_CONFIG_SERVICE_CONFIG_FILE_CACHE_MAX_SIZE_IN_MB);
+  }
+
+  public int configServiceConfigFileCacheExpireInMinutes() {
+    int expire = getIntProperty("config-service.config-file.cache.expire-in-minutes",
+        DEFAULT_CONFIG_SERVICE_CONFIG_FILE_CACHE_EXPIRE_IN_MINUTES);
+    return checkInt(expire, 1, Integer.MAX_VALUE,
+        DEFAULT_CONFIG_SERVICE_CONFIG_FILE_CACHE_EXPIRE_IN_MINUTES);
+  }
+
+  public boolean isConfigServiceConfigFileCacheGzipEnabled() {
+    return getBooleanProperty("config-service.config-file.cache.gzip.enabled", false);
+  }
+
   public int getInstanceConfigAuditMaxSize() {
     int auditMaxSize =
         getIntProperty("instance.config.audit.max.size", DEFAULT_INSTANCE_CONFIG_AUDIT_MAX_SIZE);
@@ -281,10 +515,52 @@ public class BizConfig extends RefreshableConfig {
     return TimeUnit.MINUTES.toMillis(timeThreshold);
   }
 
+  public int getInstanceConfigAuditWorkers() {
+    int workers =
+        getIntProperty("instance.config.audit.workers", DEFAULT_INSTANCE_CONFIG_AUDIT_WORKERS);
+    return checkInt(workers, 1, 64, DEFAULT_INSTANCE_CONFIG_AUDIT_WORKERS);
+  }
+
+  public int getInstanceConfigAuditBatchSize() {
+    int batchSize = getIntProperty("instance.config.audit.batch.size",
+        DEFAULT_INSTANCE_CONFIG_AUDIT_BATCH_SIZE);
+    return checkInt(batchSize, 1, 1000, DEFAULT_INSTANCE_CONFIG_AUDIT_BATCH_SIZE);
+  }
+
+  /**
+   * The audits of the same instance and namespace within the interval are coalesced into one write
+   */
+  public int getInstanceConfigAuditFlushIntervalInMilli() {
+    int interval = getIntProperty("instance.config.audit.flush.interval.millis",
+        DEFAULT_INSTANCE_CONFIG_AUDIT_FLUSH_INTERVAL_IN_MILLI);
+    return checkInt(interval, 10, Integer.MAX_VALUE,
+        DEFAULT_INSTANCE_CONFIG_AUDIT_FLUSH_INTERVAL_IN_MILLI);
+  }
+
   public boolean isConfigServiceIncrementalChangeEnabled() {
     return getBooleanProperty("config-service.incremental.change.enabled", false);
   }
 
+  /**
+   * The max number of configuration keys of all the releases cached for incremental sync
+   */
+  public int configServiceIncrementalChangeReleaseCacheMaxKeys() {
+    int maxKeys = getIntProperty("config-service.incremental.change.release-cache.max-keys",
+        DEFAULT_CONFIG_SERVICE_INCREMENTAL_CHANGE_RELEASE_CACHE_MAX_KEYS);
+    return checkInt(maxKeys, 1, Integer.MAX_VALUE,
+        DEFAULT_CONFIG_SERVICE_INCREMENTAL_CHANGE_RELEASE_CACHE_MAX_KEYS);
+  }
+
+  /**
+   * The max number of configuration changes of all the diffs cached for incremental sync
+   */
+  public int configServiceIncrementalChangeDiffCacheMaxChanges() {
+    int maxChanges = getIntProperty("config-service.incremental.change.diff-cache.max-changes",
+        DEFAULT_CONFIG_SERVICE_INCREMENTAL_CHANGE_DIFF_CACHE_MAX_CHANGES);
+    return checkInt(maxChanges, 1, Integer.MAX_VALUE,
+        DEFAULT_CONFIG_SERVICE_INCREMENTAL_CHANGE_DIFF_CACHE_MAX_CHANGES);
+  }
+
   int checkInt(int value, int min, int max, int defaultValue) {
     if (value >= min && value <= max) {
       return value;
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.config;
+
+import com.ctrip.framework.apollo.biz.utils.ReleaseConfigurationsCodecs;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+
+/**
+ * Points the release configurations codec at release.configurations.codec once the context is up.
+ * Until then, and after the context is closed, new configurations are written as plain json.
+ */
+@Component
+public class ReleaseConfigurationsCodecInitializer implements SmartInitializingSingleton,
+    DisposableBean {
+
+  private final BizConfig bizConfig;
+
+  public ReleaseConfigurationsCodecInitializer(final BizConfig bizConfig) {
+    this.bizConfig = bizConfig;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    ReleaseConfigurationsCodecs.setCurrentCodecName(bizConfig::releaseConfigurationsCodec);
+  }
+
+  @Override
+  public void destroy() {
+    ReleaseConfigurationsCodecs.setCurrentCodecName(null);
+  }
+}
@@ -41,6 +41,11 @@ public class Namespace extends BaseEntity {
   @Column(name = "`NamespaceName`", nullable = false)
   private String namespaceName;
 
+  // maintained by the update queries of NamespaceRepository, never written with the entity
+  @Column(name = "`HasUnpublishedChanges`", columnDefinition = "Bit default '0'",
+      insertable = false, updatable = false)
+  private boolean hasUnpublishedChanges;
+
   public Namespace() {
 
   }
@@ -63,6 +68,10 @@ public class Namespace extends BaseEntity {
     return namespaceName;
   }
 
+  public boolean hasUnpublishedChanges() {
+    return hasUnpublishedChanges;
+  }
+
   public void setAppId(String appId) {
     this.appId = appId;
   }
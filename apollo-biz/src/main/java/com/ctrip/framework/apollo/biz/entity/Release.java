@@ -22,6 +22,7 @@ import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.Where;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.Lob;
 import javax.persistence.Table;
@@ -52,6 +53,7 @@ public class Release extends BaseEntity {
 
   @Column(name = "`Configurations`", nullable = false)
   @Lob
+  @Convert(converter = ReleaseConfigurationsConverter.class)
   private String configurations;
 
   @Column(name = "`Comment`", nullable = false)
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.entity;
+
+import com.ctrip.framework.apollo.biz.utils.ReleaseConfigurationsCodecs;
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Writes the release configurations with the configured codec and reads them back whatever codec
+ * they were written by, so the entity always holds plain json.
+ */
+@Converter
+class ReleaseConfigurationsConverter implements AttributeConverter<String, String> {
+
+  @Override
+  public String convertToDatabaseColumn(String attribute) {
+    return ReleaseConfigurationsCodecs.current().encode(attribute);
+  }
+
+  @Override
+  public String convertToEntityAttribute(String dbData) {
+    return ReleaseConfigurationsCodecs.decode(dbData);
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.grayReleaseRule;
+
+import com.ctrip.framework.apollo.common.constants.NamespaceBranchStatus;
+import com.ctrip.framework.apollo.common.dto.GrayReleaseRuleItemDTO;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.collect.Maps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * An immutable index of the active gray release rules, which is rebuilt and swapped as a whole
+ * when the rules change, so the lookups need neither locks nor copies.
+ * <p>
+ * The rules of each config namespace are indexed by client app id, and then by client ip and
+ * label, so a lookup is a few hash lookups plus a walk of the CIDR trie if there are CIDR blocks.
+ * When several rules match, the one with the smallest rule id wins, which is the order the rules
+ * were evaluated in before.
+ *
+ * @see GrayReleaseRulesHolder
+ */
+final class GrayReleaseRuleIndex {
+  static final GrayReleaseRuleIndex EMPTY = new GrayReleaseRuleIndex(Collections.emptyMap());
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+
+  // configAppId+configCluster+configNamespace -> clientAppId -> matcher
+  private final Map<String, Map<String, ClientMatcher>> matchers;
+  // clientAppId+clientNamespace -> matcher, ips and labels are case insensitive
+  private final Map<String, ClientMatcher> reversedMatchers;
+
+  /**
+   * @param rules configAppId+configCluster+configNamespace -> rules
+   */
+  GrayReleaseRuleIndex(Map<String, ? extends Collection<GrayReleaseRuleCache>> rules) {
+    Map<String, Map<String, ClientMatcher>> matchers = Maps.newHashMap();
+    Map<String, ClientMatcher> reversedMatchers = Maps.newHashMap();
+    for (Map.Entry<String, ? extends Collection<GrayReleaseRuleCache>> entry : rules.entrySet()) {
+      Map<String, ClientMatcher> clientMatchers = Maps.newHashMap();
+      for (GrayReleaseRuleCache rule : entry.getValue()) {
+        if (rule.getBranchStatus() != NamespaceBranchStatus.ACTIVE) {
+          continue;
+        }
+        for (GrayReleaseRuleItemDTO ruleItem : rule.getRuleItems()) {
+          clientMatchers.computeIfAbsent(normalize(ruleItem.getClientAppId()),
+              key -> new ClientMatcher()).add(rule, ruleItem, false);
+          reversedMatchers.computeIfAbsent(
+              assembleReversedKey(ruleItem.getClientAppId(), rule.getNamespaceName()),
+              key -> new ClientMatcher()).add(rule, ruleItem, true);
+        }
+      }
+      if (!clientMatchers.isEmpty()) {
+        matchers.put(normalize(entry.getKey()), clientMatchers);
+      }
+    }
+    this.matchers = matchers;
+    this.reversedMatchers = reversedMatchers;
+  }
+
+  /**
+   * @return the release id of the first active rule which matches the client, or null
+   */
+  Long findReleaseId(String clientAppId, String clientIp, String clientLabel, String configAppId,
+      String configCluster, String configNamespaceName) {
+    String key = STRING_JOINER.join(configAppId, configCluster, configNamespaceName);
+    Map<String, ClientMatcher> clientMatchers = matchers.get(normalize(key));
+    if (clientMatchers == null) {
+      return null;
+    }
+    ClientMatcher matcher = clientMatchers.get(normalize(clientAppId));
+    if (matcher == null) {
+      return null;
+    }
+    GrayReleaseRuleCache rule = first(matcher.findByIp(clientIp), matcher.findByLabel(clientLabel));
+    return rule == null ? null : rule.getReleaseId();
+  }
+
+  boolean hasRule(String clientAppId, String clientIp, String clientLabel, String namespaceName) {
+    ClientMatcher matcher = reversedMatchers.get(assembleReversedKey(clientAppId, namespaceName));
+    if (matcher == null) {
+      return false;
+    }
+    if (matcher.findByIp(normalize(clientIp)) != null) {
+      return true;
+    }
+    return !Strings.isNullOrEmpty(clientLabel)
+        && matcher.findByLabel(normalize(clientLabel)) != null;
+  }
+
+  private static String assembleReversedKey(String clientAppId, String namespaceName) {
+    return normalize(STRING_JOINER.join(clientAppId, namespaceName));
+  }
+
+  private static String normalize(String value) {
+    return value == null ? null : value.toLowerCase(Locale.ROOT);
+  }
+
+  private static GrayReleaseRuleCache first(GrayReleaseRuleCache rule,
+      GrayReleaseRuleCache anotherRule) {
+    if (rule == null) {
+      return anotherRule;
+    }
+    if (anotherRule == null) {
+      return rule;
+    }
+    return rule.getRuleId() <= anotherRule.getRuleId() ? rule : anotherRule;
+  }
+
+  /**
+   * Matches the ip and label of the clients with the same app id
+   */
+  private static final class ClientMatcher {
+    private final Map<String, GrayReleaseRuleCache> ips = Maps.newHashMap();
+    private final Map<String, GrayReleaseRuleCache> labels = Maps.newHashMap();
+    private final IpPrefixTrie cidrs = new IpPrefixTrie();
+    private GrayReleaseRuleCache allIps;
+    private GrayReleaseRuleCache allLabels;
+
+    void add(GrayReleaseRuleCache rule, GrayReleaseRuleItemDTO ruleItem, boolean ignoreCase) {
+      for (String ip : ruleItem.getClientIpList()) {
+        if (GrayReleaseRuleItemDTO.ALL_IP.equals(ip)) {
+          allIps = first(allIps, rule);
+        } else if (!cidrs.add(ip, rule)) {
+          ips.merge(ignoreCase ? normalize(ip) : ip, rule, GrayReleaseRuleIndex::first);
+        }
+      }
+      for (String label : ruleItem.getClientLabelList()) {
+        if (GrayReleaseRuleItemDTO.ALL_Label.equals(label)) {
+          allLabels = first(allLabels, rule);
+        } else {
+          labels.merge(ignoreCase ? normalize(label) : label, rule, GrayReleaseRuleIndex::first);
+        }
+      }
+    }
+
+    GrayReleaseRuleCache findByIp(String ip) {
+      GrayReleaseRuleCache rule = allIps;
+      if (ip != null) {
+        rule = first(rule, ips.get(ip));
+        rule = first(rule, cidrs.find(ip));
+      }
+      return rule;
+    }
+
+    GrayReleaseRuleCache findByLabel(String label) {
+      GrayReleaseRuleCache rule = allLabels;
+      if (label != null) {
+        rule = first(rule, labels.get(label));
+      }
+      return rule;
+    }
+  }
+}
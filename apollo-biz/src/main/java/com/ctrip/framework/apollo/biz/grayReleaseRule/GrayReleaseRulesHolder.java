@@ -16,12 +16,11 @@
  */
 package com.ctrip.framework.apollo.biz.grayReleaseRule;
 
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
 
@@ -43,8 +42,10 @@ import com.google.common.collect.TreeMultimap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.util.CollectionUtils;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executors;
@@ -53,6 +54,17 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Holds the gray release rules.
+ * <p>
+ * The rules of a namespace are reloaded when its release message arrives, and the new and updated
+ * rules are scanned periodically with a DataChange_LastTime watermark. All the rules are reloaded
+ * at a much lower frequency to reconcile, which also evicts the inactive rules. As a branch change
+ * always inserts a new rule, the inactive rule works as the tombstone of a deleted branch.
+ * <p>
+ * The rules are merged by the scan thread and the release message thread, and each change is
+ * published as a new immutable {@link GrayReleaseRuleIndex}, so the lookups on the config request
+ * path are lock free.
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 public class GrayReleaseRulesHolder implements ReleaseMessageListener, InitializingBean {
@@ -61,29 +73,31 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
 
   private final GrayReleaseRuleRepository grayReleaseRuleRepository;
   private final BizConfig bizConfig;
+  private final CacheWarmUp cacheWarmUp;
 
   private int databaseScanInterval;
+  private int databaseReconcileInterval;
+  private int loadPageSize;
+  // the max DataChange_LastTime of the scanned rules, only accessed by the scan thread
+  private Date lastTimeScanned;
   private ScheduledExecutorService executorService;
-  // store configAppId+configCluster+configNamespace -> GrayReleaseRuleCache map
-  private Multimap<String, GrayReleaseRuleCache> grayReleaseRuleCache;
-  // store clientAppId+clientNamespace+ip -> ruleId map
-  private Multimap<String, Long> reversedGrayReleaseRuleCache;
-  // store clientAppId+clientNamespace+label -> ruleId map
-  private Multimap<String, Long> reversedGrayReleaseRuleLabelCache;
+  // store configAppId+configCluster+configNamespace -> GrayReleaseRuleCache map, guarded by this
+  private final Multimap<String, GrayReleaseRuleCache> grayReleaseRuleCache;
+  // the index of the active rules in grayReleaseRuleCache, replaced as a whole on changes
+  private volatile GrayReleaseRuleIndex grayReleaseRuleIndex;
   // an auto increment version to indicate the age of rules
   private AtomicLong loadVersion;
 
   public GrayReleaseRulesHolder(final GrayReleaseRuleRepository grayReleaseRuleRepository,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig, final CacheWarmUp cacheWarmUp) {
     this.grayReleaseRuleRepository = grayReleaseRuleRepository;
     this.bizConfig = bizConfig;
+    this.cacheWarmUp = cacheWarmUp;
     loadVersion = new AtomicLong();
-    grayReleaseRuleCache = Multimaps.synchronizedSetMultimap(
-        TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
-    reversedGrayReleaseRuleCache = Multimaps.synchronizedSetMultimap(
-        TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
-    reversedGrayReleaseRuleLabelCache = Multimaps.synchronizedSetMultimap(
-        TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
+    grayReleaseRuleCache =
+        TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural());
+    grayReleaseRuleIndex = GrayReleaseRuleIndex.EMPTY;
+    lastTimeScanned = new Date(0L);
     executorService = Executors.newScheduledThreadPool(1,
         ApolloThreadFactory.create("GrayReleaseRulesHolder", true));
   }
@@ -91,10 +105,15 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
   @Override
   public void afterPropertiesSet() throws Exception {
     populateDataBaseInterval();
-    // force sync load for the first time
-    periodicScanRules();
+    // load all the rules along with the other caches, and scan once loaded
+    cacheWarmUp.submit("grayReleaseRule", this::periodicReconcileRules, this::scheduleScans);
+  }
+
+  private void scheduleScans() {
     executorService.scheduleWithFixedDelay(this::periodicScanRules, getDatabaseScanIntervalSecond(),
         getDatabaseScanIntervalSecond(), getDatabaseScanTimeUnit());
+    executorService.scheduleWithFixedDelay(this::periodicReconcileRules,
+        databaseReconcileInterval, databaseReconcileInterval, getDatabaseScanTimeUnit());
   }
 
   @Override
@@ -116,15 +135,35 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
     List<GrayReleaseRule> rules = grayReleaseRuleRepository
         .findByAppIdAndClusterNameAndNamespaceName(appId, cluster, namespace);
 
-    mergeGrayReleaseRules(rules);
+    if (mergeGrayReleaseRules(rules)) {
+      publishGrayReleaseRules();
+    }
   }
 
   private void periodicScanRules() {
+    Transaction transaction = Tracer.newTransaction("Apollo.GrayReleaseRulesScanner",
+        "scanNewAndUpdatedGrayReleaseRules");
+    try {
+      scanNewAndUpdatedGrayReleaseRules();
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      logger.error("Scan new and updated gray release rule failed", ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  /**
+   * @return the number of rules scanned
+   */
+  private long periodicReconcileRules() {
     Transaction transaction =
         Tracer.newTransaction("Apollo.GrayReleaseRulesScanner", "scanGrayReleaseRules");
+    long rulesScanned = 0;
     try {
       loadVersion.incrementAndGet();
-      scanGrayReleaseRules();
+      rulesScanned = scanGrayReleaseRules();
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
       transaction.setStatus(ex);
@@ -132,26 +171,13 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
     } finally {
       transaction.complete();
     }
+    return rulesScanned;
   }
 
   public Long findReleaseIdFromGrayReleaseRule(String clientAppId, String clientIp,
       String clientLabel, String configAppId, String configCluster, String configNamespaceName) {
-    String key = assembleGrayReleaseRuleKey(configAppId, configCluster, configNamespaceName);
-    if (!grayReleaseRuleCache.containsKey(key)) {
-      return null;
-    }
-    // create a new list to avoid ConcurrentModificationException
-    List<GrayReleaseRuleCache> rules = Lists.newArrayList(grayReleaseRuleCache.get(key));
-    for (GrayReleaseRuleCache rule : rules) {
-      // check branch status
-      if (rule.getBranchStatus() != NamespaceBranchStatus.ACTIVE) {
-        continue;
-      }
-      if (rule.matches(clientAppId, clientIp, clientLabel)) {
-        return rule.getReleaseId();
-      }
-    }
-    return null;
+    return grayReleaseRuleIndex.findReleaseId(clientAppId, clientIp, clientLabel, configAppId,
+        configCluster, configNamespaceName);
   }
 
   /**
@@ -161,45 +187,82 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
    */
   public boolean hasGrayReleaseRule(String clientAppId, String clientIp, String clientLabel,
       String namespaceName) {
-    // check ip gray rule
-    if (reversedGrayReleaseRuleCache
-        .containsKey(assembleReversedGrayReleaseRuleKey(clientAppId, namespaceName, clientIp))
-        || reversedGrayReleaseRuleCache.containsKey(assembleReversedGrayReleaseRuleKey(clientAppId,
-            namespaceName, GrayReleaseRuleItemDTO.ALL_IP))) {
-      return true;
-    }
-    // check label gray rule
-    if (!Strings.isNullOrEmpty(clientLabel) && (reversedGrayReleaseRuleLabelCache
-        .containsKey(assembleReversedGrayReleaseRuleKey(clientAppId, namespaceName, clientLabel))
-        || reversedGrayReleaseRuleLabelCache.containsKey(assembleReversedGrayReleaseRuleKey(
-            clientAppId, namespaceName, GrayReleaseRuleItemDTO.ALL_Label)))) {
-      return true;
-    }
-    return false;
+    return grayReleaseRuleIndex.hasRule(clientAppId, clientIp, clientLabel, namespaceName);
   }
 
-  private void scanGrayReleaseRules() {
+  private long scanGrayReleaseRules() {
     long maxIdScanned = 0;
+    long totalScanned = 0;
     boolean hasMore = true;
+    boolean changed = false;
 
     while (hasMore && !Thread.currentThread().isInterrupted()) {
-      List<GrayReleaseRule> grayReleaseRules =
-          grayReleaseRuleRepository.findFirst500ByIdGreaterThanOrderByIdAsc(maxIdScanned);
+      List<GrayReleaseRule> grayReleaseRules = grayReleaseRuleRepository
+          .findByIdGreaterThanOrderByIdAsc(maxIdScanned, PageRequest.of(0, loadPageSize));
       if (CollectionUtils.isEmpty(grayReleaseRules)) {
         break;
       }
-      mergeGrayReleaseRules(grayReleaseRules);
+      changed |= mergeGrayReleaseRules(grayReleaseRules);
+      updateLastTimeScanned(grayReleaseRules);
       int rulesScanned = grayReleaseRules.size();
       maxIdScanned = grayReleaseRules.get(rulesScanned - 1).getId();
+      totalScanned += rulesScanned;
+      hasMore = rulesScanned == loadPageSize;
+    }
+    // publish once per scan, instead of once per batch
+    if (changed) {
+      publishGrayReleaseRules();
+    }
+    return totalScanned;
+  }
+
+  private void scanNewAndUpdatedGrayReleaseRules() {
+    boolean hasMore = true;
+    boolean changed = false;
+
+    while (hasMore && !Thread.currentThread().isInterrupted()) {
+      List<GrayReleaseRule> grayReleaseRules = grayReleaseRuleRepository
+          .findFirst500ByDataChangeLastModifiedTimeGreaterThanOrderByDataChangeLastModifiedTimeAsc(
+              lastTimeScanned);
+      if (CollectionUtils.isEmpty(grayReleaseRules)) {
+        break;
+      }
+      changed |= mergeGrayReleaseRules(grayReleaseRules);
+      int rulesScanned = grayReleaseRules.size();
       // batch is 500
       hasMore = rulesScanned == 500;
+      updateLastTimeScanned(grayReleaseRules);
+
+      // the rules at the last time might be split by the batch, so load them individually
+      if (hasMore) {
+        changed |= mergeGrayReleaseRules(
+            grayReleaseRuleRepository.findByDataChangeLastModifiedTime(lastTimeScanned));
+      }
+      logger.info("Loaded {} new/updated gray release rules until {}", rulesScanned,
+          lastTimeScanned);
+    }
+    if (changed) {
+      publishGrayReleaseRules();
     }
   }
 
-  private void mergeGrayReleaseRules(List<GrayReleaseRule> grayReleaseRules) {
+  private void updateLastTimeScanned(List<GrayReleaseRule> grayReleaseRules) {
+    for (GrayReleaseRule grayReleaseRule : grayReleaseRules) {
+      Date lastModifiedTime = grayReleaseRule.getDataChangeLastModifiedTime();
+      if (lastModifiedTime != null && lastModifiedTime.after(lastTimeScanned)) {
+        lastTimeScanned = lastModifiedTime;
+      }
+    }
+  }
+
+  /**
+   * @return whether the active rules are changed
+   */
+  private synchronized boolean mergeGrayReleaseRules(List<GrayReleaseRule> grayReleaseRules) {
     if (CollectionUtils.isEmpty(grayReleaseRules)) {
-      return;
+      return false;
     }
+    boolean changed = false;
     for (GrayReleaseRule grayReleaseRule : grayReleaseRules) {
       if (grayReleaseRule.getReleaseId() == null || grayReleaseRule.getReleaseId() == 0) {
         // filter rules with no release id, i.e. never released
@@ -207,10 +270,8 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
       }
       String key = assembleGrayReleaseRuleKey(grayReleaseRule.getAppId(),
           grayReleaseRule.getClusterName(), grayReleaseRule.getNamespaceName());
-      // create a new list to avoid ConcurrentModificationException
-      List<GrayReleaseRuleCache> rules = Lists.newArrayList(grayReleaseRuleCache.get(key));
       GrayReleaseRuleCache oldRule = null;
-      for (GrayReleaseRuleCache ruleCache : rules) {
+      for (GrayReleaseRuleCache ruleCache : grayReleaseRuleCache.get(key)) {
         if (ruleCache.getBranchName().equals(grayReleaseRule.getBranchName())) {
           oldRule = ruleCache;
           break;
@@ -222,56 +283,28 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
         continue;
       }
 
-      // use id comparison to avoid synchronization
       if (oldRule == null || grayReleaseRule.getId() > oldRule.getRuleId()) {
-        addCache(key, transformRuleToRuleCache(grayReleaseRule));
+        grayReleaseRuleCache.put(key, transformRuleToRuleCache(grayReleaseRule));
         if (oldRule != null) {
-          removeCache(key, oldRule);
+          grayReleaseRuleCache.remove(key, oldRule);
         }
+        changed = true;
       } else {
         if (oldRule.getBranchStatus() == NamespaceBranchStatus.ACTIVE) {
           // update load version
           oldRule.setLoadVersion(loadVersion.get());
         } else if ((loadVersion.get() - oldRule.getLoadVersion()) > 1) {
           // remove outdated inactive branch rule after 2 update cycles
-          removeCache(key, oldRule);
+          grayReleaseRuleCache.remove(key, oldRule);
+          changed = true;
         }
       }
     }
+    return changed;
   }
 
-  private void addCache(String key, GrayReleaseRuleCache ruleCache) {
-    if (ruleCache.getBranchStatus() == NamespaceBranchStatus.ACTIVE) {
-      for (GrayReleaseRuleItemDTO ruleItemDTO : ruleCache.getRuleItems()) {
-        for (String clientIp : ruleItemDTO.getClientIpList()) {
-          reversedGrayReleaseRuleCache
-              .put(assembleReversedGrayReleaseRuleKey(ruleItemDTO.getClientAppId(),
-                  ruleCache.getNamespaceName(), clientIp), ruleCache.getRuleId());
-        }
-        for (String label : ruleItemDTO.getClientLabelList()) {
-          reversedGrayReleaseRuleLabelCache
-              .put(assembleReversedGrayReleaseRuleKey(ruleItemDTO.getClientAppId(),
-                  ruleCache.getNamespaceName(), label), ruleCache.getRuleId());
-        }
-      }
-    }
-    grayReleaseRuleCache.put(key, ruleCache);
-  }
-
-  private void removeCache(String key, GrayReleaseRuleCache ruleCache) {
-    grayReleaseRuleCache.remove(key, ruleCache);
-    for (GrayReleaseRuleItemDTO ruleItemDTO : ruleCache.getRuleItems()) {
-      for (String clientIp : ruleItemDTO.getClientIpList()) {
-        reversedGrayReleaseRuleCache
-            .remove(assembleReversedGrayReleaseRuleKey(ruleItemDTO.getClientAppId(),
-                ruleCache.getNamespaceName(), clientIp), ruleCache.getRuleId());
-      }
-      for (String label : ruleItemDTO.getClientLabelList()) {
-        reversedGrayReleaseRuleLabelCache
-            .remove(assembleReversedGrayReleaseRuleKey(ruleItemDTO.getClientAppId(),
-                ruleCache.getNamespaceName(), label), ruleCache.getRuleId());
-      }
-    }
+  private synchronized void publishGrayReleaseRules() {
+    grayReleaseRuleIndex = new GrayReleaseRuleIndex(grayReleaseRuleCache.asMap());
   }
 
   private GrayReleaseRuleCache transformRuleToRuleCache(GrayReleaseRule grayReleaseRule) {
@@ -294,6 +327,8 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
 
   private void populateDataBaseInterval() {
     databaseScanInterval = bizConfig.grayReleaseRuleScanInterval();
+    databaseReconcileInterval = bizConfig.grayReleaseRuleReconcileInterval();
+    loadPageSize = bizConfig.cacheLoadPageSize();
   }
 
   private int getDatabaseScanIntervalSecond() {
@@ -309,9 +344,4 @@ public class GrayReleaseRulesHolder implements ReleaseMessageListener, Initializ
     return STRING_JOINER.join(configAppId, configCluster, configNamespaceName);
   }
 
-  private String assembleReversedGrayReleaseRuleKey(String clientAppId, String clientNamespaceName,
-      String clientIpOrLabel) {
-    return STRING_JOINER.join(clientAppId, clientNamespaceName, clientIpOrLabel);
-  }
-
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.grayReleaseRule;
+
+/**
+ * A binary trie of IPv4 CIDR blocks, e.g. 10.1.0.0/16, to the gray release rules. When an ip
+ * matches the blocks of several rules, the one with the smallest rule id is returned, which is
+ * the same order as the rules are evaluated.
+ */
+final class IpPrefixTrie {
+  private static final char CIDR_SEPARATOR = '/';
+  private static final int IPV4_BITS = 32;
+
+  private final Node root = new Node();
+  private boolean empty = true;
+
+  /**
+   * @return whether the cidr is a valid IPv4 CIDR block
+   */
+  static boolean isCidr(String cidr) {
+    return cidr != null && cidr.indexOf(CIDR_SEPARATOR) > 0 && parsePrefixLength(cidr) >= 0
+        && parseIpv4(cidr.substring(0, cidr.indexOf(CIDR_SEPARATOR))) >= 0;
+  }
+
+  /**
+   * @return whether the cidr is added, i.e. it is a valid IPv4 CIDR block
+   */
+  boolean add(String cidr, GrayReleaseRuleCache rule) {
+    if (!isCidr(cidr)) {
+      return false;
+    }
+    int separator = cidr.indexOf(CIDR_SEPARATOR);
+    long address = parseIpv4(cidr.substring(0, separator));
+    int prefixLength = parsePrefixLength(cidr);
+
+    Node node = root;
+    for (int i = 0; i < prefixLength; i++) {
+      if (bitAt(address, i) == 0) {
+        if (node.zero == null) {
+          node.zero = new Node();
+        }
+        node = node.zero;
+      } else {
+        if (node.one == null) {
+          node.one = new Node();
+        }
+        node = node.one;
+      }
+    }
+    if (node.rule == null || rule.getRuleId() < node.rule.getRuleId()) {
+      node.rule = rule;
+    }
+    empty = false;
+    return true;
+  }
+
+  /**
+   * @return the rule with the smallest id whose blocks contain the ip, or null
+   */
+  GrayReleaseRuleCache find(String ip) {
+    if (empty || ip == null) {
+      return null;
+    }
+    long address = parseIpv4(ip);
+    if (address < 0) {
+      return null;
+    }
+    Node node = root;
+    GrayReleaseRuleCache result = null;
+    for (int i = 0; node != null; i++) {
+      if (node.rule != null && (result == null || node.rule.getRuleId() < result.getRuleId())) {
+        result = node.rule;
+      }
+      if (i == IPV4_BITS) {
+        break;
+      }
+      node = bitAt(address, i) == 0 ? node.zero : node.one;
+    }
+    return result;
+  }
+
+  private static int bitAt(long address, int index) {
+    return (int) (address >>> (IPV4_BITS - 1 - index)) & 1;
+  }
+
+  private static int parsePrefixLength(String cidr) {
+    int separator = cidr.indexOf(CIDR_SEPARATOR);
+    int length = cidr.length() - separator - 1;
+    if (length < 1 || length > 2) {
+      return -1;
+    }
+    int prefixLength = 0;
+    for (int i = separator + 1; i < cidr.length(); i++) {
+      char c = cidr.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      prefixLength = prefixLength * 10 + (c - '0');
+    }
+    return prefixLength <= IPV4_BITS ? prefixLength : -1;
+  }
+
+  /**
+   * @return the address as an unsigned int, or -1 if the ip is not a valid IPv4 address
+   */
+  private static long parseIpv4(String ip) {
+    long address = 0;
+    int octets = 0;
+    int octet = -1;
+    for (int i = 0; i < ip.length(); i++) {
+      char c = ip.charAt(i);
+      if (c == '.') {
+        if (octet < 0 || ++octets > 3) {
+          return -1;
+        }
+        address = (address << 8) | octet;
+        octet = -1;
+      } else if (c >= '0' && c <= '9') {
+        octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+        if (octet > 255) {
+          return -1;
+        }
+      } else {
+        return -1;
+      }
+    }
+    if (octet < 0 || octets != 3) {
+      return -1;
+    }
+    return (address << 8) | octet;
+  }
+
+  private static final class Node {
+    private Node zero;
+    private Node one;
+    private GrayReleaseRuleCache rule;
+  }
+}
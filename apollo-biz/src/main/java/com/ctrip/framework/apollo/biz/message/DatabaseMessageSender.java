@@ -25,8 +25,11 @@ import com.google.common.collect.Queues;
 import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
 import java.util.List;
@@ -49,12 +52,15 @@ public class DatabaseMessageSender implements MessageSender {
   private final AtomicBoolean cleanStopped;
 
   private final ReleaseMessageRepository releaseMessageRepository;
+  private final ReleaseMessageTransport releaseMessageTransport;
 
-  public DatabaseMessageSender(final ReleaseMessageRepository releaseMessageRepository) {
+  public DatabaseMessageSender(final ReleaseMessageRepository releaseMessageRepository,
+      final ObjectProvider<ReleaseMessageTransport> releaseMessageTransport) {
     cleanExecutorService = Executors
         .newSingleThreadExecutor(ApolloThreadFactory.create("DatabaseMessageSender", true));
     cleanStopped = new AtomicBoolean(false);
     this.releaseMessageRepository = releaseMessageRepository;
+    this.releaseMessageTransport = releaseMessageTransport.getIfAvailable();
   }
 
   @Override
@@ -73,6 +79,9 @@ public class DatabaseMessageSender implements MessageSender {
       if (!toClean.offer(newMessage.getId())) {
         logger.warn("Queue is full, Failed to add message {} to clean queue", newMessage.getId());
       }
+      if (releaseMessageTransport != null) {
+        pushAfterCommit(newMessage, channel);
+      }
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
       logger.error("Sending message to database failed", ex);
@@ -83,6 +92,30 @@ public class DatabaseMessageSender implements MessageSender {
     }
   }
 
+  private void pushAfterCommit(ReleaseMessage message, String channel) {
+    // the config services might not see the message in database if pushed before commit
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      push(message, channel);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        push(message, channel);
+      }
+    });
+  }
+
+  private void push(ReleaseMessage message, String channel) {
+    try {
+      releaseMessageTransport.publish(message, channel);
+    } catch (Throwable ex) {
+      // the message will be picked up by the database scan of config services
+      Tracer.logError(ex);
+      logger.warn("Push release message {} failed", message.getId(), ex);
+    }
+  }
+
   @PostConstruct
   private void initialize() {
     cleanExecutorService.submit(() -> {
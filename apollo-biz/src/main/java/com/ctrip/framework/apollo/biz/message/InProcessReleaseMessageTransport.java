@@ -0,0 +1,55 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.message;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.collect.Lists;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Delivers the release messages to the subscribers in the same JVM, e.g. when admin service and
+ * config service run in one process, or in tests.
+ */
+public class InProcessReleaseMessageTransport implements ReleaseMessageTransport {
+  private static final Logger logger =
+      LoggerFactory.getLogger(InProcessReleaseMessageTransport.class);
+
+  private final List<ReleaseMessageListener> listeners = Lists.newCopyOnWriteArrayList();
+
+  @Override
+  public void publish(ReleaseMessage message, String channel) {
+    for (ReleaseMessageListener listener : listeners) {
+      try {
+        listener.handleMessage(message, channel);
+      } catch (Throwable ex) {
+        Tracer.logError(ex);
+        logger.error("Failed to push release message {} to listener {}", message.getId(),
+            listener.getClass(), ex);
+      }
+    }
+  }
+
+  @Override
+  public void subscribe(ReleaseMessageListener listener) {
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+  }
+}
@@ -17,10 +17,13 @@
 package com.ctrip.framework.apollo.biz.message;
 
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableSet;
 import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -54,11 +57,26 @@ public class ReleaseMessageScanner implements InitializingBean {
   private final Map<Long, Integer> missingReleaseMessages; // missing release message id => age
                                                            // counter
   private long maxIdScanned;
+  private final ReleaseMessageTransport releaseMessageTransport;
+  // ids of the pushed release messages which are not scanned yet, so they won't be fired twice
+  private final NavigableSet<Long> pushedReleaseMessageIds;
 
   public ReleaseMessageScanner(final BizConfig bizConfig,
       final ReleaseMessageRepository releaseMessageRepository) {
+    this(bizConfig, releaseMessageRepository, null);
+  }
+
+  /**
+   * @param releaseMessageTransport the transport to receive pushed release messages, which are
+   *                                fired before the database scan finds them
+   */
+  public ReleaseMessageScanner(final BizConfig bizConfig,
+      final ReleaseMessageRepository releaseMessageRepository,
+      final ReleaseMessageTransport releaseMessageTransport) {
     this.bizConfig = bizConfig;
     this.releaseMessageRepository = releaseMessageRepository;
+    this.releaseMessageTransport = releaseMessageTransport;
+    pushedReleaseMessageIds = Sets.newTreeSet();
     listeners = Lists.newCopyOnWriteArrayList();
     executorService = Executors.newScheduledThreadPool(1,
         ApolloThreadFactory.create("ReleaseMessageScanner", true));
@@ -67,8 +85,15 @@ public class ReleaseMessageScanner implements InitializingBean {
 
   @Override
   public void afterPropertiesSet() throws Exception {
-    databaseScanInterval = bizConfig.releaseMessageScanIntervalInMilli();
+    databaseScanInterval = releaseMessageTransport == null
+        ? bizConfig.releaseMessageScanIntervalInMilli()
+        : bizConfig.releaseMessagePushScanIntervalInMilli();
     maxIdScanned = loadLargestMessageId();
+    if (releaseMessageTransport != null) {
+      // handled in the scan thread, so there is no need to synchronize with the scan
+      releaseMessageTransport.subscribe((message, channel) -> executorService
+          .execute(() -> handlePushedMessage(message, channel)));
+    }
     executorService.scheduleWithFixedDelay(() -> {
       Transaction transaction =
           Tracer.newTransaction("Apollo.ReleaseMessageScanner", "scanMessage");
@@ -96,6 +121,23 @@ public class ReleaseMessageScanner implements InitializingBean {
     }
   }
 
+  private void handlePushedMessage(ReleaseMessage message, String channel) {
+    if (!Topics.APOLLO_RELEASE_TOPIC.equals(channel)) {
+      return;
+    }
+    long id = message.getId();
+    if (id > maxIdScanned) {
+      if (!pushedReleaseMessageIds.add(id)) {
+        return;
+      }
+    } else if (missingReleaseMessages.remove(id) == null) {
+      // already fired by the database scan
+      return;
+    }
+    Tracer.logEvent("Apollo.ReleaseMessageScanner.Pushed", String.valueOf(id));
+    fireMessageScanned(Collections.singletonList(message));
+  }
+
   /**
    * Scan messages, continue scanning until there is no more messages
    */
@@ -118,7 +160,7 @@ public class ReleaseMessageScanner implements InitializingBean {
     if (CollectionUtils.isEmpty(releaseMessages)) {
       return false;
     }
-    fireMessageScanned(releaseMessages);
+    fireMessageScanned(filterPushedMessages(releaseMessages));
     int messageScanned = releaseMessages.size();
     long newMaxIdScanned = releaseMessages.get(messageScanned - 1).getId();
     // check id gaps, possible reasons are release message not committed yet or already rolled back
@@ -126,9 +168,35 @@ public class ReleaseMessageScanner implements InitializingBean {
       recordMissingReleaseMessageIds(releaseMessages, maxIdScanned);
     }
     maxIdScanned = newMaxIdScanned;
+    cleanPushedMessageIds();
     return messageScanned == 500;
   }
 
+  private List<ReleaseMessage> filterPushedMessages(List<ReleaseMessage> releaseMessages) {
+    if (pushedReleaseMessageIds.isEmpty()) {
+      return releaseMessages;
+    }
+    List<ReleaseMessage> notPushed = Lists.newArrayListWithCapacity(releaseMessages.size());
+    for (ReleaseMessage releaseMessage : releaseMessages) {
+      if (!pushedReleaseMessageIds.remove(releaseMessage.getId())) {
+        notPushed.add(releaseMessage);
+      }
+    }
+    return notPushed;
+  }
+
+  /**
+   * The pushed messages not scanned, e.g. due to the replication lag of the database, are already
+   * fired, so they should not be treated as missing ones
+   */
+  private void cleanPushedMessageIds() {
+    Set<Long> scannedIds = pushedReleaseMessageIds.headSet(maxIdScanned, true);
+    for (Long id : scannedIds) {
+      missingReleaseMessages.remove(id);
+    }
+    scannedIds.clear();
+  }
+
   private void scanMissingMessages() {
     Set<Long> missingReleaseMessageIds = missingReleaseMessages.keySet();
     Iterable<ReleaseMessage> releaseMessages =
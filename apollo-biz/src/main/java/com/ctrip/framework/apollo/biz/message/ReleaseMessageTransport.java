@@ -0,0 +1,39 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.message;
+
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+
+/**
+ * Pushes the release messages from admin service to config services, so that the config services
+ * don't have to wait for the next database scan.
+ * <p>
+ * The transport is best effort, the release messages are always saved to the database first and
+ * {@link ReleaseMessageScanner} still scans the database to pick up the ones lost in transit.
+ */
+public interface ReleaseMessageTransport {
+
+  /**
+   * Publish the release message which is already committed to the database
+   */
+  void publish(ReleaseMessage message, String channel);
+
+  /**
+   * Subscribe the release messages published
+   */
+  void subscribe(ReleaseMessageListener listener);
+}
@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.biz.repository;
 
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
@@ -40,7 +41,7 @@ public interface AppNamespaceRepository extends PagingAndSortingRepository<AppNa
 
   List<AppNamespace> findByAppIdOrderByIdAsc(String appId);
 
-  List<AppNamespace> findFirst500ByIdGreaterThanOrderByIdAsc(long id);
+  List<AppNamespace> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
 
   @Modifying
   @Query("UPDATE AppNamespace SET IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?2 WHERE AppId=?1 and IsDeleted = false")
@@ -35,6 +35,9 @@ public interface CommitRepository extends PagingAndSortingRepository<Commit, Lon
       String appId, String clusterName, String namespaceName, Date dataChangeLastModifiedTime,
       Pageable pageable);
 
+  List<Commit> findByAppIdAndClusterNameAndNamespaceNameAndIdGreaterThanOrderByIdAsc(String appId,
+      String clusterName, String namespaceName, long id, Pageable pageable);
+
   @Modifying
   @Query("update Commit set IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?4 where AppId=?1 and ClusterName=?2 and NamespaceName = ?3 and IsDeleted = false")
   int batchDelete(String appId, String clusterName, String namespaceName, String operator);
@@ -18,8 +18,10 @@ package com.ctrip.framework.apollo.biz.repository;
 
 import com.ctrip.framework.apollo.biz.entity.GrayReleaseRule;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.PagingAndSortingRepository;
 
+import java.util.Date;
 import java.util.List;
 
 
@@ -32,6 +34,11 @@ public interface GrayReleaseRuleRepository
   List<GrayReleaseRule> findByAppIdAndClusterNameAndNamespaceName(String appId, String clusterName,
       String namespaceName);
 
-  List<GrayReleaseRule> findFirst500ByIdGreaterThanOrderByIdAsc(Long id);
+  List<GrayReleaseRule> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+  List<GrayReleaseRule> findFirst500ByDataChangeLastModifiedTimeGreaterThanOrderByDataChangeLastModifiedTimeAsc(
+      Date date);
+
+  List<GrayReleaseRule> findByDataChangeLastModifiedTime(Date date);
 
 }
@@ -25,6 +25,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -34,6 +35,9 @@ public interface InstanceConfigRepository extends PagingAndSortingRepository<Ins
   InstanceConfig findByInstanceIdAndConfigAppIdAndConfigNamespaceName(long instanceId,
       String configAppId, String configNamespaceName);
 
+  List<InstanceConfig> findByConfigAppIdAndConfigNamespaceNameAndInstanceIdIn(String configAppId,
+      String configNamespaceName, Collection<Long> instanceIds);
+
   Page<InstanceConfig> findByReleaseKeyAndDataChangeLastModifiedTimeAfter(String releaseKey,
       Date validDate, Pageable pageable);
 
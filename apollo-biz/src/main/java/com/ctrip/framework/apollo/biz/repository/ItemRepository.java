@@ -26,11 +26,20 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 public interface ItemRepository extends PagingAndSortingRepository<Item, Long> {
 
+  /**
+   * Escapes the text searched by the LIKE queries below, so % and _ match themselves, the same as
+   * in the item search index.
+   */
+  static String escapeLike(String text) {
+    return text.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+  }
+
   Item findByNamespaceIdAndKey(Long namespaceId, String key);
 
   List<Item> findByNamespaceIdOrderByLineNumAsc(Long namespaceId);
@@ -47,20 +56,48 @@ public interface ItemRepository extends PagingAndSortingRepository<Item, Long> {
 
   @Query("SELECT new com.ctrip.framework.apollo.common.dto.ItemInfoDTO(n.appId, n.clusterName, n.namespaceName, i.key, i.value) "
       + "FROM Item i RIGHT JOIN Namespace n ON i.namespaceId = n.id "
-      + "WHERE i.key LIKE %:key% AND i.value LIKE %:value% AND i.isDeleted = 0")
+      + "WHERE i.key LIKE %:key% ESCAPE '!' AND i.value LIKE %:value% ESCAPE '!' "
+      + "AND i.isDeleted = 0 ORDER BY i.id")
   Page<ItemInfoDTO> findItemsByKeyAndValueLike(@Param("key") String key,
       @Param("value") String value, Pageable pageable);
 
   @Query("SELECT new com.ctrip.framework.apollo.common.dto.ItemInfoDTO(n.appId, n.clusterName, n.namespaceName, i.key, i.value) "
       + "FROM Item i RIGHT JOIN Namespace n ON i.namespaceId = n.id "
-      + "WHERE i.key LIKE %:key% AND i.isDeleted = 0")
+      + "WHERE i.key LIKE %:key% ESCAPE '!' AND i.isDeleted = 0 ORDER BY i.id")
   Page<ItemInfoDTO> findItemsByKeyLike(@Param("key") String key, Pageable pageable);
 
   @Query("SELECT new com.ctrip.framework.apollo.common.dto.ItemInfoDTO(n.appId, n.clusterName, n.namespaceName, i.key, i.value) "
       + "FROM Item i RIGHT JOIN Namespace n ON i.namespaceId = n.id "
-      + "WHERE i.value LIKE %:value% AND i.isDeleted = 0")
+      + "WHERE i.value LIKE %:value% ESCAPE '!' AND i.isDeleted = 0 ORDER BY i.id")
   Page<ItemInfoDTO> findItemsByValueLike(@Param("value") String value, Pageable pageable);
 
+  @Query("SELECT i.id FROM Item i WHERE i.id IN :ids AND i.value LIKE %:value% ESCAPE '!'")
+  List<Long> findIdsByIdInAndValueLike(@Param("ids") Collection<Long> ids,
+      @Param("value") String value);
+
+  @Query(value = "SELECT MAX(`DataChange_LastTime`) FROM `Item`", nativeQuery = true)
+  Date findMaxDataChangeLastTime();
+
+  @Query(value = "SELECT i.`Id`, i.`NamespaceId`, i.`Key`, i.`Value`, i.`IsDeleted`,"
+      + " i.`DataChange_LastTime`, n.`AppId`, n.`ClusterName`, n.`NamespaceName`, n.`IsDeleted`"
+      + " FROM `Item` i JOIN `Namespace` n ON n.`Id` = i.`NamespaceId`"
+      + " WHERE i.`Id` > :fromId AND i.`IsDeleted` = false AND n.`IsDeleted` = false"
+      + " ORDER BY i.`Id` LIMIT :limit", nativeQuery = true)
+  List<Object[]> findSearchIndexRows(@Param("fromId") long fromId, @Param("limit") int limit);
+
+  /**
+   * The deleted items are included, the rows are ordered by (DataChange_LastTime, Id) and start
+   * after the given pair.
+   */
+  @Query(value = "SELECT i.`Id`, i.`NamespaceId`, i.`Key`, i.`Value`, i.`IsDeleted`,"
+      + " i.`DataChange_LastTime`, n.`AppId`, n.`ClusterName`, n.`NamespaceName`, n.`IsDeleted`"
+      + " FROM `Item` i JOIN `Namespace` n ON n.`Id` = i.`NamespaceId`"
+      + " WHERE i.`DataChange_LastTime` >= :fromTime"
+      + " AND (i.`DataChange_LastTime` > :fromTime OR i.`Id` > :fromId)"
+      + " ORDER BY i.`DataChange_LastTime`, i.`Id` LIMIT :limit", nativeQuery = true)
+  List<Object[]> findSearchIndexRowsChangedAfter(@Param("fromTime") Date fromTime,
+      @Param("fromId") long fromId, @Param("limit") int limit);
+
   @Modifying
   @Query("update Item set IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?2 where NamespaceId = ?1 and IsDeleted = false")
   int deleteByNamespaceId(long namespaceId, String operator);
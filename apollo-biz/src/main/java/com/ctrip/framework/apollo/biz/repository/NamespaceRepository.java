@@ -22,6 +22,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Set;
@@ -47,4 +48,29 @@ public interface NamespaceRepository extends PagingAndSortingRepository<Namespac
 
   int countByAppIdAndClusterName(String appId, String clusterName);
 
+  List<Namespace> findByAppIdAndHasUnpublishedChangesTrue(String appId);
+
+  List<Namespace> findByIdGreaterThanOrderByIdAsc(long id, Pageable page);
+
+  // an update which changes nothing, only to lock the row until the transaction ends
+  @Modifying
+  @Query(value = "UPDATE `Namespace` SET `DataChange_LastTime` = `DataChange_LastTime`"
+      + " WHERE `AppId` = :appId AND `ClusterName` = :clusterName"
+      + " AND `NamespaceName` = :namespaceName AND `IsDeleted` = false", nativeQuery = true)
+  int lock(@Param("appId") String appId, @Param("clusterName") String clusterName,
+      @Param("namespaceName") String namespaceName);
+
+  // DataChange_LastTime is set to itself to keep its ON UPDATE CURRENT_TIMESTAMP from firing. The
+  // row is updated even when already marked, so the change waits for a release holding the lock
+  @Modifying
+  @Query(value = "UPDATE `Namespace` SET `HasUnpublishedChanges` = true, `DataChange_LastTime` ="
+      + " `DataChange_LastTime` WHERE `Id` = :id", nativeQuery = true)
+  int markUnpublishedChanges(@Param("id") long namespaceId);
+
+  @Modifying
+  @Query(value = "UPDATE `Namespace` SET `HasUnpublishedChanges` = false, `DataChange_LastTime` ="
+      + " `DataChange_LastTime` WHERE `Id` = :id AND `HasUnpublishedChanges` = true",
+      nativeQuery = true)
+  int clearUnpublishedChanges(@Param("id") long namespaceId);
+
 }
@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.biz.repository;
 
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.data.repository.query.Param;
@@ -31,6 +32,13 @@ import java.util.List;
 public interface ReleaseMessageRepository extends PagingAndSortingRepository<ReleaseMessage, Long> {
   List<ReleaseMessage> findFirst500ByIdGreaterThanOrderByIdAsc(Long id);
 
+  /**
+   * @return the id, message and last modified time of the release messages, without building the
+   * entities
+   */
+  @Query("select id, message, dataChangeLastModifiedTime from ReleaseMessage where id > :id order by id asc")
+  List<Object[]> findIdAndMessageByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
   ReleaseMessage findTopByOrderByIdDesc();
 
   ReleaseMessage findTopByMessageInOrderByIdDesc(Collection<String> messages);
@@ -53,10 +53,24 @@ public interface ReleaseRepository extends PagingAndSortingRepository<Release, L
 
   List<Release> findByIdIn(Set<Long> releaseIds);
 
+  @Query("SELECT MAX(r.id) FROM Release r WHERE r.isAbandoned = false GROUP BY r.appId, r.clusterName, r.namespaceName")
+  List<Long> findLatestActiveReleaseIds();
+
   @Modifying
   @Query("update Release set IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?4 where AppId=?1 and ClusterName=?2 and NamespaceName = ?3 and IsDeleted = false")
   int batchDelete(String appId, String clusterName, String namespaceName, String operator);
 
+  @Query(value = "SELECT `Id`, LEFT(`Configurations`, 8) FROM `Release` WHERE `Id` > :fromId"
+      + " ORDER BY `Id` LIMIT :limit", nativeQuery = true)
+  List<Object[]> findIdsAndConfigurationsPrefixes(@Param("fromId") long fromId,
+      @Param("limit") int limit);
+
+  @Modifying
+  @Query(value = "UPDATE `Release` SET `Configurations` = :configurations WHERE `Id` = :id",
+      nativeQuery = true)
+  int updateStoredConfigurations(@Param("id") long id,
+      @Param("configurations") String storedConfigurations);
+
   // For release history conversion program, need to delete after conversion it done
   List<Release> findByAppIdAndClusterNameAndNamespaceNameOrderByIdAsc(String appId,
       String clusterName, String namespaceName);
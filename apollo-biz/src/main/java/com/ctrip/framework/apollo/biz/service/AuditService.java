@@ -21,6 +21,7 @@ import com.ctrip.framework.apollo.biz.repository.AuditRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -50,6 +51,20 @@ public class AuditService {
     auditRepository.save(audit);
   }
 
+  @Transactional
+  public void auditAll(String entityName, List<Long> entityIds, Audit.OP op, String owner) {
+    List<Audit> audits = new ArrayList<>(entityIds.size());
+    for (Long entityId : entityIds) {
+      Audit audit = new Audit();
+      audit.setEntityName(entityName);
+      audit.setEntityId(entityId);
+      audit.setOpName(op.name());
+      audit.setDataChangeCreatedBy(owner);
+      audits.add(audit);
+    }
+    auditRepository.saveAll(audits);
+  }
+
   @Transactional
   public void audit(Audit audit) {
     auditRepository.save(audit);
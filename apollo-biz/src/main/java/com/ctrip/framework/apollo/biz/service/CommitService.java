@@ -18,7 +18,9 @@ package com.ctrip.framework.apollo.biz.service;
 
 import com.ctrip.framework.apollo.biz.entity.Commit;
 import com.ctrip.framework.apollo.biz.repository.CommitRepository;
+import com.ctrip.framework.apollo.biz.repository.NamespaceRepository;
 import java.util.Date;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,11 +31,19 @@ import java.util.List;
 public class CommitService {
 
   private final CommitRepository commitRepository;
+  private final NamespaceRepository namespaceRepository;
 
-  public CommitService(final CommitRepository commitRepository) {
+  public CommitService(final CommitRepository commitRepository,
+      final NamespaceRepository namespaceRepository) {
     this.commitRepository = commitRepository;
+    this.namespaceRepository = namespaceRepository;
   }
 
+  /**
+   * The namespace is locked before the commit is inserted, so a release, which locks it first as
+   * well, never sees a commit while one with a smaller id is still to be committed.
+   */
+  @Transactional
   public void createCommit(String appId, String clusterName, String namespaceName,
       String configChangeContent, String operator) {
 
@@ -45,6 +55,7 @@ public class CommitService {
     commit.setChangeSets(configChangeContent);
     commit.setDataChangeCreatedBy(operator);
     commit.setDataChangeLastModifiedBy(operator);
+    namespaceRepository.lock(appId, clusterName, namespaceName);
     commitRepository.save(commit);
   }
 
@@ -60,6 +71,17 @@ public class CommitService {
             appId, clusterName, namespaceName, lastModifiedTime, page);
   }
 
+  public List<Commit> findAfter(String appId, String clusterName, String namespaceName,
+      long commitId, Pageable page) {
+    return commitRepository.findByAppIdAndClusterNameAndNamespaceNameAndIdGreaterThanOrderByIdAsc(
+        appId, clusterName, namespaceName, commitId, page);
+  }
+
+  public long findLatestCommitId(String appId, String clusterName, String namespaceName) {
+    List<Commit> commits = find(appId, clusterName, namespaceName, PageRequest.of(0, 1));
+    return commits.isEmpty() ? 0 : commits.get(0).getId();
+  }
+
   public List<Commit> findByKey(String appId, String clusterName, String namespaceName, String key,
       Pageable page) {
     String queryKey = "\"key\":\"" + key + "\"";
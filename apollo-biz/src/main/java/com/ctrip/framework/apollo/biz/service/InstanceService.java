@@ -22,6 +22,7 @@ import com.ctrip.framework.apollo.biz.repository.InstanceConfigRepository;
 import com.ctrip.framework.apollo.biz.repository.InstanceRepository;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import java.util.Objects;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
@@ -32,9 +33,11 @@ import org.springframework.util.CollectionUtils;
 
 import java.math.BigInteger;
 import java.util.Calendar;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -75,6 +78,15 @@ public class InstanceService {
         configAppId, configNamespaceName);
   }
 
+  public List<InstanceConfig> findInstanceConfigs(String configAppId, String configNamespaceName,
+      Collection<Long> instanceIds) {
+    if (CollectionUtils.isEmpty(instanceIds)) {
+      return Collections.emptyList();
+    }
+    return instanceConfigRepository.findByConfigAppIdAndConfigNamespaceNameAndInstanceIdIn(
+        configAppId, configNamespaceName, instanceIds);
+  }
+
   public Page<InstanceConfig> findActiveInstanceConfigsByReleaseKey(String releaseKey,
       Pageable pageable) {
     return instanceConfigRepository.findByReleaseKeyAndDataChangeLastModifiedTimeAfter(releaseKey,
@@ -178,6 +190,46 @@ public class InstanceService {
     return instanceConfigRepository.save(existedInstanceConfig);
   }
 
+  /**
+   * Create the instance configs in one transaction, the whole batch is rolled back if any of them
+   * violates the unique key
+   */
+  @Transactional
+  public List<InstanceConfig> batchCreateInstanceConfigs(List<InstanceConfig> instanceConfigs) {
+    instanceConfigs.forEach(instanceConfig -> instanceConfig.setId(0)); // protection
+
+    return Lists.newArrayList(instanceConfigRepository.saveAll(instanceConfigs));
+  }
+
+  /**
+   * Update the instance configs in one transaction, so that the updates could be flushed in jdbc
+   * batches
+   */
+  @Transactional
+  public void batchUpdateInstanceConfigs(List<InstanceConfig> instanceConfigs) {
+    if (CollectionUtils.isEmpty(instanceConfigs)) {
+      return;
+    }
+    Map<Long, InstanceConfig> existedInstanceConfigs = Maps.newHashMap();
+    instanceConfigRepository.findAllById(
+            instanceConfigs.stream().map(InstanceConfig::getId).collect(Collectors.toSet()))
+        .forEach(existed -> existedInstanceConfigs.put(existed.getId(), existed));
+
+    for (InstanceConfig instanceConfig : instanceConfigs) {
+      InstanceConfig existedInstanceConfig = existedInstanceConfigs.get(instanceConfig.getId());
+      if (existedInstanceConfig == null) {
+        // deleted in the meantime, e.g. the namespace is deleted
+        continue;
+      }
+      existedInstanceConfig.setConfigClusterName(instanceConfig.getConfigClusterName());
+      existedInstanceConfig.setReleaseKey(instanceConfig.getReleaseKey());
+      existedInstanceConfig.setReleaseDeliveryTime(instanceConfig.getReleaseDeliveryTime());
+      existedInstanceConfig
+          .setDataChangeLastModifiedTime(instanceConfig.getDataChangeLastModifiedTime());
+    }
+    instanceConfigRepository.saveAll(existedInstanceConfigs.values());
+  }
+
   @Transactional
   public int batchDeleteInstanceConfig(String configAppId, String configClusterName,
       String configNamespaceName) {
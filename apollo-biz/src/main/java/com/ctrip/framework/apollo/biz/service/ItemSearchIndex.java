@@ -0,0 +1,737 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.service;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Item;
+import com.ctrip.framework.apollo.biz.repository.ItemRepository;
+import com.ctrip.framework.apollo.common.dto.ItemInfoDTO;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * An in-memory trigram index of the item keys and values, which answers the item search without
+ * scanning the Item table, when item.search-index.enabled is on.
+ * <p>
+ * The index is built from the database in the background, then it follows the item changes by
+ * their DataChange_LastTime, so the changes made through the other admin service instances are
+ * picked up as well. The search is answered by the database until the index is built.
+ * <p>
+ * The values longer than item.search-index.value.max-length are not held, a value search checks
+ * such items matching the key in the database, or leaves the whole search to the database if there
+ * are too many of them.
+ * <p>
+ * Like the LIKE queries on the utf8mb4 tables, the search is case insensitive, and the items are
+ * returned in the order of their ids, the same as the LIKE queries. % and _ match themselves, the
+ * LIKE queries escape them.
+ */
+public class ItemSearchIndex implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ItemSearchIndex.class);
+  private static final int BATCH_SIZE = 1000;
+  private static final long REFRESH_INTERVAL_IN_MILLI = 1000;
+  // the rows committed late with an earlier DataChange_LastTime are still picked up in this window
+  private static final long CHANGE_OVERLAP_IN_MILLI = 60 * 1000;
+  // how often the overlap window is read again, the refreshes in between only read the rows since
+  // the last change time
+  private static final long CHANGE_OVERLAP_SCAN_INTERVAL_IN_MILLI = 10 * 1000;
+  private static final int MIN_REMOVED_DOCUMENTS_TO_COMPACT = 10000;
+  // the most items with values not held a value search checks in the database
+  private static final int MAX_ITEMS_TO_MATCH_IN_DATABASE = 10 * BATCH_SIZE;
+
+  private final ItemRepository itemRepository;
+  private final BizConfig bizConfig;
+  private final ScheduledExecutorService executorService;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  // guarded by lock, null until built, only replaced by the index thread
+  private Documents documents;
+
+  // only accessed by the index thread
+  private Date lastChangeTime;
+  private long lastOverlapScanTime;
+
+  public ItemSearchIndex(final ItemRepository itemRepository, final BizConfig bizConfig) {
+    this.itemRepository = itemRepository;
+    this.bizConfig = bizConfig;
+    this.executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("ItemSearchIndex", true));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    executorService.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (Throwable ex) {
+        logger.error("Refresh item search index failed", ex);
+        Tracer.logError(ex);
+      }
+    }, 0, REFRESH_INTERVAL_IN_MILLI, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * Searches the items whose key contains the key and whose value contains the value, an empty
+   * key or value matches all.
+   *
+   * @return empty if the index is not built yet, or the search is better left to the database
+   */
+  public Optional<Page<ItemInfoDTO>> search(String key, String value, Pageable pageable) {
+    key = Strings.nullToEmpty(key);
+    value = Strings.nullToEmpty(value);
+    // the database is only queried without the lock held, so the refresh is not held up by it
+    LongList matches;
+    LongList unheldMatches = null;
+    lock.readLock().lock();
+    try {
+      if (documents == null) {
+        return Optional.empty();
+      }
+      matches = documents.match(key, value);
+      if (!value.isEmpty()) {
+        unheldMatches = documents.matchUnheldValues(key);
+        if (unheldMatches.size > MAX_ITEMS_TO_MATCH_IN_DATABASE) {
+          return Optional.empty();
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    if (unheldMatches != null) {
+      matches = matches.merge(matchValuesInDatabase(unheldMatches, value));
+    }
+    return Optional.of(toPage(matches, pageable));
+  }
+
+  void refresh() {
+    if (!bizConfig.isItemSearchIndexEnabled()) {
+      if (lastChangeTime != null) {
+        replaceDocuments(null);
+        lastChangeTime = null;
+        logger.info("Item search index is dropped");
+      }
+      return;
+    }
+
+    if (lastChangeTime == null
+        || documents.valueMaxLength != bizConfig.itemSearchIndexValueMaxLength()) {
+      build();
+    } else {
+      applyChanges();
+    }
+  }
+
+  private void build() {
+    // taken before the scan, the items changed during the scan are applied afterwards
+    Date maxChangeTime = itemRepository.findMaxDataChangeLastTime();
+
+    Documents newDocuments = new Documents(bizConfig.itemSearchIndexValueMaxLength());
+    long lastItemId = 0;
+    List<Object[]> rows;
+    do {
+      rows = itemRepository.findSearchIndexRows(lastItemId, BATCH_SIZE);
+      for (Object[] row : rows) {
+        IndexedItem item = toIndexedItem(row, newDocuments);
+        newDocuments.add(item);
+        lastItemId = item.itemId;
+      }
+    } while (rows.size() == BATCH_SIZE);
+    newDocuments.trimToSize();
+
+    replaceDocuments(newDocuments);
+    lastChangeTime = maxChangeTime == null ? new Date(0) : maxChangeTime;
+    lastOverlapScanTime = 0;
+    logger.info("Item search index is built with {} items", newDocuments.size());
+
+    applyChanges();
+  }
+
+  private void applyChanges() {
+    Date fromTime = lastChangeTime;
+    long now = System.currentTimeMillis();
+    if (now - lastOverlapScanTime >= CHANGE_OVERLAP_SCAN_INTERVAL_IN_MILLI) {
+      fromTime = new Date(lastChangeTime.getTime() - CHANGE_OVERLAP_IN_MILLI);
+      lastOverlapScanTime = now;
+    }
+    long fromId = 0;
+
+    List<Object[]> rows;
+    do {
+      rows = itemRepository.findSearchIndexRowsChangedAfter(fromTime, fromId, BATCH_SIZE);
+      if (rows.isEmpty()) {
+        break;
+      }
+
+      lock.writeLock().lock();
+      try {
+        for (Object[] row : rows) {
+          IndexedItem item = toIndexedItem(row, documents);
+          if (item.deleted) {
+            documents.remove(item.itemId);
+          } else {
+            documents.update(item);
+          }
+          fromTime = (Date) row[5];
+          fromId = item.itemId;
+        }
+        if (documents.shouldCompact()) {
+          documents = documents.compact();
+        }
+      } finally {
+        lock.writeLock().unlock();
+      }
+
+      if (fromTime.getTime() > lastChangeTime.getTime()) {
+        lastChangeTime = fromTime;
+      }
+    } while (rows.size() == BATCH_SIZE);
+  }
+
+  private void replaceDocuments(Documents newDocuments) {
+    lock.writeLock().lock();
+    try {
+      documents = newDocuments;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the ids of the items whose value contains the value, in ascending order
+   */
+  private LongList matchValuesInDatabase(LongList itemIds, String value) {
+    LongList matches = new LongList();
+    for (int from = 0; from < itemIds.size; from += BATCH_SIZE) {
+      List<Long> ids = itemIds.subList(from, Math.min(from + BATCH_SIZE, itemIds.size));
+      itemRepository.findIdsByIdInAndValueLike(ids, ItemRepository.escapeLike(value))
+          .forEach(matches::add);
+    }
+    matches.sort();
+    return matches;
+  }
+
+  private Page<ItemInfoDTO> toPage(LongList matches, Pageable pageable) {
+    int offset = pageable.isPaged() ? (int) Math.min(pageable.getOffset(), matches.size) : 0;
+    int limit = pageable.isPaged() ? pageable.getPageSize() : matches.size;
+    List<Long> pageIds = matches.subList(offset, Math.min(offset + limit, matches.size));
+
+    // the indexed items are immutable, so they are used after the lock is released, an item
+    // removed since it matched is left out
+    List<IndexedItem> pageItems = Lists.newArrayListWithCapacity(pageIds.size());
+    lock.readLock().lock();
+    try {
+      if (documents == null) {
+        return new PageImpl<>(Collections.emptyList(), pageable, matches.size);
+      }
+      for (Long itemId : pageIds) {
+        IndexedItem item = documents.items.get(itemId);
+        if (item != null) {
+          pageItems.add(item);
+        }
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    // the values not held are loaded for the items of the page only
+    List<Long> unheldIds = Lists.newArrayList();
+    for (IndexedItem item : pageItems) {
+      if (item.value == null) {
+        unheldIds.add(item.itemId);
+      }
+    }
+    Map<Long, String> unheldValues = Maps.newHashMap();
+    if (!unheldIds.isEmpty()) {
+      for (Item item : itemRepository.findAllById(unheldIds)) {
+        unheldValues.put(item.getId(), item.getValue());
+      }
+    }
+
+    List<ItemInfoDTO> content = Lists.newArrayListWithCapacity(pageItems.size());
+    for (IndexedItem item : pageItems) {
+      String value = item.value == null ? unheldValues.get(item.itemId) : item.value;
+      content.add(new ItemInfoDTO(item.namespace.getAppId(), item.namespace.getClusterName(),
+          item.namespace.getNamespaceName(), item.key, value));
+    }
+    return new PageImpl<>(content, pageable, matches.size);
+  }
+
+  private IndexedItem toIndexedItem(Object[] row, Documents documents) {
+    long namespaceId = ((Number) row[1]).longValue();
+    ItemInfoDTO namespace = documents.namespace(namespaceId, (String) row[6], (String) row[7],
+        (String) row[8]);
+    String value = toText(row[3]);
+    return new IndexedItem(((Number) row[0]).longValue(), namespaceId, namespace,
+        Strings.nullToEmpty((String) row[2]),
+        value.length() > documents.valueMaxLength ? null : value,
+        toBoolean(row[4]) || toBoolean(row[9]));
+  }
+
+  private static String toText(Object value) {
+    if (value instanceof Clob) {
+      Clob clob = (Clob) value;
+      try {
+        return clob.getSubString(1, (int) clob.length());
+      } catch (SQLException ex) {
+        throw new IllegalStateException("Read item value failed", ex);
+      }
+    }
+    return value == null ? "" : value.toString();
+  }
+
+  private static boolean toBoolean(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).intValue() != 0;
+    }
+    return Boolean.TRUE.equals(value);
+  }
+
+  private static class IndexedItem {
+
+    private final long itemId;
+    private final long namespaceId;
+    // only the app id, cluster name and namespace name are set, shared by the items of a namespace
+    private final ItemInfoDTO namespace;
+    private final String key;
+    // null if the value is longer than the values held
+    private final String value;
+    private final boolean deleted;
+
+    private IndexedItem(long itemId, long namespaceId, ItemInfoDTO namespace, String key,
+        String value, boolean deleted) {
+      this.itemId = itemId;
+      this.namespaceId = namespaceId;
+      this.namespace = namespace;
+      this.key = key;
+      this.value = value;
+      this.deleted = deleted;
+    }
+  }
+
+  /**
+   * The posting lists hold the item ids in ascending order. The removed and changed items are
+   * left in the posting lists, so the candidates are always checked against the items, and the
+   * posting lists are rebuilt once the removed items outnumber the live ones.
+   */
+  private static class Documents {
+
+    private final int valueMaxLength;
+    private final LongMap<IndexedItem> items = new LongMap<>();
+    private final LongMap<ItemInfoDTO> namespaces = new LongMap<>();
+    // all the item ids, and the ids of the items whose values are not held
+    private final LongList itemIds = new LongList();
+    private final LongList unheldValueItemIds = new LongList();
+    private final LongMap<LongList> keyPostings = new LongMap<>();
+    private final LongMap<LongList> valuePostings = new LongMap<>();
+    private int removedCount;
+
+    private Documents(int valueMaxLength) {
+      this.valueMaxLength = valueMaxLength;
+    }
+
+    int size() {
+      return items.size();
+    }
+
+    ItemInfoDTO namespace(long namespaceId, String appId, String clusterName,
+        String namespaceName) {
+      ItemInfoDTO namespace = namespaces.get(namespaceId);
+      if (namespace == null) {
+        namespace = new ItemInfoDTO(appId, clusterName, namespaceName, null, null);
+        namespaces.put(namespaceId, namespace);
+      }
+      return namespace;
+    }
+
+    void add(IndexedItem item) {
+      items.put(item.itemId, item);
+      itemIds.insert(item.itemId);
+      addPostings(keyPostings, item.key, item.itemId);
+      if (item.value == null) {
+        unheldValueItemIds.insert(item.itemId);
+      } else {
+        addPostings(valuePostings, item.value, item.itemId);
+      }
+    }
+
+    void update(IndexedItem item) {
+      IndexedItem indexedItem = items.get(item.itemId);
+      if (indexedItem != null) {
+        if (indexedItem.namespace == item.namespace && indexedItem.key.equals(item.key)
+            && Objects.equals(indexedItem.value, item.value)) {
+          return;
+        }
+        removedCount++;
+      }
+      add(item);
+    }
+
+    void remove(long itemId) {
+      if (items.remove(itemId) != null) {
+        removedCount++;
+      }
+    }
+
+    boolean shouldCompact() {
+      return removedCount >= MIN_REMOVED_DOCUMENTS_TO_COMPACT && removedCount > size();
+    }
+
+    Documents compact() {
+      Documents compacted = new Documents(valueMaxLength);
+      for (int i = 0; i < itemIds.size; i++) {
+        IndexedItem item = items.get(itemIds.values[i]);
+        if (item != null) {
+          compacted.namespaces.put(item.namespaceId, item.namespace);
+          compacted.add(item);
+        }
+      }
+      compacted.trimToSize();
+      return compacted;
+    }
+
+    void trimToSize() {
+      itemIds.trimToSize();
+      unheldValueItemIds.trimToSize();
+      keyPostings.forEachValue(LongList::trimToSize);
+      valuePostings.forEachValue(LongList::trimToSize);
+    }
+
+    /**
+     * @return the ids of the matching items in ascending order, the items whose values are not held
+     * only match an empty value
+     */
+    LongList match(String key, String value) {
+      LongList candidates = narrow(null, keyPostings, key);
+      candidates = narrow(candidates, valuePostings, value);
+
+      LongList matches = new LongList();
+      LongList ids = candidates == null ? itemIds : candidates;
+      for (int i = 0; i < ids.size; i++) {
+        IndexedItem item = items.get(ids.values[i]);
+        if (item == null || !containsIgnoreCase(item.key, key)
+            || (item.value == null ? !value.isEmpty() : !containsIgnoreCase(item.value, value))) {
+          continue;
+        }
+        matches.add(item.itemId);
+      }
+      return matches;
+    }
+
+    /**
+     * @return the ids of the items matching the key whose values are not held, in ascending order
+     */
+    LongList matchUnheldValues(String key) {
+      LongList candidates = narrow(null, keyPostings, key);
+      LongList ids =
+          candidates == null ? unheldValueItemIds : candidates.intersect(unheldValueItemIds);
+      LongList matches = new LongList();
+      for (int i = 0; i < ids.size; i++) {
+        IndexedItem item = items.get(ids.values[i]);
+        if (item != null && item.value == null && containsIgnoreCase(item.key, key)) {
+          matches.add(item.itemId);
+        }
+      }
+      return matches;
+    }
+
+    /**
+     * @return the items containing all the trigrams of the term among the candidates, or the
+     * candidates if the term is shorter than a trigram
+     */
+    private static LongList narrow(LongList candidates, LongMap<LongList> postings, String term) {
+      if (term.length() < 3) {
+        return candidates;
+      }
+      List<LongList> lists = Lists.newArrayList();
+      for (int i = 0; i + 3 <= term.length(); i++) {
+        LongList list = postings.get(trigram(term, i));
+        if (list == null) {
+          return LongList.EMPTY;
+        }
+        lists.add(list);
+      }
+      if (candidates != null) {
+        lists.add(candidates);
+      }
+      lists.sort(Comparator.comparingInt(list -> list.size));
+
+      LongList result = lists.get(0);
+      for (int i = 1; i < lists.size() && result.size > 0; i++) {
+        result = result.intersect(lists.get(i));
+      }
+      return result;
+    }
+
+    private static void addPostings(LongMap<LongList> postings, String text, long itemId) {
+      for (int i = 0; i + 3 <= text.length(); i++) {
+        long trigram = trigram(text, i);
+        LongList list = postings.get(trigram);
+        if (list == null) {
+          list = new LongList();
+          postings.put(trigram, list);
+        }
+        // a trigram may appear several times in a text, or the item is already there
+        list.insert(itemId);
+      }
+    }
+
+    private static long trigram(String text, int index) {
+      return ((long) Character.toLowerCase(text.charAt(index)) << 32)
+          | ((long) Character.toLowerCase(text.charAt(index + 1)) << 16)
+          | Character.toLowerCase(text.charAt(index + 2));
+    }
+
+    private static boolean containsIgnoreCase(String text, String term) {
+      for (int i = 0; i + term.length() <= text.length(); i++) {
+        if (text.regionMatches(true, i, term, 0, term.length())) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * A sorted list of ids without boxing.
+   */
+  private static class LongList {
+
+    private static final LongList EMPTY = new LongList();
+
+    private long[] values = new long[2];
+    private int size;
+
+    /**
+     * Appends the value, the values must be added in ascending order, or sorted afterwards.
+     */
+    private void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    /**
+     * Inserts the value at its position unless it is already there, it is an append when the
+     * values come in ascending order.
+     */
+    private void insert(long value) {
+      if (size == 0 || values[size - 1] < value) {
+        add(value);
+        return;
+      }
+      int index = Arrays.binarySearch(values, 0, size, value);
+      if (index >= 0) {
+        return;
+      }
+      index = -index - 1;
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      System.arraycopy(values, index, values, index + 1, size - index);
+      values[index] = value;
+      size++;
+    }
+
+    private void sort() {
+      Arrays.sort(values, 0, size);
+    }
+
+    private void trimToSize() {
+      if (values.length > size) {
+        values = Arrays.copyOf(values, Math.max(size, 1));
+      }
+    }
+
+    private List<Long> subList(int from, int to) {
+      List<Long> list = Lists.newArrayListWithCapacity(to - from);
+      for (int i = from; i < to; i++) {
+        list.add(values[i]);
+      }
+      return list;
+    }
+
+    private LongList intersect(LongList other) {
+      LongList result = new LongList();
+      int i = 0;
+      int j = 0;
+      while (i < size && j < other.size) {
+        if (values[i] < other.values[j]) {
+          i++;
+        } else if (values[i] > other.values[j]) {
+          j++;
+        } else {
+          result.add(values[i]);
+          i++;
+          j++;
+        }
+      }
+      return result;
+    }
+
+    private LongList merge(LongList other) {
+      if (other.size == 0) {
+        return this;
+      }
+      LongList result = new LongList();
+      int i = 0;
+      int j = 0;
+      while (i < size || j < other.size) {
+        if (j == other.size || i < size && values[i] < other.values[j]) {
+          result.add(values[i++]);
+        } else if (i == size || values[i] > other.values[j]) {
+          result.add(other.values[j++]);
+        } else {
+          result.add(values[i++]);
+          j++;
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * An open addressing hash map with primitive long keys, so that the trigrams and the ids are not
+   * boxed. The values must not be null.
+   */
+  private static class LongMap<V> {
+
+    private long[] keys = new long[16];
+    private Object[] values = new Object[16];
+    private int size;
+
+    private int size() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V get(long key) {
+      int mask = keys.length - 1;
+      for (int i = index(key, mask); values[i] != null; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          return (V) values[i];
+        }
+      }
+      return null;
+    }
+
+    private void put(long key, V value) {
+      int mask = keys.length - 1;
+      int i = index(key, mask);
+      for (; values[i] != null; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          values[i] = value;
+          return;
+        }
+      }
+      keys[i] = key;
+      values[i] = value;
+      // kept at most half full
+      if (++size * 2 > keys.length) {
+        resize();
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private V remove(long key) {
+      int mask = keys.length - 1;
+      int i = index(key, mask);
+      for (; values[i] != null; i = (i + 1) & mask) {
+        if (keys[i] == key) {
+          break;
+        }
+      }
+      V removed = (V) values[i];
+      if (removed == null) {
+        return null;
+      }
+      values[i] = null;
+      size--;
+      // moves the following entries of the probe sequence back, so that no lookup stops early
+      for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+        int home = index(keys[j], mask);
+        if (((j - home) & mask) >= ((j - i) & mask)) {
+          keys[i] = keys[j];
+          values[i] = values[j];
+          values[j] = null;
+          i = j;
+        }
+      }
+      return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void forEachValue(Consumer<V> action) {
+      for (Object value : values) {
+        if (value != null) {
+          action.accept((V) value);
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize() {
+      long[] oldKeys = keys;
+      Object[] oldValues = values;
+      keys = new long[oldKeys.length * 2];
+      values = new Object[oldValues.length * 2];
+      size = 0;
+      for (int i = 0; i < oldKeys.length; i++) {
+        if (oldValues[i] != null) {
+          put(oldKeys[i], (V) oldValues[i]);
+        }
+      }
+    }
+
+    private static int index(long key, int mask) {
+      long hash = key * 0x9E3779B97F4A7C15L;
+      return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+  }
+}
@@ -27,6 +27,7 @@ import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.exception.NotFoundException;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
+import com.google.common.collect.Lists;
 
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
@@ -37,6 +38,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class ItemService {
@@ -68,6 +70,7 @@ public class ItemService {
     item.setDeleted(true);
     item.setDataChangeLastModifiedBy(operator);
     Item deletedItem = itemRepository.save(item);
+    namespaceService.markUnpublishedChanges(deletedItem.getNamespaceId());
 
     auditService.audit(Item.class.getSimpleName(), id, Audit.OP.DELETE, operator);
     return deletedItem;
@@ -99,6 +102,10 @@ public class ItemService {
     return itemRepository.findById(itemId).orElse(null);
   }
 
+  public List<Item> findByIds(Collection<Long> itemIds) {
+    return Lists.newArrayList(itemRepository.findAllById(itemIds));
+  }
+
   public List<Item> findItemsWithoutOrdered(Long namespaceId) {
     List<Item> items = itemRepository.findByNamespaceId(namespaceId);
     if (items == null) {
@@ -153,6 +160,8 @@ public class ItemService {
   }
 
   public Page<ItemInfoDTO> getItemInfoBySearch(String key, String value, Pageable limit) {
+    key = ItemRepository.escapeLike(key);
+    value = ItemRepository.escapeLike(value);
     Page<ItemInfoDTO> itemInfoDTOs;
     if (key.isEmpty() && !value.isEmpty()) {
       itemInfoDTOs = itemRepository.findItemsByValueLike(value, limit);
@@ -179,6 +188,7 @@ public class ItemService {
     }
 
     Item item = itemRepository.save(entity);
+    namespaceService.markUnpublishedChanges(item.getNamespaceId());
 
     auditService.audit(Item.class.getSimpleName(), item.getId(), Audit.OP.INSERT,
         item.getDataChangeCreatedBy());
@@ -186,6 +196,79 @@ public class ItemService {
     return item;
   }
 
+  /**
+   * Saves the items of the namespace in one flush, all of them are validated before any is saved.
+   */
+  @Transactional
+  public List<Item> saveAll(Namespace namespace, List<Item> entities, String operator) {
+    int valueLengthLimit = getValueLengthLimit(namespace);
+    for (Item entity : entities) {
+      checkItemKeyLength(entity.getKey());
+      checkItemType(entity.getType());
+      checkItemValueLength(valueLengthLimit, entity.getValue());
+    }
+
+    Item lastItem = findLastOne(namespace.getId());
+    int lastLineNum = lastItem == null ? 0 : lastItem.getLineNum();
+    for (Item entity : entities) {
+      entity.setId(0);// protection
+      if (entity.getLineNum() == 0) {
+        entity.setLineNum(lastLineNum + 1);
+      }
+      lastLineNum = Math.max(lastLineNum, entity.getLineNum());
+    }
+
+    List<Item> items = Lists.newArrayList(itemRepository.saveAll(entities));
+    namespaceService.markUnpublishedChanges(namespace.getId());
+
+    auditService.auditAll(Item.class.getSimpleName(), collectIds(items), Audit.OP.INSERT, operator);
+
+    return items;
+  }
+
+  /**
+   * Updates the items loaded by {@link #findByIds(Collection)} in one flush, all of them are
+   * validated before any is updated.
+   */
+  @Transactional
+  public List<Item> updateAll(Namespace namespace, List<Item> managedItems, String operator) {
+    int valueLengthLimit = getValueLengthLimit(namespace);
+    for (Item managedItem : managedItems) {
+      checkItemType(managedItem.getType());
+      checkItemValueLength(valueLengthLimit, managedItem.getValue());
+    }
+
+    List<Item> items = Lists.newArrayList(itemRepository.saveAll(managedItems));
+    namespaceService.markUnpublishedChanges(namespace.getId());
+
+    auditService.auditAll(Item.class.getSimpleName(), collectIds(items), Audit.OP.UPDATE, operator);
+
+    return items;
+  }
+
+  /**
+   * Deletes the items loaded by {@link #findByIds(Collection)} in one flush.
+   */
+  @Transactional
+  public List<Item> deleteAll(List<Item> managedItems, String operator) {
+    for (Item managedItem : managedItems) {
+      managedItem.setDeleted(true);
+      managedItem.setDataChangeLastModifiedBy(operator);
+    }
+
+    List<Item> items = Lists.newArrayList(itemRepository.saveAll(managedItems));
+    items.stream().map(Item::getNamespaceId).distinct()
+        .forEach(namespaceService::markUnpublishedChanges);
+
+    auditService.auditAll(Item.class.getSimpleName(), collectIds(items), Audit.OP.DELETE, operator);
+
+    return items;
+  }
+
+  private List<Long> collectIds(List<Item> items) {
+    return items.stream().map(Item::getId).collect(Collectors.toList());
+  }
+
   @Transactional
   public Item saveComment(Item entity) {
     entity.setKey("");
@@ -199,6 +282,7 @@ public class ItemService {
     }
 
     Item item = itemRepository.save(entity);
+    namespaceService.markUnpublishedChanges(item.getNamespaceId());
 
     auditService.audit(Item.class.getSimpleName(), item.getId(), Audit.OP.INSERT,
         item.getDataChangeCreatedBy());
@@ -213,6 +297,7 @@ public class ItemService {
     Item managedItem = itemRepository.findById(item.getId()).orElse(null);
     BeanUtils.copyEntityProperties(item, managedItem);
     managedItem = itemRepository.save(managedItem);
+    namespaceService.markUnpublishedChanges(managedItem.getNamespaceId());
 
     auditService.audit(Item.class.getSimpleName(), managedItem.getId(), Audit.OP.UPDATE,
         managedItem.getDataChangeLastModifiedBy());
@@ -222,6 +307,17 @@ public class ItemService {
 
   private boolean checkItemValueLength(long namespaceId, String value) {
     Namespace currentNamespace = namespaceService.findOne(namespaceId);
+    return checkItemValueLength(getValueLengthLimit(currentNamespace), value);
+  }
+
+  private boolean checkItemValueLength(int limit, String value) {
+    if (!StringUtils.isEmpty(value) && value.length() > limit) {
+      throw new BadRequestException("value too long. length limit:" + limit);
+    }
+    return true;
+  }
+
+  private int getValueLengthLimit(Namespace currentNamespace) {
     int limit = getItemValueLengthLimit(currentNamespace);
     if (currentNamespace != null) {
       Matcher m = clusterPattern.matcher(currentNamespace.getClusterName());
@@ -230,10 +326,7 @@ public class ItemService {
         limit = getGrayNamespaceItemValueLengthLimit(currentNamespace, limit);
       }
     }
-    if (!StringUtils.isEmpty(value) && value.length() > limit) {
-      throw new BadRequestException("value too long. length limit:" + limit);
-    }
-    return true;
+    return limit;
   }
 
   private int getGrayNamespaceItemValueLengthLimit(Namespace grayNamespace,
@@ -27,7 +27,13 @@ import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.exception.NotFoundException;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -111,26 +117,35 @@ public class ItemSetService {
 
   private void doDeleteItems(List<ItemDTO> toDeleteItems, Namespace namespace, String operator,
       ConfigChangeContentBuilder configChangeContentBuilder) {
+    Map<Long, Item> managedItems = findManagedItems(toDeleteItems);
 
+    Map<Long, Item> toDeleteEntities = new LinkedHashMap<>();
     for (ItemDTO item : toDeleteItems) {
-      Item deletedItem = itemService.delete(item.getId(), operator);
-      if (deletedItem.getNamespaceId() != namespace.getId()) {
+      Item managedItem = managedItems.get(item.getId());
+      if (managedItem == null) {
+        throw new IllegalArgumentException("item not exist. ID:" + item.getId());
+      }
+      if (managedItem.getNamespaceId() != namespace.getId()) {
         throw BadRequestException.namespaceNotMatch();
       }
+      toDeleteEntities.put(managedItem.getId(), managedItem);
+    }
 
+    List<Item> deletedItems =
+        itemService.deleteAll(new ArrayList<>(toDeleteEntities.values()), operator);
+    for (Item deletedItem : deletedItems) {
       configChangeContentBuilder.deleteItem(deletedItem);
     }
   }
 
   private void doUpdateItems(List<ItemDTO> toUpdateItems, Namespace namespace, String operator,
       ConfigChangeContentBuilder configChangeContentBuilder) {
+    Map<Long, Item> managedItems = findManagedItems(toUpdateItems);
 
     for (ItemDTO item : toUpdateItems) {
-      Item entity = BeanUtils.transform(Item.class, item);
-
-      Item managedItem = itemService.findOne(entity.getId());
+      Item managedItem = managedItems.get(item.getId());
       if (managedItem == null) {
-        throw NotFoundException.itemNotFound(entity.getKey());
+        throw NotFoundException.itemNotFound(item.getKey());
       }
       if (managedItem.getNamespaceId() != namespace.getId()) {
         throw BadRequestException.namespaceNotMatch();
@@ -138,20 +153,22 @@ public class ItemSetService {
       Item beforeUpdateItem = BeanUtils.transform(Item.class, managedItem);
 
       // protect. only value,type,comment,lastModifiedBy can be modified
-      managedItem.setType(entity.getType());
-      managedItem.setValue(entity.getValue());
-      managedItem.setComment(entity.getComment());
-      managedItem.setLineNum(entity.getLineNum());
+      managedItem.setType(item.getType());
+      managedItem.setValue(item.getValue());
+      managedItem.setComment(item.getComment());
+      managedItem.setLineNum(item.getLineNum());
       managedItem.setDataChangeLastModifiedBy(operator);
 
-      Item updatedItem = itemService.update(managedItem);
-      configChangeContentBuilder.updateItem(beforeUpdateItem, updatedItem);
+      // the builder copies the items, so the changes of the same item are all recorded
+      configChangeContentBuilder.updateItem(beforeUpdateItem, managedItem);
     }
+
+    itemService.updateAll(namespace, new ArrayList<>(managedItems.values()), operator);
   }
 
   private void doCreateItems(List<ItemDTO> toCreateItems, Namespace namespace, String operator,
       ConfigChangeContentBuilder configChangeContentBuilder) {
-
+    List<Item> entities = new ArrayList<>(toCreateItems.size());
     for (ItemDTO item : toCreateItems) {
       if (item.getNamespaceId() != namespace.getId()) {
         throw BadRequestException.namespaceNotMatch();
@@ -160,9 +177,25 @@ public class ItemSetService {
       Item entity = BeanUtils.transform(Item.class, item);
       entity.setDataChangeCreatedBy(operator);
       entity.setDataChangeLastModifiedBy(operator);
-      Item createdItem = itemService.save(entity);
+      entities.add(entity);
+    }
+
+    List<Item> createdItems = itemService.saveAll(namespace, entities, operator);
+    for (Item createdItem : createdItems) {
       configChangeContentBuilder.createItem(createdItem);
     }
   }
 
+  /**
+   * Loads the items of the change set in one query instead of one query per item.
+   */
+  private Map<Long, Item> findManagedItems(List<ItemDTO> items) {
+    Set<Long> itemIds = items.stream().map(ItemDTO::getId).collect(Collectors.toSet());
+    Map<Long, Item> managedItems = new HashMap<>(itemIds.size() * 2);
+    for (Item managedItem : itemService.findByIds(itemIds)) {
+      managedItems.put(managedItem.getId(), managedItem);
+    }
+    return managedItems;
+  }
+
 }
@@ -33,7 +33,9 @@ import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.exception.ServiceException;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Multimap;
 import com.google.gson.Gson;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
@@ -416,6 +418,10 @@ public class NamespaceService {
       throw BadRequestException.appNotExists(appId);
     }
 
+    if (bizConfig.isNamespacePublishInfoIndexEnabled()) {
+      return namespacePublishInfoFromIndex(appId, clusters);
+    }
+
     Map<String, Boolean> clusterHasNotPublishedItems = Maps.newHashMap();
 
     for (Cluster cluster : clusters) {
@@ -437,7 +443,53 @@ public class NamespaceService {
     return clusterHasNotPublishedItems;
   }
 
-  private boolean isNamespaceNotPublished(Namespace namespace) {
+  /**
+   * Only the namespaces marked with unpublished changes are checked, the mark is conservative as
+   * it is not cleared when a change is reverted.
+   */
+  private Map<String, Boolean> namespacePublishInfoFromIndex(String appId, List<Cluster> clusters) {
+    Multimap<String, Namespace> markedNamespaces = ArrayListMultimap.create();
+    for (Namespace namespace : namespaceRepository.findByAppIdAndHasUnpublishedChangesTrue(appId)) {
+      markedNamespaces.put(namespace.getClusterName(), namespace);
+    }
+
+    Map<String, Boolean> clusterHasNotPublishedItems = Maps.newHashMap();
+    for (Cluster cluster : clusters) {
+      String clusterName = cluster.getName();
+      boolean hasNotPublishedItems = false;
+      for (Namespace namespace : markedNamespaces.get(clusterName)) {
+        if (isNamespaceNotPublished(namespace)) {
+          hasNotPublishedItems = true;
+          break;
+        }
+      }
+      clusterHasNotPublishedItems.put(clusterName, hasNotPublishedItems);
+    }
+
+    return clusterHasNotPublishedItems;
+  }
+
+  /**
+   * Locks the namespace until the transaction ends. A release calls it before anything else is
+   * read, so its items and commits include every change committed before and no commit of the
+   * namespace is inserted meanwhile, see {@link CommitService#createCommit}.
+   */
+  @Transactional
+  public void lock(String appId, String clusterName, String namespaceName) {
+    namespaceRepository.lock(appId, clusterName, namespaceName);
+  }
+
+  @Transactional
+  public void markUnpublishedChanges(long namespaceId) {
+    namespaceRepository.markUnpublishedChanges(namespaceId);
+  }
+
+  @Transactional
+  public void clearUnpublishedChanges(long namespaceId) {
+    namespaceRepository.clearUnpublishedChanges(namespaceId);
+  }
+
+  boolean isNamespaceNotPublished(Namespace namespace) {
 
     Release latestRelease = releaseService.findLatestActiveRelease(namespace);
     long namespaceId = namespace.getId();
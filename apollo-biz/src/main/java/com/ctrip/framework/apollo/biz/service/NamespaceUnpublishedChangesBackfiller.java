@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.service;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.repository.NamespaceRepository;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.PageRequest;
+
+/**
+ * Marks the existing namespaces which have unpublished changes in background batches, when
+ * namespace.publish-info.backfill.enabled is on.
+ * <p>
+ * The namespaces are scanned once in id order, the marks are only set here and are cleared by the
+ * next release. The changes made after the scan are marked when they are saved.
+ */
+public class NamespaceUnpublishedChangesBackfiller implements InitializingBean, DisposableBean {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(NamespaceUnpublishedChangesBackfiller.class);
+  private static final int BATCH_SIZE = 100;
+  private static final long BATCH_INTERVAL_IN_MILLI = 1000;
+
+  private final NamespaceRepository namespaceRepository;
+  private final NamespaceService namespaceService;
+  private final BizConfig bizConfig;
+  private final ScheduledExecutorService executorService;
+
+  // only accessed by the backfill thread
+  private long lastScannedId;
+  private boolean finished;
+
+  public NamespaceUnpublishedChangesBackfiller(final NamespaceRepository namespaceRepository,
+      final NamespaceService namespaceService, final BizConfig bizConfig) {
+    this.namespaceRepository = namespaceRepository;
+    this.namespaceService = namespaceService;
+    this.bizConfig = bizConfig;
+    this.executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("NamespaceUnpublishedChangesBackfiller", true));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    executorService.scheduleWithFixedDelay(() -> {
+      try {
+        backfillNextBatch();
+      } catch (Throwable ex) {
+        logger.error("Backfill namespace unpublished changes failed", ex);
+        Tracer.logError(ex);
+      }
+    }, BATCH_INTERVAL_IN_MILLI, BATCH_INTERVAL_IN_MILLI, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  void backfillNextBatch() {
+    if (finished || !bizConfig.isNamespacePublishInfoBackfillEnabled()) {
+      return;
+    }
+
+    List<Namespace> namespaces = namespaceRepository.findByIdGreaterThanOrderByIdAsc(
+        lastScannedId, PageRequest.of(0, BATCH_SIZE));
+    if (namespaces.isEmpty()) {
+      finished = true;
+      logger.info("Namespaces with unpublished changes are all marked");
+      return;
+    }
+
+    int marked = 0;
+    for (Namespace namespace : namespaces) {
+      if (!namespace.hasUnpublishedChanges()
+          && namespaceService.isNamespaceNotPublished(namespace)) {
+        namespaceService.markUnpublishedChanges(namespace.getId());
+        marked++;
+      }
+      lastScannedId = Math.max(lastScannedId, namespace.getId());
+    }
+    logger.debug("Marked {} of {} namespaces with unpublished changes", marked, namespaces.size());
+  }
+}
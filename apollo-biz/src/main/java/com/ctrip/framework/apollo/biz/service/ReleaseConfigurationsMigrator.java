@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.service;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.repository.ReleaseRepository;
+import com.ctrip.framework.apollo.biz.utils.ReleaseConfigurationsCodec;
+import com.ctrip.framework.apollo.biz.utils.ReleaseConfigurationsCodecs;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.collect.Sets;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Converts the stored configurations of the existing releases to the configured codec in
+ * background batches, when release.configurations.migration.enabled is on.
+ * <p>
+ * The releases are scanned once in id order, the new releases are written with the configured
+ * codec anyway. The scan starts over when the configured codec changes.
+ */
+public class ReleaseConfigurationsMigrator implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ReleaseConfigurationsMigrator.class);
+
+  private final ReleaseRepository releaseRepository;
+  private final BizConfig bizConfig;
+  private final TransactionTemplate transactionTemplate;
+  private final ScheduledExecutorService executorService;
+
+  // only accessed by the migration thread
+  private ReleaseConfigurationsCodec targetCodec;
+  private long lastScannedId;
+  private boolean finished;
+
+  public ReleaseConfigurationsMigrator(final ReleaseRepository releaseRepository,
+      final BizConfig bizConfig, final TransactionTemplate transactionTemplate) {
+    this.releaseRepository = releaseRepository;
+    this.bizConfig = bizConfig;
+    this.transactionTemplate = transactionTemplate;
+    this.executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("ReleaseConfigurationsMigrator", true));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    long interval = bizConfig.releaseConfigurationsMigrationBatchIntervalInMilli();
+    executorService.scheduleWithFixedDelay(() -> {
+      try {
+        migrateNextBatch();
+      } catch (Throwable ex) {
+        logger.error("Migrate release configurations failed", ex);
+        Tracer.logError(ex);
+      }
+    }, interval, Math.max(interval, 1), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  void migrateNextBatch() {
+    if (!bizConfig.isReleaseConfigurationsMigrationEnabled()) {
+      return;
+    }
+
+    ReleaseConfigurationsCodec codec =
+        ReleaseConfigurationsCodecs.forName(bizConfig.releaseConfigurationsCodec());
+    if (codec != targetCodec) {
+      targetCodec = codec;
+      lastScannedId = 0;
+      finished = false;
+    }
+    if (finished) {
+      return;
+    }
+
+    List<Object[]> rows = releaseRepository.findIdsAndConfigurationsPrefixes(lastScannedId,
+        bizConfig.releaseConfigurationsMigrationBatchSize());
+    if (rows.isEmpty()) {
+      finished = true;
+      logger.info("Release configurations are all stored with codec {}", codec.name());
+      return;
+    }
+
+    Set<Long> releaseIds = Sets.newHashSetWithExpectedSize(rows.size());
+    for (Object[] row : rows) {
+      long releaseId = ((Number) row[0]).longValue();
+      if (ReleaseConfigurationsCodecs.codecOf(Objects.toString(row[1], null)) != codec) {
+        releaseIds.add(releaseId);
+      }
+      lastScannedId = Math.max(lastScannedId, releaseId);
+    }
+
+    if (releaseIds.isEmpty()) {
+      return;
+    }
+
+    transactionTemplate.executeWithoutResult(status -> {
+      // deleted releases are not loaded and stay as they are
+      for (Release release : releaseRepository.findAllById(releaseIds)) {
+        releaseRepository.updateStoredConfigurations(release.getId(),
+            codec.encode(release.getConfigurations()));
+      }
+    });
+    logger.debug("Migrated the configurations of {} releases to codec {}", releaseIds.size(),
+        codec.name());
+  }
+}
@@ -38,6 +38,17 @@ public class ReleaseMessageService {
     this.releaseMessageRepository = releaseMessageRepository;
   }
 
+  public ReleaseMessage findLatestReleaseMessage() {
+    return releaseMessageRepository.findTopByOrderByIdDesc();
+  }
+
+  /**
+   * @return the first 500 release messages after the id, in the order of the id
+   */
+  public List<ReleaseMessage> findFirst500ReleaseMessagesAfter(long id) {
+    return releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(id);
+  }
+
   public ReleaseMessage findLatestReleaseMessageForMessages(Collection<String> messages) {
     if (CollectionUtils.isEmpty(messages)) {
       return null;
@@ -16,7 +16,9 @@
  */
 package com.ctrip.framework.apollo.biz.service;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Audit;
+import com.ctrip.framework.apollo.biz.entity.Commit;
 import com.ctrip.framework.apollo.biz.entity.GrayReleaseRule;
 import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
@@ -24,6 +26,7 @@ import com.ctrip.framework.apollo.biz.entity.NamespaceLock;
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.biz.entity.ReleaseHistory;
 import com.ctrip.framework.apollo.biz.repository.ReleaseRepository;
+import com.ctrip.framework.apollo.biz.utils.ConfigChangeContentBuilder;
 import com.ctrip.framework.apollo.biz.utils.ReleaseKeyGenerator;
 import com.ctrip.framework.apollo.common.constants.GsonType;
 import com.ctrip.framework.apollo.common.constants.ReleaseOperation;
@@ -39,6 +42,9 @@ import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.io.StringWriter;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.Collections;
@@ -68,6 +74,8 @@ public class ReleaseService {
   private static final Set<Integer> BRANCH_RELEASE_OPERATIONS = Sets.newHashSet(
       ReleaseOperation.GRAY_RELEASE, ReleaseOperation.MASTER_NORMAL_RELEASE_MERGE_TO_GRAY,
       ReleaseOperation.MATER_ROLLBACK_MERGE_TO_GRAY);
+  private static final Set<Integer> MASTER_RELEASE_OPERATIONS = Sets.newHashSet(
+      ReleaseOperation.NORMAL_RELEASE, ReleaseOperation.GRAY_RELEASE_MERGE_TO_MASTER);
   private static final Pageable FIRST_ITEM = PageRequest.of(0, 1);
   private static final Type OPERATION_CONTEXT_TYPE_REFERENCE =
       new TypeToken<Map<String, Object>>() {}.getType();
@@ -80,11 +88,14 @@ public class ReleaseService {
   private final NamespaceBranchService namespaceBranchService;
   private final ReleaseHistoryService releaseHistoryService;
   private final ItemSetService itemSetService;
+  private final CommitService commitService;
+  private final BizConfig bizConfig;
 
   public ReleaseService(final ReleaseRepository releaseRepository, final ItemService itemService,
       final AuditService auditService, final NamespaceLockService namespaceLockService,
       final NamespaceService namespaceService, final NamespaceBranchService namespaceBranchService,
-      final ReleaseHistoryService releaseHistoryService, final ItemSetService itemSetService) {
+      final ReleaseHistoryService releaseHistoryService, final ItemSetService itemSetService,
+      final CommitService commitService, final BizConfig bizConfig) {
     this.releaseRepository = releaseRepository;
     this.itemService = itemService;
     this.auditService = auditService;
@@ -93,6 +104,8 @@ public class ReleaseService {
     this.namespaceBranchService = namespaceBranchService;
     this.releaseHistoryService = releaseHistoryService;
     this.itemSetService = itemSetService;
+    this.commitService = commitService;
+    this.bizConfig = bizConfig;
   }
 
   public Release findOne(long releaseId) {
@@ -132,6 +145,13 @@ public class ReleaseService {
             clusterName, namespaceName);
   }
 
+  /**
+   * @return the ids of the latest active releases of all the namespaces, including the branches
+   */
+  public List<Long> findLatestActiveReleaseIds() {
+    return releaseRepository.findLatestActiveReleaseIds();
+  }
+
   public List<Release> findAllReleases(String appId, String clusterName, String namespaceName,
       Pageable page) {
     List<Release> releases =
@@ -173,18 +193,24 @@ public class ReleaseService {
     checkLock(namespace, isEmergencyPublish, changeSets.getDataChangeLastModifiedBy());
 
     itemSetService.updateSet(namespace, changeSets);
+    // the caller locked the namespace before anything was read, a change saved meanwhile waits
+    // for the lock to mark the namespace, so it is marked again after this release
+    namespaceService.clearUnpublishedChanges(namespace.getId());
 
     Release branchRelease =
         findLatestActiveRelease(namespace.getAppId(), branchName, namespace.getNamespaceName());
     long branchReleaseId = branchRelease == null ? 0 : branchRelease.getId();
 
-    Map<String, String> operateNamespaceItems = getNamespaceItems(namespace);
-
     Map<String, Object> operationContext = Maps.newLinkedHashMap();
     operationContext.put(ReleaseOperationContext.SOURCE_BRANCH, branchName);
     operationContext.put(ReleaseOperationContext.BASE_RELEASE_ID, branchReleaseId);
     operationContext.put(ReleaseOperationContext.IS_EMERGENCY_PUBLISH, isEmergencyPublish);
 
+    Release previousRelease =
+        bizConfig.isReleaseIncrementalBuildEnabled() ? findLatestActiveRelease(namespace) : null;
+    Map<String, String> operateNamespaceItems =
+        getNamespaceItems(namespace, previousRelease, operationContext);
+
     return masterRelease(namespace, releaseName, releaseComment, operateNamespaceItems,
         changeSets.getDataChangeLastModifiedBy(), ReleaseOperation.GRAY_RELEASE_MERGE_TO_MASTER,
         operationContext);
@@ -197,27 +223,32 @@ public class ReleaseService {
 
     checkLock(namespace, isEmergencyPublish, operator);
 
-    Map<String, String> operateNamespaceItems = getNamespaceItems(namespace);
-
     Namespace parentNamespace = namespaceService.findParentNamespace(namespace);
 
     // branch release
     if (parentNamespace != null) {
-      return publishBranchNamespace(parentNamespace, namespace, operateNamespaceItems, releaseName,
-          releaseComment, operator, isEmergencyPublish);
+      return publishBranchNamespace(parentNamespace, namespace, getNamespaceItems(namespace),
+          releaseName, releaseComment, operator, isEmergencyPublish);
     }
 
     Namespace childNamespace = namespaceService.findChildNamespace(namespace);
 
     Release previousRelease = null;
-    if (childNamespace != null) {
+    if (childNamespace != null || bizConfig.isReleaseIncrementalBuildEnabled()) {
       previousRelease = findLatestActiveRelease(namespace);
     }
 
+    // the caller locked the namespace before anything was read, a change saved meanwhile waits
+    // for the lock to mark the namespace, so it is marked again after this release
+    namespaceService.clearUnpublishedChanges(namespace.getId());
+
     // master release
     Map<String, Object> operationContext = Maps.newLinkedHashMap();
     operationContext.put(ReleaseOperationContext.IS_EMERGENCY_PUBLISH, isEmergencyPublish);
 
+    Map<String, String> operateNamespaceItems =
+        getNamespaceItems(namespace, previousRelease, operationContext);
+
     Release release = masterRelease(namespace, releaseName, releaseComment, operateNamespaceItems,
         operator, ReleaseOperation.NORMAL_RELEASE, operationContext);
 
@@ -413,6 +444,97 @@ public class ReleaseService {
     return result;
   }
 
+  /**
+   * Gets the configurations of a master namespace to publish. When incremental build is enabled,
+   * the last commit they include is recorded in the operation context, and the commits since the
+   * previous release are applied to its configurations, all the items are only loaded when that
+   * is not possible.
+   * <p>
+   * The commit ids are only in commit order while the namespace is locked, so the caller locks it
+   * with {@link NamespaceService#lock} before anything is read in the transaction.
+   */
+  private Map<String, String> getNamespaceItems(Namespace namespace, Release previousRelease,
+      Map<String, Object> operationContext) {
+    if (!bizConfig.isReleaseIncrementalBuildEnabled()) {
+      return getNamespaceItems(namespace);
+    }
+
+    if (previousRelease != null) {
+      Map<String, String> configurations =
+          buildNamespaceItemsFromCommits(namespace, previousRelease, operationContext);
+      if (configurations != null) {
+        return configurations;
+      }
+    }
+
+    // read the commit id first, the commits after it are applied again by the next build if
+    // they are already included in the items, which does no harm
+    long lastCommitId = commitService.findLatestCommitId(namespace.getAppId(),
+        namespace.getClusterName(), namespace.getNamespaceName());
+    Map<String, String> configurations = getNamespaceItems(namespace);
+    operationContext.put(ReleaseOperationContext.LAST_COMMIT_ID, lastCommitId);
+
+    return configurations;
+  }
+
+  private Map<String, String> buildNamespaceItemsFromCommits(Namespace namespace,
+      Release previousRelease, Map<String, Object> operationContext) {
+    Long baseCommitId = getLastCommitId(previousRelease.getId());
+    if (baseCommitId == null) {
+      return null;
+    }
+
+    int maxCommits = bizConfig.releaseIncrementalBuildMaxCommits();
+    List<Commit> commits = commitService.findAfter(namespace.getAppId(),
+        namespace.getClusterName(), namespace.getNamespaceName(), baseCommitId,
+        PageRequest.of(0, maxCommits + 1));
+    if (commits.size() > maxCommits) {
+      return null;
+    }
+
+    Map<String, String> configurations =
+        GSON.fromJson(previousRelease.getConfigurations(), GsonType.CONFIG);
+    long lastCommitId = baseCommitId;
+    for (Commit commit : commits) {
+      ConfigChangeContentBuilder.convertJsonString(commit.getChangeSets()).applyTo(configurations);
+      lastCommitId = commit.getId();
+    }
+
+    // fall back to the items if some of them were changed without a commit
+    if (configurations.size() != itemService.findNonEmptyItemCount(namespace.getId())) {
+      return null;
+    }
+
+    operationContext.put(ReleaseOperationContext.LAST_COMMIT_ID, lastCommitId);
+    return configurations;
+  }
+
+  private Long getLastCommitId(long releaseId) {
+    Page<ReleaseHistory> releaseHistories =
+        releaseHistoryService.findByReleaseIdAndOperationInOrderByIdDesc(releaseId,
+            MASTER_RELEASE_OPERATIONS, FIRST_ITEM);
+
+    if (!releaseHistories.hasContent()) {
+      return null;
+    }
+
+    String operationContextJson = releaseHistories.getContent().get(0).getOperationContext();
+    if (Strings.isNullOrEmpty(operationContextJson)
+        || !operationContextJson.contains(ReleaseOperationContext.LAST_COMMIT_ID)) {
+      return null;
+    }
+
+    Map<String, Object> operationContext =
+        GSON.fromJson(operationContextJson, OPERATION_CONTEXT_TYPE_REFERENCE);
+
+    if (operationContext == null) {
+      return null;
+    }
+
+    Object lastCommitId = operationContext.get(ReleaseOperationContext.LAST_COMMIT_ID);
+    return lastCommitId instanceof Number ? ((Number) lastCommitId).longValue() : null;
+  }
+
   private Map<String, String> getNamespaceItems(Namespace namespace) {
     List<Item> items = itemService.findItemsWithOrdered(namespace.getId());
     Map<String, String> configurations = new LinkedHashMap<>();
@@ -438,7 +560,7 @@ public class ReleaseService {
     release.setAppId(namespace.getAppId());
     release.setClusterName(namespace.getClusterName());
     release.setNamespaceName(namespace.getNamespaceName());
-    release.setConfigurations(GSON.toJson(configurations));
+    release.setConfigurations(toJson(configurations));
     release = releaseRepository.save(release);
 
     namespaceLockService.unlock(namespace.getId());
@@ -448,6 +570,26 @@ public class ReleaseService {
     return release;
   }
 
+  /**
+   * Writes the configurations with a streaming writer, the output is the same as GSON.toJson.
+   */
+  private String toJson(Map<String, String> configurations) {
+    StringWriter out = new StringWriter();
+    try (JsonWriter writer = new JsonWriter(out)) {
+      writer.setHtmlSafe(true);
+      writer.setSerializeNulls(false);
+      writer.beginObject();
+      for (Map.Entry<String, String> entry : configurations.entrySet()) {
+        writer.name(entry.getKey()).value(entry.getValue());
+      }
+      writer.endObject();
+    } catch (IOException e) {
+      // StringWriter doesn't throw IOException
+      throw new IllegalStateException(e);
+    }
+    return out.toString();
+  }
+
   @Transactional
   public Release rollback(long releaseId, String operator) {
     Release release = findOne(releaseId);
@@ -475,6 +617,7 @@ public class ReleaseService {
     release.setDataChangeLastModifiedBy(operator);
 
     releaseRepository.save(release);
+    markUnpublishedChanges(appId, clusterName, namespaceName);
 
     releaseHistoryService.createReleaseHistory(appId, clusterName, namespaceName, clusterName,
         twoLatestActiveReleases.get(1).getId(), release.getId(), ReleaseOperation.ROLLBACK, null,
@@ -518,6 +661,7 @@ public class ReleaseService {
     }
 
     releaseRepository.saveAll(releases);
+    markUnpublishedChanges(appId, clusterName, namespaceName);
 
     releaseHistoryService.createReleaseHistory(appId, clusterName, namespaceName, clusterName,
         toReleaseId, release.getId(), ReleaseOperation.ROLLBACK, null, operator);
@@ -529,6 +673,17 @@ public class ReleaseService {
     return release;
   }
 
+  /**
+   * The items may differ from the release rolled back to, which is checked when the publish info
+   * is queried.
+   */
+  private void markUnpublishedChanges(String appId, String clusterName, String namespaceName) {
+    Namespace namespace = namespaceService.findOne(appId, clusterName, namespaceName);
+    if (namespace != null) {
+      namespaceService.markUnpublishedChanges(namespace.getId());
+    }
+  }
+
   private void rollbackChildNamespace(String appId, String clusterName, String namespaceName,
       List<Release> parentNamespaceTwoLatestActiveRelease, String operator) {
     Namespace parentNamespace = namespaceService.findOne(appId, clusterName, namespaceName);
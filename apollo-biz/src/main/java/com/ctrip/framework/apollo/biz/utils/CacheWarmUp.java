@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.utils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+
+/**
+ * Runs the initial loads of the caches on an executor, so that they load concurrently instead of
+ * one after another at startup. The load time and the number of rows loaded of each cache are
+ * reported as apollo.cache.warmup and apollo.cache.warmup.rows.
+ * <p>
+ * As a bean, it holds up the startup until all the loads submitted by the other beans are done.
+ */
+public class CacheWarmUp implements SmartInitializingSingleton {
+
+  private static final Logger logger = LoggerFactory.getLogger(CacheWarmUp.class);
+
+  private final Executor executor;
+  private final MeterRegistry meterRegistry;
+  private final List<CompletableFuture<Void>> warmUps = new CopyOnWriteArrayList<>();
+  private volatile boolean completed;
+
+  public CacheWarmUp(final Executor executor, final MeterRegistry meterRegistry) {
+    this.executor = executor;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Starts the initial load of the cache.
+   *
+   * @param loader loads the cache and returns the number of rows loaded
+   * @param afterLoad runs after the load whether it succeeds or not, e.g. to schedule the scans
+   */
+  public CompletableFuture<Void> submit(String cacheName, LongSupplier loader,
+      Runnable afterLoad) {
+    CompletableFuture<Void> warmUp = CompletableFuture.runAsync(() -> {
+      long start = System.nanoTime();
+      long rows = loader.getAsLong();
+      long elapsed = System.nanoTime() - start;
+
+      Timer.builder("apollo.cache.warmup").tag("cache", cacheName)
+          .description("Time of the initial load of the cache").register(meterRegistry)
+          .record(elapsed, TimeUnit.NANOSECONDS);
+      Gauge.builder("apollo.cache.warmup.rows", () -> rows).tag("cache", cacheName)
+          .description("Rows of the initial load of the cache").register(meterRegistry);
+      logger.info("Loaded {} rows into cache {} in {} ms", rows, cacheName,
+          TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }, executor).whenComplete((result, ex) -> afterLoad.run());
+    warmUps.add(warmUp);
+    return warmUp;
+  }
+
+  /**
+   * Waits for the loads submitted so far.
+   *
+   * @throws IllegalStateException if any of them fails
+   */
+  public void await() throws InterruptedException {
+    try {
+      CompletableFuture.allOf(warmUps.toArray(new CompletableFuture[0])).get();
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException("Cache warm up failed", ex.getCause());
+    }
+    completed = true;
+  }
+
+  /**
+   * @return whether all the loads are done, the caches are not ready to serve before it
+   */
+  public boolean isCompleted() {
+    return completed;
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    try {
+      await();
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Cache warm up interrupted", ex);
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.google.gson.GsonBuilder;
 import java.util.Date;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import org.springframework.beans.BeanUtils;
 
 public class ConfigChangeContentBuilder {
@@ -78,6 +79,26 @@ public class ConfigChangeContentBuilder {
     return GSON.toJson(this);
   }
 
+  /**
+   * Applies the changes to the configurations, in the order they were made by ItemSetService:
+   * creates first, then updates and deletes.
+   */
+  public void applyTo(Map<String, String> configurations) {
+    for (Item item : createItems) {
+      configurations.put(item.getKey(), item.getValue());
+    }
+
+    for (ItemPair item : updateItems) {
+      if (!StringUtils.isEmpty(item.newItem.getKey())) {
+        configurations.put(item.newItem.getKey(), item.newItem.getValue());
+      }
+    }
+
+    for (Item item : deleteItems) {
+      configurations.remove(item.getKey());
+    }
+  }
+
   static class ItemPair {
 
     Item oldItem;
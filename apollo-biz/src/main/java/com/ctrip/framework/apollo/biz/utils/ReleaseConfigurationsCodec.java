@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.utils;
+
+/**
+ * Encodes the json configurations of a release into the form stored in the Release table.
+ * <p>
+ * Each encoded form starts with the prefix of its codec, so the rows written by different codecs
+ * can be told apart and plain json rows stay readable.
+ */
+public interface ReleaseConfigurationsCodec {
+
+  String name();
+
+  /**
+   * @return the prefix of the stored configurations written by this codec, null for plain json
+   */
+  String prefix();
+
+  String encode(String configurations);
+
+  String decode(String storedConfigurations);
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.utils;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The codecs of release configurations, looked up by their names or by the prefixes of the stored
+ * configurations.
+ */
+public final class ReleaseConfigurationsCodecs {
+
+  public static final ReleaseConfigurationsCodec PLAIN = new PlainCodec();
+  public static final ReleaseConfigurationsCodec GZIP = new GzipCodec();
+
+  private static final Supplier<String> NO_CODEC_NAME = () -> null;
+
+  // the name of the codec new configurations are written with, see current()
+  private static volatile Supplier<String> currentCodecName = NO_CODEC_NAME;
+
+  private ReleaseConfigurationsCodecs() {
+  }
+
+  /**
+   * Sets where the name of the codec new configurations are written with comes from. The JPA
+   * converter is created by hibernate while the entity manager factory is being built, before any
+   * config bean can be, so the codec is looked up through here instead of being injected.
+   */
+  public static void setCurrentCodecName(Supplier<String> codecName) {
+    currentCodecName = codecName == null ? NO_CODEC_NAME : codecName;
+  }
+
+  /**
+   * @return the codec new configurations are written with, the plain one until it is set
+   */
+  public static ReleaseConfigurationsCodec current() {
+    return forName(currentCodecName.get());
+  }
+
+  /**
+   * @return the codec of the name, or the plain one if there is no such codec
+   */
+  public static ReleaseConfigurationsCodec forName(String name) {
+    if (GZIP.name().equalsIgnoreCase(name)) {
+      return GZIP;
+    }
+    return PLAIN;
+  }
+
+  /**
+   * @return the codec the stored configurations were written by
+   */
+  public static ReleaseConfigurationsCodec codecOf(String storedConfigurations) {
+    if (storedConfigurations != null && storedConfigurations.startsWith(GZIP.prefix())) {
+      return GZIP;
+    }
+    return PLAIN;
+  }
+
+  public static String decode(String storedConfigurations) {
+    return codecOf(storedConfigurations).decode(storedConfigurations);
+  }
+
+  private static class PlainCodec implements ReleaseConfigurationsCodec {
+
+    @Override
+    public String name() {
+      return "plain";
+    }
+
+    @Override
+    public String prefix() {
+      return null;
+    }
+
+    @Override
+    public String encode(String configurations) {
+      return configurations;
+    }
+
+    @Override
+    public String decode(String storedConfigurations) {
+      return storedConfigurations;
+    }
+  }
+
+  /**
+   * Gzip compressed json in base64, as the Configurations column is a text column.
+   */
+  private static class GzipCodec implements ReleaseConfigurationsCodec {
+
+    private static final String PREFIX = "gzip:";
+
+    @Override
+    public String name() {
+      return "gzip";
+    }
+
+    @Override
+    public String prefix() {
+      return PREFIX;
+    }
+
+    @Override
+    public String encode(String configurations) {
+      if (configurations == null) {
+        return null;
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+        gzipOut.write(configurations.getBytes(StandardCharsets.UTF_8));
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+      return PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    @Override
+    public String decode(String storedConfigurations) {
+      byte[] compressed =
+          Base64.getDecoder().decode(storedConfigurations.substring(PREFIX.length()));
+      try (GZIPInputStream gzipIn = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+        return new String(ByteStreams.toByteArray(gzipIn), StandardCharsets.UTF_8);
+      } catch (IOException ex) {
+        throw new UncheckedIOException(ex);
+      }
+    }
+  }
+}
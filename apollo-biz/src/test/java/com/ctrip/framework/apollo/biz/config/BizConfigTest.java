@@ -57,6 +57,21 @@ public class BizConfigTest {
     ReflectionTestUtils.setField(bizConfig, "environment", environment);
   }
 
+  @Test
+  public void testReleaseMessagePushScanIntervalDefaultsToScanInterval() throws Exception {
+    int someInterval = 2000;
+    when(environment.getProperty("apollo.message-scan.interval"))
+        .thenReturn(String.valueOf(someInterval));
+
+    assertEquals(someInterval, bizConfig.releaseMessagePushScanIntervalInMilli());
+
+    int somePushInterval = 5000;
+    when(environment.getProperty("apollo.message-scan.push.interval"))
+        .thenReturn(String.valueOf(somePushInterval));
+
+    assertEquals(somePushInterval, bizConfig.releaseMessagePushScanIntervalInMilli());
+  }
+
   @Test
   public void testReleaseMessageNotificationBatch() throws Exception {
     int someBatch = 20;
@@ -83,6 +98,27 @@ public class BizConfigTest {
     assertEquals(defaultBatch, bizConfig.releaseMessageNotificationBatch());
   }
 
+  @Test
+  public void testReleaseMessageNotificationRateLimit() throws Exception {
+    int someRateLimit = 5000;
+    when(environment.getProperty("apollo.release-message.notification.rate-limit"))
+        .thenReturn(String.valueOf(someRateLimit));
+
+    assertEquals(someRateLimit, bizConfig.releaseMessageNotificationRateLimit(), 0.001);
+  }
+
+  @Test
+  public void testReleaseMessageNotificationRateLimitWithDefaultValue() throws Exception {
+    int someBatch = 20;
+    int someBatchInterval = 50;
+    when(environment.getProperty("apollo.release-message.notification.batch"))
+        .thenReturn(String.valueOf(someBatch));
+    when(environment.getProperty("apollo.release-message.notification.batch.interval"))
+        .thenReturn(String.valueOf(someBatchInterval));
+
+    assertEquals(400, bizConfig.releaseMessageNotificationRateLimit(), 0.001);
+  }
+
   @Test
   public void testReleaseHistoryRetentionSize() {
     int someLimit = 20;
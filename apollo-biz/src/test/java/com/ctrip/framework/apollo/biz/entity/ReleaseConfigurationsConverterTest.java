@@ -0,0 +1,99 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.entity;
+
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.config.ReleaseConfigurationsCodecInitializer;
+import com.ctrip.framework.apollo.biz.repository.ReleaseRepository;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+
+public class ReleaseConfigurationsConverterTest extends AbstractIntegrationTest {
+
+  private static final String CONFIGURATIONS = "{\"k1\":\"v1\",\"k2\":\"v2\"}";
+
+  @MockBean
+  private BizConfig bizConfig;
+
+  @Autowired
+  private ReleaseRepository releaseRepository;
+  @Autowired
+  private ReleaseConfigurationsCodecInitializer releaseConfigurationsCodecInitializer;
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Before
+  public void setUp() {
+    // the codec is a static, so point it at the bizConfig of this context again in case another
+    // context was started after this one
+    releaseConfigurationsCodecInitializer.afterSingletonsInstantiated();
+  }
+
+  @Test
+  public void testSaveWithGzip() {
+    when(bizConfig.releaseConfigurationsCodec()).thenReturn("gzip");
+
+    Release release = releaseRepository.save(mockRelease());
+    entityManager.flush();
+    entityManager.clear();
+
+    Assert.assertTrue(storedConfigurationsPrefix(release.getId()).startsWith("gzip:"));
+    Assert.assertEquals(CONFIGURATIONS,
+        releaseRepository.findById(release.getId()).get().getConfigurations());
+  }
+
+  @Test
+  public void testSaveWithPlain() {
+    when(bizConfig.releaseConfigurationsCodec()).thenReturn("plain");
+
+    Release release = releaseRepository.save(mockRelease());
+    entityManager.flush();
+    entityManager.clear();
+
+    Assert.assertEquals(CONFIGURATIONS.substring(0, 8),
+        storedConfigurationsPrefix(release.getId()));
+    Assert.assertEquals(CONFIGURATIONS,
+        releaseRepository.findById(release.getId()).get().getConfigurations());
+  }
+
+  private String storedConfigurationsPrefix(long releaseId) {
+    for (Object[] row : releaseRepository.findIdsAndConfigurationsPrefixes(releaseId - 1, 1)) {
+      return (String) row[1];
+    }
+    return null;
+  }
+
+  private Release mockRelease() {
+    Release release = new Release();
+    release.setReleaseKey("someReleaseKey");
+    release.setName("someName");
+    release.setComment("someComment");
+    release.setAppId("someAppId");
+    release.setClusterName("someCluster");
+    release.setNamespaceName("someNamespace");
+    release.setConfigurations(CONFIGURATIONS);
+    return release;
+  }
+}
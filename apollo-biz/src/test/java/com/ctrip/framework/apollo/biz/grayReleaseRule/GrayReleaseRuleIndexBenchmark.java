@@ -0,0 +1,139 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.grayReleaseRule;
+
+import com.ctrip.framework.apollo.common.constants.NamespaceBranchStatus;
+import com.ctrip.framework.apollo.common.dto.GrayReleaseRuleItemDTO;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.Sets;
+import com.google.common.collect.TreeMultimap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link GrayReleaseRuleIndex} with the synchronized tree multimap and the linear rule
+ * matching it replaced in {@link GrayReleaseRulesHolder}, run it with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class GrayReleaseRuleIndexBenchmark {
+  private static final String CLIENT_APP_ID = "someClientAppId";
+  private static final String CLUSTER = "default";
+
+  @Param({"100", "5000"})
+  private int branches;
+
+  @Param({"10", "1000"})
+  private int ipsPerBranch;
+
+  private GrayReleaseRuleIndex index;
+  private Multimap<String, GrayReleaseRuleCache> multimap;
+  private String[] namespaces;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    multimap = Multimaps.synchronizedSetMultimap(
+        TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
+    namespaces = new String[branches];
+    for (int i = 0; i < branches; i++) {
+      namespaces[i] = "someNamespace" + i;
+      Set<String> ips = Sets.newHashSetWithExpectedSize(ipsPerBranch);
+      for (int j = 0; j < ipsPerBranch; j++) {
+        ips.add(ip(j));
+      }
+      GrayReleaseRuleItemDTO ruleItem =
+          new GrayReleaseRuleItemDTO(CLIENT_APP_ID, ips, Sets.newHashSet("someLabel"));
+      GrayReleaseRuleCache rule = new GrayReleaseRuleCache(i + 1, "someBranch", namespaces[i],
+          i + 1, NamespaceBranchStatus.ACTIVE, 0, Sets.newHashSet(ruleItem));
+      multimap.put(key(namespaces[i]), rule);
+    }
+    index = new GrayReleaseRuleIndex(multimap.asMap());
+  }
+
+  @Benchmark
+  public Long indexFindReleaseId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return index.findReleaseId(CLIENT_APP_ID, randomIp(random), null, CLIENT_APP_ID, CLUSTER,
+        namespaces[random.nextInt(branches)]);
+  }
+
+  @Benchmark
+  public Long multimapFindReleaseId() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    String key = key(namespaces[random.nextInt(branches)]);
+    if (!multimap.containsKey(key)) {
+      return null;
+    }
+    String clientIp = randomIp(random);
+    List<GrayReleaseRuleCache> rules = Lists.newArrayList(multimap.get(key));
+    for (GrayReleaseRuleCache rule : rules) {
+      if (rule.getBranchStatus() == NamespaceBranchStatus.ACTIVE
+          && rule.matches(CLIENT_APP_ID, clientIp, null)) {
+        return rule.getReleaseId();
+      }
+    }
+    return null;
+  }
+
+  private String randomIp(ThreadLocalRandom random) {
+    // half of the clients hit the rules
+    return ip(random.nextInt(ipsPerBranch * 2));
+  }
+
+  private static String key(String namespace) {
+    return CLIENT_APP_ID + "+" + CLUSTER + "+" + namespace;
+  }
+
+  private static String ip(int i) {
+    return "10.0." + (i >> 8) + "." + (i & 0xff);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(GrayReleaseRuleIndexBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
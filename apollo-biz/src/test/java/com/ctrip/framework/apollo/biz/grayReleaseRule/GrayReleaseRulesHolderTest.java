@@ -26,25 +26,35 @@ import com.ctrip.framework.apollo.biz.entity.GrayReleaseRule;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.repository.GrayReleaseRuleRepository;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.ctrip.framework.apollo.common.constants.NamespaceBranchStatus;
 import com.ctrip.framework.apollo.common.dto.GrayReleaseRuleItemDTO;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -63,7 +73,8 @@ public class GrayReleaseRulesHolderTest {
 
   @Before
   public void setUp() throws Exception {
-    grayReleaseRulesHolder = spy(new GrayReleaseRulesHolder(grayReleaseRuleRepository, bizConfig));
+    grayReleaseRulesHolder = spy(new GrayReleaseRulesHolder(grayReleaseRuleRepository, bizConfig,
+        new CacheWarmUp(MoreExecutors.directExecutor(), new SimpleMeterRegistry())));
     idCounter = new AtomicLong();
   }
 
@@ -90,7 +101,9 @@ public class GrayReleaseRulesHolderTest {
         someReleaseId, activeBranchStatus);
 
     when(bizConfig.grayReleaseRuleScanInterval()).thenReturn(30);
-    when(grayReleaseRuleRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L))
+    when(bizConfig.grayReleaseRuleReconcileInterval()).thenReturn(600);
+    when(bizConfig.cacheLoadPageSize()).thenReturn(500);
+    when(grayReleaseRuleRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 500)))
         .thenReturn(Lists.newArrayList(someRule));
 
     // scan rules
@@ -174,6 +187,99 @@ public class GrayReleaseRulesHolderTest {
         anotherClientLabel, anotherNamespaceName));
   }
 
+  @Test
+  public void testCidrGrayReleaseRules() throws Exception {
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someNamespaceName = "someNamespaceName";
+    String someClientAppId = "someClientAppId";
+    Long someReleaseId = 1L;
+    Long anotherReleaseId = 2L;
+
+    GrayReleaseRule someRule = assembleGrayReleaseRule(someAppId, someClusterName,
+        someNamespaceName, Lists.newArrayList(assembleRuleItem(someClientAppId,
+            Sets.newHashSet("10.1.0.0/16"), Sets.newHashSet())),
+        someReleaseId, NamespaceBranchStatus.ACTIVE);
+    GrayReleaseRule anotherRule = assembleGrayReleaseRule(someAppId, someClusterName,
+        someNamespaceName, Lists.newArrayList(assembleRuleItem(someClientAppId,
+            Sets.newHashSet("10.0.0.0/8", "20.1.1.1"), Sets.newHashSet())),
+        anotherReleaseId, NamespaceBranchStatus.ACTIVE);
+    anotherRule.setBranchName("anotherBranch");
+
+    when(bizConfig.grayReleaseRuleScanInterval()).thenReturn(30);
+    when(bizConfig.grayReleaseRuleReconcileInterval()).thenReturn(600);
+    when(bizConfig.cacheLoadPageSize()).thenReturn(500);
+    when(grayReleaseRuleRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 500)))
+        .thenReturn(Lists.newArrayList(someRule, anotherRule));
+
+    grayReleaseRulesHolder.afterPropertiesSet();
+
+    // the rule with smaller id wins
+    assertEquals(someReleaseId, grayReleaseRulesHolder.findReleaseIdFromGrayReleaseRule(
+        someClientAppId, "10.1.2.3", null, someAppId, someClusterName, someNamespaceName));
+    assertEquals(anotherReleaseId, grayReleaseRulesHolder.findReleaseIdFromGrayReleaseRule(
+        someClientAppId, "10.2.2.3", null, someAppId, someClusterName, someNamespaceName));
+    assertEquals(anotherReleaseId, grayReleaseRulesHolder.findReleaseIdFromGrayReleaseRule(
+        someClientAppId, "20.1.1.1", null, someAppId, someClusterName, someNamespaceName));
+    assertNull(grayReleaseRulesHolder.findReleaseIdFromGrayReleaseRule(someClientAppId,
+        "11.1.2.3", null, someAppId, someClusterName, someNamespaceName));
+
+    assertTrue(grayReleaseRulesHolder.hasGrayReleaseRule(someClientAppId, "10.255.0.1", null,
+        someNamespaceName));
+    assertFalse(grayReleaseRulesHolder.hasGrayReleaseRule(someClientAppId, "11.0.0.1", null,
+        someNamespaceName));
+  }
+
+  @Test
+  public void testScanNewAndUpdatedGrayReleaseRules() throws Exception {
+    String someAppId = "someAppId";
+    String someClusterName = "someClusterName";
+    String someNamespaceName = "someNamespaceName";
+    String someClientAppId = "someClientAppId";
+    String someClientIp = "1.1.1.1";
+    Long someReleaseId = 1L;
+    Long anotherReleaseId = 2L;
+    Date someTime = new Date(System.currentTimeMillis() - 1000);
+    Date anotherTime = new Date();
+
+    GrayReleaseRule someRule = assembleGrayReleaseRule(someAppId, someClusterName,
+        someNamespaceName, Lists.newArrayList(assembleRuleItem(someClientAppId,
+            Sets.newHashSet(someClientIp), Sets.newHashSet())),
+        someReleaseId, NamespaceBranchStatus.ACTIVE);
+    someRule.setDataChangeLastModifiedTime(someTime);
+    GrayReleaseRule anotherRule = assembleGrayReleaseRule(someAppId, someClusterName,
+        someNamespaceName, Lists.newArrayList(assembleRuleItem(someClientAppId,
+            Sets.newHashSet(someClientIp), Sets.newHashSet())),
+        anotherReleaseId, NamespaceBranchStatus.ACTIVE);
+    anotherRule.setDataChangeLastModifiedTime(anotherTime);
+
+    when(bizConfig.grayReleaseRuleScanInterval()).thenReturn(1);
+    when(bizConfig.grayReleaseRuleReconcileInterval()).thenReturn(600);
+    when(bizConfig.cacheLoadPageSize()).thenReturn(500);
+    when(grayReleaseRuleRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 500)))
+        .thenReturn(Lists.newArrayList(someRule));
+    when(grayReleaseRuleRepository
+        .findFirst500ByDataChangeLastModifiedTimeGreaterThanOrderByDataChangeLastModifiedTimeAsc(
+            someTime)).thenReturn(Lists.newArrayList(anotherRule));
+
+    grayReleaseRulesHolder.afterPropertiesSet();
+
+    assertEquals(someReleaseId, grayReleaseRulesHolder.findReleaseIdFromGrayReleaseRule(
+        someClientAppId, someClientIp, null, someAppId, someClusterName, someNamespaceName));
+
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertEquals(anotherReleaseId,
+        grayReleaseRulesHolder.findReleaseIdFromGrayReleaseRule(someClientAppId, someClientIp,
+            null, someAppId, someClusterName, someNamespaceName)));
+
+    // the watermark is moved forward and the rules are not reloaded
+    verify(grayReleaseRuleRepository, times(1))
+        .findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 500));
+    verify(grayReleaseRuleRepository, times(1))
+        .findFirst500ByDataChangeLastModifiedTimeGreaterThanOrderByDataChangeLastModifiedTimeAsc(
+            someTime);
+    verify(grayReleaseRuleRepository, never()).findByDataChangeLastModifiedTime(anotherTime);
+  }
+
   private GrayReleaseRule assembleGrayReleaseRule(String appId, String clusterName,
       String namespaceName, List<GrayReleaseRuleItemDTO> ruleItems, long releaseId,
       int branchStatus) {
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.grayReleaseRule;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.google.common.collect.Sets;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IpPrefixTrieTest {
+  private IpPrefixTrie ipPrefixTrie;
+  private GrayReleaseRuleCache someRule;
+  private GrayReleaseRuleCache anotherRule;
+
+  @Before
+  public void setUp() throws Exception {
+    ipPrefixTrie = new IpPrefixTrie();
+    someRule = assembleRule(1);
+    anotherRule = assembleRule(2);
+  }
+
+  @Test
+  public void testFind() throws Exception {
+    assertTrue(ipPrefixTrie.add("192.168.0.0/16", anotherRule));
+    assertTrue(ipPrefixTrie.add("192.168.1.0/24", someRule));
+    assertTrue(ipPrefixTrie.add("10.0.0.1/32", anotherRule));
+
+    assertSame(someRule, ipPrefixTrie.find("192.168.1.100"));
+    assertSame(anotherRule, ipPrefixTrie.find("192.168.2.100"));
+    assertSame(anotherRule, ipPrefixTrie.find("10.0.0.1"));
+    assertNull(ipPrefixTrie.find("10.0.0.2"));
+    assertNull(ipPrefixTrie.find("192.169.1.1"));
+    assertNull(ipPrefixTrie.find("someLabel"));
+    assertNull(ipPrefixTrie.find(null));
+  }
+
+  @Test
+  public void testFindWithZeroPrefix() throws Exception {
+    assertTrue(ipPrefixTrie.add("0.0.0.0/0", someRule));
+
+    assertSame(someRule, ipPrefixTrie.find("1.2.3.4"));
+    assertNull(ipPrefixTrie.find("::1"));
+  }
+
+  @Test
+  public void testIsCidr() throws Exception {
+    assertTrue(IpPrefixTrie.isCidr("10.0.0.0/8"));
+    assertFalse(IpPrefixTrie.isCidr("10.0.0.0"));
+    assertFalse(IpPrefixTrie.isCidr("10.0.0.0/33"));
+    assertFalse(IpPrefixTrie.isCidr("10.0.0/8"));
+    assertFalse(IpPrefixTrie.isCidr("10.0.0.256/8"));
+    assertFalse(IpPrefixTrie.isCidr("/8"));
+    assertFalse(IpPrefixTrie.isCidr("10.0.0.0/"));
+    assertFalse(ipPrefixTrie.add("*", someRule));
+  }
+
+  private GrayReleaseRuleCache assembleRule(long ruleId) {
+    return new GrayReleaseRuleCache(ruleId, "someBranch", "someNamespace", ruleId, 0, 0,
+        Sets.newHashSet());
+  }
+}
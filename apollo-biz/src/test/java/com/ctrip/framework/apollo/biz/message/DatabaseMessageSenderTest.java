@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.*;
@@ -34,10 +35,15 @@ public class DatabaseMessageSenderTest extends AbstractUnitTest {
   private DatabaseMessageSender messageSender;
   @Mock
   private ReleaseMessageRepository releaseMessageRepository;
+  @Mock
+  private ObjectProvider<ReleaseMessageTransport> releaseMessageTransportProvider;
+  @Mock
+  private ReleaseMessageTransport releaseMessageTransport;
 
   @Before
   public void setUp() throws Exception {
-    messageSender = new DatabaseMessageSender(releaseMessageRepository);
+    messageSender =
+        new DatabaseMessageSender(releaseMessageRepository, releaseMessageTransportProvider);
   }
 
   @Test
@@ -56,6 +62,38 @@ public class DatabaseMessageSenderTest extends AbstractUnitTest {
     assertEquals(someMessage, captor.getValue().getMessage());
   }
 
+  @Test
+  public void testSendMessageWithTransport() throws Exception {
+    String someMessage = "some-message";
+    ReleaseMessage someReleaseMessage = mock(ReleaseMessage.class);
+    when(releaseMessageRepository.save(any(ReleaseMessage.class))).thenReturn(someReleaseMessage);
+    when(releaseMessageTransportProvider.getIfAvailable()).thenReturn(releaseMessageTransport);
+    messageSender =
+        new DatabaseMessageSender(releaseMessageRepository, releaseMessageTransportProvider);
+
+    messageSender.sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    verify(releaseMessageTransport, times(1))
+        .publish(someReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+  }
+
+  @Test
+  public void testSendMessageWithTransportFailed() throws Exception {
+    String someMessage = "some-message";
+    ReleaseMessage someReleaseMessage = mock(ReleaseMessage.class);
+    when(releaseMessageRepository.save(any(ReleaseMessage.class))).thenReturn(someReleaseMessage);
+    when(releaseMessageTransportProvider.getIfAvailable()).thenReturn(releaseMessageTransport);
+    doThrow(new RuntimeException()).when(releaseMessageTransport)
+        .publish(someReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+    messageSender =
+        new DatabaseMessageSender(releaseMessageRepository, releaseMessageTransportProvider);
+
+    // push failure should not fail the release, as config services would scan the database
+    messageSender.sendMessage(someMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    verify(releaseMessageRepository, times(1)).save(any(ReleaseMessage.class));
+  }
+
   @Test
   public void testSendUnsupportedMessage() throws Exception {
     String someMessage = "some-message";
@@ -26,6 +26,7 @@ import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
 
 import java.util.ArrayList;
+import java.util.List;
 import org.awaitility.Awaitility;
 import org.junit.Before;
 import org.junit.Test;
@@ -180,6 +181,51 @@ public class ReleaseMessageScannerTest extends AbstractUnitTest {
     });
   }
 
+  @Test
+  public void testPushMessageAndNotifyMessageListener() throws Exception {
+    InProcessReleaseMessageTransport releaseMessageTransport =
+        new InProcessReleaseMessageTransport();
+    int pushScanInterval = 500;
+    when(bizConfig.releaseMessagePushScanIntervalInMilli()).thenReturn(pushScanInterval);
+    releaseMessageScanner =
+        new ReleaseMessageScanner(bizConfig, releaseMessageRepository, releaseMessageTransport);
+    releaseMessageScanner.afterPropertiesSet();
+
+    List<ReleaseMessage> receivedMessage = Lists.newCopyOnWriteArrayList();
+    releaseMessageScanner.addMessageListener((message, channel) -> receivedMessage.add(message));
+
+    ReleaseMessage someReleaseMessage = assembleReleaseMessage(1, "someMessage");
+    ReleaseMessage anotherReleaseMessage = assembleReleaseMessage(2, "anotherMessage");
+    ReleaseMessage yetAnotherReleaseMessage = assembleReleaseMessage(3, "yetAnotherMessage");
+
+    // pushed messages are received before the database scan
+    releaseMessageTransport.publish(someReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+    releaseMessageTransport.publish(yetAnotherReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+    // duplicate pushes are ignored
+    releaseMessageTransport.publish(someReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    await().atMost(pushScanInterval / 2, TimeUnit.MILLISECONDS).untilAsserted(() -> {
+      assertEquals(2, receivedMessage.size());
+      assertSame(someReleaseMessage, receivedMessage.get(0));
+      assertSame(yetAnotherReleaseMessage, receivedMessage.get(1));
+    });
+
+    // the scan only fires the message lost in transit
+    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L)).thenReturn(
+        Lists.newArrayList(someReleaseMessage, anotherReleaseMessage, yetAnotherReleaseMessage));
+
+    await().atMost(pushScanInterval * 5, TimeUnit.MILLISECONDS).untilAsserted(() -> {
+      assertEquals(3, receivedMessage.size());
+      assertSame(anotherReleaseMessage, receivedMessage.get(2));
+    });
+
+    // messages already scanned are not fired again when pushed late
+    releaseMessageTransport.publish(anotherReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+    TimeUnit.MILLISECONDS.sleep(pushScanInterval);
+
+    assertEquals(3, receivedMessage.size());
+  }
+
   private ReleaseMessage assembleReleaseMessage(long id, String message) {
     ReleaseMessage releaseMessage = new ReleaseMessage();
     releaseMessage.setId(id);
@@ -125,6 +125,39 @@ public class InstanceServiceTest extends AbstractIntegrationTest {
     assertEquals(anotherReleaseKey, updated.getReleaseKey());
   }
 
+  @Test
+  @Rollback
+  public void testBatchCreateAndUpdateInstanceConfigs() throws Exception {
+    long someInstanceId = 1;
+    long anotherInstanceId = 2;
+    long yetAnotherInstanceId = 3;
+    String someConfigAppId = "someConfigAppId";
+    String someConfigClusterName = "someConfigClusterName";
+    String someConfigNamespaceName = "someConfigNamespaceName";
+    String someReleaseKey = "someReleaseKey";
+    String anotherReleaseKey = "anotherReleaseKey";
+
+    instanceService.batchCreateInstanceConfigs(Lists.newArrayList(
+        assembleInstanceConfig(someInstanceId, someConfigAppId, someConfigClusterName,
+            someConfigNamespaceName, someReleaseKey),
+        assembleInstanceConfig(anotherInstanceId, someConfigAppId, someConfigClusterName,
+            someConfigNamespaceName, someReleaseKey)));
+
+    List<InstanceConfig> instanceConfigs = instanceService.findInstanceConfigs(someConfigAppId,
+        someConfigNamespaceName,
+        Sets.newHashSet(someInstanceId, anotherInstanceId, yetAnotherInstanceId));
+
+    assertEquals(2, instanceConfigs.size());
+
+    instanceConfigs.forEach(instanceConfig -> instanceConfig.setReleaseKey(anotherReleaseKey));
+    instanceService.batchUpdateInstanceConfigs(instanceConfigs);
+
+    assertEquals(anotherReleaseKey, instanceService.findInstanceConfig(someInstanceId,
+        someConfigAppId, someConfigNamespaceName).getReleaseKey());
+    assertEquals(anotherReleaseKey, instanceService.findInstanceConfig(anotherInstanceId,
+        someConfigAppId, someConfigNamespaceName).getReleaseKey());
+  }
+
   @Test
   @Rollback
   public void testFindActiveInstanceConfigs() throws Exception {
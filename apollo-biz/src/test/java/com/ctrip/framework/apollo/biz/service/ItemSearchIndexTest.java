@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.service;
+
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Item;
+import com.ctrip.framework.apollo.biz.repository.ItemRepository;
+import com.ctrip.framework.apollo.common.dto.ItemInfoDTO;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+
+public class ItemSearchIndexTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private ItemRepository itemRepository;
+  @Autowired
+  private ItemService itemService;
+
+  @Mock
+  private BizConfig bizConfig;
+
+  private ItemSearchIndex itemSearchIndex;
+
+  @Before
+  public void setUp() {
+    when(bizConfig.isItemSearchIndexEnabled()).thenReturn(true);
+    when(bizConfig.itemSearchIndexValueMaxLength()).thenReturn(128);
+    itemSearchIndex = new ItemSearchIndex(itemRepository, bizConfig);
+  }
+
+  @Test
+  @Sql(scripts = {"/sql/namespace-test.sql", "/sql/item-test.sql"},
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testSearch() {
+    Assert.assertFalse(itemSearchIndex.search("k1", "", PageRequest.of(0, 10)).isPresent());
+
+    itemSearchIndex.refresh();
+
+    Page<ItemInfoDTO> result = search("K1", "");
+    Assert.assertEquals(1, result.getTotalElements());
+    ItemInfoDTO itemInfoDTO = result.getContent().get(0);
+    Assert.assertEquals("testApp", itemInfoDTO.getAppId());
+    Assert.assertEquals("default", itemInfoDTO.getClusterName());
+    Assert.assertEquals("application", itemInfoDTO.getNamespaceName());
+    Assert.assertEquals("k1", itemInfoDTO.getKey());
+    Assert.assertEquals("v1", itemInfoDTO.getValue());
+
+    Assert.assertEquals(2, search("k", "v").getTotalElements());
+    Assert.assertEquals(1, search("", "v2").getTotalElements());
+    Assert.assertEquals(0, search("k1", "v2").getTotalElements());
+    Assert.assertEquals(0, search("k12", "").getTotalElements());
+
+    Page<ItemInfoDTO> secondPage = itemSearchIndex.search("k", "", PageRequest.of(1, 1)).get();
+    Assert.assertEquals(2, secondPage.getTotalElements());
+    Assert.assertEquals(1, secondPage.getContent().size());
+  }
+
+  @Test
+  @Sql(scripts = {"/sql/namespace-test.sql", "/sql/item-test.sql"},
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testSearchAfterItemsChanged() {
+    itemSearchIndex.refresh();
+
+    Item item = itemService.findOne(9901);
+    item.setValue("some-new-value");
+    itemService.update(item);
+    itemService.delete(9902, "apollo");
+
+    itemSearchIndex.refresh();
+
+    Assert.assertEquals(0, search("", "v1").getTotalElements());
+    Assert.assertEquals(1, search("", "NEW-val").getTotalElements());
+    Assert.assertEquals(0, search("k2", "").getTotalElements());
+  }
+
+  @Test
+  @Sql(scripts = {"/sql/namespace-test.sql", "/sql/item-test.sql"},
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testSearchOrderedByIdAfterItemsChanged() {
+    itemSearchIndex.refresh();
+
+    Item item = itemService.findOne(9901);
+    item.setValue("v1-new");
+    itemService.update(item);
+
+    itemSearchIndex.refresh();
+
+    List<String> keys = search("k", "").getContent().stream().map(ItemInfoDTO::getKey)
+        .collect(Collectors.toList());
+    Assert.assertEquals(Arrays.asList("k1", "k2"), keys);
+  }
+
+  @Test
+  @Sql(scripts = {"/sql/namespace-test.sql", "/sql/item-test.sql"},
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testSearchValuesNotHeld() {
+    // only the keys are indexed, the values are matched and loaded in the database
+    when(bizConfig.itemSearchIndexValueMaxLength()).thenReturn(0);
+    itemSearchIndex.refresh();
+
+    Page<ItemInfoDTO> result = search("", "v2");
+    Assert.assertEquals(1, result.getTotalElements());
+    Assert.assertEquals("k2", result.getContent().get(0).getKey());
+    Assert.assertEquals("v2", result.getContent().get(0).getValue());
+
+    result = search("k", "");
+    Assert.assertEquals(2, result.getTotalElements());
+    Assert.assertEquals("v1", result.getContent().get(0).getValue());
+    Assert.assertEquals("v2", result.getContent().get(1).getValue());
+
+    Assert.assertEquals(0, search("k1", "v2").getTotalElements());
+    // matched literally like the values held
+    Assert.assertEquals(0, search("", "v_").getTotalElements());
+  }
+
+  @Test
+  @Sql(scripts = {"/sql/namespace-test.sql", "/sql/item-test.sql"},
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testDropIndexWhenDisabled() {
+    itemSearchIndex.refresh();
+    Assert.assertTrue(itemSearchIndex.search("k1", "", PageRequest.of(0, 10)).isPresent());
+
+    when(bizConfig.isItemSearchIndexEnabled()).thenReturn(false);
+    itemSearchIndex.refresh();
+
+    Optional<Page<ItemInfoDTO>> result = itemSearchIndex.search("k1", "", PageRequest.of(0, 10));
+    Assert.assertFalse(result.isPresent());
+  }
+
+  private Page<ItemInfoDTO> search(String key, String value) {
+    return itemSearchIndex.search(key, value, PageRequest.of(0, 10)).get();
+  }
+}
@@ -21,11 +21,15 @@ import static org.mockito.Mockito.when;
 import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Item;
+import com.ctrip.framework.apollo.biz.entity.Namespace;
 import com.ctrip.framework.apollo.biz.repository.ItemRepository;
+import com.ctrip.framework.apollo.biz.repository.NamespaceRepository;
 import com.ctrip.framework.apollo.common.dto.ItemInfoDTO;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Collectors;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -43,6 +47,8 @@ public class ItemServiceTest extends AbstractIntegrationTest {
   @Autowired
   private ItemRepository itemRepository;
   @Autowired
+  private NamespaceRepository namespaceRepository;
+  @Autowired
   private NamespaceService namespaceService;
   @Autowired
   private AuditService auditService;
@@ -167,6 +173,38 @@ public class ItemServiceTest extends AbstractIntegrationTest {
 
   }
 
+  @Test
+  @Sql(scripts = {"/sql/namespace-test.sql", "/sql/item-test.sql"},
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testSearchItemWithWildcardCharacters() {
+    itemService.save(createItem(1L, "k_%!", "v_%!", 0));
+
+    Assert.assertEquals(0,
+        itemService.getItemInfoBySearch("k%1", "", PageRequest.of(0, 200)).getTotalElements());
+    Assert.assertEquals(1,
+        itemService.getItemInfoBySearch("k_", "", PageRequest.of(0, 200)).getTotalElements());
+    Page<ItemInfoDTO> result =
+        itemService.getItemInfoBySearch("_%!", "_%!", PageRequest.of(0, 200));
+    Assert.assertEquals(1, result.getTotalElements());
+    Assert.assertEquals("k_%!", result.getContent().get(0).getKey());
+  }
+
+  @Test
+  @Sql(scripts = {"/sql/namespace-test.sql", "/sql/item-test.sql"},
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testSaveItemMarksUnpublishedChanges() {
+    Assert.assertTrue(namespaceRepository.findByAppIdAndHasUnpublishedChangesTrue("testApp")
+        .isEmpty());
+
+    itemService.save(createItem(1L, "k3", "v3", 0));
+
+    Assert.assertEquals(Collections.singletonList(1L),
+        namespaceRepository.findByAppIdAndHasUnpublishedChangesTrue("testApp").stream()
+            .map(Namespace::getId).collect(Collectors.toList()));
+  }
+
   private Item createItem(long namespaceId, String key, String value, int type) {
     Item item = new Item();
     item.setNamespaceId(namespaceId);
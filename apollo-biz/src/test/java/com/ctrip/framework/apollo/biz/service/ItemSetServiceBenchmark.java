@@ -0,0 +1,189 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.service;
+
+import com.ctrip.framework.apollo.biz.BizTestConfiguration;
+import com.ctrip.framework.apollo.biz.entity.Item;
+import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.repository.NamespaceRepository;
+import com.ctrip.framework.apollo.biz.utils.ConfigChangeContentBuilder;
+import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
+import com.ctrip.framework.apollo.common.dto.ItemDTO;
+import com.ctrip.framework.apollo.common.utils.BeanUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the batched {@link ItemSetService#updateSet} with the row by row item mutations it
+ * replaced, on 10k-item change sets against the in-memory test database. Run it with the main
+ * method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ItemSetServiceBenchmark {
+
+  private static final String APP_ID = "benchmark-app";
+  private static final String CLUSTER_NAME = "default";
+  private static final String OPERATOR = "benchmark";
+
+  @Param({"10000"})
+  private int itemCount;
+
+  private ConfigurableApplicationContext context;
+  private ItemSetService itemSetService;
+  private ItemService itemService;
+  private CommitService commitService;
+  private NamespaceRepository namespaceRepository;
+  private TransactionTemplate transactionTemplate;
+  private int namespaceIndex;
+
+  private Namespace namespace;
+  private ItemChangeSets createChangeSets;
+  private ItemChangeSets updateChangeSets;
+
+  @Setup(Level.Trial)
+  public void setUpContext() {
+    context = new SpringApplicationBuilder(BizTestConfiguration.class)
+        .web(WebApplicationType.NONE).run();
+    itemSetService = context.getBean(ItemSetService.class);
+    itemService = context.getBean(ItemService.class);
+    commitService = context.getBean(CommitService.class);
+    namespaceRepository = context.getBean(NamespaceRepository.class);
+    transactionTemplate =
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDownContext() {
+    context.close();
+  }
+
+  @Setup(Level.Invocation)
+  public void setUpChangeSets() {
+    Namespace newNamespace = new Namespace(APP_ID, CLUSTER_NAME, "ns" + namespaceIndex++);
+    newNamespace.setDataChangeCreatedBy(OPERATOR);
+    namespace = namespaceRepository.save(newNamespace);
+
+    createChangeSets = new ItemChangeSets();
+    createChangeSets.setDataChangeLastModifiedBy(OPERATOR);
+    for (int i = 0; i < itemCount; i++) {
+      ItemDTO item = new ItemDTO("key" + i, "value" + i, "", 0);
+      item.setNamespaceId(namespace.getId());
+      createChangeSets.addCreateItem(item);
+    }
+
+    // the items to update are created outside the measured invocation
+    ItemChangeSets existingItems = new ItemChangeSets();
+    existingItems.setDataChangeLastModifiedBy(OPERATOR);
+    for (int i = 0; i < itemCount; i++) {
+      ItemDTO item = new ItemDTO("existingKey" + i, "value" + i, "", 0);
+      item.setNamespaceId(namespace.getId());
+      existingItems.addCreateItem(item);
+    }
+    itemSetService.updateSet(namespace, existingItems);
+
+    updateChangeSets = new ItemChangeSets();
+    updateChangeSets.setDataChangeLastModifiedBy(OPERATOR);
+    for (Item item : itemService.findItemsWithoutOrdered(namespace.getId())) {
+      if (!item.getKey().startsWith("existingKey")) {
+        continue;
+      }
+      ItemDTO itemDTO = BeanUtils.transform(ItemDTO.class, item);
+      itemDTO.setValue(item.getValue() + "-updated");
+      updateChangeSets.addUpdateItem(itemDTO);
+    }
+  }
+
+  @Benchmark
+  public ItemChangeSets batchCreate() {
+    return itemSetService.updateSet(namespace, createChangeSets);
+  }
+
+  @Benchmark
+  public ItemChangeSets batchUpdate() {
+    return itemSetService.updateSet(namespace, updateChangeSets);
+  }
+
+  @Benchmark
+  public String rowByRowCreate() {
+    return transactionTemplate.execute(status -> {
+      ConfigChangeContentBuilder builder = new ConfigChangeContentBuilder();
+      for (ItemDTO item : createChangeSets.getCreateItems()) {
+        Item entity = BeanUtils.transform(Item.class, item);
+        entity.setDataChangeCreatedBy(OPERATOR);
+        entity.setDataChangeLastModifiedBy(OPERATOR);
+        builder.createItem(itemService.save(entity));
+      }
+      return createCommit(builder);
+    });
+  }
+
+  @Benchmark
+  public String rowByRowUpdate() {
+    return transactionTemplate.execute(status -> {
+      ConfigChangeContentBuilder builder = new ConfigChangeContentBuilder();
+      for (ItemDTO item : updateChangeSets.getUpdateItems()) {
+        Item managedItem = itemService.findOne(item.getId());
+        Item beforeUpdateItem = BeanUtils.transform(Item.class, managedItem);
+        managedItem.setValue(item.getValue());
+        managedItem.setDataChangeLastModifiedBy(OPERATOR);
+        builder.updateItem(beforeUpdateItem, itemService.update(managedItem));
+      }
+      return createCommit(builder);
+    });
+  }
+
+  private String createCommit(ConfigChangeContentBuilder builder) {
+    String changeSets = builder.build();
+    commitService.createCommit(APP_ID, CLUSTER_NAME, namespace.getNamespaceName(), changeSets,
+        OPERATOR);
+    return changeSets;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(ItemSetServiceBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -20,15 +20,19 @@ import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Commit;
 import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.utils.ConfigChangeContentBuilder;
 import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
 import com.ctrip.framework.apollo.common.dto.ItemDTO;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.context.jdbc.Sql;
 
 public class ItemSetServiceTest extends AbstractIntegrationTest {
@@ -41,6 +45,9 @@ public class ItemSetServiceTest extends AbstractIntegrationTest {
   @Autowired
   private NamespaceService namespaceService;
 
+  @Autowired
+  private CommitService commitService;
+
   @Autowired
   private ItemSetService itemSetService;
 
@@ -137,6 +144,81 @@ public class ItemSetServiceTest extends AbstractIntegrationTest {
   }
 
 
+  @Test
+  @Sql(scripts = "/sql/itemset-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testUpdateSetInBatch() {
+
+    when(bizConfig.itemKeyLengthLimit()).thenReturn(128);
+    when(bizConfig.itemValueLengthLimit()).thenReturn(20000);
+
+    when(bizConfig.isItemNumLimitEnabled()).thenReturn(false);
+
+    Namespace namespace = namespaceService.findOne(1L);
+    Item item9901 = itemService.findOne(9901);
+    Item item9902 = itemService.findOne(9902);
+    Item item9903 = itemService.findOne(9903);
+
+    ItemChangeSets changeSets = new ItemChangeSets();
+    changeSets.setDataChangeLastModifiedBy("someOperator");
+    changeSets.addUpdateItem(buildNormalItem(item9901.getId(), item9901.getNamespaceId(),
+        item9901.getKey(), "v1-update", "", item9901.getLineNum()));
+    changeSets.addUpdateItem(buildNormalItem(item9902.getId(), item9902.getNamespaceId(),
+        item9902.getKey(), "v2-update", "", item9902.getLineNum()));
+    changeSets.addDeleteItem(buildNormalItem(item9903.getId(), item9903.getNamespaceId(),
+        item9903.getKey(), item9903.getValue(), "", item9903.getLineNum()));
+    changeSets.addCreateItem(buildNormalItem(0L, namespace.getId(), "k6", "v6", "", 0));
+    changeSets.addCreateItem(buildNormalItem(0L, namespace.getId(), "k7", "v7", "", 0));
+
+    itemSetService.updateSet(namespace, changeSets);
+
+    Assert.assertEquals("v1-update", itemService.findOne(9901).getValue());
+    Assert.assertEquals("v2-update", itemService.findOne(9902).getValue());
+    Assert.assertEquals("someOperator", itemService.findOne(9902).getDataChangeLastModifiedBy());
+    Assert.assertTrue(itemService.findOne(9903).isDeleted());
+    Assert.assertEquals(6, itemService.findOne(namespace.getAppId(), namespace.getClusterName(),
+        namespace.getNamespaceName(), "k6").getLineNum().intValue());
+    Assert.assertEquals(7, itemService.findOne(namespace.getAppId(), namespace.getClusterName(),
+        namespace.getNamespaceName(), "k7").getLineNum().intValue());
+
+    List<Commit> commits = commitService.find(namespace.getAppId(), namespace.getClusterName(),
+        namespace.getNamespaceName(), PageRequest.of(0, 10));
+    Assert.assertEquals(1, commits.size());
+    ConfigChangeContentBuilder content =
+        ConfigChangeContentBuilder.convertJsonString(commits.get(0).getChangeSets());
+    Assert.assertEquals(2, content.getCreateItems().size());
+    Assert.assertEquals(2, content.getUpdateItems().size());
+    Assert.assertEquals(1, content.getDeleteItems().size());
+  }
+
+  @Test
+  @Sql(scripts = "/sql/itemset-test.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testUpdateSetWithValueTooLong() {
+
+    when(bizConfig.itemKeyLengthLimit()).thenReturn(128);
+    when(bizConfig.itemValueLengthLimit()).thenReturn(5);
+
+    when(bizConfig.isItemNumLimitEnabled()).thenReturn(false);
+
+    Namespace namespace = namespaceService.findOne(1L);
+
+    ItemChangeSets changeSets = new ItemChangeSets();
+    changeSets.addCreateItem(buildNormalItem(0L, namespace.getId(), "k6", "v6", "", 6));
+    changeSets.addCreateItem(buildNormalItem(0L, namespace.getId(), "k7", "too long", "", 7));
+
+    try {
+      itemSetService.updateSet(namespace, changeSets);
+      Assert.fail();
+    } catch (Exception e) {
+      Assert.assertTrue(e instanceof BadRequestException);
+    }
+
+    Assert.assertNull(itemService.findOne(namespace.getAppId(), namespace.getClusterName(),
+        namespace.getNamespaceName(), "k6"));
+  }
+
+
   private ItemDTO buildNormalItem(Long id, Long namespaceId, String key, String value,
       String comment, int lineNum) {
     ItemDTO item = new ItemDTO(key, value, comment, lineNum);
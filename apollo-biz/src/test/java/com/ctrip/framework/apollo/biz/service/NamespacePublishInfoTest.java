@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.biz.service;
 
 import com.ctrip.framework.apollo.biz.AbstractUnitTest;
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Cluster;
 import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
@@ -29,12 +30,15 @@ import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Random;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class NamespacePublishInfoTest extends AbstractUnitTest {
@@ -47,6 +51,8 @@ public class NamespacePublishInfoTest extends AbstractUnitTest {
   private ItemService itemService;
   @Mock
   private NamespaceRepository namespaceRepository;
+  @Mock
+  private BizConfig bizConfig;
 
   @InjectMocks
   private NamespaceService namespaceService;
@@ -115,6 +121,51 @@ public class NamespacePublishInfoTest extends AbstractUnitTest {
 
   }
 
+  @Test
+  public void testNamespacePublishInfoFromIndexOnlyChecksMarkedNamespaces() {
+    Cluster defaultCluster = createCluster(ConfigConsts.CLUSTER_NAME_DEFAULT);
+    Cluster otherCluster = createCluster("other");
+    Namespace namespace =
+        createNamespace(ConfigConsts.CLUSTER_NAME_DEFAULT, ConfigConsts.NAMESPACE_APPLICATION);
+    Item item = createItem(namespace.getId(), "a", "b");
+
+    when(bizConfig.isNamespacePublishInfoIndexEnabled()).thenReturn(true);
+    when(clusterService.findParentClusters(testApp))
+        .thenReturn(Arrays.asList(defaultCluster, otherCluster));
+    when(namespaceRepository.findByAppIdAndHasUnpublishedChangesTrue(testApp))
+        .thenReturn(Collections.singletonList(namespace));
+    when(itemService.findLastOne(namespace.getId())).thenReturn(item);
+
+    Map<String, Boolean> result = namespaceService.namespacePublishInfo(testApp);
+
+    Assert.assertEquals(2, result.size());
+    Assert.assertTrue(result.get(ConfigConsts.CLUSTER_NAME_DEFAULT));
+    Assert.assertFalse(result.get("other"));
+    verify(namespaceRepository, never()).findByAppIdAndClusterNameOrderByIdAsc(any(), any());
+  }
+
+  @Test
+  public void testNamespacePublishInfoFromIndexWithRevertedChanges() {
+    Cluster cluster = createCluster(ConfigConsts.CLUSTER_NAME_DEFAULT);
+    Namespace namespace =
+        createNamespace(ConfigConsts.CLUSTER_NAME_DEFAULT, ConfigConsts.NAMESPACE_APPLICATION);
+    Item item = createItem(namespace.getId(), "a", "b");
+    Release release = createRelease("{\"a\":\"b\"}");
+
+    when(bizConfig.isNamespacePublishInfoIndexEnabled()).thenReturn(true);
+    when(clusterService.findParentClusters(testApp)).thenReturn(Collections.singletonList(cluster));
+    when(namespaceRepository.findByAppIdAndHasUnpublishedChangesTrue(testApp))
+        .thenReturn(Collections.singletonList(namespace));
+    when(releaseService.findLatestActiveRelease(namespace)).thenReturn(release);
+    when(itemService.findItemsModifiedAfterDate(anyLong(), any()))
+        .thenReturn(Collections.singletonList(item));
+
+    Map<String, Boolean> result = namespaceService.namespacePublishInfo(testApp);
+
+    Assert.assertEquals(1, result.size());
+    Assert.assertFalse(result.get(ConfigConsts.CLUSTER_NAME_DEFAULT));
+  }
+
   private Cluster createCluster(String clusterName) {
     Cluster cluster = new Cluster();
 
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.repository.ReleaseRepository;
+import com.ctrip.framework.apollo.biz.utils.ReleaseConfigurationsCodecs;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.support.TransactionTemplate;
+
+public class ReleaseConfigurationsMigratorTest extends AbstractIntegrationTest {
+
+  @Autowired
+  private ReleaseRepository releaseRepository;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
+  private BizConfig bizConfig;
+  private ReleaseConfigurationsMigrator migrator;
+
+  @Before
+  public void setUp() {
+    bizConfig = mock(BizConfig.class);
+    when(bizConfig.isReleaseConfigurationsMigrationEnabled()).thenReturn(true);
+    when(bizConfig.releaseConfigurationsMigrationBatchSize()).thenReturn(1);
+    migrator = new ReleaseConfigurationsMigrator(releaseRepository, bizConfig, transactionTemplate);
+  }
+
+  @Test
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testMigrateToGzipAndBack() {
+    Release release1 = releaseRepository.save(mockRelease("{\"k1\":\"v1\"}"));
+    Release release2 = releaseRepository.save(mockRelease("{\"k2\":\"v2\"}"));
+
+    when(bizConfig.releaseConfigurationsCodec()).thenReturn("gzip");
+    migrateAll();
+
+    for (Object[] row : releaseRepository.findIdsAndConfigurationsPrefixes(0, 10)) {
+      Assert.assertSame(ReleaseConfigurationsCodecs.GZIP,
+          ReleaseConfigurationsCodecs.codecOf((String) row[1]));
+    }
+    Assert.assertEquals("{\"k1\":\"v1\"}", findConfigurations(release1.getId()));
+    Assert.assertEquals("{\"k2\":\"v2\"}", findConfigurations(release2.getId()));
+
+    when(bizConfig.releaseConfigurationsCodec()).thenReturn("plain");
+    migrateAll();
+
+    for (Object[] row : releaseRepository.findIdsAndConfigurationsPrefixes(0, 10)) {
+      Assert.assertSame(ReleaseConfigurationsCodecs.PLAIN,
+          ReleaseConfigurationsCodecs.codecOf((String) row[1]));
+    }
+    Assert.assertEquals("{\"k1\":\"v1\"}", findConfigurations(release1.getId()));
+  }
+
+  private void migrateAll() {
+    // one release per batch, and one more batch to find there are no more releases
+    for (int i = 0; i < 3; i++) {
+      migrator.migrateNextBatch();
+    }
+  }
+
+  private String findConfigurations(long releaseId) {
+    return releaseRepository.findById(releaseId).map(Release::getConfigurations).orElse(null);
+  }
+
+  private Release mockRelease(String configurations) {
+    Release release = new Release();
+    release.setReleaseKey("someReleaseKey" + configurations.hashCode());
+    release.setName("someName");
+    release.setComment("someComment");
+    release.setAppId("someAppId");
+    release.setClusterName("someCluster");
+    release.setNamespaceName("someNamespace");
+    release.setConfigurations(configurations);
+    return release;
+  }
+}
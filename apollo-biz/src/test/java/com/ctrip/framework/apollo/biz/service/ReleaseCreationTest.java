@@ -20,9 +20,11 @@ import com.google.gson.Gson;
 
 import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
 import com.ctrip.framework.apollo.biz.entity.GrayReleaseRule;
+import com.ctrip.framework.apollo.biz.entity.Item;
 import com.ctrip.framework.apollo.biz.entity.Namespace;
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.biz.entity.ReleaseHistory;
+import com.ctrip.framework.apollo.biz.repository.NamespaceRepository;
 import com.ctrip.framework.apollo.common.constants.GsonType;
 import com.ctrip.framework.apollo.common.constants.ReleaseOperation;
 
@@ -33,8 +35,16 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public class ReleaseCreationTest extends AbstractIntegrationTest {
 
@@ -46,6 +56,14 @@ public class ReleaseCreationTest extends AbstractIntegrationTest {
   private NamespaceBranchService namespaceBranchService;
   @Autowired
   private ReleaseHistoryService releaseHistoryService;
+  @Autowired
+  private NamespaceService namespaceService;
+  @Autowired
+  private ItemService itemService;
+  @Autowired
+  private NamespaceRepository namespaceRepository;
+  @Autowired
+  private PlatformTransactionManager transactionManager;
 
   private String testApp = "test";
   private String testNamespace = "application";
@@ -84,6 +102,44 @@ public class ReleaseCreationTest extends AbstractIntegrationTest {
     Assert.assertEquals(0, releaseHistory.getPreviousReleaseId());
   }
 
+  @Test
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  @Sql(scripts = "/sql/release-creation-test.sql",
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testItemChangedDuringPublishKeepsNamespaceMarked() throws Exception {
+    String clusterName = "only-master";
+    Namespace namespace = namespaceService.findOne(testApp, clusterName, testNamespace);
+    namespaceService.markUnpublishedChanges(namespace.getId());
+    Item item = itemService.findOne(testApp, clusterName, testNamespace, "k1");
+    item.setValue("v1-new");
+
+    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    try {
+      // locked first like the admin service does, the change saved meanwhile waits for the lock
+      Future<?> itemChange = new TransactionTemplate(transactionManager).execute(status -> {
+        namespaceService.lock(testApp, clusterName, testNamespace);
+        Future<?> change = executorService.submit(() -> itemService.update(item));
+        try {
+          TimeUnit.MILLISECONDS.sleep(200);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        releaseService.publish(namespace, "", "", operator, false);
+        return change;
+      });
+      itemChange.get(10, TimeUnit.SECONDS);
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    Map<String, String> configuration = parseConfiguration(
+        releaseService.findLatestActiveRelease(namespace).getConfigurations());
+    Assert.assertEquals("v1", configuration.get("k1"));
+    Assert.assertTrue(
+        namespaceRepository.findById(namespace.getId()).get().hasUnpublishedChanges());
+  }
+
 
   /**
    *               Master     |      Branch
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.service;
+
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.AbstractIntegrationTest;
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Item;
+import com.ctrip.framework.apollo.biz.entity.Namespace;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.entity.ReleaseHistory;
+import com.ctrip.framework.apollo.common.constants.GsonType;
+import com.ctrip.framework.apollo.common.constants.ReleaseOperationContext;
+import com.ctrip.framework.apollo.common.dto.ItemChangeSets;
+import com.ctrip.framework.apollo.common.dto.ItemDTO;
+import com.ctrip.framework.apollo.common.utils.BeanUtils;
+import com.google.gson.Gson;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.jdbc.Sql;
+
+public class ReleaseIncrementalBuildTest extends AbstractIntegrationTest {
+
+  private static final Gson GSON = new Gson();
+
+  @MockBean
+  private BizConfig bizConfig;
+
+  @Autowired
+  private ReleaseService releaseService;
+  @Autowired
+  private ReleaseHistoryService releaseHistoryService;
+  @Autowired
+  private ItemSetService itemSetService;
+  @Autowired
+  private ItemService itemService;
+  @Autowired
+  private CommitService commitService;
+  @Autowired
+  private NamespaceService namespaceService;
+
+  private String testApp = "test";
+  private String testCluster = "only-master";
+  private String testNamespace = "application";
+  private String operator = "apollo";
+
+  @Before
+  public void setUp() {
+    when(bizConfig.isReleaseIncrementalBuildEnabled()).thenReturn(true);
+    when(bizConfig.releaseIncrementalBuildMaxCommits()).thenReturn(10);
+    when(bizConfig.itemKeyLengthLimit()).thenReturn(128);
+    when(bizConfig.itemValueLengthLimit()).thenReturn(20000);
+    when(bizConfig.releaseHistoryRetentionSize())
+        .thenReturn(BizConfig.DEFAULT_RELEASE_HISTORY_RETENTION_SIZE);
+  }
+
+  @Test
+  @Sql(scripts = "/sql/release-creation-test.sql",
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testPublishFromCommits() {
+    Namespace namespace = namespaceService.findOne(testApp, testCluster, testNamespace);
+
+    releaseService.publish(namespace, "", "", operator, false);
+
+    Assert.assertEquals(0, lastCommitIdOf(releaseService.findLatestActiveRelease(namespace)));
+
+    ItemChangeSets changeSets = new ItemChangeSets();
+    changeSets.setDataChangeLastModifiedBy(operator);
+    ItemDTO updateItem = toDTO(itemService.findOne(testApp, testCluster, testNamespace, "k1"));
+    updateItem.setValue("v1-new");
+    changeSets.addUpdateItem(updateItem);
+    changeSets.addDeleteItem(
+        toDTO(itemService.findOne(testApp, testCluster, testNamespace, "k2")));
+    ItemDTO createItem = new ItemDTO("k4", "v4", "", 0);
+    createItem.setNamespaceId(namespace.getId());
+    changeSets.addCreateItem(createItem);
+    itemSetService.updateSet(namespace, changeSets);
+
+    releaseService.publish(namespace, "", "", operator, false);
+
+    Release latestRelease = releaseService.findLatestActiveRelease(namespace);
+    Map<String, String> configuration =
+        GSON.fromJson(latestRelease.getConfigurations(), GsonType.CONFIG);
+    Assert.assertEquals(3, configuration.size());
+    Assert.assertEquals("v1-new", configuration.get("k1"));
+    Assert.assertEquals("v3", configuration.get("k3"));
+    Assert.assertEquals("v4", configuration.get("k4"));
+
+    Assert.assertEquals(commitService.findLatestCommitId(testApp, testCluster, testNamespace),
+        lastCommitIdOf(latestRelease));
+  }
+
+  @Test
+  @Sql(scripts = "/sql/release-creation-test.sql",
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testPublishFallbackToItemsWhenItemsChangedWithoutCommit() {
+    Namespace namespace = namespaceService.findOne(testApp, testCluster, testNamespace);
+
+    releaseService.publish(namespace, "", "", operator, false);
+
+    Item item = new Item();
+    item.setNamespaceId(namespace.getId());
+    item.setKey("k5");
+    item.setValue("v5");
+    item.setDataChangeCreatedBy(operator);
+    itemService.save(item);
+
+    releaseService.publish(namespace, "", "", operator, false);
+
+    Map<String, String> configuration = GSON.fromJson(
+        releaseService.findLatestActiveRelease(namespace).getConfigurations(), GsonType.CONFIG);
+    Assert.assertEquals(4, configuration.size());
+    Assert.assertEquals("v5", configuration.get("k5"));
+  }
+
+  @Test
+  @Sql(scripts = "/sql/release-creation-test.sql",
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/sql/clean.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testPublishWithIncrementalBuildDisabled() {
+    when(bizConfig.isReleaseIncrementalBuildEnabled()).thenReturn(false);
+    Namespace namespace = namespaceService.findOne(testApp, testCluster, testNamespace);
+
+    releaseService.publish(namespace, "", "", operator, false);
+
+    Release latestRelease = releaseService.findLatestActiveRelease(namespace);
+    Assert.assertEquals(3, GSON.fromJson(latestRelease.getConfigurations(), GsonType.CONFIG)
+        .size());
+    Assert.assertFalse(operationContextOf(latestRelease)
+        .containsKey(ReleaseOperationContext.LAST_COMMIT_ID));
+  }
+
+  private long lastCommitIdOf(Release release) {
+    return ((Number) operationContextOf(release).get(ReleaseOperationContext.LAST_COMMIT_ID))
+        .longValue();
+  }
+
+  private Map<String, Object> operationContextOf(Release release) {
+    ReleaseHistory releaseHistory = releaseHistoryService
+        .findReleaseHistoriesByNamespace(testApp, testCluster, testNamespace, PageRequest.of(0, 1))
+        .getContent().get(0);
+    Assert.assertEquals(release.getId(), releaseHistory.getReleaseId());
+
+    return GSON.fromJson(releaseHistory.getOperationContext(), Map.class);
+  }
+
+  private ItemDTO toDTO(Item item) {
+    return BeanUtils.transform(ItemDTO.class, item);
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CacheWarmUpTest {
+
+  private SimpleMeterRegistry meterRegistry;
+  private CacheWarmUp cacheWarmUp;
+
+  @Before
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    cacheWarmUp = new CacheWarmUp(MoreExecutors.directExecutor(), meterRegistry);
+  }
+
+  @Test
+  public void testWarmUp() throws Exception {
+    AtomicBoolean afterLoadRun = new AtomicBoolean();
+
+    cacheWarmUp.submit("someCache", () -> 10L, () -> afterLoadRun.set(true));
+
+    assertFalse(cacheWarmUp.isCompleted());
+    cacheWarmUp.await();
+
+    assertTrue(cacheWarmUp.isCompleted());
+    assertTrue(afterLoadRun.get());
+    assertEquals(1,
+        meterRegistry.get("apollo.cache.warmup").tag("cache", "someCache").timer().count());
+    assertEquals(10, meterRegistry.get("apollo.cache.warmup.rows").tag("cache", "someCache")
+        .gauge().value(), 0);
+  }
+
+  @Test
+  public void testWarmUpFailed() throws Exception {
+    AtomicBoolean afterLoadRun = new AtomicBoolean();
+
+    cacheWarmUp.submit("someCache", () -> 10L, () -> {});
+    cacheWarmUp.submit("anotherCache", () -> {
+      throw new RuntimeException("load failed");
+    }, () -> afterLoadRun.set(true));
+
+    try {
+      cacheWarmUp.await();
+      fail("should fail");
+    } catch (IllegalStateException ex) {
+      assertEquals("load failed", ex.getCause().getMessage());
+    }
+    assertFalse(cacheWarmUp.isCompleted());
+    assertTrue(afterLoadRun.get());
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.biz.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class ReleaseConfigurationsCodecsTest {
+
+  private static final String CONFIGURATIONS = "{\"k1\":\"v1\",\"k2\":\"中文\"}";
+
+  @Test
+  public void testGzipRoundTrip() {
+    String stored = ReleaseConfigurationsCodecs.GZIP.encode(CONFIGURATIONS);
+
+    assertTrue(stored.startsWith(ReleaseConfigurationsCodecs.GZIP.prefix()));
+    assertNotEquals(CONFIGURATIONS, stored);
+    assertSame(ReleaseConfigurationsCodecs.GZIP, ReleaseConfigurationsCodecs.codecOf(stored));
+    assertEquals(CONFIGURATIONS, ReleaseConfigurationsCodecs.decode(stored));
+  }
+
+  @Test
+  public void testDecodePlainConfigurations() {
+    assertSame(ReleaseConfigurationsCodecs.PLAIN,
+        ReleaseConfigurationsCodecs.codecOf(CONFIGURATIONS));
+    assertEquals(CONFIGURATIONS, ReleaseConfigurationsCodecs.decode(CONFIGURATIONS));
+  }
+
+  @Test
+  public void testForName() {
+    assertSame(ReleaseConfigurationsCodecs.GZIP, ReleaseConfigurationsCodecs.forName("gzip"));
+    assertSame(ReleaseConfigurationsCodecs.PLAIN, ReleaseConfigurationsCodecs.forName("plain"));
+    assertSame(ReleaseConfigurationsCodecs.PLAIN, ReleaseConfigurationsCodecs.forName("unknown"));
+    assertSame(ReleaseConfigurationsCodecs.PLAIN, ReleaseConfigurationsCodecs.forName(null));
+  }
+}
@@ -82,6 +82,10 @@ public class BadRequestException extends AbstractApolloHttpException {
     return new BadRequestException("invalid notifications format:%s", format);
   }
 
+  public static BadRequestException invalidNamespacesFormat(String format) {
+    return new BadRequestException("invalid namespaces format:%s", format);
+  }
+
   public static BadRequestException invalidClusterNameFormat(String format) {
     return new BadRequestException("invalid clusterName format:%s", format);
   }
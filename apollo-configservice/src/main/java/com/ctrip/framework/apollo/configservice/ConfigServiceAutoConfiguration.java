@@ -19,26 +19,40 @@ package com.ctrip.framework.apollo.configservice;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.grayReleaseRule.GrayReleaseRulesHolder;
 import com.ctrip.framework.apollo.biz.message.ReleaseMessageScanner;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageTransport;
 import com.ctrip.framework.apollo.biz.repository.GrayReleaseRuleRepository;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
 import com.ctrip.framework.apollo.biz.service.ReleaseMessageService;
 import com.ctrip.framework.apollo.biz.service.ReleaseService;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.ctrip.framework.apollo.configservice.controller.ConfigFileController;
 import com.ctrip.framework.apollo.configservice.controller.NotificationController;
 import com.ctrip.framework.apollo.configservice.controller.NotificationControllerV2;
 import com.ctrip.framework.apollo.configservice.filter.ClientAuthenticationFilter;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.config.ConfigServiceWithSnapshot;
 import com.ctrip.framework.apollo.configservice.service.config.DefaultConfigService;
 import com.ctrip.framework.apollo.configservice.service.config.DefaultIncrementalSyncService;
 import com.ctrip.framework.apollo.configservice.service.config.IncrementalSyncService;
+import com.ctrip.framework.apollo.configservice.service.notification.DefaultNotificationDispatcher;
+import com.ctrip.framework.apollo.configservice.service.notification.NotificationDispatcher;
 import com.ctrip.framework.apollo.configservice.util.AccessKeyUtil;
+import com.ctrip.framework.apollo.configservice.wrapper.PreEncodedApolloConfigHttpMessageConverter;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * @author Jason Song(song_s@ctrip.com)
@@ -63,13 +77,29 @@ public class ConfigServiceAutoConfiguration {
     this.meterRegistry = meterRegistry;
   }
 
+  /**
+   * Loads the caches of the config service concurrently at startup, and holds up the startup
+   * until all of them are loaded.
+   */
+  @Bean
+  public CacheWarmUp cacheWarmUp() {
+    return new CacheWarmUp(
+        Executors.newCachedThreadPool(ApolloThreadFactory.create("CacheWarmUp", true)),
+        meterRegistry);
+  }
+
   @Bean
   public GrayReleaseRulesHolder grayReleaseRulesHolder() {
-    return new GrayReleaseRulesHolder(grayReleaseRuleRepository, bizConfig);
+    return new GrayReleaseRulesHolder(grayReleaseRuleRepository, bizConfig, cacheWarmUp());
   }
 
   @Bean
   public ConfigService configService() {
+    // load all the latest releases into memory
+    if (bizConfig.isConfigServiceSnapshotEnabled()) {
+      return new ConfigServiceWithSnapshot(releaseService, releaseMessageService,
+          grayReleaseRulesHolder(), bizConfig, meterRegistry);
+    }
     // enable local cache
     if (bizConfig.isConfigServiceCacheEnabled()) {
       return new ConfigServiceWithCache(releaseService, releaseMessageService,
@@ -80,7 +110,24 @@ public class ConfigServiceAutoConfiguration {
 
   @Bean
   public IncrementalSyncService incrementalSyncService() {
-    return new DefaultIncrementalSyncService();
+    return new DefaultIncrementalSyncService(bizConfig, meterRegistry);
+  }
+
+  @Bean
+  @ConditionalOnMissingBean(NotificationDispatcher.class)
+  public NotificationDispatcher notificationDispatcher() {
+    return new DefaultNotificationDispatcher(bizConfig, meterRegistry);
+  }
+
+  @Bean
+  public WebMvcConfigurer preEncodedApolloConfigWebMvcConfigurer() {
+    return new WebMvcConfigurer() {
+      @Override
+      public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        // write the cached response body of ConfigResponseCache as is
+        converters.add(0, new PreEncodedApolloConfigHttpMessageConverter());
+      }
+    };
   }
 
   @Bean
@@ -110,30 +157,35 @@ public class ConfigServiceAutoConfiguration {
     private final GrayReleaseRulesHolder grayReleaseRulesHolder;
     private final ReleaseMessageServiceWithCache releaseMessageServiceWithCache;
     private final ConfigService configService;
+    private final ConfigResponseCache configResponseCache;
     private final BizConfig bizConfig;
     private final ReleaseMessageRepository releaseMessageRepository;
+    private final ReleaseMessageTransport releaseMessageTransport;
 
     public MessageScannerConfiguration(final NotificationController notificationController,
         final ConfigFileController configFileController,
         final NotificationControllerV2 notificationControllerV2,
         final GrayReleaseRulesHolder grayReleaseRulesHolder,
         final ReleaseMessageServiceWithCache releaseMessageServiceWithCache,
-        final ConfigService configService, final BizConfig bizConfig,
-        final ReleaseMessageRepository releaseMessageRepository) {
+        final ConfigService configService, final ConfigResponseCache configResponseCache,
+        final BizConfig bizConfig, final ReleaseMessageRepository releaseMessageRepository,
+        final ObjectProvider<ReleaseMessageTransport> releaseMessageTransport) {
       this.notificationController = notificationController;
       this.configFileController = configFileController;
       this.notificationControllerV2 = notificationControllerV2;
       this.grayReleaseRulesHolder = grayReleaseRulesHolder;
       this.releaseMessageServiceWithCache = releaseMessageServiceWithCache;
       this.configService = configService;
+      this.configResponseCache = configResponseCache;
       this.bizConfig = bizConfig;
       this.releaseMessageRepository = releaseMessageRepository;
+      this.releaseMessageTransport = releaseMessageTransport.getIfAvailable();
     }
 
     @Bean
     public ReleaseMessageScanner releaseMessageScanner() {
       ReleaseMessageScanner releaseMessageScanner =
-          new ReleaseMessageScanner(bizConfig, releaseMessageRepository);
+          new ReleaseMessageScanner(bizConfig, releaseMessageRepository, releaseMessageTransport);
       // 0. handle release message cache
       releaseMessageScanner.addMessageListener(releaseMessageServiceWithCache);
       // 1. handle gray release rule
@@ -141,6 +193,7 @@ public class ConfigServiceAutoConfiguration {
       // 2. handle server cache
       releaseMessageScanner.addMessageListener(configService);
       releaseMessageScanner.addMessageListener(configFileController);
+      releaseMessageScanner.addMessageListener(configResponseCache);
       // 3. notify clients
       releaseMessageScanner.addMessageListener(notificationControllerV2);
       releaseMessageScanner.addMessageListener(notificationController);
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.configservice;
 
 import com.ctrip.framework.apollo.biz.service.AppService;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import org.springframework.boot.actuate.health.Health;
 import org.springframework.boot.actuate.health.HealthIndicator;
 import org.springframework.data.domain.PageRequest;
@@ -26,13 +27,19 @@ import org.springframework.stereotype.Component;
 public class ConfigServiceHealthIndicator implements HealthIndicator {
 
   private final AppService appService;
+  private final CacheWarmUp cacheWarmUp;
 
-  public ConfigServiceHealthIndicator(final AppService appService) {
+  public ConfigServiceHealthIndicator(final AppService appService,
+      final CacheWarmUp cacheWarmUp) {
     this.appService = appService;
+    this.cacheWarmUp = cacheWarmUp;
   }
 
   @Override
   public Health health() {
+    if (!cacheWarmUp.isCompleted()) {
+      return Health.down().withDetail("cacheWarmUp", "in progress").build();
+    }
     check();
     return Health.up().build();
   }
@@ -19,12 +19,17 @@ package com.ctrip.framework.apollo.configservice.controller;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
+import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.utils.WebUtils;
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache.CachedConfig;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.service.config.IncrementalSyncService;
 import com.ctrip.framework.apollo.configservice.util.InstanceConfigAuditUtil;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.wrapper.NamespaceConfigQuery;
+import com.ctrip.framework.apollo.configservice.wrapper.NamespaceConfigResult;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
@@ -38,6 +43,7 @@ import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import java.util.regex.Pattern;
+import org.springframework.http.HttpHeaders;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -49,7 +55,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -67,6 +72,7 @@ public class ConfigController {
   private final ConfigService configService;
 
   private final IncrementalSyncService incrementalSyncService;
+  private final ConfigResponseCache configResponseCache;
   private final AppNamespaceServiceWithCache appNamespaceService;
   private final NamespaceUtil namespaceUtil;
   private final InstanceConfigAuditUtil instanceConfigAuditUtil;
@@ -76,14 +82,17 @@ public class ConfigController {
 
   private static final Type configurationTypeReference =
       new TypeToken<Map<String, String>>() {}.getType();
+  private static final Type namespaceConfigQueriesTypeReference =
+      new TypeToken<List<NamespaceConfigQuery>>() {}.getType();
 
   public ConfigController(final ConfigService configService,
       final IncrementalSyncService incrementalSyncService,
       final AppNamespaceServiceWithCache appNamespaceService, final NamespaceUtil namespaceUtil,
       final InstanceConfigAuditUtil instanceConfigAuditUtil, final Gson gson,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig, final ConfigResponseCache configResponseCache) {
     this.configService = configService;
     this.incrementalSyncService = incrementalSyncService;
+    this.configResponseCache = configResponseCache;
     this.appNamespaceService = appNamespaceService;
     this.namespaceUtil = namespaceUtil;
     this.instanceConfigAuditUtil = instanceConfigAuditUtil;
@@ -100,18 +109,92 @@ public class ConfigController {
       @RequestParam(value = "label", required = false) String clientLabel,
       @RequestParam(value = "messages", required = false) String messagesAsString,
       HttpServletRequest request, HttpServletResponse response) throws IOException {
-    String originalNamespace = namespace;
-    // strip out .properties suffix
-    namespace = namespaceUtil.filterNamespaceName(namespace);
-    // fix the character case issue, such as FX.apollo <-> fx.apollo
-    namespace = namespaceUtil.normalizeNamespace(appId, namespace);
-
     if (Strings.isNullOrEmpty(clientIp)) {
       clientIp = WebUtils.tryToGetClientIp(request);
     }
 
     ApolloNotificationMessages clientMessages = transformMessages(messagesAsString);
 
+    NamespaceConfigResult result = findConfig(appId, clusterName, namespace, dataCenter,
+        clientSideReleaseKey, clientIp, clientLabel, clientMessages, acceptGzip(request));
+
+    if (result.getStatus() == HttpServletResponse.SC_NOT_FOUND) {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND,
+          String.format(
+              "Could not load configurations with appId: %s, clusterName: %s, namespace: %s", appId,
+              clusterName, namespace));
+      return null;
+    }
+
+    if (result.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+      // Client side configuration is the same with server side, return 304
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return null;
+    }
+
+    return result.getConfig();
+  }
+
+  /**
+   * Query the configs of multiple namespaces in one request, the not modified and not found
+   * namespaces are returned with status 304 and 404 and without config.
+   *
+   * @param namespacesAsString the json array of the namespaces with their client side release
+   *                           keys, e.g. [{"namespaceName":"application","releaseKey":"xxx"}]
+   */
+  @GetMapping(value = "/{appId}/{clusterName}")
+  public List<NamespaceConfigResult> queryConfigs(@PathVariable String appId,
+      @PathVariable String clusterName,
+      @RequestParam(value = "namespaces") String namespacesAsString,
+      @RequestParam(value = "dataCenter", required = false) String dataCenter,
+      @RequestParam(value = "ip", required = false) String clientIp,
+      @RequestParam(value = "label", required = false) String clientLabel,
+      @RequestParam(value = "messages", required = false) String messagesAsString,
+      HttpServletRequest request) {
+    List<NamespaceConfigQuery> queries = null;
+    try {
+      queries = gson.fromJson(namespacesAsString, namespaceConfigQueriesTypeReference);
+    } catch (Throwable ex) {
+      Tracer.logError(ex);
+    }
+    if (CollectionUtils.isEmpty(queries)) {
+      throw BadRequestException.invalidNamespacesFormat(namespacesAsString);
+    }
+
+    // resolved once and shared by all the namespaces
+    if (Strings.isNullOrEmpty(clientIp)) {
+      clientIp = WebUtils.tryToGetClientIp(request);
+    }
+    ApolloNotificationMessages clientMessages = transformMessages(messagesAsString);
+
+    Map<String, NamespaceConfigResult> results = Maps.newLinkedHashMap();
+    for (NamespaceConfigQuery query : queries) {
+      String namespace = query.getNamespaceName();
+      if (Strings.isNullOrEmpty(namespace) || results.containsKey(namespace)) {
+        continue;
+      }
+      String clientSideReleaseKey =
+          Strings.isNullOrEmpty(query.getReleaseKey()) ? "-1" : query.getReleaseKey();
+      results.put(namespace, findConfig(appId, clusterName, namespace, dataCenter,
+          clientSideReleaseKey, clientIp, clientLabel, clientMessages, null));
+    }
+    Tracer.logEvent("Apollo.Config.BatchQuery", String.valueOf(results.size()));
+
+    return Lists.newArrayList(results.values());
+  }
+
+  /**
+   * @param acceptGzip whether the client accepts gzip encoded response, null if the config is not
+   *                   the response body so it should not be pre-encoded
+   */
+  private NamespaceConfigResult findConfig(String appId, String clusterName,
+      String originalNamespace, String dataCenter, String clientSideReleaseKey, String clientIp,
+      String clientLabel, ApolloNotificationMessages clientMessages, Boolean acceptGzip) {
+    // strip out .properties suffix
+    String namespace = namespaceUtil.filterNamespaceName(originalNamespace);
+    // fix the character case issue, such as FX.apollo <-> fx.apollo
+    namespace = namespaceUtil.normalizeNamespace(appId, namespace);
+
     List<Release> releases = Lists.newLinkedList();
 
     String appClusterNameLoaded = clusterName;
@@ -136,13 +219,9 @@ public class ConfigController {
     }
 
     if (releases.isEmpty()) {
-      response.sendError(HttpServletResponse.SC_NOT_FOUND,
-          String.format(
-              "Could not load configurations with appId: %s, clusterName: %s, namespace: %s", appId,
-              clusterName, originalNamespace));
       Tracer.logEvent("Apollo.Config.NotFound",
           assembleKey(appId, clusterName, originalNamespace, dataCenter));
-      return null;
+      return new NamespaceConfigResult(originalNamespace, HttpServletResponse.SC_NOT_FOUND, null);
     }
 
     auditReleases(appId, clusterName, dataCenter, clientIp, releases);
@@ -151,17 +230,24 @@ public class ConfigController {
         .collect(Collectors.joining(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR));
 
     if (latestMergedReleaseKey.equals(clientSideReleaseKey)) {
-      // Client side configuration is the same with server side, return 304
-      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
       Tracer.logEvent("Apollo.Config.NotModified",
           assembleKey(appId, appClusterNameLoaded, originalNamespace, dataCenter));
-      return null;
+      return new NamespaceConfigResult(originalNamespace, HttpServletResponse.SC_NOT_MODIFIED,
+          null);
     }
 
     ApolloConfig apolloConfig =
         new ApolloConfig(appId, appClusterNameLoaded, originalNamespace, latestMergedReleaseKey);
 
-    Map<String, String> latestConfigurations = mergeReleaseConfigurations(releases);
+    CachedConfig cachedConfig = null;
+    Map<String, String> latestConfigurations;
+    if (configResponseCache.isEnabled()) {
+      cachedConfig = configResponseCache.get(apolloConfig, releases,
+          () -> mergeReleaseConfigurations(releases));
+      latestConfigurations = cachedConfig.getConfigurations();
+    } else {
+      latestConfigurations = mergeReleaseConfigurations(releases);
+    }
 
     try {
       if (bizConfig.isConfigServiceIncrementalChangeEnabled()) {
@@ -170,48 +256,41 @@ public class ConfigController {
                 clientSideReleaseKey.split(Pattern.quote(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)))
             .collect(Collectors.toList()));
 
-        Map<String, Release> clientSideReleases =
-            configService.findReleasesByReleaseKeys(clientSideReleaseKeys);
-        // find history releases
-        if (!CollectionUtils.isEmpty(clientSideReleases)) {
-          // order by clientSideReleaseKeys
-          List<Release> historyReleasesWithOrder = new ArrayList<>();
-          for (String item : clientSideReleaseKeys) {
-            Release release = clientSideReleases.get(item);
-            if (release != null) {
-              historyReleasesWithOrder.add(release);
-            }
-          }
-
-          Map<String, String> clientSideConfigurations =
-              mergeReleaseConfigurations(historyReleasesWithOrder);
-
-          if (!CollectionUtils.isEmpty(clientSideConfigurations)) {
-            List<ConfigurationChange> configurationChanges =
-                incrementalSyncService.getConfigurationChanges(latestMergedReleaseKey,
-                    latestConfigurations, clientSideReleaseKey, clientSideConfigurations);
-
-            apolloConfig.setConfigurationChanges(configurationChanges);
-
-            apolloConfig.setConfigSyncType(ConfigSyncType.INCREMENTAL_SYNC.getValue());
-            Tracer.logEvent("Apollo.Config.Found",
-                assembleKey(appId, appClusterNameLoaded, originalNamespace, dataCenter));
-            return apolloConfig;
-          }
+        List<ConfigurationChange> configurationChanges =
+            incrementalSyncService.getConfigurationChanges(releases, latestConfigurations,
+                Lists.newArrayList(clientSideReleaseKeys),
+                configService::findReleasesByReleaseKeys);
 
-        }
+        if (configurationChanges != null) {
+          apolloConfig.setConfigurationChanges(configurationChanges);
 
+          apolloConfig.setConfigSyncType(ConfigSyncType.INCREMENTAL_SYNC.getValue());
+          Tracer.logEvent("Apollo.Config.Found",
+              assembleKey(appId, appClusterNameLoaded, originalNamespace, dataCenter));
+          return new NamespaceConfigResult(originalNamespace, HttpServletResponse.SC_OK,
+              apolloConfig);
+        }
       }
     } catch (Exception e) {
       // fallback to full sync
       Tracer.logError("Failed to do incremental sync, fallback to full sync", e);
     }
 
-    apolloConfig.setConfigurations(latestConfigurations);
-
     Tracer.logEvent("Apollo.Config.Found",
         assembleKey(appId, appClusterNameLoaded, originalNamespace, dataCenter));
-    return apolloConfig;
+
+    if (cachedConfig != null && acceptGzip != null) {
+      return new NamespaceConfigResult(originalNamespace, HttpServletResponse.SC_OK,
+          cachedConfig.toApolloConfig(acceptGzip));
+    }
+
+    apolloConfig.setConfigurations(latestConfigurations);
+    return new NamespaceConfigResult(originalNamespace, HttpServletResponse.SC_OK, apolloConfig);
+  }
+
+  private boolean acceptGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
   }
 
   private boolean namespaceBelongsToAppId(String appId, String namespaceName) {
@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.configservice.controller;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.grayReleaseRule.GrayReleaseRulesHolder;
 import com.ctrip.framework.apollo.biz.message.ReleaseMessageListener;
@@ -37,7 +38,11 @@ import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import com.google.gson.Gson;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -51,14 +56,23 @@ import org.springframework.web.bind.annotation.RestController;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
 
 /**
+ * Serves the config files, which are cached as pre-encoded utf-8 bodies.
+ * <p>
+ * Each body is tagged with a strong ETag derived from the merged release key, so that clients
+ * polling an unchanged file get a 304 response by sending it back in the If-None-Match header.
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 @RestController
@@ -66,14 +80,14 @@ import java.util.concurrent.TimeUnit;
 public class ConfigFileController implements ReleaseMessageListener {
   private static final Logger logger = LoggerFactory.getLogger(ConfigFileController.class);
   private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
-  private static final long MAX_CACHE_SIZE = 50 * 1024 * 1024; // 50MB
-  private static final long EXPIRE_AFTER_WRITE = 30;
+  private static final String GZIP = "gzip";
   private final HttpHeaders plainTextResponseHeaders;
   private final HttpHeaders jsonResponseHeaders;
   private final HttpHeaders yamlResponseHeaders;
   private final HttpHeaders xmlResponseHeaders;
-  private final ResponseEntity<String> NOT_FOUND_RESPONSE;
-  private Cache<String, String> localCache;
+  private final ResponseEntity<byte[]> NOT_FOUND_RESPONSE;
+  private final boolean gzipEnabled;
+  private Cache<String, ConfigFile> localCache;
   private final Multimap<String, String> watchedKeys2CacheKey =
       Multimaps.synchronizedSetMultimap(HashMultimap.create());
   private final Multimap<String, String> cacheKey2WatchedKeys =
@@ -87,10 +101,14 @@ public class ConfigFileController implements ReleaseMessageListener {
 
   public ConfigFileController(final ConfigController configController,
       final NamespaceUtil namespaceUtil, final WatchKeysUtil watchKeysUtil,
-      final GrayReleaseRulesHolder grayReleaseRulesHolder) {
-    localCache = CacheBuilder.newBuilder().expireAfterWrite(EXPIRE_AFTER_WRITE, TimeUnit.MINUTES)
-        .weigher((Weigher<String, String>) (key, value) -> value == null ? 0 : value.length())
-        .maximumWeight(MAX_CACHE_SIZE).removalListener(notification -> {
+      final GrayReleaseRulesHolder grayReleaseRulesHolder, final BizConfig bizConfig,
+      final MeterRegistry meterRegistry) {
+    long maxWeight = bizConfig.configServiceConfigFileCacheMaxSizeInMB() * 1024L * 1024L;
+    CacheBuilder<String, ConfigFile> cacheBuilder = CacheBuilder.newBuilder()
+        .expireAfterWrite(bizConfig.configServiceConfigFileCacheExpireInMinutes(),
+            TimeUnit.MINUTES)
+        .weigher((Weigher<String, ConfigFile>) (key, value) -> value.weight())
+        .maximumWeight(maxWeight).removalListener(notification -> {
           String cacheKey = notification.getKey();
           logger.debug("removing cache key: {}", cacheKey);
           if (!cacheKey2WatchedKeys.containsKey(cacheKey)) {
@@ -103,7 +121,15 @@ public class ConfigFileController implements ReleaseMessageListener {
           }
           cacheKey2WatchedKeys.removeAll(cacheKey);
           logger.debug("removed cache key: {}", cacheKey);
-        }).build();
+        });
+    if (bizConfig.isConfigServiceCacheStatsEnabled()) {
+      cacheBuilder.recordStats();
+    }
+    localCache = cacheBuilder.build();
+    if (bizConfig.isConfigServiceCacheStatsEnabled()) {
+      GuavaCacheMetrics.monitor(meterRegistry, localCache, "config_file_cache");
+    }
+    gzipEnabled = bizConfig.isConfigServiceConfigFileCacheGzipEnabled();
     plainTextResponseHeaders = new HttpHeaders();
     plainTextResponseHeaders.add("Content-Type", "text/plain;charset=UTF-8");
     jsonResponseHeaders = new HttpHeaders();
@@ -120,53 +146,45 @@ public class ConfigFileController implements ReleaseMessageListener {
   }
 
   @GetMapping(value = "/{appId}/{clusterName}/{namespace:.+}")
-  public ResponseEntity<String> queryConfigAsProperties(@PathVariable String appId,
+  public ResponseEntity<byte[]> queryConfigAsProperties(@PathVariable String appId,
       @PathVariable String clusterName, @PathVariable String namespace,
       @RequestParam(value = "dataCenter", required = false) String dataCenter,
       @RequestParam(value = "ip", required = false) String clientIp,
       @RequestParam(value = "label", required = false) String clientLabel,
       HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-    String result = queryConfig(ConfigFileOutputFormat.PROPERTIES, appId, clusterName, namespace,
-        dataCenter, clientIp, clientLabel, request, response);
-
-    if (result == null) {
-      return NOT_FOUND_RESPONSE;
-    }
+    ConfigFile configFile = queryConfig(ConfigFileOutputFormat.PROPERTIES, appId, clusterName,
+        namespace, dataCenter, clientIp, clientLabel, request, response);
 
-    return new ResponseEntity<>(result, plainTextResponseHeaders, HttpStatus.OK);
+    return buildResponse(configFile, plainTextResponseHeaders, request);
   }
 
   @GetMapping(value = "/json/{appId}/{clusterName}/{namespace:.+}")
-  public ResponseEntity<String> queryConfigAsJson(@PathVariable String appId,
+  public ResponseEntity<byte[]> queryConfigAsJson(@PathVariable String appId,
       @PathVariable String clusterName, @PathVariable String namespace,
       @RequestParam(value = "dataCenter", required = false) String dataCenter,
       @RequestParam(value = "ip", required = false) String clientIp,
       @RequestParam(value = "label", required = false) String clientLabel,
       HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-    String result = queryConfig(ConfigFileOutputFormat.JSON, appId, clusterName, namespace,
-        dataCenter, clientIp, clientLabel, request, response);
+    ConfigFile configFile = queryConfig(ConfigFileOutputFormat.JSON, appId, clusterName,
+        namespace, dataCenter, clientIp, clientLabel, request, response);
 
-    if (result == null) {
-      return NOT_FOUND_RESPONSE;
-    }
-
-    return new ResponseEntity<>(result, jsonResponseHeaders, HttpStatus.OK);
+    return buildResponse(configFile, jsonResponseHeaders, request);
   }
 
   @GetMapping(value = "/raw/{appId}/{clusterName}/{namespace:.+}")
-  public ResponseEntity<String> queryConfigAsRaw(@PathVariable String appId,
+  public ResponseEntity<byte[]> queryConfigAsRaw(@PathVariable String appId,
       @PathVariable String clusterName, @PathVariable String namespace,
       @RequestParam(value = "dataCenter", required = false) String dataCenter,
       @RequestParam(value = "ip", required = false) String clientIp,
       @RequestParam(value = "label", required = false) String clientLabel,
       HttpServletRequest request, HttpServletResponse response) throws IOException {
 
-    String result = queryConfig(ConfigFileOutputFormat.RAW, appId, clusterName, namespace,
-        dataCenter, clientIp, clientLabel, request, response);
+    ConfigFile configFile = queryConfig(ConfigFileOutputFormat.RAW, appId, clusterName,
+        namespace, dataCenter, clientIp, clientLabel, request, response);
 
-    if (result == null) {
+    if (configFile == null) {
       return NOT_FOUND_RESPONSE;
     }
 
@@ -187,10 +205,62 @@ public class ConfigFileController implements ReleaseMessageListener {
         responseHeaders = plainTextResponseHeaders;
         break;
     }
-    return new ResponseEntity<>(result, responseHeaders, HttpStatus.OK);
+    return buildResponse(configFile, responseHeaders, request);
+  }
+
+  private ResponseEntity<byte[]> buildResponse(ConfigFile configFile,
+      HttpHeaders contentTypeHeaders, HttpServletRequest request) {
+    if (configFile == null) {
+      return NOT_FOUND_RESPONSE;
+    }
+
+    boolean gzipped = configFile.gzippedBody != null && acceptGzip(request);
+    String eTag = gzipped ? configFile.gzippedETag : configFile.eTag;
+
+    HttpHeaders responseHeaders = new HttpHeaders();
+    responseHeaders.putAll(contentTypeHeaders);
+    responseHeaders.setETag(eTag);
+    if (configFile.gzippedBody != null) {
+      responseHeaders.setVary(Lists.newArrayList(HttpHeaders.ACCEPT_ENCODING));
+    }
+
+    if (isNotModified(request, eTag)) {
+      return new ResponseEntity<>(responseHeaders, HttpStatus.NOT_MODIFIED);
+    }
+
+    if (gzipped) {
+      responseHeaders.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+      return new ResponseEntity<>(configFile.gzippedBody, responseHeaders, HttpStatus.OK);
+    }
+    return new ResponseEntity<>(configFile.body, responseHeaders, HttpStatus.OK);
+  }
+
+  private boolean acceptGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+    return acceptEncoding != null && acceptEncoding.toLowerCase().contains(GZIP);
   }
 
-  String queryConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
+  private boolean isNotModified(HttpServletRequest request, String eTag) {
+    Enumeration<String> ifNoneMatchHeaders = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatchHeaders == null) {
+      return false;
+    }
+    while (ifNoneMatchHeaders.hasMoreElements()) {
+      for (String clientETag : ifNoneMatchHeaders.nextElement().split(",")) {
+        clientETag = clientETag.trim();
+        // If-None-Match uses the weak comparison
+        if (clientETag.startsWith("W/")) {
+          clientETag = clientETag.substring(2);
+        }
+        if (clientETag.equals(eTag) || clientETag.equals("*")) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  ConfigFile queryConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
       String namespace, String dataCenter, String clientIp, String clientLabel,
       HttpServletRequest request, HttpServletResponse response) throws IOException {
     // strip out .properties suffix
@@ -216,10 +286,10 @@ public class ConfigFileController implements ReleaseMessageListener {
     }
 
     // 3. if not gray release, check weather cache exists, if exists, return
-    String result = localCache.getIfPresent(cacheKey);
+    ConfigFile result = localCache.getIfPresent(cacheKey);
 
     // 4. if not exists, load from ConfigController
-    if (Strings.isNullOrEmpty(result)) {
+    if (result == null) {
       Tracer.logEvent("ConfigFile.Cache.Miss", cacheKey);
       result = loadConfig(outputFormat, appId, clusterName, namespace, dataCenter, clientIp,
           clientLabel, request, response);
@@ -254,8 +324,8 @@ public class ConfigFileController implements ReleaseMessageListener {
     return result;
   }
 
-  private String loadConfig(ConfigFileOutputFormat outputFormat, String appId, String clusterName,
-      String namespace, String dataCenter, String clientIp, String clientLabel,
+  private ConfigFile loadConfig(ConfigFileOutputFormat outputFormat, String appId,
+      String clusterName, String namespace, String dataCenter, String clientIp, String clientLabel,
       HttpServletRequest request, HttpServletResponse response) throws IOException {
     ApolloConfig apolloConfig = configController.queryConfig(appId, clusterName, namespace,
         dataCenter, "-1", clientIp, clientLabel, null, request, response);
@@ -264,23 +334,57 @@ public class ConfigFileController implements ReleaseMessageListener {
       return null;
     }
 
-    String result = null;
+    String content = null;
 
     switch (outputFormat) {
       case PROPERTIES:
         Properties properties = new Properties();
         properties.putAll(apolloConfig.getConfigurations());
-        result = PropertiesUtil.toString(properties);
+        content = PropertiesUtil.toString(properties);
         break;
       case JSON:
-        result = GSON.toJson(apolloConfig.getConfigurations());
+        content = GSON.toJson(apolloConfig.getConfigurations());
         break;
       case RAW:
-        result = getRawConfigContent(apolloConfig);
+        content = getRawConfigContent(apolloConfig);
         break;
     }
 
-    return result;
+    if (content == null) {
+      return null;
+    }
+
+    byte[] body = content.getBytes(StandardCharsets.UTF_8);
+    byte[] gzippedBody = gzipEnabled ? gzip(body) : null;
+    String eTag = assembleETag(outputFormat, apolloConfig, body);
+
+    return new ConfigFile(body, gzippedBody, eTag);
+  }
+
+  /**
+   * The merged release key identifies the configurations, while the output format and namespace
+   * name determine how they are rendered. The body is hashed instead if there is no release key.
+   */
+  private String assembleETag(ConfigFileOutputFormat outputFormat, ApolloConfig apolloConfig,
+      byte[] body) {
+    Hasher hasher = Hashing.murmur3_128().newHasher()
+        .putString(outputFormat.getValue(), StandardCharsets.UTF_8)
+        .putString(Strings.nullToEmpty(apolloConfig.getNamespaceName()), StandardCharsets.UTF_8);
+    String releaseKey = apolloConfig.getReleaseKey();
+    if (Strings.isNullOrEmpty(releaseKey)) {
+      hasher.putBytes(body);
+    } else {
+      hasher.putString(releaseKey, StandardCharsets.UTF_8);
+    }
+    return hasher.hash().toString();
+  }
+
+  private static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+    try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+      gzipOut.write(body);
+    }
+    return out.toByteArray();
   }
 
   private String getRawConfigContent(ApolloConfig apolloConfig) throws IOException {
@@ -336,6 +440,25 @@ public class ConfigFileController implements ReleaseMessageListener {
     }
   }
 
+  static class ConfigFile {
+    private final byte[] body;
+    private final byte[] gzippedBody;
+    private final String eTag;
+    private final String gzippedETag;
+
+    ConfigFile(byte[] body, byte[] gzippedBody, String eTag) {
+      this.body = body;
+      this.gzippedBody = gzippedBody;
+      // the gzipped body is a different representation, so it must have a different strong ETag
+      this.eTag = "\"" + eTag + "\"";
+      this.gzippedETag = "\"" + eTag + "-" + GZIP + "\"";
+    }
+
+    private int weight() {
+      return body.length + (gzippedBody == null ? 0 : gzippedBody.length);
+    }
+  }
+
   enum ConfigFileOutputFormat {
     PROPERTIES("properties"), JSON("json"), RAW("raw");
 
@@ -24,21 +24,19 @@ import com.ctrip.framework.apollo.biz.utils.EntityManagerUtil;
 import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.notification.NotificationDispatcher;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
 import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
 import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.configservice.wrapper.WatchKeyRegistry;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
-import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
-import com.google.common.collect.TreeMultimap;
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
@@ -57,9 +55,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -69,34 +64,30 @@ import java.util.function.Function;
 @RequestMapping("/notifications/v2")
 public class NotificationControllerV2 implements ReleaseMessageListener {
   private static final Logger logger = LoggerFactory.getLogger(NotificationControllerV2.class);
-  private final Multimap<String, DeferredResultWrapper> deferredResults =
-      Multimaps.synchronizedSetMultimap(
-          TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
+  private final WatchKeyRegistry<DeferredResultWrapper> deferredResults = new WatchKeyRegistry<>();
 
   private static final Type notificationsTypeReference =
       new TypeToken<List<ApolloConfigNotification>>() {}.getType();
 
-  private final ExecutorService largeNotificationBatchExecutorService;
-
   private final WatchKeysUtil watchKeysUtil;
   private final ReleaseMessageServiceWithCache releaseMessageService;
   private final EntityManagerUtil entityManagerUtil;
   private final NamespaceUtil namespaceUtil;
   private final Gson gson;
   private final BizConfig bizConfig;
+  private final NotificationDispatcher notificationDispatcher;
 
   public NotificationControllerV2(final WatchKeysUtil watchKeysUtil,
       final ReleaseMessageServiceWithCache releaseMessageService,
       final EntityManagerUtil entityManagerUtil, final NamespaceUtil namespaceUtil, final Gson gson,
-      final BizConfig bizConfig) {
-    largeNotificationBatchExecutorService = Executors
-        .newSingleThreadExecutor(ApolloThreadFactory.create("NotificationControllerV2", true));
+      final BizConfig bizConfig, final NotificationDispatcher notificationDispatcher) {
     this.watchKeysUtil = watchKeysUtil;
     this.releaseMessageService = releaseMessageService;
     this.entityManagerUtil = entityManagerUtil;
     this.namespaceUtil = namespaceUtil;
     this.gson = gson;
     this.bizConfig = bizConfig;
+    this.notificationDispatcher = notificationDispatcher;
   }
 
   @GetMapping
@@ -158,14 +149,14 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
     deferredResultWrapper.onCompletion(() -> {
       // unregister all keys
       for (String key : watchedKeys) {
-        deferredResults.remove(key, deferredResultWrapper);
+        deferredResults.unregister(key, deferredResultWrapper);
       }
       logWatchedKeys(watchedKeys, "Apollo.LongPoll.CompletedKeys");
     });
 
     // register all keys
     for (String key : watchedKeys) {
-      this.deferredResults.put(key, deferredResultWrapper);
+      this.deferredResults.register(key, deferredResultWrapper);
     }
 
     logWatchedKeys(watchedKeys, "Apollo.LongPoll.RegisteredKeys");
@@ -287,22 +278,7 @@ public class NotificationControllerV2 implements ReleaseMessageListener {
 
     // do async notification if too many clients
     if (results.size() > bizConfig.releaseMessageNotificationBatch()) {
-      largeNotificationBatchExecutorService.submit(() -> {
-        logger.debug("Async notify {} clients for key {} with batch {}", results.size(), content,
-            bizConfig.releaseMessageNotificationBatch());
-        for (int i = 0; i < results.size(); i++) {
-          if (i > 0 && i % bizConfig.releaseMessageNotificationBatch() == 0) {
-            try {
-              TimeUnit.MILLISECONDS
-                  .sleep(bizConfig.releaseMessageNotificationBatchIntervalInMilli());
-            } catch (InterruptedException e) {
-              // ignore
-            }
-          }
-          logger.debug("Async notify {}", results.get(i));
-          results.get(i).setResult(configNotification);
-        }
-      });
+      notificationDispatcher.dispatch(content, configNotification, results);
       return;
     }
 
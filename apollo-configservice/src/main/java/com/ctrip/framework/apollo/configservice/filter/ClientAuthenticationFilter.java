@@ -22,10 +22,14 @@ import com.ctrip.framework.apollo.configservice.util.AccessKeyUtil;
 import com.ctrip.framework.apollo.core.signature.Signature;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Joiner;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.net.HttpHeaders;
 import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
@@ -44,13 +48,31 @@ import org.springframework.util.CollectionUtils;
 public class ClientAuthenticationFilter implements Filter {
 
   private static final Logger logger = LoggerFactory.getLogger(ClientAuthenticationFilter.class);
+  private static final Joiner VERIFIED_SIGNATURE_KEY_JOINER = Joiner.on('\n').useForNull("");
 
   private final BizConfig bizConfig;
   private final AccessKeyUtil accessKeyUtil;
+  // appId+timestamp+path+query+signature -> the secret which verified the signature
+  private final Cache<String, String> verifiedSignatureCache;
 
   public ClientAuthenticationFilter(BizConfig bizConfig, AccessKeyUtil accessKeyUtil) {
     this.bizConfig = bizConfig;
     this.accessKeyUtil = accessKeyUtil;
+    this.verifiedSignatureCache = buildVerifiedSignatureCache();
+  }
+
+  /**
+   * The retried or repeated requests carry the same timestamp and signature, which could be
+   * verified by the cache. The entries expire with the time diff tolerance, since the timestamps
+   * are rejected afterwards anyway.
+   */
+  private Cache<String, String> buildVerifiedSignatureCache() {
+    int cacheSize = bizConfig.accessKeyAuthSignatureCacheSize();
+    if (cacheSize <= 0) {
+      return null;
+    }
+    return CacheBuilder.newBuilder().maximumSize(cacheSize)
+        .expireAfterWrite(bizConfig.accessKeyAuthTimeDiffTolerance(), TimeUnit.SECONDS).build();
   }
 
   @Override
@@ -113,7 +135,7 @@ public class ClientAuthenticationFilter implements Filter {
     }
 
     // check signature
-    if (!checkAuthorization(authorization, secrets, timestamp, req.getRequestURI(),
+    if (!checkAuthorization(appId, authorization, secrets, timestamp, req.getRequestURI(),
         req.getQueryString())) {
       if (preCheck) {
         preCheckInvalidLogging(String.format(
@@ -148,8 +170,8 @@ public class ClientAuthenticationFilter implements Filter {
     return Math.abs(x) < authTimeDiffToleranceInMillis;
   }
 
-  private boolean checkAuthorization(String authorization, List<String> availableSecrets,
-      String timestamp, String path, String query) {
+  private boolean checkAuthorization(String appId, String authorization,
+      List<String> availableSecrets, String timestamp, String path, String query) {
 
     String signature = null;
     if (authorization != null) {
@@ -159,9 +181,23 @@ public class ClientAuthenticationFilter implements Filter {
       }
     }
 
+    String verifiedSignatureKey = null;
+    if (verifiedSignatureCache != null && signature != null) {
+      verifiedSignatureKey =
+          VERIFIED_SIGNATURE_KEY_JOINER.join(appId, timestamp, path, query, signature);
+      String verifiedSecret = verifiedSignatureCache.getIfPresent(verifiedSignatureKey);
+      // the secret might be disabled or deleted since verified
+      if (verifiedSecret != null && availableSecrets.contains(verifiedSecret)) {
+        return true;
+      }
+    }
+
     for (String secret : availableSecrets) {
       String availableSignature = accessKeyUtil.buildSignature(path, query, timestamp, secret);
       if (Objects.equals(signature, availableSignature)) {
+        if (verifiedSignatureKey != null) {
+          verifiedSignatureCache.put(verifiedSignatureKey, secret);
+        }
         return true;
       }
     }
@@ -19,10 +19,13 @@ package com.ctrip.framework.apollo.configservice.service;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.AccessKey;
 import com.ctrip.framework.apollo.biz.repository.AccessKeyRepository;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.ctrip.framework.apollo.common.constants.AccessKeyMode;
+import com.ctrip.framework.apollo.configservice.util.AccessKeySigner;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -33,6 +36,7 @@ import com.google.common.collect.Sets.SetView;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -47,6 +51,9 @@ import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 /**
+ * Caches the access keys, along with the secrets of each app in each mode and the signers of the
+ * secrets, which are rebuilt when the access keys of the app change.
+ *
  * @author nisiyong
  */
 @Service
@@ -56,6 +63,7 @@ public class AccessKeyServiceWithCache implements InitializingBean {
 
   private final AccessKeyRepository accessKeyRepository;
   private final BizConfig bizConfig;
+  private final CacheWarmUp cacheWarmUp;
 
   private int scanInterval;
   private TimeUnit scanIntervalTimeUnit;
@@ -66,11 +74,16 @@ public class AccessKeyServiceWithCache implements InitializingBean {
 
   private ListMultimap<String, AccessKey> accessKeyCache;
   private ConcurrentMap<Long, AccessKey> accessKeyIdCache;
+  // appId in lower case -> secrets
+  private ConcurrentMap<String, AppSecrets> appSecretsCache;
+  // secret -> signer
+  private ConcurrentMap<String, AccessKeySigner> signerCache;
 
   public AccessKeyServiceWithCache(final AccessKeyRepository accessKeyRepository,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig, final CacheWarmUp cacheWarmUp) {
     this.accessKeyRepository = accessKeyRepository;
     this.bizConfig = bizConfig;
+    this.cacheWarmUp = cacheWarmUp;
 
     initialize();
   }
@@ -84,14 +97,25 @@ public class AccessKeyServiceWithCache implements InitializingBean {
         ListMultimapBuilder.treeKeys(String.CASE_INSENSITIVE_ORDER).arrayListValues().build();
     accessKeyCache = Multimaps.synchronizedListMultimap(multimap);
     accessKeyIdCache = Maps.newConcurrentMap();
+    appSecretsCache = Maps.newConcurrentMap();
+    signerCache = Maps.newConcurrentMap();
   }
 
   public List<String> getAvailableSecrets(String appId) {
-    return getSecrets(appId, key -> key.isEnabled() && key.getMode() == AccessKeyMode.FILTER);
+    AppSecrets appSecrets = appSecretsCache.get(normalize(appId));
+    return appSecrets == null ? Collections.emptyList() : appSecrets.availableSecrets;
   }
 
   public List<String> getObservableSecrets(String appId) {
-    return getSecrets(appId, key -> key.isEnabled() && key.getMode() == AccessKeyMode.OBSERVER);
+    AppSecrets appSecrets = appSecretsCache.get(normalize(appId));
+    return appSecrets == null ? Collections.emptyList() : appSecrets.observableSecrets;
+  }
+
+  /**
+   * @return the signer of the enabled secret, or null if the secret is not enabled
+   */
+  public AccessKeySigner getSigner(String secret) {
+    return signerCache.get(secret);
   }
 
   public List<String> getSecrets(String appId, Predicate<AccessKey> filter) {
@@ -107,8 +131,11 @@ public class AccessKeyServiceWithCache implements InitializingBean {
   @Override
   public void afterPropertiesSet() throws Exception {
     populateDataBaseInterval();
-    scanNewAndUpdatedAccessKeys(); // block the startup process until load finished
+    // loaded along with the other caches, and the startup is blocked until all of them finish
+    cacheWarmUp.submit("accessKey", this::scanNewAndUpdatedAccessKeys, this::scheduleScans);
+  }
 
+  private void scheduleScans() {
     scheduledExecutorService.scheduleWithFixedDelay(this::scanNewAndUpdatedAccessKeys, scanInterval,
         scanInterval, scanIntervalTimeUnit);
 
@@ -116,11 +143,12 @@ public class AccessKeyServiceWithCache implements InitializingBean {
         rebuildInterval, rebuildIntervalTimeUnit);
   }
 
-  private void scanNewAndUpdatedAccessKeys() {
+  private long scanNewAndUpdatedAccessKeys() {
     Transaction transaction =
         Tracer.newTransaction("Apollo.AccessKeyServiceWithCache", "scanNewAndUpdatedAccessKeys");
+    long loaded = 0;
     try {
-      loadNewAndUpdatedAccessKeys();
+      loaded = loadNewAndUpdatedAccessKeys();
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
       transaction.setStatus(ex);
@@ -128,6 +156,7 @@ public class AccessKeyServiceWithCache implements InitializingBean {
     } finally {
       transaction.complete();
     }
+    return loaded;
   }
 
   private void rebuildAccessKeyCache() {
@@ -144,7 +173,8 @@ public class AccessKeyServiceWithCache implements InitializingBean {
     }
   }
 
-  private void loadNewAndUpdatedAccessKeys() {
+  private long loadNewAndUpdatedAccessKeys() {
+    long loaded = 0;
     boolean hasMore = true;
     while (hasMore && !Thread.currentThread().isInterrupted()) {
       // current batch is 500
@@ -156,6 +186,7 @@ public class AccessKeyServiceWithCache implements InitializingBean {
       }
 
       int scanned = accessKeys.size();
+      loaded += scanned;
       mergeAccessKeys(accessKeys);
       logger.info("Loaded {} new/updated Accesskey from startTime {}", scanned, lastTimeScanned);
 
@@ -172,10 +203,13 @@ public class AccessKeyServiceWithCache implements InitializingBean {
             lastTimeScanned);
       }
     }
+    return loaded;
   }
 
   private void mergeAccessKeys(List<AccessKey> accessKeys) {
+    Set<String> changedAppIds = Sets.newHashSet();
     for (AccessKey accessKey : accessKeys) {
+      changedAppIds.add(accessKey.getAppId());
       AccessKey thatInCache = accessKeyIdCache.get(accessKey.getId());
 
       accessKeyIdCache.put(accessKey.getId(), accessKey);
@@ -187,6 +221,7 @@ public class AccessKeyServiceWithCache implements InitializingBean {
         logger.info("Found Accesskey changes, old: {}, new: {}", thatInCache, accessKey);
       }
     }
+    changedAppIds.forEach(this::rebuildAppSecrets);
   }
 
   private void deleteAccessKeyCache() {
@@ -214,6 +249,7 @@ public class AccessKeyServiceWithCache implements InitializingBean {
     if (CollectionUtils.isEmpty(deletedIds)) {
       return;
     }
+    Set<String> changedAppIds = Sets.newHashSet();
     for (Long deletedId : deletedIds) {
       AccessKey deleted = accessKeyIdCache.remove(deletedId);
       if (deleted == null) {
@@ -221,8 +257,56 @@ public class AccessKeyServiceWithCache implements InitializingBean {
       }
 
       accessKeyCache.remove(deleted.getAppId(), deleted);
+      changedAppIds.add(deleted.getAppId());
       logger.info("Found AccessKey deleted, {}", deleted);
     }
+    changedAppIds.forEach(this::rebuildAppSecrets);
+  }
+
+  /**
+   * Rebuild the secrets of the app, and drop the signers of the secrets no longer enabled. It is
+   * only called by the scheduled thread, so the rebuilds of an app never interleave.
+   */
+  private void rebuildAppSecrets(String appId) {
+    List<AccessKey> accessKeys;
+    synchronized (accessKeyCache) {
+      accessKeys = Lists.newArrayList(accessKeyCache.get(appId));
+    }
+    List<String> availableSecrets = Lists.newArrayList();
+    List<String> observableSecrets = Lists.newArrayList();
+    for (AccessKey accessKey : accessKeys) {
+      if (!accessKey.isEnabled()) {
+        continue;
+      }
+      if (accessKey.getMode() == AccessKeyMode.FILTER) {
+        availableSecrets.add(accessKey.getSecret());
+      } else if (accessKey.getMode() == AccessKeyMode.OBSERVER) {
+        observableSecrets.add(accessKey.getSecret());
+      }
+    }
+
+    String key = normalize(appId);
+    AppSecrets old;
+    if (availableSecrets.isEmpty() && observableSecrets.isEmpty()) {
+      old = appSecretsCache.remove(key);
+    } else {
+      for (String secret : Iterables.concat(availableSecrets, observableSecrets)) {
+        signerCache.computeIfAbsent(secret, AccessKeySigner::new);
+      }
+      old = appSecretsCache.put(key, new AppSecrets(Collections.unmodifiableList(availableSecrets),
+          Collections.unmodifiableList(observableSecrets)));
+    }
+    if (old != null) {
+      for (String secret : Iterables.concat(old.availableSecrets, old.observableSecrets)) {
+        if (!availableSecrets.contains(secret) && !observableSecrets.contains(secret)) {
+          signerCache.remove(secret);
+        }
+      }
+    }
+  }
+
+  private String normalize(String appId) {
+    return appId == null ? null : appId.toLowerCase(Locale.ROOT);
   }
 
   private void populateDataBaseInterval() {
@@ -231,4 +315,14 @@ public class AccessKeyServiceWithCache implements InitializingBean {
     rebuildInterval = bizConfig.accessKeyCacheRebuildInterval();
     rebuildIntervalTimeUnit = bizConfig.accessKeyCacheRebuildIntervalTimeUnit();
   }
+
+  private static class AppSecrets {
+    private final List<String> availableSecrets;
+    private final List<String> observableSecrets;
+
+    private AppSecrets(List<String> availableSecrets, List<String> observableSecrets) {
+      this.availableSecrets = availableSecrets;
+      this.observableSecrets = observableSecrets;
+    }
+  }
 }
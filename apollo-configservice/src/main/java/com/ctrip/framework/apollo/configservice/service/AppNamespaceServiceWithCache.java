@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.configservice.service;
 
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.repository.AppNamespaceRepository;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.configservice.wrapper.CaseInsensitiveMapWrapper;
 import com.ctrip.framework.apollo.core.ConfigConsts;
@@ -34,6 +35,7 @@ import com.google.common.collect.Sets;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
@@ -56,11 +58,13 @@ public class AppNamespaceServiceWithCache implements InitializingBean {
       Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).skipNulls();
   private final AppNamespaceRepository appNamespaceRepository;
   private final BizConfig bizConfig;
+  private final CacheWarmUp cacheWarmUp;
 
   private int scanInterval;
   private TimeUnit scanIntervalTimeUnit;
   private int rebuildInterval;
   private TimeUnit rebuildIntervalTimeUnit;
+  private int loadPageSize;
   private ScheduledExecutorService scheduledExecutorService;
   private long maxIdScanned;
 
@@ -74,9 +78,10 @@ public class AppNamespaceServiceWithCache implements InitializingBean {
   private Map<Long, AppNamespace> appNamespaceIdCache;
 
   public AppNamespaceServiceWithCache(final AppNamespaceRepository appNamespaceRepository,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig, final CacheWarmUp cacheWarmUp) {
     this.appNamespaceRepository = appNamespaceRepository;
     this.bizConfig = bizConfig;
+    this.cacheWarmUp = cacheWarmUp;
     initialize();
   }
 
@@ -134,7 +139,11 @@ public class AppNamespaceServiceWithCache implements InitializingBean {
   @Override
   public void afterPropertiesSet() throws Exception {
     populateDataBaseInterval();
-    scanNewAppNamespaces(); // block the startup process until load finished
+    // loaded along with the other caches, and the startup is blocked until all of them finish
+    cacheWarmUp.submit("appNamespace", this::scanNewAppNamespaces, this::scheduleScans);
+  }
+
+  private void scheduleScans() {
     scheduledExecutorService.scheduleAtFixedRate(() -> {
       Transaction transaction =
           Tracer.newTransaction("Apollo.AppNamespaceServiceWithCache", "rebuildCache");
@@ -152,11 +161,12 @@ public class AppNamespaceServiceWithCache implements InitializingBean {
         scanInterval, scanIntervalTimeUnit);
   }
 
-  private void scanNewAppNamespaces() {
+  private long scanNewAppNamespaces() {
     Transaction transaction =
         Tracer.newTransaction("Apollo.AppNamespaceServiceWithCache", "scanNewAppNamespaces");
+    long loaded = 0;
     try {
-      this.loadNewAppNamespaces();
+      loaded = this.loadNewAppNamespaces();
       transaction.setStatus(Transaction.SUCCESS);
     } catch (Throwable ex) {
       transaction.setStatus(ex);
@@ -164,24 +174,27 @@ public class AppNamespaceServiceWithCache implements InitializingBean {
     } finally {
       transaction.complete();
     }
+    return loaded;
   }
 
   // for those new app namespaces
-  private void loadNewAppNamespaces() {
+  private long loadNewAppNamespaces() {
+    long loaded = 0;
     boolean hasMore = true;
     while (hasMore && !Thread.currentThread().isInterrupted()) {
-      // current batch is 500
-      List<AppNamespace> appNamespaces =
-          appNamespaceRepository.findFirst500ByIdGreaterThanOrderByIdAsc(maxIdScanned);
+      List<AppNamespace> appNamespaces = appNamespaceRepository.findByIdGreaterThanOrderByIdAsc(
+          maxIdScanned, PageRequest.of(0, loadPageSize));
       if (CollectionUtils.isEmpty(appNamespaces)) {
         break;
       }
       mergeAppNamespaces(appNamespaces);
       int scanned = appNamespaces.size();
+      loaded += scanned;
       maxIdScanned = appNamespaces.get(scanned - 1).getId();
-      hasMore = scanned == 500;
+      hasMore = scanned == loadPageSize;
       logger.info("Loaded {} new app namespaces with startId {}", scanned, maxIdScanned);
     }
+    return loaded;
   }
 
   private void mergeAppNamespaces(List<AppNamespace> appNamespaces) {
@@ -283,6 +296,7 @@ public class AppNamespaceServiceWithCache implements InitializingBean {
     scanIntervalTimeUnit = bizConfig.appNamespaceCacheScanIntervalTimeUnit();
     rebuildInterval = bizConfig.appNamespaceCacheRebuildInterval();
     rebuildIntervalTimeUnit = bizConfig.appNamespaceCacheRebuildIntervalTimeUnit();
+    loadPageSize = bizConfig.cacheLoadPageSize();
   }
 
   // only for test use
@@ -290,5 +304,6 @@ public class AppNamespaceServiceWithCache implements InitializingBean {
     scheduledExecutorService.shutdownNow();
     initialize();
     afterPropertiesSet();
+    cacheWarmUp.await();
   }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.ReleaseMessageListener;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
+import com.ctrip.framework.apollo.configservice.wrapper.PreEncodedApolloConfig;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Caches the merged configurations of the /configs responses together with their encoded json.
+ * <p>
+ * The merged configurations are a pure function of the release keys, so the cache key is the
+ * merged release key plus the appId, cluster and namespace name echoed back to the client. Entries
+ * of a namespace are evicted when a new release message of it arrives.
+ */
+@Service
+public class ConfigResponseCache implements ReleaseMessageListener {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigResponseCache.class);
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+
+  private final boolean enabled;
+  private final boolean gzipEnabled;
+  private Cache<String, CachedConfig> cache;
+  // appId+namespace -> cache keys, used to evict the entries when a namespace is published
+  private final Multimap<String, String> namespaceKey2CacheKeys =
+      Multimaps.synchronizedSetMultimap(HashMultimap.create());
+
+  private final Gson gson;
+  private final BizConfig bizConfig;
+  private final MeterRegistry meterRegistry;
+
+  public ConfigResponseCache(final Gson gson, final BizConfig bizConfig,
+      final MeterRegistry meterRegistry) {
+    this.gson = gson;
+    this.bizConfig = bizConfig;
+    this.meterRegistry = meterRegistry;
+    this.enabled = bizConfig.isConfigServiceResponseCacheEnabled();
+    this.gzipEnabled = bizConfig.isConfigServiceResponseCacheGzipEnabled();
+    if (enabled) {
+      buildCache();
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * @param apolloConfig the response to be sent, only its appId, cluster, namespace name and release
+   *                     key are used
+   * @param releases the releases merged into the response
+   * @param configurationsLoader merges the configurations of the releases on cache miss
+   */
+  public CachedConfig get(ApolloConfig apolloConfig, List<Release> releases,
+      Supplier<Map<String, String>> configurationsLoader) {
+    String cacheKey = STRING_JOINER.join(apolloConfig.getReleaseKey(), apolloConfig.getAppId(),
+        apolloConfig.getCluster(), apolloConfig.getNamespaceName());
+    try {
+      CachedConfig cachedConfig = cache.getIfPresent(cacheKey);
+      if (cachedConfig != null) {
+        Tracer.logEvent("Apollo.ConfigResponseCache.Hit", cacheKey);
+        return cachedConfig;
+      }
+      return cache.get(cacheKey, () -> {
+        Tracer.logEvent("Apollo.ConfigResponseCache.Miss", cacheKey);
+        return load(cacheKey, apolloConfig, releases, configurationsLoader.get());
+      });
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private CachedConfig load(String cacheKey, ApolloConfig apolloConfig, List<Release> releases,
+      Map<String, String> configurations) throws IOException {
+    Map<String, String> immutableConfigurations =
+        Collections.unmodifiableMap(new LinkedHashMap<>(configurations));
+
+    ApolloConfig response = new ApolloConfig(apolloConfig.getAppId(), apolloConfig.getCluster(),
+        apolloConfig.getNamespaceName(), apolloConfig.getReleaseKey());
+    response.setConfigurations(immutableConfigurations);
+
+    byte[] body = gson.toJson(response).getBytes(StandardCharsets.UTF_8);
+    byte[] gzippedBody = gzipEnabled ? gzip(body) : null;
+
+    Set<String> namespaceKeys = assembleNamespaceKeys(releases);
+    for (String namespaceKey : namespaceKeys) {
+      namespaceKey2CacheKeys.put(namespaceKey, cacheKey);
+    }
+
+    return new CachedConfig(apolloConfig, immutableConfigurations, body, gzippedBody,
+        namespaceKeys);
+  }
+
+  private Set<String> assembleNamespaceKeys(List<Release> releases) {
+    return releases.stream()
+        .map(release -> assembleNamespaceKey(release.getAppId(), release.getNamespaceName()))
+        .collect(Collectors.toSet());
+  }
+
+  private String assembleNamespaceKey(String appId, String namespaceName) {
+    return STRING_JOINER.join(appId, namespaceName).toLowerCase();
+  }
+
+  @Override
+  public void handleMessage(ReleaseMessage message, String channel) {
+    String content = message.getMessage();
+    if (!enabled || !Topics.APOLLO_RELEASE_TOPIC.equals(channel)
+        || Strings.isNullOrEmpty(content)) {
+      return;
+    }
+    List<String> keys = ReleaseMessageKeyGenerator.messageToList(content);
+    if (CollectionUtils.isEmpty(keys)) {
+      return;
+    }
+
+    // the cluster is ignored, as gray releases are published with the parent cluster's message
+    String namespaceKey = assembleNamespaceKey(keys.get(0), keys.get(2));
+    if (!namespaceKey2CacheKeys.containsKey(namespaceKey)) {
+      return;
+    }
+
+    // create a new list to avoid ConcurrentModificationException
+    List<String> cacheKeys = new ArrayList<>(namespaceKey2CacheKeys.get(namespaceKey));
+    for (String cacheKey : cacheKeys) {
+      logger.debug("invalidate config response cache key: {}", cacheKey);
+      cache.invalidate(cacheKey);
+    }
+  }
+
+  private void buildCache() {
+    long maxWeight = bizConfig.configServiceResponseCacheMaxSizeInMB() * 1024L * 1024L;
+    CacheBuilder<String, CachedConfig> cacheBuilder = CacheBuilder.newBuilder()
+        .maximumWeight(maxWeight)
+        .weigher((Weigher<String, CachedConfig>) (key, value) -> value.weight())
+        .removalListener(notification -> {
+          String cacheKey = notification.getKey();
+          CachedConfig cachedConfig = notification.getValue();
+          if (cacheKey == null || cachedConfig == null) {
+            return;
+          }
+          for (String namespaceKey : cachedConfig.namespaceKeys) {
+            namespaceKey2CacheKeys.remove(namespaceKey, cacheKey);
+          }
+        });
+    if (bizConfig.isConfigServiceCacheStatsEnabled()) {
+      cacheBuilder.recordStats();
+    }
+    cache = cacheBuilder.build();
+    if (bizConfig.isConfigServiceCacheStatsEnabled()) {
+      GuavaCacheMetrics.monitor(meterRegistry, cache, "config_response_cache");
+    }
+  }
+
+  private static byte[] gzip(byte[] body) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+    try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+      gzipOut.write(body);
+    }
+    return out.toByteArray();
+  }
+
+  public static class CachedConfig {
+    private final String appId;
+    private final String cluster;
+    private final String namespaceName;
+    private final String releaseKey;
+    private final Map<String, String> configurations;
+    private final byte[] body;
+    private final byte[] gzippedBody;
+    private final Set<String> namespaceKeys;
+
+    private CachedConfig(ApolloConfig apolloConfig, Map<String, String> configurations,
+        byte[] body, byte[] gzippedBody, Set<String> namespaceKeys) {
+      this.appId = apolloConfig.getAppId();
+      this.cluster = apolloConfig.getCluster();
+      this.namespaceName = apolloConfig.getNamespaceName();
+      this.releaseKey = apolloConfig.getReleaseKey();
+      this.configurations = configurations;
+      this.body = body;
+      this.gzippedBody = gzippedBody;
+      this.namespaceKeys = namespaceKeys;
+    }
+
+    /**
+     * @return the merged configurations, which must not be modified
+     */
+    public Map<String, String> getConfigurations() {
+      return configurations;
+    }
+
+    /**
+     * @param acceptGzip whether the client accepts gzip encoded response
+     */
+    public PreEncodedApolloConfig toApolloConfig(boolean acceptGzip) {
+      boolean gzipped = acceptGzip && gzippedBody != null;
+      return new PreEncodedApolloConfig(appId, cluster, namespaceName, releaseKey, configurations,
+          gzipped ? gzippedBody : body, gzipped);
+    }
+
+    private int weight() {
+      return body.length + (gzippedBody == null ? 0 : gzippedBody.length);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * An open addressing hash map from the release message to its latest id.
+ * <p>
+ * Only the message strings are kept as objects, the ids and the last modified times (in minutes)
+ * are stored in primitive arrays, so an entry costs about the size of the message string plus 16
+ * bytes, instead of a {@link com.ctrip.framework.apollo.biz.entity.ReleaseMessage} entity with its
+ * date and a hash map node. Reads are optimistic and lock free unless racing with a write.
+ */
+final class ReleaseMessageIdMap {
+  static final long NOT_FOUND = -1;
+  private static final int MIN_CAPACITY = 16;
+  // resize when more than 3/4 of the slots are used
+  private static final int LOAD_FACTOR_NUMERATOR = 3;
+  private static final int LOAD_FACTOR_DENOMINATOR = 4;
+
+  private final StampedLock lock = new StampedLock();
+  private String[] messages;
+  private long[] ids;
+  private int[] lastModifiedMinutes;
+  private int size;
+
+  ReleaseMessageIdMap() {
+    allocate(MIN_CAPACITY);
+  }
+
+  /**
+   * @return the latest id of the message, or {@link #NOT_FOUND}
+   */
+  long get(String message) {
+    long stamp = lock.tryOptimisticRead();
+    long id = find(message);
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        id = find(message);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return id;
+  }
+
+  /**
+   * Put the id of the message unless there is a newer one
+   *
+   * @return whether the id is put
+   */
+  boolean put(String message, long id, long lastModifiedTimeInMillis) {
+    long stamp = lock.writeLock();
+    try {
+      int slot = slotOf(messages, message);
+      if (messages[slot] != null) {
+        if (ids[slot] >= id) {
+          return false;
+        }
+        ids[slot] = id;
+        lastModifiedMinutes[slot] = toMinutes(lastModifiedTimeInMillis);
+        return true;
+      }
+      if ((size + 1) * LOAD_FACTOR_DENOMINATOR > messages.length * LOAD_FACTOR_NUMERATOR) {
+        rehash(messages.length * 2);
+        slot = slotOf(messages, message);
+      }
+      messages[slot] = message;
+      ids[slot] = id;
+      lastModifiedMinutes[slot] = toMinutes(lastModifiedTimeInMillis);
+      size++;
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Remove the messages which are not modified since the time, and shrink the arrays if possible
+   *
+   * @return the number of the removed messages
+   */
+  int removeNotModifiedSince(long timeInMillis) {
+    int minutes = toMinutes(timeInMillis);
+    long stamp = lock.writeLock();
+    try {
+      String[] oldMessages = messages;
+      long[] oldIds = ids;
+      int[] oldLastModifiedMinutes = lastModifiedMinutes;
+      int retained = 0;
+      for (int i = 0; i < oldMessages.length; i++) {
+        if (oldMessages[i] != null && oldLastModifiedMinutes[i] >= minutes) {
+          retained++;
+        }
+      }
+      int removed = size - retained;
+      if (removed == 0) {
+        return 0;
+      }
+      // no tombstones, so the table is rebuilt
+      allocate(capacityFor(retained));
+      for (int i = 0; i < oldMessages.length; i++) {
+        if (oldMessages[i] != null && oldLastModifiedMinutes[i] >= minutes) {
+          insert(oldMessages[i], oldIds[i], oldLastModifiedMinutes[i]);
+        }
+      }
+      size = retained;
+      return removed;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private long find(String message) {
+    // the arrays might be replaced by a concurrent write, so keep the references
+    String[] currentMessages = messages;
+    long[] currentIds = ids;
+    if (currentMessages == null || currentIds == null
+        || currentMessages.length != currentIds.length) {
+      return NOT_FOUND;
+    }
+    int mask = currentMessages.length - 1;
+    int slot = hash(message) & mask;
+    // bounded by the capacity in case of an inconsistent view
+    for (int i = 0; i < currentMessages.length; i++) {
+      String current = currentMessages[slot];
+      if (current == null) {
+        return NOT_FOUND;
+      }
+      if (current.equals(message)) {
+        return currentIds[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return NOT_FOUND;
+  }
+
+  private void rehash(int capacity) {
+    String[] oldMessages = messages;
+    long[] oldIds = ids;
+    int[] oldLastModifiedMinutes = lastModifiedMinutes;
+    allocate(capacity);
+    for (int i = 0; i < oldMessages.length; i++) {
+      if (oldMessages[i] != null) {
+        insert(oldMessages[i], oldIds[i], oldLastModifiedMinutes[i]);
+      }
+    }
+  }
+
+  private void insert(String message, long id, int minutes) {
+    int slot = slotOf(messages, message);
+    messages[slot] = message;
+    ids[slot] = id;
+    lastModifiedMinutes[slot] = minutes;
+  }
+
+  private void allocate(int capacity) {
+    messages = new String[capacity];
+    ids = new long[capacity];
+    lastModifiedMinutes = new int[capacity];
+  }
+
+  private static int slotOf(String[] messages, String message) {
+    int mask = messages.length - 1;
+    int slot = hash(message) & mask;
+    while (messages[slot] != null && !messages[slot].equals(message)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int capacityFor(int size) {
+    int capacity = MIN_CAPACITY;
+    while (size * LOAD_FACTOR_DENOMINATOR > capacity * LOAD_FACTOR_NUMERATOR) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  private static int hash(String message) {
+    int h = message.hashCode();
+    // spread the high bits, as the messages share long prefixes
+    return h ^ (h >>> 16);
+  }
+
+  private static int toMinutes(long timeInMillis) {
+    return (int) TimeUnit.MILLISECONDS.toMinutes(timeInMillis);
+  }
+}
@@ -21,28 +21,38 @@ import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.message.ReleaseMessageListener;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.ctrip.framework.apollo.tracer.spi.Transaction;
 import com.google.common.base.Strings;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Maps;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Caches the latest release message id of each message.
+ * <p>
+ * Only the message and id are kept in a {@link ReleaseMessageIdMap}, and the returned
+ * {@link ReleaseMessage}s are assembled on the fly. If
+ * {@link BizConfig#releaseMessageCacheMaxIdleDays()} is set, the messages which are not published
+ * for the days are evicted, so that the ones of the deleted namespaces don't stay forever. If an
+ * evicted message is published again, it is cached again with the new id.
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 @Service
@@ -51,29 +61,40 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
       LoggerFactory.getLogger(ReleaseMessageServiceWithCache.class);
   private final ReleaseMessageRepository releaseMessageRepository;
   private final BizConfig bizConfig;
+  private final CacheWarmUp cacheWarmUp;
+
+  private static final long COMPACTION_INTERVAL_IN_MINUTES = 60;
 
   private int scanInterval;
   private TimeUnit scanIntervalTimeUnit;
+  private int loadPageSize;
+  private int maxIdleDays;
 
   private volatile long maxIdScanned;
+  private volatile boolean warmedUp;
 
-  private ConcurrentMap<String, ReleaseMessage> releaseMessageCache;
+  private ReleaseMessageIdMap releaseMessageCache;
 
   private AtomicBoolean doScan;
   private ExecutorService executorService;
+  private ScheduledExecutorService compactionExecutorService;
 
   public ReleaseMessageServiceWithCache(final ReleaseMessageRepository releaseMessageRepository,
-      final BizConfig bizConfig) {
+      final BizConfig bizConfig, final CacheWarmUp cacheWarmUp) {
     this.releaseMessageRepository = releaseMessageRepository;
     this.bizConfig = bizConfig;
+    this.cacheWarmUp = cacheWarmUp;
     initialize();
   }
 
   private void initialize() {
-    releaseMessageCache = Maps.newConcurrentMap();
+    releaseMessageCache = new ReleaseMessageIdMap();
+    warmedUp = false;
     doScan = new AtomicBoolean(true);
     executorService = Executors.newSingleThreadExecutor(
         ApolloThreadFactory.create("ReleaseMessageServiceWithCache", true));
+    compactionExecutorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("ReleaseMessageServiceWithCache-Compaction", true));
   }
 
   public ReleaseMessage findLatestReleaseMessageForMessages(Set<String> messages) {
@@ -82,16 +103,16 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
     }
 
     long maxReleaseMessageId = 0;
-    ReleaseMessage result = null;
+    String result = null;
     for (String message : messages) {
-      ReleaseMessage releaseMessage = releaseMessageCache.get(message);
-      if (releaseMessage != null && releaseMessage.getId() > maxReleaseMessageId) {
-        maxReleaseMessageId = releaseMessage.getId();
-        result = releaseMessage;
+      long id = releaseMessageCache.get(message);
+      if (id > maxReleaseMessageId) {
+        maxReleaseMessageId = id;
+        result = message;
       }
     }
 
-    return result;
+    return result == null ? null : assembleReleaseMessage(maxReleaseMessageId, result);
   }
 
   public List<ReleaseMessage> findLatestReleaseMessagesGroupByMessages(Set<String> messages) {
@@ -101,9 +122,9 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
     List<ReleaseMessage> releaseMessages = Lists.newArrayList();
 
     for (String message : messages) {
-      ReleaseMessage releaseMessage = releaseMessageCache.get(message);
-      if (releaseMessage != null) {
-        releaseMessages.add(releaseMessage);
+      long id = releaseMessageCache.get(message);
+      if (id != ReleaseMessageIdMap.NOT_FOUND) {
+        releaseMessages.add(assembleReleaseMessage(id, message));
       }
     }
 
@@ -112,6 +133,10 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
 
   @Override
   public void handleMessage(ReleaseMessage message, String channel) {
+    // the messages published during the initial load are picked up by the scan after it
+    if (!warmedUp) {
+      return;
+    }
     // Could stop once the ReleaseMessageScanner starts to work
     doScan.set(false);
     logger.info("message received - channel: {}, message: {}", channel, message);
@@ -124,7 +149,7 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
 
     long gap = message.getId() - maxIdScanned;
     if (gap == 1) {
-      mergeReleaseMessage(message);
+      mergeReleaseMessage(message.getId(), content, System.currentTimeMillis());
     } else if (gap > 1) {
       // gap found!
       loadReleaseMessages(maxIdScanned);
@@ -134,10 +159,13 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
   @Override
   public void afterPropertiesSet() throws Exception {
     populateDataBaseInterval();
-    // block the startup process until load finished
-    // this should happen before ReleaseMessageScanner due to autowire
-    loadReleaseMessages(0);
+    // loaded along with the other caches, and the startup is blocked until all of them finish,
+    // the messages notified by ReleaseMessageScanner meanwhile are ignored until the scan starts
+    cacheWarmUp.submit("releaseMessage", () -> loadReleaseMessages(0), this::startScan);
+  }
 
+  private void startScan() {
+    warmedUp = true;
     executorService.submit(() -> {
       while (doScan.get() && !Thread.currentThread().isInterrupted()) {
         Transaction transaction = Tracer.newTransaction("Apollo.ReleaseMessageServiceWithCache",
@@ -158,42 +186,82 @@ public class ReleaseMessageServiceWithCache implements ReleaseMessageListener, I
         }
       }
     });
+
+    if (maxIdleDays > 0) {
+      compactionExecutorService.scheduleWithFixedDelay(this::compact,
+          COMPACTION_INTERVAL_IN_MINUTES, COMPACTION_INTERVAL_IN_MINUTES, TimeUnit.MINUTES);
+    }
   }
 
-  private synchronized void mergeReleaseMessage(ReleaseMessage releaseMessage) {
-    ReleaseMessage old = releaseMessageCache.get(releaseMessage.getMessage());
-    if (old == null || releaseMessage.getId() > old.getId()) {
-      releaseMessageCache.put(releaseMessage.getMessage(), releaseMessage);
-      maxIdScanned = releaseMessage.getId();
+  private synchronized void mergeReleaseMessage(long id, String message,
+      long lastModifiedTimeInMillis) {
+    if (releaseMessageCache.put(message, id, lastModifiedTimeInMillis)) {
+      maxIdScanned = id;
     }
   }
 
-  private void loadReleaseMessages(long startId) {
+  private long loadReleaseMessages(long startId) {
+    long loaded = 0;
     boolean hasMore = true;
     while (hasMore && !Thread.currentThread().isInterrupted()) {
-      // current batch is 500
-      List<ReleaseMessage> releaseMessages =
-          releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(startId);
-      if (CollectionUtils.isEmpty(releaseMessages)) {
+      // only the columns are queried, and the rows are dropped once merged
+      List<Object[]> rows = releaseMessageRepository.findIdAndMessageByIdGreaterThan(startId,
+          PageRequest.of(0, loadPageSize));
+      if (CollectionUtils.isEmpty(rows)) {
         break;
       }
-      releaseMessages.forEach(this::mergeReleaseMessage);
-      int scanned = releaseMessages.size();
-      startId = releaseMessages.get(scanned - 1).getId();
-      hasMore = scanned == 500;
+      for (Object[] row : rows) {
+        startId = (Long) row[0];
+        Date lastModifiedTime = (Date) row[2];
+        mergeReleaseMessage(startId, (String) row[1], lastModifiedTime == null
+            ? System.currentTimeMillis() : lastModifiedTime.getTime());
+      }
+      int scanned = rows.size();
+      loaded += scanned;
+      hasMore = scanned == loadPageSize;
       logger.info("Loaded {} release messages with startId {}", scanned, startId);
     }
+    return loaded;
+  }
+
+  void compact() {
+    Transaction transaction = Tracer.newTransaction("Apollo.ReleaseMessageServiceWithCache",
+        "compact");
+    try {
+      int removed = releaseMessageCache.removeNotModifiedSince(
+          System.currentTimeMillis() - TimeUnit.DAYS.toMillis(maxIdleDays));
+      if (removed > 0) {
+        logger.info("Evicted {} release messages not published in {} days, {} left", removed,
+            maxIdleDays, releaseMessageCache.size());
+      }
+      transaction.setStatus(Transaction.SUCCESS);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      logger.error("Compact release message cache failed", ex);
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private ReleaseMessage assembleReleaseMessage(long id, String message) {
+    ReleaseMessage releaseMessage = new ReleaseMessage(message);
+    releaseMessage.setId(id);
+    return releaseMessage;
   }
 
   private void populateDataBaseInterval() {
     scanInterval = bizConfig.releaseMessageCacheScanInterval();
     scanIntervalTimeUnit = bizConfig.releaseMessageCacheScanIntervalTimeUnit();
+    loadPageSize = bizConfig.releaseMessageCacheLoadPageSize();
+    maxIdleDays = bizConfig.releaseMessageCacheMaxIdleDays();
   }
 
   // only for test use
   private void reset() throws Exception {
     executorService.shutdownNow();
+    compactionExecutorService.shutdownNow();
     initialize();
     afterPropertiesSet();
+    cacheWarmUp.await();
   }
 }
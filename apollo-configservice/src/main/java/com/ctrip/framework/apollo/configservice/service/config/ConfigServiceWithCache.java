@@ -19,11 +19,13 @@ package com.ctrip.framework.apollo.configservice.service.config;
 import com.ctrip.framework.apollo.biz.grayReleaseRule.GrayReleaseRulesHolder;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
@@ -48,6 +50,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
 
 import javax.annotation.PostConstruct;
@@ -61,7 +67,7 @@ import org.springframework.util.CollectionUtils;
 public class ConfigServiceWithCache extends AbstractConfigService {
   private static final Logger logger = LoggerFactory.getLogger(ConfigServiceWithCache.class);
   private static final long DEFAULT_EXPIRED_AFTER_ACCESS_IN_MINUTES = 60;// 1 hour
-  private static final String TRACER_EVENT_CACHE_INVALIDATE = "ConfigCache.Invalidate";
+  private static final String TRACER_EVENT_CACHE_REFRESH = "ConfigCache.Refresh";
   private static final String TRACER_EVENT_CACHE_LOAD = "ConfigCache.LoadFromDB";
   private static final String TRACER_EVENT_CACHE_LOAD_ID = "ConfigCache.LoadFromDBById";
   private static final String TRACER_EVENT_CACHE_GET = "ConfigCache.Get";
@@ -80,6 +86,10 @@ public class ConfigServiceWithCache extends AbstractConfigService {
 
   private LoadingCache<String, Optional<Long>> releaseKeyCache;
 
+  // the in-flight refreshes, so that concurrent requests of the same key share one db load
+  private final ConcurrentMap<String, CompletableFuture<ConfigCacheEntry>> refreshingEntries =
+      new ConcurrentHashMap<>();
+
   private ConfigCacheEntry nullConfigCacheEntry;
 
   public ConfigServiceWithCache(final ReleaseService releaseService,
@@ -124,17 +134,68 @@ public class ConfigServiceWithCache extends AbstractConfigService {
     // cache is out-dated
     if (clientMessages != null && clientMessages.has(messageKey)
         && clientMessages.get(messageKey) > cacheEntry.getNotificationId()) {
-      // invalidate the cache and try to load from db again
-      invalidate(cacheKey);
-      cacheEntry = configCache.getUnchecked(cacheKey);
+      // try to load from db again
+      cacheEntry = refresh(cacheKey, clientMessages.get(messageKey));
     }
 
     return cacheEntry.getRelease();
   }
 
-  private void invalidate(String key) {
-    configCache.invalidate(key);
-    Tracer.logEvent(TRACER_EVENT_CACHE_INVALIDATE, key);
+  /**
+   * Reload the cache entry unless it is already not older than the notification id, concurrent
+   * refreshes of the same key share one load.
+   */
+  private ConfigCacheEntry refresh(String key, long notificationId) {
+    // a load started before the notification might not see it, so join at most one of them
+    for (int i = 0; i < 2; i++) {
+      ConfigCacheEntry cacheEntry = configCache.getIfPresent(key);
+      if (cacheEntry != null && cacheEntry.getNotificationId() >= notificationId) {
+        return cacheEntry;
+      }
+
+      CompletableFuture<ConfigCacheEntry> future = new CompletableFuture<>();
+      CompletableFuture<ConfigCacheEntry> refreshing = refreshingEntries.putIfAbsent(key, future);
+      if (refreshing == null) {
+        return doRefresh(key, notificationId, future);
+      }
+
+      cacheEntry = join(refreshing);
+      if (cacheEntry.getNotificationId() >= notificationId) {
+        return cacheEntry;
+      }
+    }
+    return configCache.getUnchecked(key);
+  }
+
+  private ConfigCacheEntry doRefresh(String key, long notificationId,
+      CompletableFuture<ConfigCacheEntry> future) {
+    try {
+      // the previous refresh might have finished after the check
+      ConfigCacheEntry cacheEntry = configCache.getIfPresent(key);
+      if (cacheEntry == null || cacheEntry.getNotificationId() < notificationId) {
+        Tracer.logEvent(TRACER_EVENT_CACHE_REFRESH, key);
+        // never replace a newer entry loaded by others
+        cacheEntry = configCache.asMap().merge(key, loadConfigCacheEntry(key),
+            (oldEntry, newEntry) -> oldEntry.getNotificationId() > newEntry.getNotificationId()
+                ? oldEntry : newEntry);
+      }
+      future.complete(cacheEntry);
+      return cacheEntry;
+    } catch (RuntimeException | Error ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      refreshingEntries.remove(key, future);
+    }
+  }
+
+  private ConfigCacheEntry join(CompletableFuture<ConfigCacheEntry> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new UncheckedExecutionException(ex.getCause());
+    }
   }
 
   @Override
@@ -150,10 +211,8 @@ public class ConfigServiceWithCache extends AbstractConfigService {
       if (bizConfig.isConfigServiceCacheKeyIgnoreCase()) {
         messageKey = messageKey.toLowerCase();
       }
-      invalidate(messageKey);
-
-      // warm up the cache
-      configCache.getUnchecked(messageKey);
+      // reload and warm up the cache, unless the clients have already done it
+      refresh(messageKey, message.getId() > 0 ? message.getId() : Long.MAX_VALUE);
     } catch (Throwable ex) {
       // ignore
     }
@@ -205,44 +264,48 @@ public class ConfigServiceWithCache extends AbstractConfigService {
     configCache = configCacheBuilder.build(new CacheLoader<String, ConfigCacheEntry>() {
       @Override
       public ConfigCacheEntry load(String key) throws Exception {
-        List<String> namespaceInfo = ReleaseMessageKeyGenerator.messageToList(key);
-        if (CollectionUtils.isEmpty(namespaceInfo)) {
-          Tracer.logError(
-              new IllegalArgumentException(String.format("Invalid cache load key %s", key)));
-          return nullConfigCacheEntry;
-        }
+        return loadConfigCacheEntry(key);
+      }
+    });
 
-        Transaction transaction = Tracer.newTransaction(TRACER_EVENT_CACHE_LOAD, key);
-        try {
-          ReleaseMessage latestReleaseMessage =
-              releaseMessageService.findLatestReleaseMessageForMessages(Lists.newArrayList(key));
-          Release latestRelease = releaseService.findLatestActiveRelease(namespaceInfo.get(0),
-              namespaceInfo.get(1), namespaceInfo.get(2));
+    if (bizConfig.isConfigServiceCacheStatsEnabled()) {
+      GuavaCacheMetrics.monitor(meterRegistry, configCache, "config_cache");
+    }
 
-          transaction.setStatus(Transaction.SUCCESS);
+  }
 
-          long notificationId =
-              latestReleaseMessage == null ? ConfigConsts.NOTIFICATION_ID_PLACEHOLDER
-                  : latestReleaseMessage.getId();
+  private ConfigCacheEntry loadConfigCacheEntry(String key) {
+    List<String> namespaceInfo = ReleaseMessageKeyGenerator.messageToList(key);
+    if (CollectionUtils.isEmpty(namespaceInfo)) {
+      Tracer.logError(
+          new IllegalArgumentException(String.format("Invalid cache load key %s", key)));
+      return nullConfigCacheEntry;
+    }
 
-          if (notificationId == ConfigConsts.NOTIFICATION_ID_PLACEHOLDER && latestRelease == null) {
-            return nullConfigCacheEntry;
-          }
+    Transaction transaction = Tracer.newTransaction(TRACER_EVENT_CACHE_LOAD, key);
+    try {
+      ReleaseMessage latestReleaseMessage =
+          releaseMessageService.findLatestReleaseMessageForMessages(Lists.newArrayList(key));
+      Release latestRelease = releaseService.findLatestActiveRelease(namespaceInfo.get(0),
+          namespaceInfo.get(1), namespaceInfo.get(2));
 
-          return new ConfigCacheEntry(notificationId, latestRelease);
-        } catch (Throwable ex) {
-          transaction.setStatus(ex);
-          throw ex;
-        } finally {
-          transaction.complete();
-        }
+      transaction.setStatus(Transaction.SUCCESS);
+
+      long notificationId =
+          latestReleaseMessage == null ? ConfigConsts.NOTIFICATION_ID_PLACEHOLDER
+              : latestReleaseMessage.getId();
+
+      if (notificationId == ConfigConsts.NOTIFICATION_ID_PLACEHOLDER && latestRelease == null) {
+        return nullConfigCacheEntry;
       }
-    });
 
-    if (bizConfig.isConfigServiceCacheStatsEnabled()) {
-      GuavaCacheMetrics.monitor(meterRegistry, configCache, "config_cache");
+      return new ConfigCacheEntry(notificationId, latestRelease);
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      throw ex;
+    } finally {
+      transaction.complete();
     }
-
   }
 
   private void buildReleaseKeyCache() {
@@ -0,0 +1,381 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service.config;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.grayReleaseRule.GrayReleaseRulesHolder;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.biz.service.ReleaseMessageService;
+import com.ctrip.framework.apollo.biz.service.ReleaseService;
+import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.ctrip.framework.apollo.tracer.spi.Transaction;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * config service which keeps the latest active releases of all the namespaces in memory
+ * <p>
+ * All the latest active releases are loaded at startup, and then updated from the release
+ * messages, so the releases are always served from memory. The db is only queried when a client
+ * has received a notification which is not yet handled by this instance, or asks for a release
+ * which is no longer the latest one, e.g. the client side releases of incremental sync. The gray
+ * release rules are kept in memory by {@link GrayReleaseRulesHolder}.
+ * <p>
+ * The release messages saved between the load and the start of the release message scanner are
+ * not delivered to {@link #handleMessage}, so they are caught up once all the beans, including
+ * the scanner, are initialized.
+ */
+public class ConfigServiceWithSnapshot extends AbstractConfigService
+    implements SmartInitializingSingleton {
+  private static final Logger logger = LoggerFactory.getLogger(ConfigServiceWithSnapshot.class);
+  private static final String TRACER_EVENT_SNAPSHOT_LOAD = "ConfigSnapshot.Load";
+  private static final String TRACER_EVENT_SNAPSHOT_REFRESH = "ConfigSnapshot.Refresh";
+  private static final String TRACER_EVENT_SNAPSHOT_MISS_ID = "ConfigSnapshot.MissById";
+  private static final String TRACER_EVENT_SNAPSHOT_MISS_RELEASE_KEY =
+      "ConfigSnapshot.MissByReleaseKey";
+
+  private final ReleaseService releaseService;
+  private final ReleaseMessageService releaseMessageService;
+  private final BizConfig bizConfig;
+  private final MeterRegistry meterRegistry;
+
+  // message key -> the latest active release
+  private final ConcurrentMap<String, SnapshotEntry> latestReleases = new ConcurrentHashMap<>();
+  private final ConcurrentMap<Long, Release> releasesById = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, Release> releasesByReleaseKey = new ConcurrentHashMap<>();
+  private final ConcurrentMap<String, CompletableFuture<SnapshotEntry>> refreshingEntries =
+      new ConcurrentHashMap<>();
+  private final AtomicLong estimatedSizeInBytes = new AtomicLong();
+
+  // the notification id of the releases loaded at startup
+  private volatile long snapshotNotificationId = ConfigConsts.NOTIFICATION_ID_PLACEHOLDER;
+
+  public ConfigServiceWithSnapshot(final ReleaseService releaseService,
+      final ReleaseMessageService releaseMessageService,
+      final GrayReleaseRulesHolder grayReleaseRulesHolder, final BizConfig bizConfig,
+      final MeterRegistry meterRegistry) {
+    super(grayReleaseRulesHolder);
+    this.releaseService = releaseService;
+    this.releaseMessageService = releaseMessageService;
+    this.bizConfig = bizConfig;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @PostConstruct
+  void initialize() {
+    Gauge.builder("apollo.config.snapshot.releases", releasesById, Map::size)
+        .description("Number of the releases in the release snapshot")
+        .register(meterRegistry);
+    Gauge.builder("apollo.config.snapshot.size", estimatedSizeInBytes, AtomicLong::get)
+        .description("Estimated memory footprint of the releases in the release snapshot")
+        .baseUnit("bytes").register(meterRegistry);
+
+    Timer loadTimer = Timer.builder("apollo.config.snapshot.load")
+        .description("Time of loading the release snapshot").register(meterRegistry);
+    loadTimer.record(this::loadSnapshot);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    catchUp();
+  }
+
+  /**
+   * Refresh the entries of the release messages after the snapshot, the ones also delivered by
+   * the scanner are not loaded twice as the entries are already up to date
+   */
+  void catchUp() {
+    long notificationId = snapshotNotificationId;
+    boolean hasMore = true;
+    while (hasMore && !Thread.currentThread().isInterrupted()) {
+      List<ReleaseMessage> releaseMessages =
+          releaseMessageService.findFirst500ReleaseMessagesAfter(notificationId);
+      if (CollectionUtils.isEmpty(releaseMessages)) {
+        break;
+      }
+      for (ReleaseMessage releaseMessage : releaseMessages) {
+        handleMessage(releaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+      }
+      notificationId = releaseMessages.get(releaseMessages.size() - 1).getId();
+      hasMore = releaseMessages.size() == 500;
+    }
+  }
+
+  private void loadSnapshot() {
+    Transaction transaction = Tracer.newTransaction(TRACER_EVENT_SNAPSHOT_LOAD, "loadSnapshot");
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    try {
+      // the releases loaded afterwards are no older than the latest release message
+      ReleaseMessage latestReleaseMessage = releaseMessageService.findLatestReleaseMessage();
+      long notificationId =
+          latestReleaseMessage == null ? ConfigConsts.NOTIFICATION_ID_PLACEHOLDER
+              : latestReleaseMessage.getId();
+
+      List<Long> releaseIds = releaseService.findLatestActiveReleaseIds();
+      for (Release release : loadReleases(releaseIds)) {
+        String key = assembleKey(ReleaseMessageKeyGenerator.generate(release.getAppId(),
+            release.getClusterName(), release.getNamespaceName()));
+        update(key, new SnapshotEntry(notificationId, release));
+      }
+      snapshotNotificationId = notificationId;
+
+      transaction.setStatus(Transaction.SUCCESS);
+      logger.info("Loaded {} releases into snapshot in {} ms, estimated size: {} bytes",
+          releasesById.size(), stopwatch.elapsed(TimeUnit.MILLISECONDS),
+          estimatedSizeInBytes.get());
+    } catch (Throwable ex) {
+      transaction.setStatus(ex);
+      throw ex;
+    } finally {
+      transaction.complete();
+    }
+  }
+
+  private List<Release> loadReleases(List<Long> releaseIds) {
+    if (CollectionUtils.isEmpty(releaseIds)) {
+      return Lists.newArrayList();
+    }
+    List<List<Long>> pages =
+        Lists.partition(releaseIds, bizConfig.configServiceSnapshotLoadPageSize());
+    int threads = Math.min(pages.size(), bizConfig.configServiceSnapshotLoadThreads());
+    ExecutorService executorService =
+        Executors.newFixedThreadPool(threads, ApolloThreadFactory.create("ConfigSnapshot", true));
+    try {
+      List<Future<List<Release>>> futures = Lists.newArrayListWithCapacity(pages.size());
+      for (List<Long> page : pages) {
+        futures.add(executorService.submit(
+            () -> releaseService.findByReleaseIds(Sets.newHashSet(page))));
+      }
+      List<Release> releases = Lists.newArrayListWithCapacity(releaseIds.size());
+      for (Future<List<Release>> future : futures) {
+        releases.addAll(future.get());
+      }
+      return releases;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Load release snapshot interrupted", ex);
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException("Load release snapshot failed", ex.getCause());
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  @Override
+  protected Release findActiveOne(long id, ApolloNotificationMessages clientMessages) {
+    Release release = releasesById.get(id);
+    if (release != null) {
+      return release;
+    }
+    // the gray release is not the latest release of the branch, which should be rare
+    Tracer.logEvent(TRACER_EVENT_SNAPSHOT_MISS_ID, String.valueOf(id));
+    return releaseService.findActiveOne(id);
+  }
+
+  @Override
+  protected Release findLatestActiveRelease(String appId, String clusterName, String namespaceName,
+      ApolloNotificationMessages clientMessages) {
+    String messageKey = ReleaseMessageKeyGenerator.generate(appId, clusterName, namespaceName);
+    String key = assembleKey(messageKey);
+
+    SnapshotEntry entry = latestReleases.get(key);
+    long notificationId = entry == null ? snapshotNotificationId : entry.notificationId;
+
+    // the client has received a release message not yet handled by this instance
+    if (clientMessages != null && clientMessages.has(messageKey)
+        && clientMessages.get(messageKey) > notificationId) {
+      entry = refresh(key, messageKey, clientMessages.get(messageKey));
+    }
+
+    return entry == null ? null : entry.release;
+  }
+
+  @Override
+  public void handleMessage(ReleaseMessage message, String channel) {
+    logger.info("message received - channel: {}, message: {}", channel, message);
+    String messageKey = message.getMessage();
+    if (!Topics.APOLLO_RELEASE_TOPIC.equals(channel) || Strings.isNullOrEmpty(messageKey)) {
+      return;
+    }
+
+    try {
+      refresh(assembleKey(messageKey), messageKey, message.getId());
+    } catch (Throwable ex) {
+      logger.error("Refresh release snapshot failed for message: {}", message, ex);
+      Tracer.logError(ex);
+    }
+  }
+
+  @Override
+  public Map<String, Release> findReleasesByReleaseKeys(Set<String> releaseKeys) {
+    Map<String, Release> releases = Maps.newHashMapWithExpectedSize(releaseKeys.size());
+    Set<String> missingReleaseKeys = Sets.newHashSet();
+    for (String releaseKey : releaseKeys) {
+      Release release = releasesByReleaseKey.get(releaseKey);
+      if (release != null) {
+        releases.put(releaseKey, release);
+      } else {
+        missingReleaseKeys.add(releaseKey);
+      }
+    }
+
+    if (!missingReleaseKeys.isEmpty()) {
+      Tracer.logEvent(TRACER_EVENT_SNAPSHOT_MISS_RELEASE_KEY, String.join(",", missingReleaseKeys));
+      List<Release> missingReleases = releaseService.findByReleaseKeys(missingReleaseKeys);
+      if (missingReleases != null) {
+        for (Release release : missingReleases) {
+          releases.put(release.getReleaseKey(), release);
+        }
+      }
+    }
+    return ImmutableMap.copyOf(releases);
+  }
+
+  /**
+   * Reload the latest active release of the message key, unless the entry is already not older
+   * than the notification id, concurrent refreshes of the same key share one load.
+   */
+  private SnapshotEntry refresh(String key, String messageKey, long notificationId) {
+    SnapshotEntry entry = latestReleases.get(key);
+    if (entry != null && entry.notificationId >= notificationId) {
+      return entry;
+    }
+
+    CompletableFuture<SnapshotEntry> future = new CompletableFuture<>();
+    CompletableFuture<SnapshotEntry> refreshing = refreshingEntries.putIfAbsent(key, future);
+    if (refreshing != null) {
+      return join(refreshing);
+    }
+
+    try {
+      entry = latestReleases.get(key);
+      if (entry == null || entry.notificationId < notificationId) {
+        Tracer.logEvent(TRACER_EVENT_SNAPSHOT_REFRESH, key);
+        entry = update(key, new SnapshotEntry(notificationId, loadLatestRelease(messageKey)));
+      }
+      future.complete(entry);
+      return entry;
+    } catch (RuntimeException | Error ex) {
+      future.completeExceptionally(ex);
+      throw ex;
+    } finally {
+      refreshingEntries.remove(key, future);
+    }
+  }
+
+  private Release loadLatestRelease(String messageKey) {
+    List<String> namespaceInfo = ReleaseMessageKeyGenerator.messageToList(messageKey);
+    if (CollectionUtils.isEmpty(namespaceInfo)) {
+      Tracer.logError(new IllegalArgumentException(
+          String.format("Invalid release message key %s", messageKey)));
+      return null;
+    }
+    return releaseService.findLatestActiveRelease(namespaceInfo.get(0), namespaceInfo.get(1),
+        namespaceInfo.get(2));
+  }
+
+  /**
+   * Replace the entry of the key unless the existing one is newer
+   */
+  private SnapshotEntry update(String key, SnapshotEntry newEntry) {
+    return latestReleases.compute(key, (k, oldEntry) -> {
+      if (oldEntry != null && oldEntry.notificationId > newEntry.notificationId) {
+        return oldEntry;
+      }
+      if (oldEntry != null && oldEntry.release != null) {
+        releasesById.remove(oldEntry.release.getId());
+        releasesByReleaseKey.remove(oldEntry.release.getReleaseKey());
+        estimatedSizeInBytes.addAndGet(-estimateSize(oldEntry.release));
+      }
+      if (newEntry.release != null) {
+        releasesById.put(newEntry.release.getId(), newEntry.release);
+        releasesByReleaseKey.put(newEntry.release.getReleaseKey(), newEntry.release);
+        estimatedSizeInBytes.addAndGet(estimateSize(newEntry.release));
+      }
+      return newEntry;
+    });
+  }
+
+  private String assembleKey(String messageKey) {
+    return bizConfig.isConfigServiceCacheKeyIgnoreCase() ? messageKey.toLowerCase() : messageKey;
+  }
+
+  private SnapshotEntry join(CompletableFuture<SnapshotEntry> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new UncheckedExecutionException(ex.getCause());
+    }
+  }
+
+  /**
+   * Roughly 2 bytes per char, plus the object headers and the fields
+   */
+  private static long estimateSize(Release release) {
+    return 2L * (length(release.getConfigurations()) + length(release.getReleaseKey())
+        + length(release.getAppId()) + length(release.getClusterName())
+        + length(release.getNamespaceName())) + 256;
+  }
+
+  private static int length(String value) {
+    return value == null ? 0 : value.length();
+  }
+
+  private static final class SnapshotEntry {
+    private final long notificationId;
+    private final Release release;
+
+    private SnapshotEntry(long notificationId, Release release) {
+      this.notificationId = notificationId;
+      this.release = release;
+    }
+  }
+}
@@ -16,25 +16,82 @@
  */
 package com.ctrip.framework.apollo.configservice.service.config;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ConfigurationChange;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Joiner;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.springframework.util.CollectionUtils;
 
+/**
+ * Calculates the configuration changes for incremental sync.
+ * <p>
+ * Each release is reduced to a fingerprint, which is its configuration keys sorted together with
+ * the hashes of the values. The fingerprints are cached per release key and shared by all the
+ * merged release keys containing the release, so a diff is a merge join of two sorted arrays and
+ * the client side releases don't need to be parsed again. The diffs are cached as well, both
+ * caches are bounded by weight.
+ */
 public class DefaultIncrementalSyncService implements IncrementalSyncService {
+  private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
+  private static final HashFunction VALUE_HASH_FUNCTION = Hashing.murmur3_128();
+  private static final long NULL_VALUE_HASH = 0;
+  private static final Type configurationTypeReference =
+      new TypeToken<Map<String, String>>() {}.getType();
+  private static final Gson GSON = new Gson();
 
   private final Cache<ReleaseKeyPair, List<ConfigurationChange>> configurationChangeCache;
+  private final Cache<String, ReleaseFingerprint> releaseFingerprintCache;
+
+  public DefaultIncrementalSyncService(final BizConfig bizConfig,
+      final MeterRegistry meterRegistry) {
+    boolean statsEnabled = bizConfig.isConfigServiceCacheStatsEnabled();
 
-  public DefaultIncrementalSyncService() {
-    configurationChangeCache =
-        CacheBuilder.newBuilder().maximumSize(1000).expireAfterWrite(10, TimeUnit.MINUTES).build();
+    CacheBuilder<ReleaseKeyPair, List<ConfigurationChange>> changeCacheBuilder =
+        CacheBuilder.newBuilder()
+            .maximumWeight(bizConfig.configServiceIncrementalChangeDiffCacheMaxChanges())
+            .weigher((Weigher<ReleaseKeyPair, List<ConfigurationChange>>) (key, changes) ->
+                changes.size() + 1);
+    CacheBuilder<String, ReleaseFingerprint> fingerprintCacheBuilder = CacheBuilder.newBuilder()
+        .maximumWeight(bizConfig.configServiceIncrementalChangeReleaseCacheMaxKeys())
+        .weigher((Weigher<String, ReleaseFingerprint>) (key, fingerprint) ->
+            fingerprint.size() + 1);
+    if (statsEnabled) {
+      changeCacheBuilder.recordStats();
+      fingerprintCacheBuilder.recordStats();
+    }
+    configurationChangeCache = changeCacheBuilder.build();
+    releaseFingerprintCache = fingerprintCacheBuilder.build();
+    if (statsEnabled) {
+      GuavaCacheMetrics.monitor(meterRegistry, configurationChangeCache,
+          "incremental_sync_change_cache");
+      GuavaCacheMetrics.monitor(meterRegistry, releaseFingerprintCache,
+          "incremental_sync_release_cache");
+    }
   }
 
   @Override
@@ -49,55 +106,216 @@ public class DefaultIncrementalSyncService implements IncrementalSyncService {
       return cachedChanges;
     }
 
-    List<ConfigurationChange> computed =
-        calcConfigurationChanges(latestReleaseConfigurations, clientSideConfigurations);
+    List<ConfigurationChange> computed = calcConfigurationChanges(
+        ReleaseFingerprint.of(latestReleaseConfigurations), latestReleaseConfigurations,
+        ReleaseFingerprint.of(clientSideConfigurations));
 
     configurationChangeCache.put(key, computed);
     return computed;
   }
 
-  private List<ConfigurationChange> calcConfigurationChanges(
-      Map<String, String> latestReleaseConfigurations,
-      Map<String, String> clientSideConfigurations) {
+  @Override
+  public List<ConfigurationChange> getConfigurationChanges(List<Release> latestReleases,
+      Map<String, String> latestConfigurations, List<String> clientSideReleaseKeys,
+      Function<Set<String>, Map<String, Release>> releasesLoader) {
+    String latestMergedReleaseKey =
+        STRING_JOINER.join(Lists.transform(latestReleases, Release::getReleaseKey));
+    ReleaseKeyPair key =
+        new ReleaseKeyPair(STRING_JOINER.join(clientSideReleaseKeys), latestMergedReleaseKey);
 
-    if (latestReleaseConfigurations == null) {
-      latestReleaseConfigurations = new HashMap<>();
+    List<ConfigurationChange> cachedChanges = configurationChangeCache.getIfPresent(key);
+    if (cachedChanges != null) {
+      return cachedChanges;
     }
 
-    if (clientSideConfigurations == null) {
-      clientSideConfigurations = new HashMap<>();
+    ReleaseFingerprint clientSideFingerprint =
+        loadMergedFingerprint(clientSideReleaseKeys, releasesLoader);
+    if (clientSideFingerprint == null || clientSideFingerprint.size() == 0) {
+      return null;
     }
 
-    Set<String> previousKeys = clientSideConfigurations.keySet();
-    Set<String> currentKeys = latestReleaseConfigurations.keySet();
+    List<ReleaseFingerprint> latestFingerprints = new ArrayList<>(latestReleases.size());
+    for (Release release : latestReleases) {
+      latestFingerprints.add(findOrCreateFingerprint(release));
+    }
 
-    Set<String> commonKeys = Sets.intersection(previousKeys, currentKeys);
-    Set<String> newKeys = Sets.difference(currentKeys, commonKeys);
-    Set<String> removedKeys = Sets.difference(previousKeys, commonKeys);
+    List<ConfigurationChange> computed = calcConfigurationChanges(
+        ReleaseFingerprint.merge(latestFingerprints), latestConfigurations, clientSideFingerprint);
 
-    List<ConfigurationChange> changes = Lists.newArrayList();
+    configurationChangeCache.put(key, computed);
+    return computed;
+  }
+
+  private ReleaseFingerprint loadMergedFingerprint(List<String> releaseKeys,
+      Function<Set<String>, Map<String, Release>> releasesLoader) {
+    Map<String, ReleaseFingerprint> fingerprints = Maps.newHashMap();
+    Set<String> missingReleaseKeys = Sets.newHashSet();
+    for (String releaseKey : releaseKeys) {
+      ReleaseFingerprint fingerprint = releaseFingerprintCache.getIfPresent(releaseKey);
+      if (fingerprint != null) {
+        fingerprints.put(releaseKey, fingerprint);
+      } else {
+        missingReleaseKeys.add(releaseKey);
+      }
+    }
+
+    if (!missingReleaseKeys.isEmpty()) {
+      Tracer.logEvent("Apollo.IncrementalSync.ReleaseCacheMiss",
+          STRING_JOINER.join(missingReleaseKeys));
+      Map<String, Release> releases = releasesLoader.apply(missingReleaseKeys);
+      if (!CollectionUtils.isEmpty(releases)) {
+        for (String releaseKey : missingReleaseKeys) {
+          Release release = releases.get(releaseKey);
+          if (release != null) {
+            fingerprints.put(releaseKey, findOrCreateFingerprint(release));
+          }
+        }
+      }
+    }
+
+    if (fingerprints.isEmpty()) {
+      return null;
+    }
+
+    // keep the order of the release keys, the releases not found are skipped
+    List<ReleaseFingerprint> orderedFingerprints = Lists.newArrayList();
+    for (String releaseKey : releaseKeys) {
+      ReleaseFingerprint fingerprint = fingerprints.get(releaseKey);
+      if (fingerprint != null) {
+        orderedFingerprints.add(fingerprint);
+      }
+    }
+    return ReleaseFingerprint.merge(orderedFingerprints);
+  }
 
-    for (String newKey : newKeys) {
-      changes
-          .add(new ConfigurationChange(newKey, latestReleaseConfigurations.get(newKey), "ADDED"));
+  private ReleaseFingerprint findOrCreateFingerprint(Release release) {
+    ReleaseFingerprint fingerprint = releaseFingerprintCache.getIfPresent(release.getReleaseKey());
+    if (fingerprint == null) {
+      Map<String, String> configurations =
+          GSON.fromJson(release.getConfigurations(), configurationTypeReference);
+      fingerprint = ReleaseFingerprint.of(configurations);
+      if (release.getReleaseKey() != null) {
+        releaseFingerprintCache.put(release.getReleaseKey(), fingerprint);
+      }
     }
+    return fingerprint;
+  }
 
-    for (String removedKey : removedKeys) {
-      changes.add(new ConfigurationChange(removedKey, null, "DELETED"));
+  private List<ConfigurationChange> calcConfigurationChanges(ReleaseFingerprint latest,
+      Map<String, String> latestConfigurations, ReleaseFingerprint clientSide) {
+    if (latestConfigurations == null) {
+      latestConfigurations = new HashMap<>();
     }
 
-    for (String commonKey : commonKeys) {
-      String previousValue = clientSideConfigurations.get(commonKey);
-      String currentValue = latestReleaseConfigurations.get(commonKey);
-      if (com.google.common.base.Objects.equal(previousValue, currentValue)) {
-        continue;
+    List<ConfigurationChange> addedChanges = Lists.newArrayList();
+    List<ConfigurationChange> deletedChanges = Lists.newArrayList();
+    List<ConfigurationChange> modifiedChanges = Lists.newArrayList();
+
+    int i = 0;
+    int j = 0;
+    while (i < latest.keys.length || j < clientSide.keys.length) {
+      int compared;
+      if (i == latest.keys.length) {
+        compared = 1;
+      } else if (j == clientSide.keys.length) {
+        compared = -1;
+      } else {
+        compared = latest.keys[i].compareTo(clientSide.keys[j]);
+      }
+
+      if (compared < 0) {
+        String newKey = latest.keys[i++];
+        addedChanges
+            .add(new ConfigurationChange(newKey, latestConfigurations.get(newKey), "ADDED"));
+      } else if (compared > 0) {
+        deletedChanges.add(new ConfigurationChange(clientSide.keys[j++], null, "DELETED"));
+      } else {
+        String commonKey = latest.keys[i];
+        if (latest.valueHashes[i] != clientSide.valueHashes[j]) {
+          modifiedChanges.add(new ConfigurationChange(commonKey,
+              latestConfigurations.get(commonKey), "MODIFIED"));
+        }
+        i++;
+        j++;
       }
-      changes.add(new ConfigurationChange(commonKey, currentValue, "MODIFIED"));
     }
 
+    List<ConfigurationChange> changes = Lists.newArrayListWithCapacity(
+        addedChanges.size() + deletedChanges.size() + modifiedChanges.size());
+    changes.addAll(addedChanges);
+    changes.addAll(deletedChanges);
+    changes.addAll(modifiedChanges);
     return changes;
   }
 
+  /**
+   * The sorted configuration keys of a release together with the hashes of their values
+   */
+  static final class ReleaseFingerprint {
+    private static final ReleaseFingerprint EMPTY =
+        new ReleaseFingerprint(new String[0], new long[0]);
+
+    private final String[] keys;
+    private final long[] valueHashes;
+
+    private ReleaseFingerprint(String[] keys, long[] valueHashes) {
+      this.keys = keys;
+      this.valueHashes = valueHashes;
+    }
+
+    static ReleaseFingerprint of(Map<String, String> configurations) {
+      if (CollectionUtils.isEmpty(configurations)) {
+        return EMPTY;
+      }
+      String[] keys = configurations.keySet().toArray(new String[0]);
+      Arrays.sort(keys);
+      long[] valueHashes = new long[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        valueHashes[i] = hash(configurations.get(keys[i]));
+      }
+      return new ReleaseFingerprint(keys, valueHashes);
+    }
+
+    /**
+     * Merge the fingerprints the same way as the configurations are merged, the former ones take
+     * precedence
+     */
+    static ReleaseFingerprint merge(List<ReleaseFingerprint> fingerprints) {
+      if (fingerprints.isEmpty()) {
+        return EMPTY;
+      }
+      if (fingerprints.size() == 1) {
+        return fingerprints.get(0);
+      }
+      TreeMap<String, Long> merged = new TreeMap<>();
+      for (ReleaseFingerprint fingerprint : Lists.reverse(fingerprints)) {
+        for (int i = 0; i < fingerprint.keys.length; i++) {
+          merged.put(fingerprint.keys[i], fingerprint.valueHashes[i]);
+        }
+      }
+      String[] keys = new String[merged.size()];
+      long[] valueHashes = new long[merged.size()];
+      int i = 0;
+      for (Map.Entry<String, Long> entry : merged.entrySet()) {
+        keys[i] = entry.getKey();
+        valueHashes[i] = entry.getValue();
+        i++;
+      }
+      return new ReleaseFingerprint(keys, valueHashes);
+    }
+
+    private static long hash(String value) {
+      if (value == null) {
+        return NULL_VALUE_HASH;
+      }
+      return VALUE_HASH_FUNCTION.hashString(value, StandardCharsets.UTF_8).asLong();
+    }
+
+    int size() {
+      return keys.length;
+    }
+  }
+
   public static class ReleaseKeyPair {
 
     private final String clientSideReleaseKey;
@@ -16,9 +16,12 @@
  */
 package com.ctrip.framework.apollo.configservice.service.config;
 
+import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.core.dto.ConfigurationChange;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 public interface IncrementalSyncService {
 
@@ -26,4 +29,20 @@ public interface IncrementalSyncService {
       Map<String, String> latestReleaseConfigurations, String clientSideReleaseKey,
       Map<String, String> clientSideConfigurations);
 
+  /**
+   * Calculate the changes from the client side releases to the latest releases.
+   *
+   * @param latestReleases the releases merged into the latest configurations, the former ones take
+   *                       precedence
+   * @param latestConfigurations the merged configurations of the latest releases
+   * @param clientSideReleaseKeys the release keys the client side configurations merged from, in
+   *                              the same order as the latest releases
+   * @param releasesLoader loads the releases by release keys, only called for the releases not
+   *                       cached
+   * @return the changes, or null if the client side configurations could not be found
+   */
+  List<ConfigurationChange> getConfigurationChanges(List<Release> latestReleases,
+      Map<String, String> latestConfigurations, List<String> clientSideReleaseKeys,
+      Function<Set<String>, Map<String, Release>> releasesLoader);
+
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service.notification;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.util.concurrent.RateLimiter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+/**
+ * Keeps one queue per watch key and lets a pool of workers take turns over the keys one batch at
+ * a time, so a huge fan-out of one key won't delay the notifications of other keys. The overall
+ * notification rate is limited by {@link BizConfig#releaseMessageNotificationRateLimit()}.
+ */
+public class DefaultNotificationDispatcher implements NotificationDispatcher, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(DefaultNotificationDispatcher.class);
+
+  // only the keys with pending notifications, the tasks are added and the drained key queues are
+  // removed atomically per key
+  private final ConcurrentMap<String, KeyQueue> keyQueues = new ConcurrentHashMap<>();
+  private final BlockingQueue<KeyQueue> readyQueues = new LinkedBlockingQueue<>();
+  private final AtomicLong pendingNotifications = new AtomicLong();
+  private final AtomicBoolean stopped = new AtomicBoolean(false);
+  private final ExecutorService workers;
+  private final RateLimiter rateLimiter;
+  private final Timer notifyLatency;
+
+  private final BizConfig bizConfig;
+
+  public DefaultNotificationDispatcher(final BizConfig bizConfig,
+      final MeterRegistry meterRegistry) {
+    this.bizConfig = bizConfig;
+    this.rateLimiter = RateLimiter.create(currentRateLimit());
+
+    Gauge.builder("apollo.notification.dispatcher.pending", pendingNotifications, AtomicLong::get)
+        .description("Number of long polling clients waiting to be notified")
+        .register(meterRegistry);
+    Gauge.builder("apollo.notification.dispatcher.keys", keyQueues, Map::size)
+        .description("Number of watch keys with pending notifications").register(meterRegistry);
+    this.notifyLatency = Timer.builder("apollo.notification.dispatcher.latency")
+        .description("Time from dispatching a release message to notifying the clients")
+        .register(meterRegistry);
+
+    int threads = Math.max(1, bizConfig.releaseMessageNotificationDispatcherThreads());
+    workers = Executors.newFixedThreadPool(threads,
+        ApolloThreadFactory.create("NotificationDispatcher", true));
+    for (int i = 0; i < threads; i++) {
+      workers.submit(this::work);
+    }
+  }
+
+  @Override
+  public void dispatch(String watchKey, ApolloConfigNotification notification,
+      List<DeferredResultWrapper> results) {
+    if (results.isEmpty()) {
+      return;
+    }
+    Task task = new Task(notification, results);
+    pendingNotifications.addAndGet(results.size());
+    KeyQueue keyQueue = keyQueues.compute(watchKey.toLowerCase(Locale.ROOT), (key, queue) -> {
+      KeyQueue current = queue == null ? new KeyQueue(key) : queue;
+      current.tasks.add(task);
+      return current;
+    });
+    schedule(keyQueue);
+  }
+
+  public long getPendingNotifications() {
+    return pendingNotifications.get();
+  }
+
+  private void schedule(KeyQueue keyQueue) {
+    // make sure a key queue is handled by one worker at a time
+    if (keyQueue.scheduled.compareAndSet(false, true)) {
+      readyQueues.add(keyQueue);
+    }
+  }
+
+  private void work() {
+    while (!stopped.get() && !Thread.currentThread().isInterrupted()) {
+      try {
+        KeyQueue keyQueue = readyQueues.take();
+        try {
+          notifyNextBatch(keyQueue);
+        } finally {
+          reschedule(keyQueue);
+        }
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } catch (Throwable ex) {
+        logger.error("Notify clients failed", ex);
+        Tracer.logError(ex);
+      }
+    }
+  }
+
+  private void notifyNextBatch(KeyQueue keyQueue) {
+    Task task = keyQueue.tasks.peek();
+    if (task == null) {
+      return;
+    }
+    int batch = bizConfig.releaseMessageNotificationBatch();
+    int from = task.offset;
+    int to = Math.min(from + batch, task.results.size());
+
+    refreshRateLimit();
+    rateLimiter.acquire(to - from);
+
+    logger.debug("Async notify {} clients for key {}", to - from, keyQueue.watchKey);
+    for (int i = from; i < to; i++) {
+      task.results.get(i).setResult(task.notification);
+    }
+    notifyLatency.record(System.nanoTime() - task.createdNanos, TimeUnit.NANOSECONDS);
+    pendingNotifications.addAndGet(from - to);
+
+    task.offset = to;
+    if (to >= task.results.size()) {
+      keyQueue.tasks.poll();
+    }
+  }
+
+  private void reschedule(KeyQueue keyQueue) {
+    // go to the end of the line to let other keys have their turn
+    if (!keyQueue.tasks.isEmpty()) {
+      readyQueues.add(keyQueue);
+      return;
+    }
+    keyQueue.scheduled.set(false);
+    // a task might be added between the check and the reset
+    if (!keyQueue.tasks.isEmpty()) {
+      schedule(keyQueue);
+      return;
+    }
+    // kept if a task is added or it is scheduled again meanwhile
+    keyQueues.computeIfPresent(keyQueue.watchKey, (key, queue) -> queue == keyQueue
+        && queue.tasks.isEmpty() && !queue.scheduled.get() ? null : queue);
+  }
+
+  private void refreshRateLimit() {
+    double rateLimit = currentRateLimit();
+    if (Double.compare(rateLimit, rateLimiter.getRate()) != 0) {
+      rateLimiter.setRate(rateLimit);
+    }
+  }
+
+  private double currentRateLimit() {
+    double rateLimit = bizConfig.releaseMessageNotificationRateLimit();
+    return rateLimit > 0 ? rateLimit : Double.MAX_VALUE;
+  }
+
+  @Override
+  public void destroy() {
+    stopped.set(true);
+    workers.shutdownNow();
+  }
+
+  private static class KeyQueue {
+    private final String watchKey;
+    private final Queue<Task> tasks = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    private KeyQueue(String watchKey) {
+      this.watchKey = watchKey;
+    }
+  }
+
+  private static class Task {
+    private final ApolloConfigNotification notification;
+    private final List<DeferredResultWrapper> results;
+    private final long createdNanos = System.nanoTime();
+    // only accessed by the worker holding the key queue
+    private int offset;
+
+    private Task(ApolloConfigNotification notification, List<DeferredResultWrapper> results) {
+      this.notification = notification;
+      this.results = results;
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service.notification;
+
+import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import java.util.List;
+
+/**
+ * Notifies the long polling clients of a watch key asynchronously, used when there are too many
+ * clients to be notified in the release message thread.
+ */
+public interface NotificationDispatcher {
+
+  /**
+   * @param watchKey the watch key that changed
+   * @param notification the notification to be sent
+   * @param results the long polling clients watching the key
+   */
+  void dispatch(String watchKey, ApolloConfigNotification notification,
+      List<DeferredResultWrapper> results);
+
+}
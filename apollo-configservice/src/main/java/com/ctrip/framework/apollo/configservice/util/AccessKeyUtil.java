@@ -73,6 +73,11 @@ public class AccessKeyUtil {
       pathWithQuery += "?" + query;
     }
 
-    return Signature.signature(timestampString, pathWithQuery, secret);
+    AccessKeySigner signer = accessKeyServiceWithCache.getSigner(secret);
+    if (signer == null) {
+      // the secret is not enabled, e.g. just disabled
+      return Signature.signature(timestampString, pathWithQuery, secret);
+    }
+    return signer.signature(timestampString, pathWithQuery);
   }
 }
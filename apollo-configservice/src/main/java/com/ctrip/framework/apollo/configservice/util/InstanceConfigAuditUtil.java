@@ -22,7 +22,7 @@ import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
-import com.google.common.collect.Queues;
+import com.google.common.collect.Maps;
 
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
@@ -31,34 +31,55 @@ import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.tracer.Tracer;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.binder.cache.GuavaCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
+ * Writes the instance config audits behind the requests.
+ * <p>
+ * The audits are partitioned by instance, each partition is drained by its own worker in batches.
+ * Audits of the same instance and namespace waiting in a partition are coalesced, so that only the
+ * latest one is written.
+ *
  * @author Jason Song(song_s@ctrip.com)
  */
 @Service
-public class InstanceConfigAuditUtil implements InitializingBean {
-
+public class InstanceConfigAuditUtil implements InitializingBean, DisposableBean {
+  private static final Logger logger = LoggerFactory.getLogger(InstanceConfigAuditUtil.class);
   private static final Joiner STRING_JOINER = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR);
   private final ExecutorService auditExecutorService;
   private final AtomicBoolean auditStopped;
-  private BlockingQueue<InstanceConfigAuditModel> audits;
+  private final AuditPartition[] partitions;
   private Cache<String, Long> instanceCache;
   private Cache<String, String> instanceConfigReleaseKeyCache;
 
+  private final Counter droppedAudits;
+  private final Counter coalescedAudits;
+  private final DistributionSummary auditBatchSize;
+  private final Timer auditLag;
+
   private final InstanceService instanceService;
   private final BizConfig bizConfig;
   private final MeterRegistry meterRegistry;
@@ -69,76 +90,175 @@ public class InstanceConfigAuditUtil implements InitializingBean {
     this.bizConfig = bizConfig;
     this.meterRegistry = meterRegistry;
 
-    audits = Queues.newLinkedBlockingQueue(this.bizConfig.getInstanceConfigAuditMaxSize());
-    auditExecutorService = Executors
-        .newSingleThreadExecutor(ApolloThreadFactory.create("InstanceConfigAuditUtil", true));
+    int workers = this.bizConfig.getInstanceConfigAuditWorkers();
+    int partitionMaxSize =
+        Math.max(1, this.bizConfig.getInstanceConfigAuditMaxSize() / workers);
+    partitions = new AuditPartition[workers];
+    for (int i = 0; i < workers; i++) {
+      partitions[i] = new AuditPartition(partitionMaxSize);
+    }
+    auditExecutorService = Executors.newFixedThreadPool(workers,
+        ApolloThreadFactory.create("InstanceConfigAuditUtil", true));
     auditStopped = new AtomicBoolean(false);
+
+    droppedAudits = Counter.builder("apollo.instance.config.audit.dropped")
+        .description("Number of audits dropped as the pending audits are full")
+        .register(meterRegistry);
+    coalescedAudits = Counter.builder("apollo.instance.config.audit.coalesced")
+        .description("Number of audits replaced by a later one of the same instance and namespace")
+        .register(meterRegistry);
+    auditBatchSize = DistributionSummary.builder("apollo.instance.config.audit.batch.size")
+        .description("Number of audits written per batch").register(meterRegistry);
+    auditLag = Timer.builder("apollo.instance.config.audit.lag")
+        .description("Time from offering an audit to writing it").register(meterRegistry);
+    Gauge.builder("apollo.instance.config.audit.pending", this, InstanceConfigAuditUtil::pendingSize)
+        .description("Number of audits waiting to be written").register(meterRegistry);
+
     buildInstanceCache();
     buildInstanceConfigReleaseKeyCache();
   }
 
   public boolean audit(String appId, String clusterName, String dataCenter, String ip,
       String configAppId, String configClusterName, String configNamespace, String releaseKey) {
-    return this.audits.offer(new InstanceConfigAuditModel(appId, clusterName, dataCenter, ip,
-        configAppId, configClusterName, configNamespace, releaseKey));
+    InstanceConfigAuditModel auditModel = new InstanceConfigAuditModel(appId, clusterName,
+        dataCenter, ip, configAppId, configClusterName, configNamespace, releaseKey);
+    String instanceKey = assembleInstanceKey(auditModel.getAppId(), auditModel.getClusterName(),
+        auditModel.getIp(), auditModel.getDataCenter());
+    AuditPartition partition =
+        partitions[Math.floorMod(instanceKey.hashCode(), partitions.length)];
+
+    boolean offered = partition.offer(STRING_JOINER.join(instanceKey, configAppId,
+        configNamespace), auditModel);
+    if (!offered) {
+      droppedAudits.increment();
+    }
+    return offered;
   }
 
   void doAudit(InstanceConfigAuditModel auditModel) {
-    String instanceCacheKey = assembleInstanceKey(auditModel.getAppId(),
-        auditModel.getClusterName(), auditModel.getIp(), auditModel.getDataCenter());
-    Long instanceId = instanceCache.getIfPresent(instanceCacheKey);
-    if (instanceId == null) {
-      instanceId = prepareInstanceId(auditModel);
-      instanceCache.put(instanceCacheKey, instanceId);
+    doAudit(Collections.singletonList(auditModel));
+  }
+
+  void doAudit(List<InstanceConfigAuditModel> auditModels) {
+    auditBatchSize.record(auditModels.size());
+
+    // configAppId+namespace -> instance id -> audit model
+    Map<String, Map<Long, InstanceConfigAuditModel>> toAudit = Maps.newLinkedHashMap();
+    for (InstanceConfigAuditModel auditModel : auditModels) {
+      String instanceCacheKey = assembleInstanceKey(auditModel.getAppId(),
+          auditModel.getClusterName(), auditModel.getIp(), auditModel.getDataCenter());
+      Long instanceId = instanceCache.getIfPresent(instanceCacheKey);
+      if (instanceId == null) {
+        try {
+          instanceId = prepareInstanceId(auditModel);
+        } catch (Throwable ex) {
+          // don't let one instance fail the whole batch
+          Tracer.logError(ex);
+          continue;
+        }
+        instanceCache.put(instanceCacheKey, instanceId);
+      }
+
+      // load instance config release key from cache, and check if release key is the same
+      String instanceConfigCacheKey = assembleInstanceConfigKey(instanceId,
+          auditModel.getConfigAppId(), auditModel.getConfigNamespace());
+      String cacheReleaseKey = instanceConfigReleaseKeyCache.getIfPresent(instanceConfigCacheKey);
+
+      // if release key is the same, then skip audit
+      if (cacheReleaseKey != null && Objects.equals(cacheReleaseKey, auditModel.getReleaseKey())) {
+        continue;
+      }
+
+      instanceConfigReleaseKeyCache.put(instanceConfigCacheKey, auditModel.getReleaseKey());
+
+      toAudit.computeIfAbsent(STRING_JOINER.join(auditModel.getConfigAppId(),
+          auditModel.getConfigNamespace()), key -> Maps.newLinkedHashMap())
+          .put(instanceId, auditModel);
     }
 
-    // load instance config release key from cache, and check if release key is the same
-    String instanceConfigCacheKey = assembleInstanceConfigKey(instanceId,
-        auditModel.getConfigAppId(), auditModel.getConfigNamespace());
-    String cacheReleaseKey = instanceConfigReleaseKeyCache.getIfPresent(instanceConfigCacheKey);
+    List<InstanceConfig> toUpdate = Lists.newArrayList();
+    List<InstanceConfig> toCreate = Lists.newArrayList();
+    for (Map<Long, InstanceConfigAuditModel> namespaceAudits : toAudit.values()) {
+      prepareInstanceConfigs(namespaceAudits, toUpdate, toCreate);
+    }
 
-    // if release key is the same, then skip audit
-    if (cacheReleaseKey != null && Objects.equals(cacheReleaseKey, auditModel.getReleaseKey())) {
-      return;
+    if (!toUpdate.isEmpty()) {
+      instanceService.batchUpdateInstanceConfigs(toUpdate);
+    }
+    if (!toCreate.isEmpty()) {
+      createInstanceConfigs(toCreate);
     }
 
-    instanceConfigReleaseKeyCache.put(instanceConfigCacheKey, auditModel.getReleaseKey());
+    long now = System.currentTimeMillis();
+    for (InstanceConfigAuditModel auditModel : auditModels) {
+      auditLag.record(now - auditModel.getOfferTime().getTime(), TimeUnit.MILLISECONDS);
+    }
+  }
 
+  /**
+   * @param namespaceAudits the audits of the same namespace, keyed by instance id
+   */
+  private void prepareInstanceConfigs(Map<Long, InstanceConfigAuditModel> namespaceAudits,
+      List<InstanceConfig> toUpdate, List<InstanceConfig> toCreate) {
+    InstanceConfigAuditModel anyAuditModel = namespaceAudits.values().iterator().next();
     // if release key is not the same or cannot find in cache, then do audit
-    InstanceConfig instanceConfig = instanceService.findInstanceConfig(instanceId,
-        auditModel.getConfigAppId(), auditModel.getConfigNamespace());
-
-    if (instanceConfig != null) {
-      if (!Objects.equals(instanceConfig.getReleaseKey(), auditModel.getReleaseKey())) {
-        instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
-        instanceConfig.setReleaseKey(auditModel.getReleaseKey());
-        instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
-      } else if (offerTimeAndLastModifiedTimeCloseEnough(auditModel.getOfferTime(),
-          instanceConfig.getDataChangeLastModifiedTime())) {
-        // when releaseKey is the same, optimize to reduce writes if the record was updated not long
-        // ago
-        return;
+    Map<Long, InstanceConfig> instanceConfigs = Maps.newHashMap();
+    for (InstanceConfig instanceConfig : instanceService.findInstanceConfigs(
+        anyAuditModel.getConfigAppId(), anyAuditModel.getConfigNamespace(),
+        namespaceAudits.keySet())) {
+      instanceConfigs.put(instanceConfig.getInstanceId(), instanceConfig);
+    }
+
+    for (Map.Entry<Long, InstanceConfigAuditModel> entry : namespaceAudits.entrySet()) {
+      long instanceId = entry.getKey();
+      InstanceConfigAuditModel auditModel = entry.getValue();
+      InstanceConfig instanceConfig = instanceConfigs.get(instanceId);
+
+      if (instanceConfig != null) {
+        if (!Objects.equals(instanceConfig.getReleaseKey(), auditModel.getReleaseKey())) {
+          instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
+          instanceConfig.setReleaseKey(auditModel.getReleaseKey());
+          instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
+        } else if (offerTimeAndLastModifiedTimeCloseEnough(auditModel.getOfferTime(),
+            instanceConfig.getDataChangeLastModifiedTime())) {
+          // when releaseKey is the same, optimize to reduce writes if the record was updated not
+          // long ago
+          continue;
+        }
+        // we need to update no matter the release key is the same or not, to ensure the
+        // last modified time is updated each day
+        instanceConfig.setDataChangeLastModifiedTime(auditModel.getOfferTime());
+        toUpdate.add(instanceConfig);
+        continue;
       }
-      // we need to update no matter the release key is the same or not, to ensure the
-      // last modified time is updated each day
-      instanceConfig.setDataChangeLastModifiedTime(auditModel.getOfferTime());
-      instanceService.updateInstanceConfig(instanceConfig);
-      return;
-    }
-
-    instanceConfig = new InstanceConfig();
-    instanceConfig.setInstanceId(instanceId);
-    instanceConfig.setConfigAppId(auditModel.getConfigAppId());
-    instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
-    instanceConfig.setConfigNamespaceName(auditModel.getConfigNamespace());
-    instanceConfig.setReleaseKey(auditModel.getReleaseKey());
-    instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
-    instanceConfig.setDataChangeCreatedTime(auditModel.getOfferTime());
 
-    try {
-      instanceService.createInstanceConfig(instanceConfig);
-    } catch (DataIntegrityViolationException ex) {
-      // concurrent insertion, safe to ignore
+      instanceConfig = new InstanceConfig();
+      instanceConfig.setInstanceId(instanceId);
+      instanceConfig.setConfigAppId(auditModel.getConfigAppId());
+      instanceConfig.setConfigClusterName(auditModel.getConfigClusterName());
+      instanceConfig.setConfigNamespaceName(auditModel.getConfigNamespace());
+      instanceConfig.setReleaseKey(auditModel.getReleaseKey());
+      instanceConfig.setReleaseDeliveryTime(auditModel.getOfferTime());
+      instanceConfig.setDataChangeCreatedTime(auditModel.getOfferTime());
+      toCreate.add(instanceConfig);
+    }
+  }
+
+  private void createInstanceConfigs(List<InstanceConfig> instanceConfigs) {
+    if (instanceConfigs.size() > 1) {
+      try {
+        instanceService.batchCreateInstanceConfigs(instanceConfigs);
+        return;
+      } catch (DataIntegrityViolationException ex) {
+        // concurrent insertion by other config services, fall back to insert one by one
+      }
+    }
+    for (InstanceConfig instanceConfig : instanceConfigs) {
+      try {
+        instanceService.createInstanceConfig(instanceConfig);
+      } catch (DataIntegrityViolationException ex) {
+        // concurrent insertion, safe to ignore
+      }
     }
   }
 
@@ -171,16 +291,37 @@ public class InstanceConfigAuditUtil implements InitializingBean {
 
   @Override
   public void afterPropertiesSet() throws Exception {
-    auditExecutorService.submit(() -> {
-      while (!auditStopped.get() && !Thread.currentThread().isInterrupted()) {
-        try {
-          InstanceConfigAuditModel model = audits.take();
-          doAudit(model);
-        } catch (Throwable ex) {
-          Tracer.logError(ex);
+    for (AuditPartition partition : partitions) {
+      auditExecutorService.submit(() -> {
+        while (!auditStopped.get() && !Thread.currentThread().isInterrupted()) {
+          try {
+            List<InstanceConfigAuditModel> batch =
+                partition.drain(bizConfig.getInstanceConfigAuditBatchSize(),
+                    bizConfig.getInstanceConfigAuditFlushIntervalInMilli());
+            doAudit(batch);
+          } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+          } catch (Throwable ex) {
+            logger.warn("Audit instance configs failed", ex);
+            Tracer.logError(ex);
+          }
         }
-      }
-    });
+      });
+    }
+  }
+
+  @Override
+  public void destroy() {
+    auditStopped.set(true);
+    auditExecutorService.shutdownNow();
+  }
+
+  private double pendingSize() {
+    int size = 0;
+    for (AuditPartition partition : partitions) {
+      size += partition.size();
+    }
+    return size;
   }
 
   private void buildInstanceCache() {
@@ -222,6 +363,57 @@ public class InstanceConfigAuditUtil implements InitializingBean {
     return STRING_JOINER.join(instanceId, configAppId, configNamespace);
   }
 
+  private class AuditPartition {
+    // coalesce key -> the latest audit
+    private final LinkedHashMap<String, InstanceConfigAuditModel> pending = new LinkedHashMap<>();
+    private final int maxSize;
+
+    private AuditPartition(int maxSize) {
+      this.maxSize = maxSize;
+    }
+
+    synchronized boolean offer(String key, InstanceConfigAuditModel auditModel) {
+      if (pending.containsKey(key)) {
+        pending.put(key, auditModel);
+        coalescedAudits.increment();
+        return true;
+      }
+      if (pending.size() >= maxSize) {
+        return false;
+      }
+      pending.put(key, auditModel);
+      if (pending.size() == 1) {
+        notifyAll();
+      }
+      return true;
+    }
+
+    /**
+     * Wait for audits, then give the later ones of the same key a window to be coalesced
+     */
+    synchronized List<InstanceConfigAuditModel> drain(int batchSize, long windowInMillis)
+        throws InterruptedException {
+      while (pending.isEmpty()) {
+        wait();
+      }
+      if (pending.size() < batchSize) {
+        wait(windowInMillis);
+      }
+      List<InstanceConfigAuditModel> batch =
+          Lists.newArrayListWithCapacity(Math.min(batchSize, pending.size()));
+      Iterator<InstanceConfigAuditModel> iterator = pending.values().iterator();
+      while (iterator.hasNext() && batch.size() < batchSize) {
+        batch.add(iterator.next());
+        iterator.remove();
+      }
+      return batch;
+    }
+
+    synchronized int size() {
+      return pending.size();
+    }
+  }
+
   public static class InstanceConfigAuditModel {
     private String appId;
     private String clusterName;
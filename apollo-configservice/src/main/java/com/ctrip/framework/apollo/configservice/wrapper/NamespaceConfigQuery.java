@@ -0,0 +1,49 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+/**
+ * A namespace queried in the batch config request, together with its client side release key
+ */
+public class NamespaceConfigQuery {
+  private String namespaceName;
+  private String releaseKey;
+
+  public NamespaceConfigQuery() {
+  }
+
+  public NamespaceConfigQuery(String namespaceName, String releaseKey) {
+    this.namespaceName = namespaceName;
+    this.releaseKey = releaseKey;
+  }
+
+  public String getNamespaceName() {
+    return namespaceName;
+  }
+
+  public void setNamespaceName(String namespaceName) {
+    this.namespaceName = namespaceName;
+  }
+
+  public String getReleaseKey() {
+    return releaseKey;
+  }
+
+  public void setReleaseKey(String releaseKey) {
+    this.releaseKey = releaseKey;
+  }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+
+/**
+ * The config of a namespace in the batch config response, the status is the same as the http
+ * status of the single namespace request, i.e. 200, 304 or 404, and the config is only present
+ * with 200.
+ */
+public class NamespaceConfigResult {
+  private String namespaceName;
+  private int status;
+  private ApolloConfig config;
+
+  public NamespaceConfigResult() {
+  }
+
+  public NamespaceConfigResult(String namespaceName, int status, ApolloConfig config) {
+    this.namespaceName = namespaceName;
+    this.status = status;
+    this.config = config;
+  }
+
+  public String getNamespaceName() {
+    return namespaceName;
+  }
+
+  public void setNamespaceName(String namespaceName) {
+    this.namespaceName = namespaceName;
+  }
+
+  public int getStatus() {
+    return status;
+  }
+
+  public void setStatus(int status) {
+    this.status = status;
+  }
+
+  public ApolloConfig getConfig() {
+    return config;
+  }
+
+  public void setConfig(ApolloConfig config) {
+    this.config = config;
+  }
+
+  @Override
+  public String toString() {
+    return "NamespaceConfigResult{" +
+        "namespaceName='" + namespaceName + '\'' +
+        ", status=" + status +
+        ", config=" + config +
+        '}';
+  }
+}
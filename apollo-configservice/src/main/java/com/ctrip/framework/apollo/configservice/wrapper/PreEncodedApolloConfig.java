@@ -0,0 +1,48 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import java.util.Map;
+
+/**
+ * An {@link ApolloConfig} which carries its already encoded json response body, so that it could be
+ * written to the client without being serialized again.
+ */
+public class PreEncodedApolloConfig extends ApolloConfig {
+  private final transient byte[] body;
+  private final transient boolean gzipped;
+
+  public PreEncodedApolloConfig(String appId, String cluster, String namespaceName,
+      String releaseKey, Map<String, String> configurations, byte[] body, boolean gzipped) {
+    super(appId, cluster, namespaceName, releaseKey);
+    setConfigurations(configurations);
+    this.body = body;
+    this.gzipped = gzipped;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  /**
+   * @return whether the body is gzip compressed
+   */
+  public boolean isGzipped() {
+    return gzipped;
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.util.StreamUtils;
+
+/**
+ * Writes the body of {@link PreEncodedApolloConfig} as is.
+ */
+public class PreEncodedApolloConfigHttpMessageConverter
+    extends AbstractHttpMessageConverter<PreEncodedApolloConfig> {
+
+  public PreEncodedApolloConfigHttpMessageConverter() {
+    super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON);
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return PreEncodedApolloConfig.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return false;
+  }
+
+  @Override
+  protected PreEncodedApolloConfig readInternal(Class<? extends PreEncodedApolloConfig> clazz,
+      HttpInputMessage inputMessage) throws HttpMessageNotReadableException {
+    throw new HttpMessageNotReadableException("Reading PreEncodedApolloConfig is not supported",
+        inputMessage);
+  }
+
+  @Override
+  protected void addDefaultHeaders(HttpHeaders headers, PreEncodedApolloConfig apolloConfig,
+      MediaType contentType) throws IOException {
+    super.addDefaultHeaders(headers, apolloConfig, contentType);
+    if (apolloConfig.isGzipped()) {
+      headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+      headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+  }
+
+  @Override
+  protected Long getContentLength(PreEncodedApolloConfig apolloConfig, MediaType contentType) {
+    return (long) apolloConfig.getBody().length;
+  }
+
+  @Override
+  protected void writeInternal(PreEncodedApolloConfig apolloConfig,
+      HttpOutputMessage outputMessage) throws IOException {
+    StreamUtils.copy(apolloConfig.getBody(), outputMessage.getBody());
+  }
+}
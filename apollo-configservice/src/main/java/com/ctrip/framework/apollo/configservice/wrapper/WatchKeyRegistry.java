@@ -0,0 +1,92 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A concurrent, case insensitive watch key to watcher registry.
+ * <p>
+ * Lookups are lock free, registrations and unregistrations only lock the bin of the watch key
+ * involved, so watchers of different keys never contend with each other.
+ */
+public class WatchKeyRegistry<T> {
+  private final ConcurrentMap<String, Set<T>> watchers;
+  private final LongAdder size = new LongAdder();
+
+  public WatchKeyRegistry() {
+    this(16);
+  }
+
+  public WatchKeyRegistry(int expectedKeys) {
+    watchers = new ConcurrentHashMap<>(expectedKeys);
+  }
+
+  public void register(String key, T watcher) {
+    watchers.compute(normalize(key), (k, existing) -> {
+      Set<T> keyWatchers = existing == null ? ConcurrentHashMap.newKeySet() : existing;
+      if (keyWatchers.add(watcher)) {
+        size.increment();
+      }
+      return keyWatchers;
+    });
+  }
+
+  public void unregister(String key, T watcher) {
+    // remove the key as well when the last watcher is gone, so that the map won't keep growing
+    watchers.computeIfPresent(normalize(key), (k, existing) -> {
+      if (existing.remove(watcher)) {
+        size.decrement();
+      }
+      return existing.isEmpty() ? null : existing;
+    });
+  }
+
+  /**
+   * @return a weakly consistent view of the watchers of the key, never null
+   */
+  public Collection<T> get(String key) {
+    Set<T> keyWatchers = watchers.get(normalize(key));
+    return keyWatchers == null ? Collections.emptySet()
+        : Collections.unmodifiableSet(keyWatchers);
+  }
+
+  public boolean containsKey(String key) {
+    return watchers.containsKey(normalize(key));
+  }
+
+  /**
+   * @return the total number of (key, watcher) registrations
+   */
+  public int size() {
+    return size.intValue();
+  }
+
+  public int keySize() {
+    return watchers.size();
+  }
+
+  private String normalize(String key) {
+    return key.toLowerCase(Locale.ROOT);
+  }
+}
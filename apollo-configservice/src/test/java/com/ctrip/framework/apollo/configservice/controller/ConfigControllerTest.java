@@ -19,11 +19,16 @@ package com.ctrip.framework.apollo.configservice.controller;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
+import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache;
 import com.ctrip.framework.apollo.configservice.service.config.ConfigService;
 import com.ctrip.framework.apollo.configservice.service.config.IncrementalSyncService;
 import com.ctrip.framework.apollo.configservice.util.InstanceConfigAuditUtil;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
+import com.ctrip.framework.apollo.configservice.wrapper.NamespaceConfigQuery;
+import com.ctrip.framework.apollo.configservice.wrapper.NamespaceConfigResult;
+import com.ctrip.framework.apollo.configservice.wrapper.PreEncodedApolloConfig;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
@@ -36,6 +41,7 @@ import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
 import com.google.gson.reflect.TypeToken;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -45,12 +51,17 @@ import org.mockito.junit.MockitoJUnitRunner;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
 /**
@@ -67,6 +78,8 @@ public class ConfigControllerTest {
   private AppNamespaceServiceWithCache appNamespaceService;
   @Mock
   private BizConfig bizConfig;
+  @Mock
+  private ConfigResponseCache configResponseCache;
   private String someAppId;
   private String someClusterName;
   private String defaultClusterName;
@@ -99,7 +112,8 @@ public class ConfigControllerTest {
   @Before
   public void setUp() throws Exception {
     configController = spy(new ConfigController(configService, incrementalSyncService,
-        appNamespaceService, namespaceUtil, instanceConfigAuditUtil, gson, bizConfig));
+        appNamespaceService, namespaceUtil, instanceConfigAuditUtil, gson, bizConfig,
+        configResponseCache));
 
     someAppId = "1";
     someClusterName = "someClusterName";
@@ -156,6 +170,91 @@ public class ConfigControllerTest {
         someServerSideNewReleaseKey);
   }
 
+  @Test
+  public void testQueryConfigs() throws Exception {
+    String someServerSideNewReleaseKey = "2";
+    String anotherNamespaceName = "anotherNamespace";
+    String anotherReleaseKey = "3";
+    String notExistedNamespaceName = "notExistedNamespace";
+    String someNamespacesAsString = gson.toJson(Lists.newArrayList(
+        new NamespaceConfigQuery(defaultNamespaceName, "1"),
+        new NamespaceConfigQuery(anotherNamespaceName, anotherReleaseKey),
+        new NamespaceConfigQuery(notExistedNamespaceName, null)));
+
+    when(namespaceUtil.filterNamespaceName(anotherNamespaceName)).thenReturn(anotherNamespaceName);
+    when(namespaceUtil.normalizeNamespace(someAppId, anotherNamespaceName))
+        .thenReturn(anotherNamespaceName);
+    when(namespaceUtil.filterNamespaceName(notExistedNamespaceName))
+        .thenReturn(notExistedNamespaceName);
+    when(namespaceUtil.normalizeNamespace(someAppId, notExistedNamespaceName))
+        .thenReturn(notExistedNamespaceName);
+    when(appNamespaceService.findByAppIdAndNamespace(someAppId, anotherNamespaceName))
+        .thenReturn(mock(AppNamespace.class));
+    when(configService.loadConfig(someAppId, someClientIp, someClientLabel, someAppId,
+        someClusterName, defaultNamespaceName, someDataCenter, someNotificationMessages))
+        .thenReturn(someRelease);
+    when(configService.loadConfig(someAppId, someClientIp, someClientLabel, someAppId,
+        someClusterName, anotherNamespaceName, someDataCenter, someNotificationMessages))
+        .thenReturn(anotherRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    when(anotherRelease.getReleaseKey()).thenReturn(anotherReleaseKey);
+
+    List<NamespaceConfigResult> results = configController.queryConfigs(someAppId,
+        someClusterName, someNamespacesAsString, someDataCenter, someClientIp, someClientLabel,
+        someMessagesAsString, someRequest);
+
+    assertEquals(3, results.size());
+    NamespaceConfigResult someResult = results.get(0);
+    assertEquals(defaultNamespaceName, someResult.getNamespaceName());
+    assertEquals(HttpServletResponse.SC_OK, someResult.getStatus());
+    assertEquals(someServerSideNewReleaseKey, someResult.getConfig().getReleaseKey());
+    assertEquals("foo", someResult.getConfig().getConfigurations().get("apollo.bar"));
+    assertEquals(HttpServletResponse.SC_NOT_MODIFIED, results.get(1).getStatus());
+    assertNull(results.get(1).getConfig());
+    assertEquals(HttpServletResponse.SC_NOT_FOUND, results.get(2).getStatus());
+    assertNull(results.get(2).getConfig());
+    verify(configController, times(1)).transformMessages(someMessagesAsString);
+  }
+
+  @Test(expected = BadRequestException.class)
+  public void testQueryConfigsWithInvalidNamespaces() throws Exception {
+    configController.queryConfigs(someAppId, someClusterName, "[]", someDataCenter, someClientIp,
+        someClientLabel, someMessagesAsString, someRequest);
+  }
+
+  @Test
+  public void testQueryConfigWithResponseCache() throws Exception {
+    String someClientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    HttpServletResponse someResponse = mock(HttpServletResponse.class);
+    when(bizConfig.isConfigServiceResponseCacheEnabled()).thenReturn(true);
+    when(bizConfig.configServiceResponseCacheMaxSizeInMB()).thenReturn(1);
+    ConfigController configControllerWithCache = new ConfigController(configService,
+        incrementalSyncService, appNamespaceService, namespaceUtil, instanceConfigAuditUtil, gson,
+        bizConfig, new ConfigResponseCache(gson, bizConfig, new SimpleMeterRegistry()));
+
+    when(configService.loadConfig(someAppId, someClientIp, someClientLabel, someAppId,
+        someClusterName, defaultNamespaceName, someDataCenter, null)).thenReturn(someRelease);
+    when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+
+    ApolloConfig result = configControllerWithCache.queryConfig(someAppId, someClusterName,
+        defaultNamespaceName, someDataCenter, someClientSideReleaseKey, someClientIp,
+        someClientLabel, null, someRequest, someResponse);
+    ApolloConfig anotherResult = configControllerWithCache.queryConfig(someAppId,
+        someClusterName, defaultNamespaceName, someDataCenter, someClientSideReleaseKey,
+        someClientIp, someClientLabel, null, someRequest, someResponse);
+
+    assertTrue(result instanceof PreEncodedApolloConfig);
+    assertEquals(someServerSideNewReleaseKey, result.getReleaseKey());
+    assertEquals("foo", result.getConfigurations().get("apollo.bar"));
+    assertEquals(gson.toJson(anotherResult), new String(
+        ((PreEncodedApolloConfig) anotherResult).getBody(), StandardCharsets.UTF_8));
+    // configurations are parsed only once
+    verify(someRelease, times(1)).getConfigurations();
+  }
+
   @Test
   public void testQueryConfigFile() throws Exception {
     String someClientSideReleaseKey = "1";
@@ -526,17 +625,11 @@ public class ConfigControllerTest {
     when(bizConfig.isConfigServiceIncrementalChangeEnabled())
         .thenReturn(true);
     String clientSideReleaseKey = "1";
-    String someConfigurations = "{\"apollo.public.foo\": \"foo\"}";
     HttpServletResponse someResponse = mock(HttpServletResponse.class);
-    ImmutableMap<String, Release> someReleaseMap = mock(ImmutableMap.class);
 
     String someServerSideNewReleaseKey = "2";
     String anotherConfigurations = "{\"apollo.public.foo\": \"foo\", \"apollo.public.bar\": \"bar\"}";
 
-    when(configService.findReleasesByReleaseKeys(Sets.newHashSet(clientSideReleaseKey))).thenReturn(
-        someReleaseMap);
-    when(someReleaseMap.get(clientSideReleaseKey)).thenReturn(someRelease);
-    when(someRelease.getConfigurations()).thenReturn(someConfigurations);
     when(configService.loadConfig(someAppId, someClientIp, someClientLabel, someAppId,
         someClusterName, defaultNamespaceName,
         someDataCenter, someNotificationMessages)).thenReturn(anotherRelease);
@@ -547,10 +640,9 @@ public class ConfigControllerTest {
 
     List<ConfigurationChange> configurationChanges = new ArrayList<>();
     configurationChanges.add(new ConfigurationChange("apollo.public.bar", "bar", "ADDED"));
-    when(incrementalSyncService.getConfigurationChanges(someServerSideNewReleaseKey,
-        gson.fromJson(anotherConfigurations, configurationTypeReference),
-        clientSideReleaseKey,
-        gson.fromJson(someConfigurations, configurationTypeReference)))
+    when(incrementalSyncService.getConfigurationChanges(eq(Lists.newArrayList(anotherRelease)),
+        eq(gson.fromJson(anotherConfigurations, configurationTypeReference)),
+        eq(Lists.newArrayList(clientSideReleaseKey)), any()))
         .thenReturn(configurationChanges);
 
     ApolloConfig anotherResult = configController.queryConfig(someAppId, someClusterName,
@@ -561,6 +653,40 @@ public class ConfigControllerTest {
 
   }
 
+  @Test
+  public void testQueryConfigWithIncrementalSyncLoadsClientSideReleases() throws Exception {
+    when(bizConfig.isConfigServiceIncrementalChangeEnabled())
+        .thenReturn(true);
+    String clientSideReleaseKey = "1";
+    String someServerSideNewReleaseKey = "2";
+    HttpServletResponse someResponse = mock(HttpServletResponse.class);
+    Map<String, Release> someReleaseMap = ImmutableMap.of(clientSideReleaseKey, someRelease);
+
+    when(configService.loadConfig(someAppId, someClientIp, someClientLabel, someAppId,
+        someClusterName, defaultNamespaceName,
+        someDataCenter, someNotificationMessages)).thenReturn(anotherRelease);
+    when(anotherRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
+    when(anotherRelease.getConfigurations()).thenReturn("{\"apollo.public.foo\": \"foo\"}");
+    when(anotherRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
+    when(configService.findReleasesByReleaseKeys(Sets.newHashSet(clientSideReleaseKey)))
+        .thenReturn(someReleaseMap);
+    when(incrementalSyncService.getConfigurationChanges(anyList(), anyMap(), anyList(), any()))
+        .thenAnswer(invocation -> {
+          Function<Set<String>, Map<String, Release>> releasesLoader = invocation.getArgument(3);
+          assertEquals(someReleaseMap,
+              releasesLoader.apply(Sets.newHashSet(clientSideReleaseKey)));
+          return Collections.emptyList();
+        });
+
+    ApolloConfig result = configController.queryConfig(someAppId, someClusterName,
+        defaultNamespaceName, someDataCenter, clientSideReleaseKey,
+        someClientIp, someClientLabel, someMessagesAsString, someRequest, someResponse);
+
+    assertEquals(ConfigSyncType.INCREMENTAL_SYNC.getValue(), result.getConfigSyncType());
+    verify(configService, times(1)).findReleasesByReleaseKeys(
+        Sets.newHashSet(clientSideReleaseKey));
+  }
+
   @Test
   public void testQueryConfigWithIncrementalSyncNotFound() throws Exception {
     when(bizConfig.isConfigServiceIncrementalChangeEnabled())
@@ -573,8 +699,9 @@ public class ConfigControllerTest {
     when(configService.loadConfig(someAppId, someClientIp, someClientLabel, someAppId,
         someClusterName, defaultNamespaceName,
         someDataCenter, someNotificationMessages)).thenReturn(someRelease);
-    when(configService.findReleasesByReleaseKeys(
-        Sets.newHashSet(someClientSideReleaseKey))).thenReturn(null);
+    // client side releases not found
+    when(incrementalSyncService.getConfigurationChanges(eq(Lists.newArrayList(someRelease)),
+        anyMap(), eq(Lists.newArrayList(someClientSideReleaseKey)), any())).thenReturn(null);
 
     when(someRelease.getReleaseKey()).thenReturn(someServerSideNewReleaseKey);
     when(someRelease.getNamespaceName()).thenReturn(defaultNamespaceName);
@@ -594,17 +721,6 @@ public class ConfigControllerTest {
         .thenReturn(true);
     String someAppClientSideReleaseKey = "1";
     String somePublicAppClientSideReleaseKey = "2";
-    String someConfigurations = "{\"apollo.public.foo.client\": \"foo.override\"}";
-    String somePublicConfigurations = "{\"apollo.public.foo.client\": \"foo\"}";
-    ImmutableMap<String, Release> someReleaseMap = mock(ImmutableMap.class);
-    Release somePublicRelease = mock(Release.class);
-
-    when(configService.findReleasesByReleaseKeys(Sets.newHashSet(someAppClientSideReleaseKey,
-        somePublicAppClientSideReleaseKey))).thenReturn(someReleaseMap);
-    when(someReleaseMap.get(someAppClientSideReleaseKey)).thenReturn(someRelease);
-    when(someReleaseMap.get(somePublicAppClientSideReleaseKey)).thenReturn(somePublicRelease);
-    when(someRelease.getConfigurations()).thenReturn(someConfigurations);
-    when(somePublicRelease.getConfigurations()).thenReturn(somePublicConfigurations);
 
     String someAppServerSideReleaseKey = "3";
     String somePublicAppServerSideReleaseKey = "4";
@@ -637,17 +753,17 @@ public class ConfigControllerTest {
     String mergeServerSideConfigurations = "{\"apollo.public.bar\": \"bar\",\"apollo.public.foo\": \"foo-override\"}";
     String mergeServerSideReleaseKey = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
         .join(someAppServerSideReleaseKey, somePublicAppServerSideReleaseKey);
-    String mergeClientSideConfigurations = "{\"apollo.public.foo.client\": \"foo.override\"}";
     String mergeClientSideReleaseKey = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR)
         .join(someAppClientSideReleaseKey, somePublicAppClientSideReleaseKey);
     List<ConfigurationChange> configurationChanges = new ArrayList<>();
     configurationChanges.add(new ConfigurationChange("apollo.public.bar", "bar", "ADDED"));
     configurationChanges.add(new ConfigurationChange("apollo.public.foo", "foo-override", "ADDED"));
     configurationChanges.add(new ConfigurationChange("apollo.public.foo.client", null, "DELETED"));
-    when(incrementalSyncService.getConfigurationChanges(mergeServerSideReleaseKey,
-        gson.fromJson(mergeServerSideConfigurations, configurationTypeReference),
-        mergeClientSideReleaseKey,
-        gson.fromJson(mergeClientSideConfigurations, configurationTypeReference)))
+    when(incrementalSyncService.getConfigurationChanges(
+        eq(Lists.newArrayList(anotherRelease, anotherPublicRelease)),
+        eq(gson.fromJson(mergeServerSideConfigurations, configurationTypeReference)),
+        eq(Lists.newArrayList(someAppClientSideReleaseKey, somePublicAppClientSideReleaseKey)),
+        any()))
         .thenReturn(configurationChanges);
 
 
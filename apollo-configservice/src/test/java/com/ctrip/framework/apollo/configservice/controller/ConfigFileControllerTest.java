@@ -16,6 +16,7 @@
  */
 package com.ctrip.framework.apollo.configservice.controller;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.grayReleaseRule.GrayReleaseRulesHolder;
 import com.ctrip.framework.apollo.biz.message.Topics;
@@ -27,11 +28,17 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.io.ByteStreams;
 import com.google.common.reflect.TypeToken;
 import com.google.gson.Gson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.zip.GZIPInputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import org.junit.Before;
@@ -39,11 +46,15 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.startsWith;
@@ -65,6 +76,8 @@ public class ConfigFileControllerTest {
   private NamespaceUtil namespaceUtil;
   @Mock
   private GrayReleaseRulesHolder grayReleaseRulesHolder;
+  @Mock
+  private BizConfig bizConfig;
   private ConfigFileController configFileController;
   private String someAppId;
   private String someClusterName;
@@ -83,8 +96,10 @@ public class ConfigFileControllerTest {
 
   @Before
   public void setUp() throws Exception {
+    when(bizConfig.configServiceConfigFileCacheMaxSizeInMB()).thenReturn(50);
+    when(bizConfig.configServiceConfigFileCacheExpireInMinutes()).thenReturn(30);
     configFileController = new ConfigFileController(configController, namespaceUtil, watchKeysUtil,
-        grayReleaseRulesHolder);
+        grayReleaseRulesHolder, bizConfig, new SimpleMeterRegistry());
 
     someAppId = "someAppId";
     someClusterName = "someClusterName";
@@ -129,7 +144,7 @@ public class ConfigFileControllerTest {
     when(watchKeysUtil.assembleAllWatchKeys(someAppId, someClusterName, someNamespace,
         someDataCenter)).thenReturn(watchKeys);
 
-    ResponseEntity<String> response =
+    ResponseEntity<byte[]> response =
         configFileController.queryConfigAsProperties(someAppId, someClusterName, someNamespace,
             someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
 
@@ -141,10 +156,11 @@ public class ConfigFileControllerTest {
     assertTrue(cacheKey2WatchedKeys.containsEntry(cacheKey, anotherWatchKey));
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
-    assertTrue(response.getBody().contains(String.format("%s=%s", someKey, someValue)));
-    assertTrue(response.getBody().contains(String.format("%s=%s", anotherKey, anotherValue)));
+    String body = new String(response.getBody(), StandardCharsets.UTF_8);
+    assertTrue(body.contains(String.format("%s=%s", someKey, someValue)));
+    assertTrue(body.contains(String.format("%s=%s", anotherKey, anotherValue)));
 
-    ResponseEntity<String> anotherResponse =
+    ResponseEntity<byte[]> anotherResponse =
         configFileController.queryConfigAsProperties(someAppId, someClusterName, someNamespace,
             someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
 
@@ -173,12 +189,13 @@ public class ConfigFileControllerTest {
     when(watchKeysUtil.assembleAllWatchKeys(someAppId, someClusterName, someNamespace,
         someDataCenter)).thenReturn(watchKeys);
 
-    ResponseEntity<String> response =
+    ResponseEntity<byte[]> response =
         configFileController.queryConfigAsJson(someAppId, someClusterName, someNamespace,
             someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
-    assertEquals(configurations, GSON.fromJson(response.getBody(), responseType));
+    String body = new String(response.getBody(), StandardCharsets.UTF_8);
+    assertEquals(configurations, GSON.fromJson(body, responseType));
   }
 
   @Test
@@ -199,14 +216,14 @@ public class ConfigFileControllerTest {
     when(watchKeysUtil.assembleAllWatchKeys(someAppId, someClusterName, someNamespace,
         someDataCenter)).thenReturn(watchKeys);
 
-    ResponseEntity<String> response =
+    ResponseEntity<byte[]> response =
         configFileController.queryConfigAsRaw(someAppId, someClusterName, someNamespace + ".json",
             someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
     assertEquals("application/json;charset=UTF-8",
         response.getHeaders().getContentType().toString());
-    assertEquals(jsonContent, response.getBody());
+    assertEquals(jsonContent, new String(response.getBody(), StandardCharsets.UTF_8));
   }
 
   @Test
@@ -226,11 +243,11 @@ public class ConfigFileControllerTest {
         "-1", someClientIp, someClientLabel, null, someRequest, someResponse))
         .thenReturn(someApolloConfig);
 
-    ResponseEntity<String> response =
+    ResponseEntity<byte[]> response =
         configFileController.queryConfigAsJson(someAppId, someClusterName, someNamespace,
             someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
 
-    ResponseEntity<String> anotherResponse =
+    ResponseEntity<byte[]> anotherResponse =
         configFileController.queryConfigAsJson(someAppId, someClusterName, someNamespace,
             someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
 
@@ -238,11 +255,90 @@ public class ConfigFileControllerTest {
         someDataCenter, "-1", someClientIp, someClientLabel, null, someRequest, someResponse);
 
     assertEquals(HttpStatus.OK, response.getStatusCode());
-    assertEquals(configurations, GSON.fromJson(response.getBody(), responseType));
+    String body = new String(response.getBody(), StandardCharsets.UTF_8);
+    assertEquals(configurations, GSON.fromJson(body, responseType));
     assertTrue(watchedKeys2CacheKey.isEmpty());
     assertTrue(cacheKey2WatchedKeys.isEmpty());
   }
 
+  @Test
+  public void testQueryConfigWithETag() throws Exception {
+    String someReleaseKey = "someReleaseKey";
+    Set<String> watchKeys = Sets.newHashSet("someWatchKey");
+
+    ApolloConfig someApolloConfig = mock(ApolloConfig.class);
+    when(configController.queryConfig(someAppId, someClusterName, someNamespace, someDataCenter,
+        "-1", someClientIp, someClientLabel, null, someRequest, someResponse))
+        .thenReturn(someApolloConfig);
+    when(someApolloConfig.getConfigurations()).thenReturn(ImmutableMap.of("someKey", "someValue"));
+    when(someApolloConfig.getReleaseKey()).thenReturn(someReleaseKey);
+    when(watchKeysUtil.assembleAllWatchKeys(someAppId, someClusterName, someNamespace,
+        someDataCenter)).thenReturn(watchKeys);
+
+    ResponseEntity<byte[]> response =
+        configFileController.queryConfigAsJson(someAppId, someClusterName, someNamespace,
+            someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
+
+    String eTag = response.getHeaders().getETag();
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertTrue(eTag.startsWith("\"") && eTag.endsWith("\""));
+
+    when(someRequest.getHeaders(HttpHeaders.IF_NONE_MATCH))
+        .thenReturn(Collections.enumeration(Lists.newArrayList("\"anotherETag\", " + eTag)));
+
+    ResponseEntity<byte[]> notModifiedResponse =
+        configFileController.queryConfigAsJson(someAppId, someClusterName, someNamespace,
+            someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
+
+    assertEquals(HttpStatus.NOT_MODIFIED, notModifiedResponse.getStatusCode());
+    assertEquals(eTag, notModifiedResponse.getHeaders().getETag());
+    assertNull(notModifiedResponse.getBody());
+
+    ResponseEntity<byte[]> propertiesResponse =
+        configFileController.queryConfigAsProperties(someAppId, someClusterName, someNamespace,
+            someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
+
+    assertEquals(HttpStatus.OK, propertiesResponse.getStatusCode());
+    assertNotEquals(eTag, propertiesResponse.getHeaders().getETag());
+    verify(configController, times(2)).queryConfig(someAppId, someClusterName, someNamespace,
+        someDataCenter, "-1", someClientIp, someClientLabel, null, someRequest, someResponse);
+  }
+
+  @Test
+  public void testQueryConfigWithGzip() throws Exception {
+    when(bizConfig.isConfigServiceConfigFileCacheGzipEnabled()).thenReturn(true);
+    configFileController = new ConfigFileController(configController, namespaceUtil, watchKeysUtil,
+        grayReleaseRulesHolder, bizConfig, new SimpleMeterRegistry());
+
+    Map<String, String> configurations = ImmutableMap.of("someKey", "someValue");
+    ApolloConfig someApolloConfig = mock(ApolloConfig.class);
+    when(configController.queryConfig(someAppId, someClusterName, someNamespace, someDataCenter,
+        "-1", someClientIp, someClientLabel, null, someRequest, someResponse))
+        .thenReturn(someApolloConfig);
+    when(someApolloConfig.getConfigurations()).thenReturn(configurations);
+    when(watchKeysUtil.assembleAllWatchKeys(someAppId, someClusterName, someNamespace,
+        someDataCenter)).thenReturn(Sets.newHashSet("someWatchKey"));
+
+    ResponseEntity<byte[]> response =
+        configFileController.queryConfigAsJson(someAppId, someClusterName, someNamespace,
+            someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
+
+    when(someRequest.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn("gzip, deflate");
+
+    ResponseEntity<byte[]> gzippedResponse =
+        configFileController.queryConfigAsJson(someAppId, someClusterName, someNamespace,
+            someDataCenter, someClientIp, someClientLabel, someRequest, someResponse);
+
+    assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals("gzip", gzippedResponse.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(Lists.newArrayList(HttpHeaders.ACCEPT_ENCODING),
+        gzippedResponse.getHeaders().getVary());
+    assertNotEquals(response.getHeaders().getETag(), gzippedResponse.getHeaders().getETag());
+    assertArrayEquals(response.getBody(), gunzip(gzippedResponse.getBody()));
+    verify(configController, times(1)).queryConfig(someAppId, someClusterName, someNamespace,
+        someDataCenter, "-1", someClientIp, someClientLabel, null, someRequest, someResponse);
+  }
+
   @Test
   public void testHandleMessage() throws Exception {
     String someWatchKey = "someWatchKey";
@@ -254,10 +350,13 @@ public class ConfigFileControllerTest {
     ReleaseMessage someReleaseMessage = mock(ReleaseMessage.class);
     when(someReleaseMessage.getMessage()).thenReturn(someWatchKey);
 
-    Cache<String, String> cache =
-        (Cache<String, String>) ReflectionTestUtils.getField(configFileController, "localCache");
-    cache.put(someCacheKey, someValue);
-    cache.put(anotherCacheKey, someValue);
+    ConfigFileController.ConfigFile someConfigFile = new ConfigFileController.ConfigFile(
+        someValue.getBytes(StandardCharsets.UTF_8), null, someValue);
+    Cache<String, ConfigFileController.ConfigFile> cache =
+        (Cache<String, ConfigFileController.ConfigFile>) ReflectionTestUtils
+            .getField(configFileController, "localCache");
+    cache.put(someCacheKey, someConfigFile);
+    cache.put(anotherCacheKey, someConfigFile);
 
     watchedKeys2CacheKey.putAll(someWatchKey, Lists.newArrayList(someCacheKey, anotherCacheKey));
     watchedKeys2CacheKey.putAll(anotherWatchKey, Lists.newArrayList(someCacheKey, anotherCacheKey));
@@ -270,4 +369,10 @@ public class ConfigFileControllerTest {
     assertTrue(watchedKeys2CacheKey.isEmpty());
     assertTrue(cacheKey2WatchedKeys.isEmpty());
   }
+
+  private byte[] gunzip(byte[] gzipped) throws Exception {
+    try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+      return ByteStreams.toByteArray(in);
+    }
+  }
 }
@@ -21,9 +21,11 @@ import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.utils.EntityManagerUtil;
 import com.ctrip.framework.apollo.configservice.service.ReleaseMessageServiceWithCache;
+import com.ctrip.framework.apollo.configservice.service.notification.DefaultNotificationDispatcher;
 import com.ctrip.framework.apollo.configservice.util.NamespaceUtil;
 import com.ctrip.framework.apollo.configservice.util.WatchKeysUtil;
 import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.configservice.wrapper.WatchKeyRegistry;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
 import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
@@ -33,6 +35,8 @@ import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
 import com.google.gson.Gson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -79,16 +83,20 @@ public class NotificationControllerV2Test {
 
   private Gson gson;
 
-  private Multimap<String, DeferredResultWrapper> deferredResults;
+  private DefaultNotificationDispatcher notificationDispatcher;
+
+  private WatchKeyRegistry<DeferredResultWrapper> deferredResults;
 
   @Before
   public void setUp() throws Exception {
     gson = new Gson();
-    controller = new NotificationControllerV2(watchKeysUtil, releaseMessageService,
-        entityManagerUtil, namespaceUtil, gson, bizConfig);
-
     when(bizConfig.releaseMessageNotificationBatch()).thenReturn(100);
-    when(bizConfig.releaseMessageNotificationBatchIntervalInMilli()).thenReturn(5);
+    when(bizConfig.releaseMessageNotificationDispatcherThreads()).thenReturn(1);
+    when(bizConfig.releaseMessageNotificationRateLimit()).thenReturn(20000d);
+
+    notificationDispatcher = new DefaultNotificationDispatcher(bizConfig, new SimpleMeterRegistry());
+    controller = new NotificationControllerV2(watchKeysUtil, releaseMessageService,
+        entityManagerUtil, namespaceUtil, gson, bizConfig, notificationDispatcher);
 
     someAppId = "someAppId";
     someCluster = "someCluster";
@@ -106,10 +114,15 @@ public class NotificationControllerV2Test {
     when(namespaceUtil.normalizeNamespace(someAppId, somePublicNamespace))
         .thenReturn(somePublicNamespace);
 
-    deferredResults = (Multimap<String, DeferredResultWrapper>) ReflectionTestUtils
+    deferredResults = (WatchKeyRegistry<DeferredResultWrapper>) ReflectionTestUtils
         .getField(controller, "deferredResults");
   }
 
+  @After
+  public void tearDown() throws Exception {
+    notificationDispatcher.destroy();
+  }
+
   @Test
   public void testPollNotificationWithDefaultNamespace() throws Exception {
     String someWatchKey = "someKey";
@@ -304,7 +317,8 @@ public class NotificationControllerV2Test {
     String someWatchKey = Joiner.on(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR).join(someAppId,
         someCluster, defaultNamespace);
     int someBatch = 1;
-    int someBatchInterval = 10;
+    // 1 notification per second
+    int someBatchInterval = 1000;
 
     Multimap<String, String> watchKeysMap =
         assembleMultiMap(defaultNamespace, Lists.newArrayList(someWatchKey));
@@ -316,7 +330,8 @@ public class NotificationControllerV2Test {
         Sets.newHashSet(defaultNamespace), someDataCenter)).thenReturn(watchKeysMap);
 
     when(bizConfig.releaseMessageNotificationBatch()).thenReturn(someBatch);
-    when(bizConfig.releaseMessageNotificationBatchIntervalInMilli()).thenReturn(someBatchInterval);
+    when(bizConfig.releaseMessageNotificationRateLimit())
+        .thenReturn(someBatch * 1000d / someBatchInterval);
 
     DeferredResult<ResponseEntity<List<ApolloConfigNotification>>> deferredResult =
         controller.pollNotification(someAppId, someCluster, notificationAsString, someDataCenter,
@@ -335,7 +350,7 @@ public class NotificationControllerV2Test {
     assertFalse(deferredResult.hasResult() && anotherDeferredResult.hasResult());
 
     // now both of them should have result
-    await().atMost(someBatchInterval * 500, TimeUnit.MILLISECONDS).untilAsserted(
+    await().atMost(someBatchInterval * 5, TimeUnit.MILLISECONDS).untilAsserted(
         () -> assertTrue(deferredResult.hasResult() && anotherDeferredResult.hasResult()));
   }
 
@@ -18,9 +18,13 @@ package com.ctrip.framework.apollo.configservice.integration;
 
 import com.ctrip.framework.apollo.configservice.service.AppNamespaceServiceWithCache;
 
+import com.ctrip.framework.apollo.configservice.wrapper.NamespaceConfigQuery;
+import com.ctrip.framework.apollo.configservice.wrapper.NamespaceConfigResult;
 import com.ctrip.framework.apollo.core.ConfigConsts;
 import com.ctrip.framework.apollo.core.dto.ApolloConfig;
 
+import com.google.common.collect.Lists;
+import com.google.gson.Gson;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -104,6 +108,31 @@ public class ConfigControllerIntegrationTest extends AbstractBaseIntegrationTest
     assertEquals("v1", result.getConfigurations().get("k1"));
   }
 
+  @Test
+  @Sql(scripts = "/integration-test/test-release.sql",
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/integration-test/cleanup.sql",
+      executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testQueryConfigsOK() throws Exception {
+    String namespaces = new Gson().toJson(Lists.newArrayList(
+        new NamespaceConfigQuery(ConfigConsts.NAMESPACE_APPLICATION, null),
+        new NamespaceConfigQuery(someNamespace, "TEST-RELEASE-KEY2"),
+        new NamespaceConfigQuery("someNotExistedNamespace", null)));
+
+    ResponseEntity<NamespaceConfigResult[]> response = restTemplate.getForEntity(
+        "http://{baseurl}/configs/{appId}/{clusterName}?namespaces={namespaces}",
+        NamespaceConfigResult[].class, getHostUrl(), someAppId, someCluster, namespaces);
+    NamespaceConfigResult[] results = response.getBody();
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(3, results.length);
+    assertEquals(HttpStatus.OK.value(), results[0].getStatus());
+    assertEquals("TEST-RELEASE-KEY1", results[0].getConfig().getReleaseKey());
+    assertEquals("v1", results[0].getConfig().getConfigurations().get("k1"));
+    assertEquals(HttpStatus.NOT_MODIFIED.value(), results[1].getStatus());
+    assertEquals(HttpStatus.NOT_FOUND.value(), results[2].getStatus());
+  }
+
   @Test
   @Sql(scripts = "/integration-test/test-release.sql",
       executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
@@ -29,6 +29,9 @@ import com.netflix.servo.util.Strings;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.jdbc.Sql;
@@ -101,6 +104,30 @@ public class ConfigFileControllerIntegrationTest extends AbstractBaseIntegration
     assertTrue(result.contains("k2=v2"));
   }
 
+  @Test
+  @Sql(scripts = "/integration-test/test-release.sql",
+      executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+  @Sql(scripts = "/integration-test/cleanup.sql",
+      executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+  public void testQueryConfigAsPropertiesNotModified() throws Exception {
+    ResponseEntity<String> response =
+        restTemplate.getForEntity("http://{baseurl}/configfiles/{appId}/{clusterName}/{namespace}",
+            String.class, getHostUrl(), someAppId, someCluster, someNamespace);
+
+    String eTag = response.getHeaders().getETag();
+    HttpHeaders requestHeaders = new HttpHeaders();
+    requestHeaders.setIfNoneMatch(eTag);
+
+    ResponseEntity<String> anotherResponse = restTemplate.exchange(
+        "http://{baseurl}/configfiles/{appId}/{clusterName}/{namespace}", HttpMethod.GET,
+        new HttpEntity<>(requestHeaders), String.class, getHostUrl(), someAppId, someCluster,
+        someNamespace);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertEquals(HttpStatus.NOT_MODIFIED, anotherResponse.getStatusCode());
+    assertEquals(eTag, anotherResponse.getHeaders().getETag());
+  }
+
   @Test
   @Sql(scripts = "/integration-test/test-release.sql",
       executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
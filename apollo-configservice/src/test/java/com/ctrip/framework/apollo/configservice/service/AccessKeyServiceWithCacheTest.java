@@ -24,7 +24,10 @@ import static org.awaitility.Awaitility.*;
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.AccessKey;
 import com.ctrip.framework.apollo.biz.repository.AccessKeyRepository;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
 import org.awaitility.Awaitility;
@@ -50,7 +53,8 @@ public class AccessKeyServiceWithCacheTest {
 
   @Before
   public void setUp() {
-    accessKeyServiceWithCache = new AccessKeyServiceWithCache(accessKeyRepository, bizConfig);
+    accessKeyServiceWithCache = new AccessKeyServiceWithCache(accessKeyRepository, bizConfig,
+        new CacheWarmUp(MoreExecutors.directExecutor(), new SimpleMeterRegistry()));
 
     scanInterval = 50;
     scanIntervalTimeUnit = TimeUnit.MILLISECONDS;
@@ -136,6 +140,10 @@ public class AccessKeyServiceWithCacheTest {
 
     await().untilAsserted(() -> assertThat(accessKeyServiceWithCache.getAvailableSecrets(appId))
         .containsExactly("secret-3"));
+    // only the enabled secrets have signers
+    assertThat(accessKeyServiceWithCache.getSigner("secret-3")).isNotNull();
+    assertThat(accessKeyServiceWithCache.getSigner("secret-1")).isNull();
+    assertThat(accessKeyServiceWithCache.getSigner("secret-2")).isNull();
     reachabilityFence(accessKeyServiceWithCache);
   }
 
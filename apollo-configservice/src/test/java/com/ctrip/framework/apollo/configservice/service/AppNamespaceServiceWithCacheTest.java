@@ -18,15 +18,19 @@ package com.ctrip.framework.apollo.configservice.service;
 
 import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.repository.AppNamespaceRepository;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.awaitility.Awaitility;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.PageRequest;
 
 import java.util.Calendar;
 import java.util.Collections;
@@ -53,6 +57,7 @@ public class AppNamespaceServiceWithCacheTest {
   private BizConfig bizConfig;
 
   private int scanInterval;
+  private int loadPageSize;
   private TimeUnit scanIntervalTimeUnit;
   private Comparator<AppNamespace> appNamespaceComparator =
       (o1, o2) -> (int) (o1.getId() - o2.getId());
@@ -60,14 +65,17 @@ public class AppNamespaceServiceWithCacheTest {
   @Before
   public void setUp() throws Exception {
     appNamespaceServiceWithCache =
-        new AppNamespaceServiceWithCache(appNamespaceRepository, bizConfig);
+        new AppNamespaceServiceWithCache(appNamespaceRepository, bizConfig,
+            new CacheWarmUp(MoreExecutors.directExecutor(), new SimpleMeterRegistry()));
 
     scanInterval = 50;
+    loadPageSize = 500;
     scanIntervalTimeUnit = TimeUnit.MILLISECONDS;
     when(bizConfig.appNamespaceCacheRebuildInterval()).thenReturn(scanInterval);
     when(bizConfig.appNamespaceCacheRebuildIntervalTimeUnit()).thenReturn(scanIntervalTimeUnit);
     when(bizConfig.appNamespaceCacheScanInterval()).thenReturn(scanInterval);
     when(bizConfig.appNamespaceCacheScanIntervalTimeUnit()).thenReturn(scanIntervalTimeUnit);
+    when(bizConfig.cacheLoadPageSize()).thenReturn(loadPageSize);
 
     Awaitility.reset();
     Awaitility.setDefaultTimeout(scanInterval * 100, scanIntervalTimeUnit);
@@ -154,7 +162,8 @@ public class AppNamespaceServiceWithCacheTest {
         .findPublicNamespacesByNames(publicNamespacesWithIncorrectCase).isEmpty());
 
     // Add 1 private namespace and 1 public namespace
-    when(appNamespaceRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0))
+    when(appNamespaceRepository
+        .findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, loadPageSize)))
         .thenReturn(Lists.newArrayList(somePrivateAppNamespace, somePublicAppNamespace));
     when(appNamespaceRepository
         .findAllById(Lists.newArrayList(somePrivateNamespaceId, somePublicNamespaceId)))
@@ -186,7 +195,8 @@ public class AppNamespaceServiceWithCacheTest {
     });
 
     // Add 2 private namespaces and 1 public namespace
-    when(appNamespaceRepository.findFirst500ByIdGreaterThanOrderByIdAsc(somePublicNamespaceId))
+    when(appNamespaceRepository.findByIdGreaterThanOrderByIdAsc(somePublicNamespaceId,
+        PageRequest.of(0, loadPageSize)))
         .thenReturn(Lists.newArrayList(anotherPrivateAppNamespace, yetAnotherPrivateAppNamespace,
             anotherPublicAppNamespace));
     when(appNamespaceRepository.findAllById(appNamespaceIds)).thenReturn(allAppNamespaces);
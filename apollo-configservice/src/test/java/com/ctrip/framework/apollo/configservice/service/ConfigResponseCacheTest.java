@@ -0,0 +1,195 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.configservice.service.ConfigResponseCache.CachedConfig;
+import com.ctrip.framework.apollo.configservice.wrapper.PreEncodedApolloConfig;
+import com.ctrip.framework.apollo.core.ConfigConsts;
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.io.ByteStreams;
+import com.google.gson.Gson;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigResponseCacheTest {
+  private ConfigResponseCache configResponseCache;
+  @Mock
+  private BizConfig bizConfig;
+  private Gson gson = new Gson();
+
+  private String someAppId;
+  private String someClusterName;
+  private String someNamespaceName;
+  private String someReleaseKey;
+  private List<Release> someReleases;
+  private Map<String, String> someConfigurations;
+  private AtomicInteger loadCount;
+  private Supplier<Map<String, String>> someLoader;
+
+  @Before
+  public void setUp() throws Exception {
+    someAppId = "someAppId";
+    someClusterName = "someClusterName";
+    someNamespaceName = "someNamespaceName";
+    someReleaseKey = "someReleaseKey";
+    someConfigurations = ImmutableMap.of("someKey", "someValue");
+
+    Release someRelease = mock(Release.class);
+    when(someRelease.getAppId()).thenReturn(someAppId);
+    when(someRelease.getNamespaceName()).thenReturn(someNamespaceName);
+    someReleases = Lists.newArrayList(someRelease);
+
+    loadCount = new AtomicInteger();
+    someLoader = () -> {
+      loadCount.incrementAndGet();
+      return someConfigurations;
+    };
+
+    when(bizConfig.isConfigServiceResponseCacheEnabled()).thenReturn(true);
+    when(bizConfig.isConfigServiceResponseCacheGzipEnabled()).thenReturn(true);
+    when(bizConfig.configServiceResponseCacheMaxSizeInMB()).thenReturn(1);
+
+    configResponseCache = new ConfigResponseCache(gson, bizConfig, new SimpleMeterRegistry());
+  }
+
+  @Test
+  public void testGet() throws Exception {
+    CachedConfig cachedConfig = configResponseCache.get(someApolloConfig(someReleaseKey),
+        someReleases, someLoader);
+    CachedConfig anotherCachedConfig = configResponseCache.get(someApolloConfig(someReleaseKey),
+        someReleases, someLoader);
+
+    assertSame(cachedConfig, anotherCachedConfig);
+    assertEquals(1, loadCount.get());
+    assertEquals(someConfigurations, cachedConfig.getConfigurations());
+
+    PreEncodedApolloConfig result = cachedConfig.toApolloConfig(false);
+    assertFalse(result.isGzipped());
+    assertEquals(someReleaseKey, result.getReleaseKey());
+    assertEquals(someConfigurations, result.getConfigurations());
+    assertEquals(gson.toJson(result), new String(result.getBody(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testGetWithGzip() throws Exception {
+    CachedConfig cachedConfig = configResponseCache.get(someApolloConfig(someReleaseKey),
+        someReleases, someLoader);
+
+    PreEncodedApolloConfig plain = cachedConfig.toApolloConfig(false);
+    PreEncodedApolloConfig gzipped = cachedConfig.toApolloConfig(true);
+
+    assertTrue(gzipped.isGzipped());
+    assertArrayEquals(plain.getBody(), ByteStreams.toByteArray(
+        new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))));
+  }
+
+  @Test
+  public void testGetWithGzipDisabled() throws Exception {
+    when(bizConfig.isConfigServiceResponseCacheGzipEnabled()).thenReturn(false);
+    configResponseCache = new ConfigResponseCache(gson, bizConfig, new SimpleMeterRegistry());
+
+    CachedConfig cachedConfig = configResponseCache.get(someApolloConfig(someReleaseKey),
+        someReleases, someLoader);
+
+    assertFalse(cachedConfig.toApolloConfig(true).isGzipped());
+  }
+
+  @Test
+  public void testGetWithDifferentReleaseKey() throws Exception {
+    String anotherReleaseKey = "anotherReleaseKey";
+
+    CachedConfig cachedConfig = configResponseCache.get(someApolloConfig(someReleaseKey),
+        someReleases, someLoader);
+    CachedConfig anotherCachedConfig = configResponseCache.get(
+        someApolloConfig(anotherReleaseKey), someReleases, someLoader);
+
+    assertNotSame(cachedConfig, anotherCachedConfig);
+    assertEquals(2, loadCount.get());
+  }
+
+  @Test
+  public void testHandleMessage() throws Exception {
+    configResponseCache.get(someApolloConfig(someReleaseKey), someReleases, someLoader);
+
+    configResponseCache.handleMessage(assembleReleaseMessage(someAppId, "anotherCluster",
+        someNamespaceName), Topics.APOLLO_RELEASE_TOPIC);
+    configResponseCache.get(someApolloConfig(someReleaseKey), someReleases, someLoader);
+
+    assertEquals(2, loadCount.get());
+  }
+
+  @Test
+  public void testHandleMessageOfOtherNamespace() throws Exception {
+    configResponseCache.get(someApolloConfig(someReleaseKey), someReleases, someLoader);
+
+    configResponseCache.handleMessage(assembleReleaseMessage(someAppId, someClusterName,
+        "anotherNamespace"), Topics.APOLLO_RELEASE_TOPIC);
+    configResponseCache.handleMessage(assembleReleaseMessage(someAppId, someClusterName,
+        someNamespaceName), "someOtherTopic");
+    configResponseCache.get(someApolloConfig(someReleaseKey), someReleases, someLoader);
+
+    assertEquals(1, loadCount.get());
+  }
+
+  @Test
+  public void testDisabled() throws Exception {
+    when(bizConfig.isConfigServiceResponseCacheEnabled()).thenReturn(false);
+    configResponseCache = new ConfigResponseCache(gson, bizConfig, new SimpleMeterRegistry());
+
+    assertFalse(configResponseCache.isEnabled());
+    // should not throw
+    configResponseCache.handleMessage(assembleReleaseMessage(someAppId, someClusterName,
+        someNamespaceName), Topics.APOLLO_RELEASE_TOPIC);
+  }
+
+  private ApolloConfig someApolloConfig(String releaseKey) {
+    return new ApolloConfig(someAppId, someClusterName, someNamespaceName, releaseKey);
+  }
+
+  private ReleaseMessage assembleReleaseMessage(String appId, String clusterName,
+      String namespaceName) {
+    return new ReleaseMessage(String.join(ConfigConsts.CLUSTER_NAMESPACE_SEPARATOR, appId,
+        clusterName, namespaceName));
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ReleaseMessageIdMapTest {
+  private ReleaseMessageIdMap releaseMessageIdMap;
+  private long someTime;
+
+  @Before
+  public void setUp() throws Exception {
+    releaseMessageIdMap = new ReleaseMessageIdMap();
+    someTime = System.currentTimeMillis();
+  }
+
+  @Test
+  public void testPutAndGet() throws Exception {
+    int size = 1000;
+    for (int i = 0; i < size; i++) {
+      assertTrue(releaseMessageIdMap.put("someMessage" + i, i + 1, someTime));
+    }
+
+    assertEquals(size, releaseMessageIdMap.size());
+    for (int i = 0; i < size; i++) {
+      assertEquals(i + 1, releaseMessageIdMap.get("someMessage" + i));
+    }
+    assertEquals(ReleaseMessageIdMap.NOT_FOUND, releaseMessageIdMap.get("notExistedMessage"));
+  }
+
+  @Test
+  public void testPutOlderId() throws Exception {
+    String someMessage = "someMessage";
+
+    assertTrue(releaseMessageIdMap.put(someMessage, 2, someTime));
+    assertFalse(releaseMessageIdMap.put(someMessage, 1, someTime));
+    assertFalse(releaseMessageIdMap.put(someMessage, 2, someTime));
+    assertTrue(releaseMessageIdMap.put(someMessage, 3, someTime));
+
+    assertEquals(3, releaseMessageIdMap.get(someMessage));
+    assertEquals(1, releaseMessageIdMap.size());
+  }
+
+  @Test
+  public void testRemoveNotModifiedSince() throws Exception {
+    long someIdleTime = someTime - TimeUnit.DAYS.toMillis(2);
+    int size = 100;
+    for (int i = 0; i < size; i++) {
+      releaseMessageIdMap.put("someMessage" + i, i + 1, i % 2 == 0 ? someIdleTime : someTime);
+    }
+
+    assertEquals(size / 2,
+        releaseMessageIdMap.removeNotModifiedSince(someTime - TimeUnit.DAYS.toMillis(1)));
+
+    assertEquals(size / 2, releaseMessageIdMap.size());
+    for (int i = 0; i < size; i++) {
+      assertEquals(i % 2 == 0 ? ReleaseMessageIdMap.NOT_FOUND : i + 1,
+          releaseMessageIdMap.get("someMessage" + i));
+    }
+  }
+}
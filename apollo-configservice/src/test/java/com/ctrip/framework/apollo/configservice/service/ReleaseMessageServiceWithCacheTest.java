@@ -20,23 +20,30 @@ import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
 import com.ctrip.framework.apollo.biz.message.Topics;
 import com.ctrip.framework.apollo.biz.repository.ReleaseMessageRepository;
+import com.ctrip.framework.apollo.biz.utils.CacheWarmUp;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.domain.Pageable;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -61,18 +68,20 @@ public class ReleaseMessageServiceWithCacheTest {
 
   public void setUp() throws Exception {
     releaseMessageServiceWithCache =
-        new ReleaseMessageServiceWithCache(releaseMessageRepository, bizConfig);
+        new ReleaseMessageServiceWithCache(releaseMessageRepository, bizConfig,
+            new CacheWarmUp(MoreExecutors.directExecutor(), new SimpleMeterRegistry()));
 
     scanInterval = 10;
     scanIntervalTimeUnit = TimeUnit.MILLISECONDS;
     when(bizConfig.releaseMessageCacheScanInterval()).thenReturn(scanInterval);
     when(bizConfig.releaseMessageCacheScanIntervalTimeUnit()).thenReturn(scanIntervalTimeUnit);
+    when(bizConfig.releaseMessageCacheLoadPageSize()).thenReturn(500);
   }
 
   @Test
   public void testWhenNoReleaseMessages() throws Exception {
-    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L)).thenReturn
-        (Collections.emptyList());
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(0L), any(Pageable.class)))
+        .thenReturn(Collections.emptyList());
 
     releaseMessageServiceWithCache.afterPropertiesSet();
 
@@ -93,8 +102,8 @@ public class ReleaseMessageServiceWithCacheTest {
     ReleaseMessage anotherMsg = assembleReleaseMsg(2, anotherMsgContent);
     ReleaseMessage anotherRepeatMsg = assembleReleaseMsg(3, anotherMsgContent);
 
-    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L))
-        .thenReturn(Arrays.asList(someMsg, anotherMsg, anotherRepeatMsg));
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(0L), any(Pageable.class)))
+        .thenReturn(assembleRows(someMsg, anotherMsg, anotherRepeatMsg));
 
     releaseMessageServiceWithCache.afterPropertiesSet();
 
@@ -122,22 +131,23 @@ public class ReleaseMessageServiceWithCacheTest {
   @Test
   public void testWhenReleaseMsgSizeBiggerThan500() throws Exception {
     String someMsgContent = "msg1";
-    List<ReleaseMessage> firstBatchReleaseMsg = new ArrayList<>(500);
+    List<Object[]> firstBatchReleaseMsg = new ArrayList<>(500);
     for (int i = 0; i < 500; i++) {
-      firstBatchReleaseMsg.add(assembleReleaseMsg(i + 1, someMsgContent));
+      firstBatchReleaseMsg.add(assembleRow(assembleReleaseMsg(i + 1, someMsgContent)));
     }
 
     String antherMsgContent = "msg2";
     ReleaseMessage antherMsg = assembleReleaseMsg(501, antherMsgContent);
 
-    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L))
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(0L), any(Pageable.class)))
         .thenReturn(firstBatchReleaseMsg);
-    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(500L))
-        .thenReturn(Collections.singletonList(antherMsg));
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(500L), any(Pageable.class)))
+        .thenReturn(assembleRows(antherMsg));
 
     releaseMessageServiceWithCache.afterPropertiesSet();
 
-    verify(releaseMessageRepository, times(1)).findFirst500ByIdGreaterThanOrderByIdAsc(500L);
+    verify(releaseMessageRepository, times(1)).findIdAndMessageByIdGreaterThan(eq(500L),
+        any(Pageable.class));
 
     ReleaseMessage latestReleaseMsg = releaseMessageServiceWithCache
         .findLatestReleaseMessageForMessages(Sets.newHashSet(someMsgContent, antherMsgContent));
@@ -161,8 +171,8 @@ public class ReleaseMessageServiceWithCacheTest {
     long someMessageId = 1;
     ReleaseMessage someMessage = assembleReleaseMsg(someMessageId, someMessageContent);
 
-    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L))
-        .thenReturn(Lists.newArrayList(someMessage));
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(0L), any(Pageable.class)))
+        .thenReturn(assembleRows(someMessage));
 
     releaseMessageServiceWithCache.afterPropertiesSet();
 
@@ -174,13 +184,13 @@ public class ReleaseMessageServiceWithCacheTest {
 
     assertEquals(someMessageId, latestReleaseMsg.getId());
     assertEquals(someMessageContent, latestReleaseMsg.getMessage());
-    assertEquals(latestReleaseMsg, latestReleaseMsgGroupByMsgContent.get(0));
+    assertEquals(latestReleaseMsg.getId(), latestReleaseMsgGroupByMsgContent.get(0).getId());
 
     long newMessageId = 2;
     ReleaseMessage newMessage = assembleReleaseMsg(newMessageId, someMessageContent);
 
-    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(someMessageId))
-        .thenReturn(Lists.newArrayList(newMessage));
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(someMessageId),
+        any(Pageable.class))).thenReturn(assembleRows(newMessage));
 
     await().atMost(scanInterval * 500, scanIntervalTimeUnit).untilAsserted(() -> {
       ReleaseMessage newLatestReleaseMsg = releaseMessageServiceWithCache
@@ -191,7 +201,8 @@ public class ReleaseMessageServiceWithCacheTest {
 
       assertEquals(newMessageId, newLatestReleaseMsg.getId());
       assertEquals(someMessageContent, newLatestReleaseMsg.getMessage());
-      assertEquals(newLatestReleaseMsg, newLatestReleaseMsgGroupByMsgContent.get(0));
+      assertEquals(newLatestReleaseMsg.getId(),
+          newLatestReleaseMsgGroupByMsgContent.get(0).getId());
     });
   }
 
@@ -201,8 +212,8 @@ public class ReleaseMessageServiceWithCacheTest {
     long someMessageId = 1;
     ReleaseMessage someMessage = assembleReleaseMsg(someMessageId, someMessageContent);
 
-    when(releaseMessageRepository.findFirst500ByIdGreaterThanOrderByIdAsc(0L))
-        .thenReturn(Lists.newArrayList(someMessage));
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(0L), any(Pageable.class)))
+        .thenReturn(assembleRows(someMessage));
 
     releaseMessageServiceWithCache.afterPropertiesSet();
 
@@ -214,7 +225,7 @@ public class ReleaseMessageServiceWithCacheTest {
 
     assertEquals(someMessageId, latestReleaseMsg.getId());
     assertEquals(someMessageContent, latestReleaseMsg.getMessage());
-    assertEquals(latestReleaseMsg, latestReleaseMsgGroupByMsgContent.get(0));
+    assertEquals(latestReleaseMsg.getId(), latestReleaseMsgGroupByMsgContent.get(0).getId());
 
     long newMessageId = 2;
     ReleaseMessage newMessage = assembleReleaseMsg(newMessageId, someMessageContent);
@@ -229,7 +240,51 @@ public class ReleaseMessageServiceWithCacheTest {
 
     assertEquals(newMessageId, newLatestReleaseMsg.getId());
     assertEquals(someMessageContent, newLatestReleaseMsg.getMessage());
-    assertEquals(newLatestReleaseMsg, newLatestReleaseMsgGroupByMsgContent.get(0));
+    assertEquals(newLatestReleaseMsg.getId(),
+        newLatestReleaseMsgGroupByMsgContent.get(0).getId());
+  }
+
+  @Test
+  public void testCompactIdleReleaseMessages() throws Exception {
+    String someMessageContent = "someMessage";
+    String anotherMessageContent = "anotherMessage";
+    Date someIdleTime = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(2));
+    List<Object[]> rows = Lists.newArrayList(
+        new Object[]{1L, someMessageContent, someIdleTime},
+        new Object[]{2L, anotherMessageContent, new Date()});
+
+    when(bizConfig.releaseMessageCacheMaxIdleDays()).thenReturn(1);
+    when(releaseMessageRepository.findIdAndMessageByIdGreaterThan(eq(0L), any(Pageable.class)))
+        .thenReturn(rows);
+
+    releaseMessageServiceWithCache.afterPropertiesSet();
+    releaseMessageServiceWithCache.compact();
+
+    assertNull(releaseMessageServiceWithCache
+        .findLatestReleaseMessageForMessages(Sets.newHashSet(someMessageContent)));
+    ReleaseMessage latestReleaseMsg = releaseMessageServiceWithCache
+        .findLatestReleaseMessageForMessages(
+            Sets.newHashSet(someMessageContent, anotherMessageContent));
+    assertEquals(2, latestReleaseMsg.getId());
+
+    // published again
+    releaseMessageServiceWithCache.handleMessage(assembleReleaseMsg(3, someMessageContent),
+        Topics.APOLLO_RELEASE_TOPIC);
+
+    assertEquals(3, releaseMessageServiceWithCache
+        .findLatestReleaseMessageForMessages(Sets.newHashSet(someMessageContent)).getId());
+  }
+
+  private List<Object[]> assembleRows(ReleaseMessage... releaseMessages) {
+    List<Object[]> rows = new ArrayList<>(releaseMessages.length);
+    for (ReleaseMessage releaseMessage : releaseMessages) {
+      rows.add(assembleRow(releaseMessage));
+    }
+    return rows;
+  }
+
+  private Object[] assembleRow(ReleaseMessage releaseMessage) {
+    return new Object[]{releaseMessage.getId(), releaseMessage.getMessage(), new Date()};
   }
 
   private ReleaseMessage assembleReleaseMsg(long id, String msgContent) {
@@ -30,8 +30,14 @@ import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
 
 import com.google.common.collect.Sets;
 import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -375,4 +381,61 @@ public class ConfigServiceWithCacheTest {
     verify(releaseService, times(1)).findLatestActiveRelease(someAppId, someClusterName,
         someNamespaceName);
   }
+
+  @Test
+  public void testFindLatestActiveReleaseWithConcurrentOutdatedClients() throws Exception {
+    int clients = 100;
+    long someNewNotificationId = someNotificationId + 1;
+    ReleaseMessage anotherReleaseMessage = mock(ReleaseMessage.class);
+    Release anotherRelease = mock(Release.class);
+
+    when(releaseMessageService.findLatestReleaseMessageForMessages(Lists.newArrayList(someKey)))
+        .thenReturn(someReleaseMessage);
+    when(releaseService.findLatestActiveRelease(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(someRelease);
+    when(someReleaseMessage.getId()).thenReturn(someNotificationId);
+
+    assertEquals(someRelease, configServiceWithCache.findLatestActiveRelease(someAppId,
+        someClusterName, someNamespaceName, someNotificationMessages));
+
+    // a new release is published, and the db load is slow
+    when(releaseMessageService.findLatestReleaseMessageForMessages(Lists.newArrayList(someKey)))
+        .thenAnswer(invocation -> {
+          TimeUnit.MILLISECONDS.sleep(50);
+          return anotherReleaseMessage;
+        });
+    when(releaseService.findLatestActiveRelease(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(anotherRelease);
+    when(anotherReleaseMessage.getMessage()).thenReturn(someKey);
+    when(anotherReleaseMessage.getId()).thenReturn(someNewNotificationId);
+    someNotificationMessages.put(someKey, someNewNotificationId);
+
+    ExecutorService executorService = Executors.newFixedThreadPool(clients);
+    CountDownLatch startLatch = new CountDownLatch(1);
+    List<Future<Release>> results = Lists.newArrayList();
+    try {
+      for (int i = 0; i < clients; i++) {
+        results.add(executorService.submit(() -> {
+          startLatch.await();
+          return configServiceWithCache.findLatestActiveRelease(someAppId, someClusterName,
+              someNamespaceName, someNotificationMessages);
+        }));
+      }
+      startLatch.countDown();
+
+      for (Future<Release> result : results) {
+        assertEquals(anotherRelease, result.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      executorService.shutdownNow();
+    }
+
+    // the cache is already up to date when the release message arrives
+    configServiceWithCache.handleMessage(anotherReleaseMessage, Topics.APOLLO_RELEASE_TOPIC);
+
+    verify(releaseMessageService, times(2))
+        .findLatestReleaseMessageForMessages(Lists.newArrayList(someKey));
+    verify(releaseService, times(2)).findLatestActiveRelease(someAppId, someClusterName,
+        someNamespaceName);
+  }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
+import com.ctrip.framework.apollo.biz.entity.ReleaseMessage;
+import com.ctrip.framework.apollo.biz.grayReleaseRule.GrayReleaseRulesHolder;
+import com.ctrip.framework.apollo.biz.message.Topics;
+import com.ctrip.framework.apollo.biz.service.ReleaseMessageService;
+import com.ctrip.framework.apollo.biz.service.ReleaseService;
+import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
+import com.ctrip.framework.apollo.core.dto.ApolloNotificationMessages;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ConfigServiceWithSnapshotTest {
+  private ConfigServiceWithSnapshot configServiceWithSnapshot;
+
+  @Mock
+  private ReleaseService releaseService;
+  @Mock
+  private ReleaseMessageService releaseMessageService;
+  @Mock
+  private GrayReleaseRulesHolder grayReleaseRulesHolder;
+  @Mock
+  private BizConfig bizConfig;
+  private MeterRegistry meterRegistry;
+
+  private String someAppId;
+  private String someClusterName;
+  private String someNamespaceName;
+  private String anotherNamespaceName;
+  private String someKey;
+  private long someNotificationId;
+  private Release someRelease;
+  private Release anotherRelease;
+  private ApolloNotificationMessages someNotificationMessages;
+
+  @Before
+  public void setUp() throws Exception {
+    someAppId = "someAppId";
+    someClusterName = "someClusterName";
+    someNamespaceName = "someNamespaceName";
+    anotherNamespaceName = "anotherNamespaceName";
+    someKey = ReleaseMessageKeyGenerator.generate(someAppId, someClusterName, someNamespaceName);
+    someNotificationId = 10;
+    someNotificationMessages = new ApolloNotificationMessages();
+    meterRegistry = new SimpleMeterRegistry();
+
+    someRelease = assembleRelease(1, "someReleaseKey", someNamespaceName);
+    anotherRelease = assembleRelease(2, "anotherReleaseKey", anotherNamespaceName);
+
+    when(bizConfig.configServiceSnapshotLoadPageSize()).thenReturn(1);
+    when(bizConfig.configServiceSnapshotLoadThreads()).thenReturn(2);
+    when(releaseMessageService.findLatestReleaseMessage())
+        .thenReturn(assembleReleaseMessage(someNotificationId, someKey));
+    when(releaseService.findLatestActiveReleaseIds()).thenReturn(Lists.newArrayList(1L, 2L));
+    when(releaseService.findByReleaseIds(Sets.newHashSet(1L)))
+        .thenReturn(Lists.newArrayList(someRelease));
+    when(releaseService.findByReleaseIds(Sets.newHashSet(2L)))
+        .thenReturn(Lists.newArrayList(anotherRelease));
+
+    configServiceWithSnapshot = new ConfigServiceWithSnapshot(releaseService,
+        releaseMessageService, grayReleaseRulesHolder, bizConfig, meterRegistry);
+    configServiceWithSnapshot.initialize();
+  }
+
+  @Test
+  public void testLoadSnapshot() throws Exception {
+    assertSame(someRelease, configServiceWithSnapshot.findLatestActiveRelease(someAppId,
+        someClusterName, someNamespaceName, someNotificationMessages));
+    assertSame(anotherRelease, configServiceWithSnapshot.findLatestActiveRelease(someAppId,
+        someClusterName, anotherNamespaceName, someNotificationMessages));
+    assertNull(configServiceWithSnapshot.findLatestActiveRelease(someAppId, someClusterName,
+        "notExistedNamespace", someNotificationMessages));
+    assertSame(anotherRelease,
+        configServiceWithSnapshot.findActiveOne(anotherRelease.getId(), someNotificationMessages));
+
+    assertEquals(2, meterRegistry.get("apollo.config.snapshot.releases").gauge().value(), 0.001);
+    assertTrue(meterRegistry.get("apollo.config.snapshot.size").gauge().value() > 0);
+    assertEquals(1, meterRegistry.get("apollo.config.snapshot.load").timer().count());
+    verify(releaseService, never()).findLatestActiveRelease(anyString(), anyString(),
+        anyString());
+  }
+
+  @Test
+  public void testHandleMessage() throws Exception {
+    Release newRelease = assembleRelease(3, "newReleaseKey", someNamespaceName);
+    when(releaseService.findLatestActiveRelease(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(newRelease);
+
+    configServiceWithSnapshot.handleMessage(assembleReleaseMessage(someNotificationId + 1, someKey),
+        Topics.APOLLO_RELEASE_TOPIC);
+
+    someNotificationMessages.put(someKey, someNotificationId + 1);
+    assertSame(newRelease, configServiceWithSnapshot.findLatestActiveRelease(someAppId,
+        someClusterName, someNamespaceName, someNotificationMessages));
+    assertSame(newRelease,
+        configServiceWithSnapshot.findActiveOne(newRelease.getId(), someNotificationMessages));
+    verify(releaseService, times(1)).findLatestActiveRelease(someAppId, someClusterName,
+        someNamespaceName);
+  }
+
+  @Test
+  public void testCatchUpMessagesAfterSnapshot() throws Exception {
+    Release newRelease = assembleRelease(3, "newReleaseKey", someNamespaceName);
+    when(releaseService.findLatestActiveRelease(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(newRelease);
+    when(releaseMessageService.findFirst500ReleaseMessagesAfter(someNotificationId))
+        .thenReturn(Lists.newArrayList(assembleReleaseMessage(someNotificationId + 1, someKey)));
+
+    configServiceWithSnapshot.afterSingletonsInstantiated();
+    // the same message delivered by the scanner afterwards
+    configServiceWithSnapshot.handleMessage(assembleReleaseMessage(someNotificationId + 1, someKey),
+        Topics.APOLLO_RELEASE_TOPIC);
+
+    assertSame(newRelease, configServiceWithSnapshot.findLatestActiveRelease(someAppId,
+        someClusterName, someNamespaceName, someNotificationMessages));
+    verify(releaseService, times(1)).findLatestActiveRelease(someAppId, someClusterName,
+        someNamespaceName);
+  }
+
+  @Test
+  public void testFindLatestActiveReleaseWithNotificationNotHandled() throws Exception {
+    Release newRelease = assembleRelease(3, "newReleaseKey", someNamespaceName);
+    when(releaseService.findLatestActiveRelease(someAppId, someClusterName, someNamespaceName))
+        .thenReturn(newRelease);
+
+    someNotificationMessages.put(someKey, someNotificationId + 1);
+    assertSame(newRelease, configServiceWithSnapshot.findLatestActiveRelease(someAppId,
+        someClusterName, someNamespaceName, someNotificationMessages));
+
+    // the release message arrives later
+    configServiceWithSnapshot.handleMessage(assembleReleaseMessage(someNotificationId + 1, someKey),
+        Topics.APOLLO_RELEASE_TOPIC);
+    assertSame(newRelease, configServiceWithSnapshot.findLatestActiveRelease(someAppId,
+        someClusterName, someNamespaceName, someNotificationMessages));
+
+    verify(releaseService, times(1)).findLatestActiveRelease(someAppId, someClusterName,
+        someNamespaceName);
+  }
+
+  @Test
+  public void testHandleMessageWithReleaseDeleted() throws Exception {
+    configServiceWithSnapshot.handleMessage(assembleReleaseMessage(someNotificationId + 1, someKey),
+        Topics.APOLLO_RELEASE_TOPIC);
+
+    assertNull(configServiceWithSnapshot.findLatestActiveRelease(someAppId, someClusterName,
+        someNamespaceName, someNotificationMessages));
+    assertEquals(1, meterRegistry.get("apollo.config.snapshot.releases").gauge().value(), 0.001);
+  }
+
+  @Test
+  public void testFindReleasesByReleaseKeys() throws Exception {
+    Release historyRelease = assembleRelease(0, "historyReleaseKey", someNamespaceName);
+    when(releaseService.findByReleaseKeys(Sets.newHashSet("historyReleaseKey")))
+        .thenReturn(Lists.newArrayList(historyRelease));
+
+    Map<String, Release> releases = configServiceWithSnapshot.findReleasesByReleaseKeys(
+        Sets.newHashSet(someRelease.getReleaseKey(), "historyReleaseKey"));
+
+    assertEquals(2, releases.size());
+    assertSame(someRelease, releases.get(someRelease.getReleaseKey()));
+    assertSame(historyRelease, releases.get("historyReleaseKey"));
+    verify(releaseService, times(1)).findByReleaseKeys(anySet());
+  }
+
+  private Release assembleRelease(long id, String releaseKey, String namespaceName) {
+    Release release = new Release();
+    release.setId(id);
+    release.setReleaseKey(releaseKey);
+    release.setAppId(someAppId);
+    release.setClusterName(someClusterName);
+    release.setNamespaceName(namespaceName);
+    release.setConfigurations("{\"k1\":\"v1\"}");
+    return release;
+  }
+
+  private ReleaseMessage assembleReleaseMessage(long id, String message) {
+    ReleaseMessage releaseMessage = new ReleaseMessage(message);
+    releaseMessage.setId(id);
+    return releaseMessage;
+  }
+}
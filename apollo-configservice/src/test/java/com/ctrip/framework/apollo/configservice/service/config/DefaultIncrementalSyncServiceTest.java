@@ -16,17 +16,26 @@
  */
 package com.ctrip.framework.apollo.configservice.service.config;
 
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.biz.entity.Release;
 import com.ctrip.framework.apollo.biz.utils.ReleaseMessageKeyGenerator;
 import com.ctrip.framework.apollo.configservice.service.config.DefaultIncrementalSyncService.ReleaseKeyPair;
 import com.ctrip.framework.apollo.core.dto.ConfigurationChange;
 import com.google.common.cache.Cache;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.lang.reflect.Field;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.util.List;
@@ -36,6 +45,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
 
 /**
  * @author jason
@@ -55,10 +65,15 @@ public class DefaultIncrementalSyncServiceTest {
   private Map<String, String> someClientSideConfigurations;
   private Map<String, String> someLatestReleaseConfigurations;
   private Cache<ReleaseKeyPair, List<ConfigurationChange>> configurationChangeCache;
+  @Mock
+  private BizConfig bizConfig;
 
   @Before
   public void setUp() throws Exception {
-    defaultIncrementalSyncService = new DefaultIncrementalSyncService();
+    when(bizConfig.configServiceIncrementalChangeReleaseCacheMaxKeys()).thenReturn(10000);
+    when(bizConfig.configServiceIncrementalChangeDiffCacheMaxChanges()).thenReturn(10000);
+    defaultIncrementalSyncService =
+        new DefaultIncrementalSyncService(bizConfig, new SimpleMeterRegistry());
     configurationChangeCache = getConfigurationChangeCache(defaultIncrementalSyncService);
     someReleaseKey = "someReleaseKey";
     someAppId = "someAppId";
@@ -228,5 +243,83 @@ public class DefaultIncrementalSyncServiceTest {
     assertEquals("DELETED", result.get(0).getConfigurationChangeType());
   }
 
+  @Test
+  public void testChangeConfigurationsWithReleases() {
+    Release clientSideRelease = assembleRelease("release-1", "{\"k1\":\"v1\",\"k2\":\"v2\"}");
+    Release latestRelease =
+        assembleRelease("release-2", "{\"k1\":\"v1-new\",\"k3\":\"v3\"}");
+    Map<String, String> latestConfigurations = ImmutableMap.of("k1", "v1-new", "k3", "v3");
+    AtomicInteger loadTimes = new AtomicInteger();
+    Function<Set<String>, Map<String, Release>> releasesLoader = releaseKeys -> {
+      loadTimes.incrementAndGet();
+      assertEquals(Sets.newHashSet("release-1"), releaseKeys);
+      return ImmutableMap.of("release-1", clientSideRelease);
+    };
+
+    List<ConfigurationChange> result = defaultIncrementalSyncService.getConfigurationChanges(
+        Lists.newArrayList(latestRelease), latestConfigurations,
+        Lists.newArrayList("release-1"), releasesLoader);
+
+    assertEquals(3, result.size());
+    assertChange(result.get(0), "k3", "v3", "ADDED");
+    assertChange(result.get(1), "k2", null, "DELETED");
+    assertChange(result.get(2), "k1", "v1-new", "MODIFIED");
+    assertEquals(1, loadTimes.get());
+
+    // the fingerprint of the client side release is cached
+    Release anotherLatestRelease = assembleRelease("release-3", "{\"k1\":\"v1\"}");
+    List<ConfigurationChange> anotherResult = defaultIncrementalSyncService
+        .getConfigurationChanges(Lists.newArrayList(anotherLatestRelease),
+            ImmutableMap.of("k1", "v1"), Lists.newArrayList("release-1"), releasesLoader);
+
+    assertEquals(1, anotherResult.size());
+    assertChange(anotherResult.get(0), "k2", null, "DELETED");
+    assertEquals(1, loadTimes.get());
+  }
+
+  @Test
+  public void testChangeConfigurationsWithReleasesNotFound() {
+    Release latestRelease = assembleRelease("release-2", "{\"k1\":\"v1\"}");
+
+    List<ConfigurationChange> result = defaultIncrementalSyncService.getConfigurationChanges(
+        Lists.newArrayList(latestRelease), ImmutableMap.of("k1", "v1"),
+        Lists.newArrayList("release-1"), releaseKeys -> ImmutableMap.of());
+
+    assertNull(result);
+  }
 
+  @Test
+  public void testChangeConfigurationsWithMergedReleases() {
+    Release someAppRelease = assembleRelease("app-1", "{\"k1\":\"app\"}");
+    Release somePublicRelease =
+        assembleRelease("public-1", "{\"k1\":\"public\",\"k2\":\"public\"}");
+    Release latestAppRelease = assembleRelease("app-2", "{\"k1\":\"app\"}");
+    Release latestPublicRelease =
+        assembleRelease("public-2", "{\"k1\":\"public-new\",\"k2\":\"public-new\"}");
+    Map<String, Release> clientSideReleases =
+        ImmutableMap.of("app-1", someAppRelease, "public-1", somePublicRelease);
+
+    List<ConfigurationChange> result = defaultIncrementalSyncService.getConfigurationChanges(
+        Lists.newArrayList(latestAppRelease, latestPublicRelease),
+        ImmutableMap.of("k1", "app", "k2", "public-new"),
+        Lists.newArrayList("app-1", "public-1"), releaseKeys -> clientSideReleases);
+
+    // k1 is overridden by the app release, so only k2 is changed
+    assertEquals(1, result.size());
+    assertChange(result.get(0), "k2", "public-new", "MODIFIED");
+  }
+
+  private Release assembleRelease(String releaseKey, String configurations) {
+    Release release = new Release();
+    release.setReleaseKey(releaseKey);
+    release.setConfigurations(configurations);
+    return release;
+  }
+
+  private void assertChange(ConfigurationChange change, String key, String newValue,
+      String changeType) {
+    assertEquals(key, change.getKey());
+    assertEquals(newValue, change.getNewValue());
+    assertEquals(changeType, change.getConfigurationChangeType());
+  }
 }
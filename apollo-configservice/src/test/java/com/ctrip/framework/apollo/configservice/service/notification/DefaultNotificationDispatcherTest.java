@@ -0,0 +1,141 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.service.notification;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.biz.config.BizConfig;
+import com.ctrip.framework.apollo.configservice.wrapper.DeferredResultWrapper;
+import com.ctrip.framework.apollo.core.dto.ApolloConfigNotification;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DefaultNotificationDispatcherTest {
+  private DefaultNotificationDispatcher notificationDispatcher;
+  private MeterRegistry meterRegistry;
+  @Mock
+  private BizConfig bizConfig;
+
+  private String someWatchKey;
+  private String anotherWatchKey;
+
+  @Before
+  public void setUp() throws Exception {
+    someWatchKey = "someAppId+default+application";
+    anotherWatchKey = "anotherAppId+default+application";
+    meterRegistry = new SimpleMeterRegistry();
+
+    when(bizConfig.releaseMessageNotificationBatch()).thenReturn(10);
+    when(bizConfig.releaseMessageNotificationDispatcherThreads()).thenReturn(1);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    notificationDispatcher.destroy();
+  }
+
+  @Test
+  public void testDispatch() throws Exception {
+    when(bizConfig.releaseMessageNotificationRateLimit()).thenReturn(10000d);
+    notificationDispatcher = new DefaultNotificationDispatcher(bizConfig, meterRegistry);
+
+    List<DeferredResultWrapper> results = assembleDeferredResults(95);
+
+    notificationDispatcher.dispatch(someWatchKey, new ApolloConfigNotification("application", 1),
+        results);
+
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertAllNotified(results));
+    assertEquals(0, notificationDispatcher.getPendingNotifications());
+    assertEquals(0, meterRegistry.get("apollo.notification.dispatcher.pending").gauge().value(),
+        0.001);
+    assertEquals(10, meterRegistry.get("apollo.notification.dispatcher.latency").timer().count());
+  }
+
+  @Test
+  public void testDrainedKeysAreRemoved() throws Exception {
+    when(bizConfig.releaseMessageNotificationRateLimit()).thenReturn(10000d);
+    notificationDispatcher = new DefaultNotificationDispatcher(bizConfig, meterRegistry);
+
+    List<DeferredResultWrapper> someResults = assembleDeferredResults(15);
+    List<DeferredResultWrapper> anotherResults = assembleDeferredResults(5);
+
+    notificationDispatcher.dispatch(someWatchKey, new ApolloConfigNotification("application", 1),
+        someResults);
+    notificationDispatcher.dispatch(anotherWatchKey,
+        new ApolloConfigNotification("application", 2), anotherResults);
+
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> {
+      assertAllNotified(someResults);
+      assertAllNotified(anotherResults);
+      assertEquals(0, meterRegistry.get("apollo.notification.dispatcher.keys").gauge().value(),
+          0.001);
+    });
+
+    // the key is dispatched to again after its queue is removed
+    List<DeferredResultWrapper> moreResults = assembleDeferredResults(5);
+    notificationDispatcher.dispatch(someWatchKey, new ApolloConfigNotification("application", 3),
+        moreResults);
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(() -> assertAllNotified(moreResults));
+  }
+
+  @Test
+  public void testDispatchDoesNotBlockOtherKeys() throws Exception {
+    // 100 notifications per second, so the 1000 clients of some watch key need 10 seconds
+    when(bizConfig.releaseMessageNotificationRateLimit()).thenReturn(100d);
+    notificationDispatcher = new DefaultNotificationDispatcher(bizConfig, meterRegistry);
+
+    List<DeferredResultWrapper> someResults = assembleDeferredResults(1000);
+    List<DeferredResultWrapper> anotherResults = assembleDeferredResults(10);
+
+    notificationDispatcher.dispatch(someWatchKey,
+        new ApolloConfigNotification("application", 1), someResults);
+    notificationDispatcher.dispatch(anotherWatchKey,
+        new ApolloConfigNotification("application", 2), anotherResults);
+
+    await().atMost(2, TimeUnit.SECONDS).untilAsserted(() -> assertAllNotified(anotherResults));
+    assertFalse(someResults.get(someResults.size() - 1).getResult().hasResult());
+    assertTrue(notificationDispatcher.getPendingNotifications() > 0);
+  }
+
+  private List<DeferredResultWrapper> assembleDeferredResults(int size) {
+    List<DeferredResultWrapper> results = Lists.newArrayListWithCapacity(size);
+    for (int i = 0; i < size; i++) {
+      results.add(new DeferredResultWrapper(TimeUnit.MINUTES.toMillis(1)));
+    }
+    return results;
+  }
+
+  private void assertAllNotified(List<DeferredResultWrapper> results) {
+    for (DeferredResultWrapper result : results) {
+      assertTrue(result.getResult().hasResult());
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.ctrip.framework.apollo.configservice.service.AccessKeyServiceWithCache;
+import com.ctrip.framework.apollo.core.signature.Signature;
 import com.google.common.collect.Lists;
 import java.util.List;
 import javax.servlet.http.HttpServletRequest;
@@ -110,4 +111,20 @@ public class AccessKeyUtilTest {
     String expectedSignature = "WYjjyJFei6DYiaMlwZjew2O/Yqk=";
     assertThat(actualSignature).isEqualTo(expectedSignature);
   }
+
+  @Test
+  public void buildSignatureWithSigner() {
+    String path = "/configs/someAppId/default/application";
+    String query = "ip=10.0.0.1";
+    String timestamp = "1575018989200";
+    String secret = "someSecret";
+
+    when(accessKeyServiceWithCache.getSigner(secret)).thenReturn(new AccessKeySigner(secret));
+
+    String actualSignature = accessKeyUtil.buildSignature(path, query, timestamp, secret);
+    String anotherSignature = accessKeyUtil.buildSignature(path, null, timestamp, secret);
+
+    assertThat(actualSignature).isEqualTo("WYjjyJFei6DYiaMlwZjew2O/Yqk=");
+    assertThat(anotherSignature).isEqualTo(Signature.signature(timestamp, path, secret));
+  }
 }
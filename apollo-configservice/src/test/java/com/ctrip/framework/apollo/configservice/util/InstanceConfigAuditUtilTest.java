@@ -20,18 +20,29 @@ import com.ctrip.framework.apollo.biz.config.BizConfig;
 import com.ctrip.framework.apollo.biz.entity.Instance;
 import com.ctrip.framework.apollo.biz.entity.InstanceConfig;
 import com.ctrip.framework.apollo.biz.service.InstanceService;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
-import org.springframework.test.util.ReflectionTestUtils;
-
-import java.util.Objects;
-import java.util.concurrent.BlockingQueue;
 
+import static org.awaitility.Awaitility.await;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 /**
@@ -45,9 +56,7 @@ public class InstanceConfigAuditUtilTest {
   private InstanceService instanceService;
   @Mock
   private BizConfig bizConfig;
-  @Mock
   private MeterRegistry meterRegistry;
-  private BlockingQueue<InstanceConfigAuditUtil.InstanceConfigAuditModel> audits;
 
   private String someAppId;
   private String someConfigClusterName;
@@ -65,12 +74,11 @@ public class InstanceConfigAuditUtilTest {
     when(bizConfig.getInstanceConfigAuditMaxSize()).thenReturn(100);
     when(bizConfig.getInstanceCacheMaxSize()).thenReturn(100);
     when(bizConfig.getInstanceConfigCacheMaxSize()).thenReturn(100);
+    when(bizConfig.getInstanceConfigAuditWorkers()).thenReturn(1);
+    meterRegistry = new SimpleMeterRegistry();
 
     instanceConfigAuditUtil = new InstanceConfigAuditUtil(instanceService, bizConfig, meterRegistry);
 
-    audits = (BlockingQueue<InstanceConfigAuditUtil.InstanceConfigAuditModel>)
-        ReflectionTestUtils.getField(instanceConfigAuditUtil, "audits");
-
     someAppId = "someAppId";
     someClusterName = "someClusterName";
     someDataCenter = "someDataCenter";
@@ -85,34 +93,162 @@ public class InstanceConfigAuditUtilTest {
         someConfigNamespace, someReleaseKey);
   }
 
+  @After
+  public void tearDown() throws Exception {
+    instanceConfigAuditUtil.destroy();
+  }
+
   @Test
   public void testAudit() throws Exception {
+    long someInstanceId = 1;
+    mockCreateInstance(someInstanceId);
+    mockAuditWorker();
+
     boolean result = instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter,
         someIp, someConfigAppId, someConfigClusterName, someConfigNamespace, someReleaseKey);
-
-    InstanceConfigAuditUtil.InstanceConfigAuditModel audit = audits.poll();
+    instanceConfigAuditUtil.afterPropertiesSet();
 
     assertTrue(result);
-    assertTrue(Objects.equals(someAuditModel, audit));
+    ArgumentCaptor<InstanceConfig> captor = ArgumentCaptor.forClass(InstanceConfig.class);
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(
+        () -> verify(instanceService, times(1)).createInstanceConfig(captor.capture()));
+    assertEquals(someInstanceId, captor.getValue().getInstanceId());
+    assertEquals(someReleaseKey, captor.getValue().getReleaseKey());
   }
 
   @Test
-  public void testDoAudit() throws Exception {
+  public void testAuditCoalesced() throws Exception {
     long someInstanceId = 1;
-    Instance someInstance = mock(Instance.class);
+    String anotherReleaseKey = "anotherReleaseKey";
+    String yetAnotherReleaseKey = "yetAnotherReleaseKey";
+    mockCreateInstance(someInstanceId);
+    mockAuditWorker();
+
+    for (String releaseKey : Lists.newArrayList(someReleaseKey, anotherReleaseKey,
+        yetAnotherReleaseKey)) {
+      assertTrue(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter, someIp,
+          someConfigAppId, someConfigClusterName, someConfigNamespace, releaseKey));
+    }
+    instanceConfigAuditUtil.afterPropertiesSet();
+
+    ArgumentCaptor<InstanceConfig> captor = ArgumentCaptor.forClass(InstanceConfig.class);
+    await().atMost(5, TimeUnit.SECONDS).untilAsserted(
+        () -> verify(instanceService, times(1)).createInstanceConfig(captor.capture()));
+    assertEquals(yetAnotherReleaseKey, captor.getValue().getReleaseKey());
+    assertEquals(2,
+        meterRegistry.get("apollo.instance.config.audit.coalesced").counter().count(), 0.001);
+  }
 
-    when(someInstance.getId()).thenReturn(someInstanceId);
-    when(instanceService.createInstance(any(Instance.class))).thenReturn(someInstance);
+  @Test
+  public void testAuditDropped() throws Exception {
+    when(bizConfig.getInstanceConfigAuditMaxSize()).thenReturn(2);
+    instanceConfigAuditUtil.destroy();
+    meterRegistry = new SimpleMeterRegistry();
+    instanceConfigAuditUtil = new InstanceConfigAuditUtil(instanceService, bizConfig, meterRegistry);
+
+    assertTrue(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter, someIp,
+        someConfigAppId, someConfigClusterName, "someNamespace", someReleaseKey));
+    assertTrue(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter, someIp,
+        someConfigAppId, someConfigClusterName, "anotherNamespace", someReleaseKey));
+    // the same key is coalesced even if full
+    assertTrue(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter, someIp,
+        someConfigAppId, someConfigClusterName, "anotherNamespace", someReleaseKey));
+    assertFalse(instanceConfigAuditUtil.audit(someAppId, someClusterName, someDataCenter, someIp,
+        someConfigAppId, someConfigClusterName, "yetAnotherNamespace", someReleaseKey));
+
+    assertEquals(1,
+        meterRegistry.get("apollo.instance.config.audit.dropped").counter().count(), 0.001);
+    assertEquals(2,
+        meterRegistry.get("apollo.instance.config.audit.pending").gauge().value(), 0.001);
+  }
+
+  @Test
+  public void testDoAudit() throws Exception {
+    long someInstanceId = 1;
+    mockCreateInstance(someInstanceId);
 
     instanceConfigAuditUtil.doAudit(someAuditModel);
 
     verify(instanceService, times(1)).findInstance(someAppId, someClusterName, someDataCenter,
         someIp);
     verify(instanceService, times(1)).createInstance(any(Instance.class));
-    verify(instanceService, times(1)).findInstanceConfig(someInstanceId, someConfigAppId,
-        someConfigNamespace);
+    verify(instanceService, times(1)).findInstanceConfigs(someConfigAppId, someConfigNamespace,
+        Collections.singleton(someInstanceId));
     verify(instanceService, times(1)).createInstanceConfig(any(InstanceConfig.class));
   }
 
+  @Test
+  public void testDoAuditInBatch() throws Exception {
+    long someInstanceId = 1;
+    long anotherInstanceId = 2;
+    long yetAnotherInstanceId = 3;
+    String anotherIp = "anotherIp";
+    String yetAnotherIp = "yetAnotherIp";
+    String someOldReleaseKey = "someOldReleaseKey";
+    mockFindInstance(someIp, someInstanceId);
+    mockFindInstance(anotherIp, anotherInstanceId);
+    mockFindInstance(yetAnotherIp, yetAnotherInstanceId);
+
+    InstanceConfig someInstanceConfig = new InstanceConfig();
+    someInstanceConfig.setId(100);
+    someInstanceConfig.setInstanceId(someInstanceId);
+    someInstanceConfig.setReleaseKey(someOldReleaseKey);
+    someInstanceConfig.setDataChangeLastModifiedTime(new Date());
+    when(instanceService.findInstanceConfigs(eq(someConfigAppId), eq(someConfigNamespace),
+        anyCollection())).thenReturn(Lists.newArrayList(someInstanceConfig));
+
+    instanceConfigAuditUtil.doAudit(Lists.newArrayList(someAuditModel,
+        assembleAuditModel(anotherIp), assembleAuditModel(yetAnotherIp)));
+
+    verify(instanceService, times(1)).findInstanceConfigs(someConfigAppId, someConfigNamespace,
+        Sets.newHashSet(someInstanceId, anotherInstanceId, yetAnotherInstanceId));
+
+    ArgumentCaptor<List<InstanceConfig>> updateCaptor = ArgumentCaptor.forClass(List.class);
+    verify(instanceService, times(1)).batchUpdateInstanceConfigs(updateCaptor.capture());
+    assertEquals(1, updateCaptor.getValue().size());
+    assertEquals(someReleaseKey, updateCaptor.getValue().get(0).getReleaseKey());
+
+    ArgumentCaptor<List<InstanceConfig>> createCaptor = ArgumentCaptor.forClass(List.class);
+    verify(instanceService, times(1)).batchCreateInstanceConfigs(createCaptor.capture());
+    assertEquals(2, createCaptor.getValue().size());
+    verify(instanceService, never()).createInstanceConfig(any(InstanceConfig.class));
+  }
+
+  @Test
+  public void testDoAuditWithSameReleaseKeyCached() throws Exception {
+    long someInstanceId = 1;
+    mockCreateInstance(someInstanceId);
+
+    instanceConfigAuditUtil.doAudit(someAuditModel);
+    instanceConfigAuditUtil.doAudit(someAuditModel);
+
+    verify(instanceService, times(1)).findInstanceConfigs(eq(someConfigAppId),
+        eq(someConfigNamespace), anyCollection());
+    verify(instanceService, times(1)).createInstanceConfig(any(InstanceConfig.class));
+    verify(instanceService, never()).batchUpdateInstanceConfigs(anyList());
+  }
+
+  private void mockAuditWorker() {
+    when(bizConfig.getInstanceConfigAuditBatchSize()).thenReturn(100);
+    when(bizConfig.getInstanceConfigAuditFlushIntervalInMilli()).thenReturn(50);
+  }
+
+  private void mockCreateInstance(long instanceId) {
+    Instance someInstance = mock(Instance.class);
+    when(someInstance.getId()).thenReturn(instanceId);
+    when(instanceService.createInstance(any(Instance.class))).thenReturn(someInstance);
+  }
 
+  private void mockFindInstance(String ip, long instanceId) {
+    Instance instance = mock(Instance.class);
+    when(instance.getId()).thenReturn(instanceId);
+    when(instanceService.findInstance(someAppId, someClusterName, someDataCenter, ip))
+        .thenReturn(instance);
+  }
+
+  private InstanceConfigAuditUtil.InstanceConfigAuditModel assembleAuditModel(String ip) {
+    return new InstanceConfigAuditUtil.InstanceConfigAuditModel(someAppId, someClusterName,
+        someDataCenter, ip, someConfigAppId, someConfigClusterName, someConfigNamespace,
+        someReleaseKey);
+  }
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.ctrip.framework.apollo.core.dto.ApolloConfig;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+public class PreEncodedApolloConfigHttpMessageConverterTest {
+  private PreEncodedApolloConfigHttpMessageConverter converter;
+  private byte[] someBody;
+
+  @Before
+  public void setUp() throws Exception {
+    converter = new PreEncodedApolloConfigHttpMessageConverter();
+    someBody = "{\"appId\":\"someAppId\"}".getBytes(StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testCanWrite() throws Exception {
+    assertTrue(converter.canWrite(PreEncodedApolloConfig.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canWrite(ApolloConfig.class, MediaType.APPLICATION_JSON));
+    assertFalse(converter.canRead(PreEncodedApolloConfig.class, MediaType.APPLICATION_JSON));
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+    converter.write(assemblePreEncodedApolloConfig(false), MediaType.APPLICATION_JSON,
+        outputMessage);
+
+    assertArrayEquals(someBody, outputMessage.getBodyAsBytes());
+    assertEquals(someBody.length, outputMessage.getHeaders().getContentLength());
+    assertNull(outputMessage.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+  }
+
+  @Test
+  public void testWriteGzipped() throws Exception {
+    MockHttpOutputMessage outputMessage = new MockHttpOutputMessage();
+
+    converter.write(assemblePreEncodedApolloConfig(true), MediaType.APPLICATION_JSON,
+        outputMessage);
+
+    assertArrayEquals(someBody, outputMessage.getBodyAsBytes());
+    assertEquals("gzip", outputMessage.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+    assertEquals(HttpHeaders.ACCEPT_ENCODING,
+        outputMessage.getHeaders().getFirst(HttpHeaders.VARY));
+  }
+
+  private PreEncodedApolloConfig assemblePreEncodedApolloConfig(boolean gzipped) {
+    return new PreEncodedApolloConfig("someAppId", "someCluster", "someNamespace",
+        "someReleaseKey", Collections.emptyMap(), someBody, gzipped);
+  }
+}
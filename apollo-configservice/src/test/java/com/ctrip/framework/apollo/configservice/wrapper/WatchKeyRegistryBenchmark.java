@@ -0,0 +1,136 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.Ordering;
+import com.google.common.collect.TreeMultimap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link WatchKeyRegistry} with the synchronized tree multimap it replaced in
+ * NotificationControllerV2, run it with the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class WatchKeyRegistryBenchmark {
+  private static final int WATCH_KEYS = 1000;
+  private static final String HOT_KEY = "someAppId+default+application";
+
+  @Param({"1000", "100000", "1000000"})
+  private int watchers;
+
+  private WatchKeyRegistry<Watcher> registry;
+  private Multimap<String, Watcher> multimap;
+  private String[] keys;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    registry = new WatchKeyRegistry<>();
+    multimap = Multimaps.synchronizedSetMultimap(
+        TreeMultimap.create(String.CASE_INSENSITIVE_ORDER, Ordering.natural()));
+    keys = new String[WATCH_KEYS];
+    for (int i = 0; i < WATCH_KEYS; i++) {
+      keys[i] = "someAppId" + i + "+default+application";
+    }
+    // 10% of the watchers listen on the hot key, the others are spread over the remaining keys
+    for (int i = 0; i < watchers; i++) {
+      String key = i % 10 == 0 ? HOT_KEY : keys[i % WATCH_KEYS];
+      Watcher watcher = new Watcher();
+      registry.register(key, watcher);
+      multimap.put(key, watcher);
+    }
+  }
+
+  @Benchmark
+  public void registryRegisterAndUnregister() {
+    String key = randomKey();
+    Watcher watcher = new Watcher();
+    registry.register(key, watcher);
+    registry.unregister(key, watcher);
+  }
+
+  @Benchmark
+  public void multimapRegisterAndUnregister() {
+    String key = randomKey();
+    Watcher watcher = new Watcher();
+    multimap.put(key, watcher);
+    multimap.remove(key, watcher);
+  }
+
+  @Benchmark
+  public void registryNotify(Blackhole blackhole) {
+    String key = randomKey();
+    if (registry.containsKey(key)) {
+      blackhole.consume(Lists.newArrayList(registry.get(key)));
+    }
+  }
+
+  @Benchmark
+  public void multimapNotify(Blackhole blackhole) {
+    String key = randomKey();
+    if (multimap.containsKey(key)) {
+      blackhole.consume(Lists.newArrayList(multimap.get(key)));
+    }
+  }
+
+  private String randomKey() {
+    return keys[ThreadLocalRandom.current().nextInt(WATCH_KEYS)];
+  }
+
+  private static class Watcher implements Comparable<Watcher> {
+    @Override
+    public int compareTo(Watcher o) {
+      return Integer.compare(this.hashCode(), o.hashCode());
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(WatchKeyRegistryBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.configservice.wrapper;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WatchKeyRegistryTest {
+  private WatchKeyRegistry<Object> registry;
+
+  @Before
+  public void setUp() throws Exception {
+    registry = new WatchKeyRegistry<>();
+  }
+
+  @Test
+  public void testRegisterAndGetIgnoreCase() throws Exception {
+    String someKey = "someAppId+default+application";
+    Object someWatcher = new Object();
+    Object anotherWatcher = new Object();
+
+    registry.register(someKey, someWatcher);
+    registry.register(someKey.toUpperCase(), anotherWatcher);
+    registry.register(someKey, someWatcher);
+
+    assertEquals(2, registry.size());
+    assertEquals(1, registry.keySize());
+    assertTrue(registry.containsKey(someKey.toLowerCase()));
+    assertEquals(2, registry.get(someKey).size());
+    assertTrue(registry.get(someKey).contains(someWatcher));
+    assertTrue(registry.get(someKey).contains(anotherWatcher));
+  }
+
+  @Test
+  public void testUnregister() throws Exception {
+    String someKey = "someKey";
+    String anotherKey = "anotherKey";
+    Object someWatcher = new Object();
+    Object anotherWatcher = new Object();
+
+    registry.register(someKey, someWatcher);
+    registry.register(anotherKey, someWatcher);
+    registry.register(anotherKey, anotherWatcher);
+
+    registry.unregister(someKey, someWatcher);
+    registry.unregister(someKey, someWatcher);
+    registry.unregister(anotherKey.toUpperCase(), anotherWatcher);
+
+    assertEquals(1, registry.size());
+    assertFalse(registry.containsKey(someKey));
+    assertTrue(registry.get(someKey).isEmpty());
+    assertEquals(1, registry.keySize());
+    assertTrue(registry.get(anotherKey).contains(someWatcher));
+  }
+
+  @Test
+  public void testConcurrentRegisterAndUnregister() throws Exception {
+    String someKey = "someKey";
+    int threads = 8;
+    int watchersPerThread = 1000;
+    ExecutorService executorService = Executors.newFixedThreadPool(threads);
+    CountDownLatch latch = new CountDownLatch(threads);
+
+    for (int i = 0; i < threads; i++) {
+      executorService.submit(() -> {
+        try {
+          for (int j = 0; j < watchersPerThread; j++) {
+            Object watcher = new Object();
+            registry.register(someKey, watcher);
+            if (j % 2 == 0) {
+              registry.unregister(someKey, watcher);
+            }
+          }
+        } finally {
+          latch.countDown();
+        }
+      });
+    }
+
+    assertTrue(latch.await(10, TimeUnit.SECONDS));
+    executorService.shutdown();
+
+    assertEquals(threads * watchersPerThread / 2, registry.size());
+    assertEquals(threads * watchersPerThread / 2, registry.get(someKey).size());
+  }
+}
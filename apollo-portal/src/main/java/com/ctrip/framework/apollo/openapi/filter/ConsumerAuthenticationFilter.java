@@ -120,12 +120,22 @@ public class ConsumerAuthenticationFilter implements Filter {
 
   private ImmutablePair<Long, RateLimiter> getOrCreateRateLimiterPair(String key,
       Integer limitCount) {
+    ImmutablePair<Long, RateLimiter> rateLimiterPair;
     try {
-      return LIMITER.get(key,
-          () -> ImmutablePair.of(System.currentTimeMillis(), RateLimiter.create(limitCount)));
+      rateLimiterPair = LIMITER.get(key, () -> createRateLimiterPair(limitCount));
     } catch (ExecutionException e) {
       throw new RuntimeException("Failed to create rate limiter", e);
     }
+    // the cached token is refreshed in the background, so its rate limit may have been changed
+    if (rateLimiterPair.getRight().getRate() != limitCount) {
+      rateLimiterPair = createRateLimiterPair(limitCount);
+      LIMITER.put(key, rateLimiterPair);
+    }
+    return rateLimiterPair;
+  }
+
+  private static ImmutablePair<Long, RateLimiter> createRateLimiterPair(Integer limitCount) {
+    return ImmutablePair.of(System.currentTimeMillis(), RateLimiter.create(limitCount));
   }
 
 }
@@ -19,7 +19,9 @@ package com.ctrip.framework.apollo.openapi.repository;
 import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
 
 import java.util.List;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Date;
 
@@ -39,4 +41,17 @@ public interface ConsumerTokenRepository extends PagingAndSortingRepository<Cons
 
   List<ConsumerToken> findByConsumerIdIn(List<Long> consumerIds);
 
+  @Query(value = "SELECT MAX(`DataChange_LastTime`) FROM `ConsumerToken`", nativeQuery = true)
+  Date findMaxDataChangeLastTime();
+
+  /**
+   * The deleted tokens are included, the rows are ordered by (DataChange_LastTime, Id) and start
+   * after the given pair.
+   */
+  @Query(value = "SELECT * FROM `ConsumerToken` WHERE `DataChange_LastTime` >= :fromTime"
+      + " AND (`DataChange_LastTime` > :fromTime OR `Id` > :fromId)"
+      + " ORDER BY `DataChange_LastTime`, `Id` LIMIT :limit", nativeQuery = true)
+  List<ConsumerToken> findChangedAfter(@Param("fromTime") Date fromTime,
+      @Param("fromId") long fromId, @Param("limit") int limit);
+
 }
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.openapi.service;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Service;
+
+/**
+ * Caches the consumer tokens, so that the OpenAPI requests are authenticated without querying the
+ * PortalDB, when consumer.token.cache.enabled is on.
+ * <p>
+ * The tokens are loaded in the background, then the changes made through all the portal instances
+ * are picked up by their DataChange_LastTime. The expired tokens are rejected and dropped without
+ * asking the database. A token not cached yet, e.g. created a moment ago, is looked up in the
+ * database, and the unknown ones are remembered for a while.
+ * <p>
+ * A cached token keeps its instance until it's changed, so it can be used as the key of the state
+ * kept per token, like the rate limiter.
+ */
+@Service
+public class ConsumerTokenCache implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(ConsumerTokenCache.class);
+  private static final int BATCH_SIZE = 500;
+  private static final long REFRESH_INTERVAL_IN_MILLI = 1000;
+  // the rows committed late with an earlier DataChange_LastTime are still picked up in this window
+  private static final long CHANGE_OVERLAP_IN_MILLI = 60 * 1000;
+  private static final int UNKNOWN_TOKEN_CACHE_MAX_SIZE = 10000;
+  private static final long UNKNOWN_TOKEN_EXPIRE_IN_SECOND = 60;
+
+  private static final String METRIC_NAME = "apollo.openapi.consumer.token.cache";
+
+  private final ConsumerTokenRepository consumerTokenRepository;
+  private final PortalConfig portalConfig;
+  private final ScheduledExecutorService executorService;
+  private final ConcurrentMap<String, ConsumerToken> tokens = new ConcurrentHashMap<>();
+  private final Cache<String, Boolean> unknownTokens = CacheBuilder.newBuilder()
+      .expireAfterWrite(UNKNOWN_TOKEN_EXPIRE_IN_SECOND, TimeUnit.SECONDS)
+      .maximumSize(UNKNOWN_TOKEN_CACHE_MAX_SIZE).build();
+  private final Counter hitCounter;
+  private final Counter missCounter;
+
+  private volatile boolean loaded;
+
+  // only accessed by the refresh thread
+  private Date lastChangeTime;
+
+  public ConsumerTokenCache(final ConsumerTokenRepository consumerTokenRepository,
+      final PortalConfig portalConfig, final MeterRegistry meterRegistry) {
+    this.consumerTokenRepository = consumerTokenRepository;
+    this.portalConfig = portalConfig;
+    this.executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("ConsumerTokenCache", true));
+    this.hitCounter = meterRegistry.counter(METRIC_NAME, "result", "hit");
+    this.missCounter = meterRegistry.counter(METRIC_NAME, "result", "miss");
+    Gauge.builder(METRIC_NAME + ".size", tokens, ConcurrentMap::size).register(meterRegistry);
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    executorService.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (Throwable ex) {
+        logger.error("Refresh consumer token cache failed", ex);
+        Tracer.logError(ex);
+      }
+    }, 0, REFRESH_INTERVAL_IN_MILLI, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * @return the token if it's not expired, otherwise null
+   */
+  public ConsumerToken getConsumerToken(String token) {
+    if (Strings.isNullOrEmpty(token)) {
+      return null;
+    }
+    if (!loaded) {
+      return findConsumerToken(token);
+    }
+
+    ConsumerToken consumerToken = tokens.get(token);
+    if (consumerToken != null) {
+      hitCounter.increment();
+      return isValid(consumerToken, new Date()) ? consumerToken : null;
+    }
+    if (unknownTokens.getIfPresent(token) != null) {
+      hitCounter.increment();
+      return null;
+    }
+
+    missCounter.increment();
+    consumerToken = findConsumerToken(token);
+    if (consumerToken == null) {
+      unknownTokens.put(token, Boolean.TRUE);
+      return null;
+    }
+    ConsumerToken cached = tokens.putIfAbsent(consumerToken.getToken(), consumerToken);
+    return cached == null ? consumerToken : cached;
+  }
+
+  /**
+   * The Token column is compared case-insensitively by the database, while the cache is keyed by
+   * the exact token, so a token differing in case is rejected. Otherwise it would be cached under a
+   * key which is never removed when the token is deleted.
+   */
+  private ConsumerToken findConsumerToken(String token) {
+    ConsumerToken consumerToken =
+        consumerTokenRepository.findTopByTokenAndExpiresAfter(token, new Date());
+    return consumerToken == null || !token.equals(consumerToken.getToken()) ? null : consumerToken;
+  }
+
+  void refresh() {
+    if (!portalConfig.isConsumerTokenCacheEnabled()) {
+      if (lastChangeTime != null) {
+        loaded = false;
+        tokens.clear();
+        unknownTokens.invalidateAll();
+        lastChangeTime = null;
+        logger.info("Consumer token cache is dropped");
+      }
+      return;
+    }
+
+    if (lastChangeTime == null) {
+      load();
+    } else {
+      applyChanges();
+    }
+    removeExpired();
+  }
+
+  private void load() {
+    // taken before the scan, the tokens changed during the scan are applied afterwards
+    Date maxChangeTime = consumerTokenRepository.findMaxDataChangeLastTime();
+
+    Date now = new Date();
+    for (ConsumerToken consumerToken : consumerTokenRepository.findAll()) {
+      if (isValid(consumerToken, now)) {
+        tokens.put(consumerToken.getToken(), consumerToken);
+      }
+    }
+    lastChangeTime = maxChangeTime == null ? new Date(0) : maxChangeTime;
+
+    applyChanges();
+    loaded = true;
+    logger.info("Consumer token cache is loaded with {} tokens", tokens.size());
+  }
+
+  private void applyChanges() {
+    Date fromTime = new Date(lastChangeTime.getTime() - CHANGE_OVERLAP_IN_MILLI);
+    long fromId = 0;
+    List<ConsumerToken> changedTokens;
+    do {
+      changedTokens = consumerTokenRepository.findChangedAfter(fromTime, fromId, BATCH_SIZE);
+      for (ConsumerToken changedToken : changedTokens) {
+        apply(changedToken);
+        fromTime = changedToken.getDataChangeLastModifiedTime();
+        fromId = changedToken.getId();
+      }
+
+      if (fromTime.after(lastChangeTime)) {
+        lastChangeTime = fromTime;
+      }
+    } while (changedTokens.size() == BATCH_SIZE);
+  }
+
+  private void apply(ConsumerToken changedToken) {
+    String token = changedToken.getToken();
+    if (changedToken.isDeleted()) {
+      // a token may be deleted and created again, only the deleted row is removed
+      tokens.computeIfPresent(token,
+          (key, cached) -> cached.getId() == changedToken.getId() ? null : cached);
+      return;
+    }
+
+    unknownTokens.invalidate(token);
+    tokens.merge(token, changedToken,
+        (cached, changed) -> isSameVersion(cached, changed) ? cached : changed);
+  }
+
+  private void removeExpired() {
+    Date now = new Date();
+    tokens.values().removeIf(consumerToken -> !isValid(consumerToken, now));
+  }
+
+  private static boolean isSameVersion(ConsumerToken cached, ConsumerToken changed) {
+    return cached.getId() == changed.getId() && cached.getDataChangeLastModifiedTime().getTime()
+        == changed.getDataChangeLastModifiedTime().getTime();
+  }
+
+  private static boolean isValid(ConsumerToken consumerToken, Date now) {
+    return consumerToken.getExpires() != null && consumerToken.getExpires().after(now);
+  }
+}
@@ -18,6 +18,7 @@ package com.ctrip.framework.apollo.openapi.util;
 
 import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
 import com.ctrip.framework.apollo.openapi.service.ConsumerService;
+import com.ctrip.framework.apollo.openapi.service.ConsumerTokenCache;
 import org.springframework.stereotype.Service;
 
 import javax.servlet.http.HttpServletRequest;
@@ -31,9 +32,12 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 public class ConsumerAuthUtil {
   public static final String CONSUMER_ID = "ApolloConsumerId";
   private final ConsumerService consumerService;
+  private final ConsumerTokenCache consumerTokenCache;
 
-  public ConsumerAuthUtil(final ConsumerService consumerService) {
+  public ConsumerAuthUtil(final ConsumerService consumerService,
+      final ConsumerTokenCache consumerTokenCache) {
     this.consumerService = consumerService;
+    this.consumerTokenCache = consumerTokenCache;
   }
 
   public Long getConsumerId(String token) {
@@ -41,7 +45,7 @@ public class ConsumerAuthUtil {
   }
 
   public ConsumerToken getConsumerToken(String token) {
-    return consumerService.getConsumerTokenByToken(token);
+    return consumerTokenCache.getConsumerToken(token);
   }
 
   public void storeConsumerId(HttpServletRequest request, Long consumerId) {
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.portal.api;
 
 
+import com.ctrip.framework.apollo.portal.component.AdminServiceAsyncClient;
 import com.ctrip.framework.apollo.portal.component.RetryableRestTemplate;
 
 import org.springframework.beans.factory.annotation.Autowired;
@@ -26,4 +27,7 @@ public abstract class API {
   @Autowired
   protected RetryableRestTemplate restTemplate;
 
+  @Autowired
+  protected AdminServiceAsyncClient asyncClient;
+
 }
@@ -40,6 +40,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 
 @Service
@@ -198,6 +199,20 @@ public class AdminServiceAPI {
       return Arrays.asList(itemDTOs);
     }
 
+    public CompletableFuture<List<ItemDTO>> findItemsAsync(String appId, Env env,
+        String clusterName, String namespaceName) {
+      return asyncClient.get(env,
+          "apps/{appId}/clusters/{clusterName}/namespaces/{namespaceName}/items", ItemDTO[].class,
+          appId, clusterName, namespaceName).thenApply(Arrays::asList);
+    }
+
+    public CompletableFuture<List<ItemDTO>> findDeletedItemsAsync(String appId, Env env,
+        String clusterName, String namespaceName) {
+      return asyncClient.get(env,
+          "apps/{appId}/clusters/{clusterName}/namespaces/{namespaceName}/items/deleted",
+          ItemDTO[].class, appId, clusterName, namespaceName).thenApply(Arrays::asList);
+    }
+
     public PageDTO<ItemInfoDTO> getPerEnvItemInfoBySearch(Env env, String key, String value,
         int page, int size) {
       ResponseEntity<PageDTO<ItemInfoDTO>> entity = restTemplate.get(env,
@@ -379,6 +394,13 @@ public class AdminServiceAPI {
       return releaseDTO;
     }
 
+    public CompletableFuture<ReleaseDTO> loadLatestReleaseAsync(String appId, Env env,
+        String clusterName, String namespace) {
+      return asyncClient.get(env,
+          "apps/{appId}/clusters/{clusterName}/namespaces/{namespaceName}/releases/latest",
+          ReleaseDTO.class, appId, clusterName, namespace);
+    }
+
     public ReleaseDTO createRelease(String appId, Env env, String clusterName, String namespace,
         String releaseName, String releaseComment, String operator, boolean isEmergencyPublish) {
       HttpHeaders headers = new HttpHeaders();
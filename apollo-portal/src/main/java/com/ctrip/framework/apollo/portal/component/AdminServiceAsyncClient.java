@@ -0,0 +1,412 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.common.exception.ServiceException;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.constant.TracerEventType;
+import com.ctrip.framework.apollo.portal.environment.Env;
+import com.ctrip.framework.apollo.portal.environment.PortalMetaDomainService;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.gson.Gson;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.nio.protocol.BasicAsyncRequestProducer;
+import org.apache.http.nio.protocol.BasicAsyncResponseConsumer;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.GsonHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.UnknownHttpStatusCodeException;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+import org.springframework.web.util.DefaultUriBuilderFactory.EncodingMode;
+
+/**
+ * Sends the GET requests to the admin services without holding a thread while they are in flight,
+ * so a page showing many namespaces issues all its requests at once.
+ * <p>
+ * Like {@link RetryableRestTemplate}, a request fails over to the next admin service when the
+ * connection fails or times out. Since the GET requests are idempotent, a request not answered
+ * within api.hedgeDelay after it was sent is sent to the next admin service as well, and the first
+ * response wins. At most api.hedge.max.in.flight hedged requests are in flight at once, so a slow
+ * admin service does not double the load on the others.
+ * The connections are pooled per env, and the responses are read with the Gson of the
+ * {@link HttpMessageConverters}, the same as the {@link RetryableRestTemplate} does.
+ */
+@Component
+public class AdminServiceAsyncClient implements DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(AdminServiceAsyncClient.class);
+
+  private final AdminServiceAddressLocator adminServiceAddressLocator;
+  private final RetryableRestTemplate retryableRestTemplate;
+  private final PortalMetaDomainService portalMetaDomainService;
+  private final PortalConfig portalConfig;
+  private final Gson gson;
+  private final DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory();
+  private final ConcurrentMap<Env, CloseableHttpAsyncClient> httpClients =
+      new ConcurrentHashMap<>();
+  // only triggers the hedged requests, which are sent without blocking
+  private final ScheduledExecutorService hedgeExecutorService;
+  private final AtomicInteger hedgesInFlight = new AtomicInteger();
+
+  public AdminServiceAsyncClient(final @Lazy AdminServiceAddressLocator adminServiceAddressLocator,
+      final RetryableRestTemplate retryableRestTemplate,
+      final PortalMetaDomainService portalMetaDomainService, final PortalConfig portalConfig,
+      final HttpMessageConverters httpMessageConverters) {
+    this.adminServiceAddressLocator = adminServiceAddressLocator;
+    this.retryableRestTemplate = retryableRestTemplate;
+    this.portalMetaDomainService = portalMetaDomainService;
+    this.portalConfig = portalConfig;
+    this.gson = httpMessageConverters.getConverters().stream()
+        .filter(GsonHttpMessageConverter.class::isInstance)
+        .map(converter -> ((GsonHttpMessageConverter) converter).getGson()).findFirst()
+        .orElseGet(Gson::new);
+    // expands the uri variables the same way as the RestTemplate
+    this.uriBuilderFactory.setEncodingMode(EncodingMode.URI_COMPONENT);
+    this.hedgeExecutorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("AdminServiceHedge", true));
+  }
+
+  public <T> CompletableFuture<T> get(Env env, String path, Class<T> responseType,
+      Object... uriVariables) {
+    return execute(env, path, responseType, uriVariables);
+  }
+
+  public <T> CompletableFuture<T> get(Env env, String path,
+      ParameterizedTypeReference<T> reference, Object... uriVariables) {
+    return execute(env, path, reference.getType(), uriVariables);
+  }
+
+  @Override
+  public void destroy() {
+    hedgeExecutorService.shutdownNow();
+    for (CloseableHttpAsyncClient httpClient : httpClients.values()) {
+      try {
+        httpClient.close();
+      } catch (IOException ex) {
+        logger.warn("Close admin service http client failed", ex);
+      }
+    }
+  }
+
+  private <T> CompletableFuture<T> execute(Env env, String path, Type responseType,
+      Object... uriVariables) {
+    if (path.startsWith("/")) {
+      path = path.substring(1);
+    }
+
+    List<ServiceDTO> services = adminServiceAddressLocator.getServiceList(env);
+    if (CollectionUtils.isEmpty(services)) {
+      CompletableFuture<T> result = new CompletableFuture<>();
+      result.completeExceptionally(new ServiceException(String.format(
+          "No available admin server. Maybe because of meta server down or all admin server down. "
+              + "Meta server address: %s", portalMetaDomainService.getDomain(env))));
+      return result;
+    }
+
+    HedgedRequest<T> request = new HedgedRequest<>(env, services, path, responseType,
+        retryableRestTemplate.assembleExtraHeaders(env), uriVariables);
+    request.sendNext();
+    return request.result;
+  }
+
+  private CloseableHttpAsyncClient httpClient(Env env) {
+    return httpClients.computeIfAbsent(env, key -> {
+      CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+          .setMaxConnTotal(portalConfig.connectPoolMaxTotal())
+          .setMaxConnPerRoute(portalConfig.asyncConnectPoolMaxPerRoute())
+          .setDefaultRequestConfig(RequestConfig.custom()
+              .setConnectTimeout(portalConfig.connectTimeout())
+              .setSocketTimeout(portalConfig.readTimeout())
+              .setConnectionRequestTimeout(portalConfig.readTimeout()).build())
+          .setThreadFactory(ApolloThreadFactory.create("AdminServiceAsyncClient-" + env, true))
+          .build();
+      httpClient.start();
+      return httpClient;
+    });
+  }
+
+  /**
+   * @param onSent called once the request is written to a connection, i.e. not while it waits for
+   * a connection from the pool
+   */
+  private CompletableFuture<String> send(Env env, URI uri, HttpHeaders extraHeaders,
+      Runnable onSent) {
+    HttpGet request = new HttpGet(uri);
+    if (extraHeaders != null) {
+      extraHeaders.forEach((name, values) -> values.forEach(value -> request.addHeader(name,
+          value)));
+    }
+
+    CompletableFuture<String> response = new CompletableFuture<>();
+    BasicAsyncRequestProducer requestProducer =
+        new BasicAsyncRequestProducer(URIUtils.extractHost(uri), request) {
+          @Override
+          public void requestCompleted(HttpContext context) {
+            super.requestCompleted(context);
+            onSent.run();
+          }
+        };
+    Future<HttpResponse> httpResponse = httpClient(env).execute(requestProducer,
+        new BasicAsyncResponseConsumer(), new FutureCallback<HttpResponse>() {
+          @Override
+          public void completed(HttpResponse result) {
+            try {
+              response.complete(readBody(result));
+            } catch (Throwable ex) {
+              response.completeExceptionally(ex);
+            }
+          }
+
+          @Override
+          public void failed(Exception ex) {
+            response.completeExceptionally(ex);
+          }
+
+          @Override
+          public void cancelled() {
+            response.cancel(false);
+          }
+        });
+    // releases the connection of a request no longer needed, e.g. the slower hedged one
+    response.whenComplete((body, ex) -> {
+      if (response.isCancelled()) {
+        httpResponse.cancel(true);
+      }
+    });
+    return response;
+  }
+
+  private static String readBody(HttpResponse response) throws IOException {
+    String body = response.getEntity() == null ? null
+        : EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8);
+    int statusCode = response.getStatusLine().getStatusCode();
+    if (statusCode < 400) {
+      return body;
+    }
+
+    String statusText = response.getStatusLine().getReasonPhrase();
+    HttpHeaders headers = new HttpHeaders();
+    for (Header header : response.getAllHeaders()) {
+      headers.add(header.getName(), header.getValue());
+    }
+    byte[] bytes = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+    HttpStatus status = HttpStatus.resolve(statusCode);
+    if (status == null) {
+      throw new UnknownHttpStatusCodeException(statusCode, statusText, headers, bytes,
+          StandardCharsets.UTF_8);
+    }
+    if (status.is4xxClientError()) {
+      throw HttpClientErrorException.create(status, statusText, headers, bytes,
+          StandardCharsets.UTF_8);
+    }
+    throw HttpServerErrorException.create(status, statusText, headers, bytes,
+        StandardCharsets.UTF_8);
+  }
+
+  private String parseHost(ServiceDTO serviceAddress) {
+    String homepageUrl = serviceAddress.getHomepageUrl();
+    Objects.requireNonNull(homepageUrl, "homepageUrl");
+    return homepageUrl.endsWith("/") ? homepageUrl : homepageUrl + "/";
+  }
+
+  // the same exceptions as RetryableRestTemplate retries the GET requests on, a timeout waiting
+  // for a pooled connection says nothing about the admin service, so it is not retried
+  private static boolean canRetry(Throwable ex) {
+    return ex instanceof SocketTimeoutException || ex instanceof ConnectException
+        || (ex instanceof ConnectTimeoutException
+        && !(ex instanceof ConnectionPoolTimeoutException));
+  }
+
+  private boolean tryAcquireHedge() {
+    int maxInFlight = portalConfig.hedgeMaxInFlight();
+    while (true) {
+      int inFlight = hedgesInFlight.get();
+      if (inFlight >= maxInFlight) {
+        return false;
+      }
+      if (hedgesInFlight.compareAndSet(inFlight, inFlight + 1)) {
+        return true;
+      }
+    }
+  }
+
+  private class HedgedRequest<T> {
+
+    private final Env env;
+    private final List<ServiceDTO> services;
+    private final String path;
+    private final Type responseType;
+    private final HttpHeaders extraHeaders;
+    private final Object[] uriVariables;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+
+    // guarded by this
+    private int nextService;
+    private int inFlight;
+
+    private HedgedRequest(Env env, List<ServiceDTO> services, String path, Type responseType,
+        HttpHeaders extraHeaders, Object[] uriVariables) {
+      this.env = env;
+      this.services = services;
+      this.path = path;
+      this.responseType = responseType;
+      this.extraHeaders = extraHeaders;
+      this.uriVariables = uriVariables;
+    }
+
+    void sendNext() {
+      sendNext(false);
+    }
+
+    private void sendNext(boolean hedge) {
+      ServiceDTO service;
+      synchronized (this) {
+        if (result.isDone() || nextService >= services.size()) {
+          if (hedge) {
+            hedgesInFlight.decrementAndGet();
+          }
+          return;
+        }
+        service = services.get(nextService++);
+        inFlight++;
+      }
+
+      CompletableFuture<String> response;
+      try {
+        URI uri = uriBuilderFactory.expand(parseHost(service) + path, uriVariables);
+        response = send(env, uri, extraHeaders, this::scheduleHedge);
+      } catch (Throwable ex) {
+        if (hedge) {
+          hedgesInFlight.decrementAndGet();
+        }
+        onFailure(ex);
+        return;
+      }
+      if (hedge) {
+        response.whenComplete((body, ex) -> hedgesInFlight.decrementAndGet());
+      }
+      result.whenComplete((value, ex) -> response.cancel(false));
+      response.whenComplete((body, ex) -> {
+        if (ex == null) {
+          onResponse(body);
+        } else {
+          onFailure(ex);
+        }
+      });
+    }
+
+    // the delay starts once the request is sent, so waiting for a pooled connection is not hedged
+    private void scheduleHedge() {
+      int hedgeDelay = portalConfig.hedgeDelay();
+      if (hedgeDelay <= 0 || !hasNextService()) {
+        return;
+      }
+      hedgeExecutorService.schedule(() -> {
+        if (!result.isDone() && hasNextService() && tryAcquireHedge()) {
+          Tracer.logEvent(TracerEventType.API_RETRY, path);
+          sendNext(true);
+        }
+      }, hedgeDelay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized boolean hasNextService() {
+      return nextService < services.size();
+    }
+
+    private void onResponse(String body) {
+      try {
+        result.complete(decode(body));
+      } catch (Throwable ex) {
+        result.completeExceptionally(ex);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decode(String body) {
+      if (responseType == String.class) {
+        return (T) body;
+      }
+      return gson.fromJson(body, responseType);
+    }
+
+    private void onFailure(Throwable ex) {
+      if (result.isDone()) {
+        return;
+      }
+      logger.error("Http request failed, uri: {}, method: GET", path, ex);
+      Tracer.logError(ex);
+      if (!canRetry(ex)) {
+        result.completeExceptionally(ex);
+        return;
+      }
+
+      Tracer.logEvent(TracerEventType.API_RETRY, path);
+      boolean allFailed;
+      synchronized (this) {
+        inFlight--;
+        allFailed = nextService >= services.size() && inFlight == 0;
+      }
+      if (allFailed) {
+        result.completeExceptionally(new ServiceException(String.format(
+            "Admin servers are unresponsive. meta server address: %s, admin servers: %s",
+            portalMetaDomainService.getDomain(env), services)));
+      } else {
+        sendNext();
+      }
+    }
+  }
+}
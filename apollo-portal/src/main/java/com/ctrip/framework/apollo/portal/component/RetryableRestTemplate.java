@@ -207,7 +207,7 @@ public class RetryableRestTemplate {
 
   }
 
-  private HttpHeaders assembleExtraHeaders(Env env) {
+  HttpHeaders assembleExtraHeaders(Env env) {
     String adminServiceAccessToken = getAdminServiceAccessToken(env);
 
     if (!Strings.isNullOrEmpty(adminServiceAccessToken)) {
@@ -0,0 +1,303 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.po.Permission;
+import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import com.ctrip.framework.apollo.tracer.Tracer;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Materializes the permissions of the users, so that the permission checks, which a portal page
+ * runs once per namespace and cluster, are answered without querying the PortalDB, when
+ * user.permission.cache.enabled is on.
+ * <p>
+ * The permissions of a user are loaded on the first check and kept for a while. They are
+ * invalidated when the roles of the user are changed, right after the transaction commits on this
+ * instance, and by following the UserRole rows through their DataChange_LastTime on the other
+ * instances. The roles are bound to their permissions when created and are deleted together with
+ * their user roles, so the UserRole rows tell whose permissions are changed.
+ */
+public class UserPermissionCache implements InitializingBean, DisposableBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(UserPermissionCache.class);
+  private static final int BATCH_SIZE = 1000;
+  private static final long REFRESH_INTERVAL_IN_MILLI = 1000;
+  // the rows committed late with an earlier DataChange_LastTime are still picked up in this window
+  private static final long CHANGE_OVERLAP_IN_MILLI = 60 * 1000;
+  private static final int CACHE_MAX_SIZE = 10000;
+  private static final long EXPIRE_IN_MINUTES = 10;
+
+  private final PermissionRepository permissionRepository;
+  private final UserRoleRepository userRoleRepository;
+  private final PortalConfig portalConfig;
+  private final ScheduledExecutorService executorService;
+  private final Cache<String, UserPermissions> permissions = CacheBuilder.newBuilder()
+      .expireAfterWrite(EXPIRE_IN_MINUTES, TimeUnit.MINUTES).maximumSize(CACHE_MAX_SIZE).build();
+  // the generation each user is invalidated at, outlives the permissions loaded before it
+  private final Cache<String, Long> invalidations = CacheBuilder.newBuilder()
+      .expireAfterWrite(EXPIRE_IN_MINUTES + 1, TimeUnit.MINUTES).build();
+  private final AtomicLong generation = new AtomicLong();
+  private volatile long allInvalidatedGeneration;
+
+  private volatile boolean active;
+
+  // only accessed by the refresh thread
+  private Date lastChangeTime;
+  private final Map<Long, SeenChange> seenChanges = Maps.newHashMap();
+
+  public UserPermissionCache(final PermissionRepository permissionRepository,
+      final UserRoleRepository userRoleRepository, final PortalConfig portalConfig) {
+    this.permissionRepository = permissionRepository;
+    this.userRoleRepository = userRoleRepository;
+    this.portalConfig = portalConfig;
+    this.executorService = Executors.newSingleThreadScheduledExecutor(
+        ApolloThreadFactory.create("UserPermissionCache", true));
+  }
+
+  @Override
+  public void afterPropertiesSet() {
+    executorService.scheduleWithFixedDelay(() -> {
+      try {
+        refresh();
+      } catch (Throwable ex) {
+        logger.error("Refresh user permission cache failed", ex);
+        Tracer.logError(ex);
+      }
+    }, 0, REFRESH_INTERVAL_IN_MILLI, TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void destroy() {
+    executorService.shutdownNow();
+  }
+
+  /**
+   * @return false if the cache is disabled or not following the changes yet, then the permissions
+   * should be checked against the database
+   */
+  public boolean isActive() {
+    return active;
+  }
+
+  public boolean hasPermission(String userId, String permissionType, String targetId) {
+    return get(userId).contains(key(permissionType, targetId));
+  }
+
+  public boolean hasAnyPermission(String userId, List<Permission> permissions) {
+    Set<String> userPermissions = get(userId);
+    return permissions.stream().anyMatch(permission -> userPermissions
+        .contains(key(permission.getPermissionType(), permission.getTargetId())));
+  }
+
+  /**
+   * Invalidates the permissions of the users once the current transaction commits.
+   */
+  public void invalidate(Collection<String> userIds) {
+    Set<String> toInvalidate = ImmutableSet.copyOf(userIds);
+    runAfterCommit(() -> toInvalidate.forEach(this::invalidateNow));
+  }
+
+  /**
+   * Invalidates the permissions of all the users once the current transaction commits.
+   */
+  public void invalidateAll() {
+    runAfterCommit(() -> {
+      allInvalidatedGeneration = generation.incrementAndGet();
+      permissions.invalidateAll();
+    });
+  }
+
+  void refresh() {
+    if (!portalConfig.isUserPermissionCacheEnabled()) {
+      if (lastChangeTime != null) {
+        active = false;
+        permissions.invalidateAll();
+        seenChanges.clear();
+        lastChangeTime = null;
+        logger.info("User permission cache is dropped");
+      }
+      return;
+    }
+
+    if (lastChangeTime == null) {
+      Date maxChangeTime = userRoleRepository.findMaxDataChangeLastTime();
+      lastChangeTime = maxChangeTime == null ? new Date(0) : maxChangeTime;
+      allInvalidatedGeneration = generation.incrementAndGet();
+      permissions.invalidateAll();
+      active = true;
+      logger.info("User permission cache is enabled");
+    }
+    applyChanges();
+  }
+
+  private void applyChanges() {
+    Date fromTime = new Date(lastChangeTime.getTime() - CHANGE_OVERLAP_IN_MILLI);
+    long windowStart = fromTime.getTime();
+    seenChanges.values().removeIf(seenChange -> seenChange.changeTime < windowStart);
+
+    long fromId = 0;
+    List<Object[]> rows;
+    do {
+      rows = userRoleRepository.findChangedAfter(fromTime, fromId, BATCH_SIZE);
+      for (Object[] row : rows) {
+        long userRoleId = ((Number) row[0]).longValue();
+        Date changeTime = (Date) row[2];
+        // the rows in the overlap window are read again, each change is applied once, the
+        // DataChange_LastTime is in seconds, so a deletion in the same second is told by IsDeleted
+        SeenChange seenChange = new SeenChange(changeTime.getTime(), isDeleted(row[3]));
+        if (!seenChange.equals(seenChanges.put(userRoleId, seenChange))) {
+          invalidateNow((String) row[1]);
+        }
+        fromTime = changeTime;
+        fromId = userRoleId;
+      }
+
+      if (fromTime.after(lastChangeTime)) {
+        lastChangeTime = fromTime;
+      }
+    } while (rows.size() == BATCH_SIZE);
+  }
+
+  private Set<String> get(String userId) {
+    UserPermissions userPermissions = getOrLoad(userId);
+    // loaded before the user is invalidated, but put into the cache afterwards
+    if (isStale(userId, userPermissions)) {
+      permissions.asMap().remove(userId, userPermissions);
+      userPermissions = getOrLoad(userId);
+    }
+    return userPermissions.keys;
+  }
+
+  private UserPermissions getOrLoad(String userId) {
+    try {
+      return permissions.get(userId, () -> load(userId));
+    } catch (ExecutionException ex) {
+      throw new IllegalStateException("Load permissions of user " + userId + " failed",
+          ex.getCause());
+    }
+  }
+
+  private UserPermissions load(String userId) {
+    // taken before the query, so an invalidation during the query makes it stale
+    long loadedGeneration = generation.get();
+    ImmutableSet.Builder<String> keys = ImmutableSet.builder();
+    for (Permission permission : permissionRepository.findUserPermissions(userId)) {
+      keys.add(key(permission.getPermissionType(), permission.getTargetId()));
+    }
+    return new UserPermissions(loadedGeneration, keys.build());
+  }
+
+  private boolean isStale(String userId, UserPermissions userPermissions) {
+    if (userPermissions.generation < allInvalidatedGeneration) {
+      return true;
+    }
+    Long invalidatedGeneration = invalidations.getIfPresent(userId);
+    return invalidatedGeneration != null && userPermissions.generation < invalidatedGeneration;
+  }
+
+  private void invalidateNow(String userId) {
+    if (userId == null) {
+      return;
+    }
+    invalidations.put(userId, generation.incrementAndGet());
+    permissions.invalidate(userId);
+  }
+
+  private static void runAfterCommit(Runnable runnable) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      runnable.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        runnable.run();
+      }
+    });
+  }
+
+  private static boolean isDeleted(Object isDeleted) {
+    return isDeleted instanceof Boolean ? (Boolean) isDeleted
+        : ((Number) isDeleted).intValue() != 0;
+  }
+
+  private static String key(String permissionType, String targetId) {
+    return permissionType + '\u0001' + targetId;
+  }
+
+  private static class UserPermissions {
+
+    private final long generation;
+    private final Set<String> keys;
+
+    private UserPermissions(long generation, Set<String> keys) {
+      this.generation = generation;
+      this.keys = keys;
+    }
+  }
+  private static class SeenChange {
+
+    private final long changeTime;
+    private final boolean deleted;
+
+    private SeenChange(long changeTime, boolean deleted) {
+      this.changeTime = changeTime;
+      this.deleted = deleted;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof SeenChange)) {
+        return false;
+      }
+      SeenChange that = (SeenChange) o;
+      return changeTime == that.changeTime && deleted == that.deleted;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(changeTime, deleted);
+    }
+  }
+}
@@ -189,6 +189,25 @@ public class PortalConfig extends RefreshableConfig {
     return getIntProperty("api.pool.max.per.route", 2);
   }
 
+  public int asyncConnectPoolMaxPerRoute() {
+    return getIntProperty("api.async.pool.max.per.route", 10);
+  }
+
+  /**
+   * The delay after which an unanswered async GET request is sent to the next admin service as
+   * well, counted from when the request is sent, 0 (the default) to disable
+   */
+  public int hedgeDelay() {
+    return getIntProperty("api.hedgeDelay", 0);
+  }
+
+  /**
+   * The max number of hedged async GET requests in flight at once
+   */
+  public int hedgeMaxInFlight() {
+    return getIntProperty("api.hedge.max.in.flight", 5);
+  }
+
   public List<Organization> organizations() {
 
     String organizations = getValue("organizations");
@@ -319,6 +338,14 @@ public class PortalConfig extends RefreshableConfig {
     return getBooleanProperty("searchByItem.switch", true);
   }
 
+  public boolean isConsumerTokenCacheEnabled() {
+    return getBooleanProperty("consumer.token.cache.enabled", true);
+  }
+
+  public boolean isUserPermissionCacheEnabled() {
+    return getBooleanProperty("user.permission.cache.enabled", false);
+  }
+
   public List<String> getUserPasswordNotAllowList() {
     String[] value = getArrayProperty("apollo.portal.auth.user-password-not-allow-list", null);
     if (value == null || value.length == 0) {
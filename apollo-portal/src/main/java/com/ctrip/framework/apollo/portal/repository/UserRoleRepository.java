@@ -21,8 +21,10 @@ import com.ctrip.framework.apollo.portal.entity.po.UserRole;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -48,4 +50,18 @@ public interface UserRoleRepository extends PagingAndSortingRepository<UserRole,
   @Query("UPDATE UserRole SET IsDeleted = true, DeletedAt = ROUND(UNIX_TIMESTAMP(NOW(4))*1000), DataChange_LastModifiedBy = ?2 WHERE RoleId in ?1 and IsDeleted = false")
   Integer batchDeleteByRoleIds(List<Long> roleIds, String operator);
 
+  @Query(value = "SELECT MAX(`DataChange_LastTime`) FROM `UserRole`", nativeQuery = true)
+  Date findMaxDataChangeLastTime();
+
+  /**
+   * The deleted user roles are included, the rows are (Id, UserId, DataChange_LastTime, IsDeleted)
+   * ordered by (DataChange_LastTime, Id) and start after the given pair.
+   */
+  @Query(value = "SELECT `Id`, `UserId`, `DataChange_LastTime`, `IsDeleted` FROM `UserRole`"
+      + " WHERE `DataChange_LastTime` >= :fromTime"
+      + " AND (`DataChange_LastTime` > :fromTime OR `Id` > :fromId)"
+      + " ORDER BY `DataChange_LastTime`, `Id` LIMIT :limit", nativeQuery = true)
+  List<Object[]> findChangedAfter(@Param("fromTime") Date fromTime, @Param("fromId") long fromId,
+      @Param("limit") int limit);
+
 }
@@ -40,6 +40,7 @@ import com.ctrip.framework.apollo.portal.spi.UserInfoHolder;
 import com.ctrip.framework.apollo.tracer.Tracer;
 import com.google.gson.Gson;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
@@ -172,6 +173,16 @@ public class ItemService {
     return itemAPI.findDeletedItems(appId, env, clusterName, namespaceName);
   }
 
+  public CompletableFuture<List<ItemDTO>> findItemsAsync(String appId, Env env,
+      String clusterName, String namespaceName) {
+    return itemAPI.findItemsAsync(appId, env, clusterName, namespaceName);
+  }
+
+  public CompletableFuture<List<ItemDTO>> findDeletedItemsAsync(String appId, Env env,
+      String clusterName, String namespaceName) {
+    return itemAPI.findDeletedItemsAsync(appId, env, clusterName, namespaceName);
+  }
+
   public ItemDTO loadItem(Env env, String appId, String clusterName, String namespaceName,
       String key) {
     if (UrlUtils.hasIllegalChar(key)) {
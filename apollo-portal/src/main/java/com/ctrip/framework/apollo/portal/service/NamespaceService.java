@@ -26,7 +26,6 @@ import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.common.exception.BadRequestException;
 import com.ctrip.framework.apollo.common.utils.BeanUtils;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
-import com.ctrip.framework.apollo.core.utils.ApolloThreadFactory;
 import com.ctrip.framework.apollo.core.utils.StringUtils;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI;
 import com.ctrip.framework.apollo.portal.api.AdminServiceAPI.NamespaceAPI;
@@ -53,9 +52,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,9 +66,6 @@ public class NamespaceService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(NamespaceService.class);
   private static final Gson GSON = new Gson();
-  private static final ExecutorService executorService =
-      Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2,
-          ApolloThreadFactory.create("NamespaceService", true));
 
   private final PortalConfig portalConfig;
   private final PortalSettings portalSettings;
@@ -195,29 +189,48 @@ public class NamespaceService {
       throw BadRequestException.namespaceNotExists();
     }
 
-    List<NamespaceBO> namespaceBOs = Collections.synchronizedList(new LinkedList<>());
-    List<String> exceptionNamespaces = Collections.synchronizedList(new LinkedList<>());
-    CountDownLatch latch = new CountDownLatch(namespaces.size());
-    for (NamespaceDTO namespace : namespaces) {
-      executorService.submit(() -> {
-        NamespaceBO namespaceBO;
-        try {
-          namespaceBO = transformNamespace2BO(env, namespace, fillItemDetail, includeDeletedItems);
-          namespaceBOs.add(namespaceBO);
-        } catch (Exception e) {
-          LOGGER.error("parse namespace error. app id:{}, env:{}, clusterName:{}, namespace:{}",
-              appId, env, clusterName, namespace.getNamespaceName(), e);
-          exceptionNamespaces.add(namespace.getNamespaceName());
-        } finally {
-          latch.countDown();
-        }
-      });
+    // sends the requests of several namespaces at once, they are waited for on this thread. Each
+    // namespace sends up to 3 requests, so the requests in flight fit in the connections per route
+    int maxInFlight = Math.max(1, portalConfig.asyncConnectPoolMaxPerRoute() / 3);
+    List<NamespaceDetail> details = new ArrayList<>(namespaces.size());
+    while (details.size() < namespaces.size() && details.size() < maxInFlight) {
+      details.add(loadNamespaceDetailAsync(env, namespaces.get(details.size()), fillItemDetail,
+          includeDeletedItems));
+    }
 
+    List<NamespaceDetail> loadedDetails = new ArrayList<>(namespaces.size());
+    List<ItemDTO> allItems = new ArrayList<>();
+    List<String> exceptionNamespaces = new LinkedList<>();
+    for (int i = 0; i < namespaces.size(); i++) {
+      NamespaceDetail detail = details.get(i);
+      try {
+        detail.join();
+        allItems.addAll(detail.items.join());
+        loadedDetails.add(detail);
+      } catch (Exception e) {
+        LOGGER.error("parse namespace error. app id:{}, env:{}, clusterName:{}, namespace:{}",
+            appId, env, clusterName, detail.namespace.getNamespaceName(), e);
+        exceptionNamespaces.add(detail.namespace.getNamespaceName());
+      }
+      // the next namespace takes the place of the one just done
+      if (details.size() < namespaces.size()) {
+        details.add(loadNamespaceDetailAsync(env, namespaces.get(details.size()), fillItemDetail,
+            includeDeletedItems));
+      }
     }
-    try {
-      latch.await();
-    } catch (InterruptedException e) {
-      // ignore
+    additionalUserInfoEnrichService.enrichAdditionalUserInfo(allItems,
+        BaseDtoUserInfoEnrichedAdapter::new);
+
+    List<NamespaceBO> namespaceBOs = new ArrayList<>(loadedDetails.size());
+    for (NamespaceDetail detail : loadedDetails) {
+      try {
+        namespaceBOs.add(transformNamespace2BO(detail.namespace, fillItemDetail,
+            detail.latestRelease.join(), detail.items.join(), detail.deletedItems.join()));
+      } catch (Exception e) {
+        LOGGER.error("parse namespace error. app id:{}, env:{}, clusterName:{}, namespace:{}",
+            appId, env, clusterName, detail.namespace.getNamespaceName(), e);
+        exceptionNamespaces.add(detail.namespace.getNamespaceName());
+      }
     }
 
     if (namespaceBOs.size() != namespaces.size()) {
@@ -295,13 +308,56 @@ public class NamespaceService {
 
   private NamespaceBO transformNamespace2BO(Env env, NamespaceDTO namespace, boolean fillItemDetail,
       boolean includeDeletedItems) {
-    NamespaceBO namespaceBO = new NamespaceBO();
-    namespaceBO.setBaseInfo(namespace);
+    if (!fillItemDetail) {
+      return transformNamespace2BO(namespace, false, null, Collections.emptyList(), null);
+    }
+
+    String appId = namespace.getAppId();
+    String clusterName = namespace.getClusterName();
+    String namespaceName = namespace.getNamespaceName();
+
+    // latest Release
+    ReleaseDTO latestRelease =
+        releaseService.loadLatestRelease(appId, env, clusterName, namespaceName);
+    // not Release config items
+    List<ItemDTO> items = itemService.findItems(appId, env, clusterName, namespaceName);
+    additionalUserInfoEnrichService.enrichAdditionalUserInfo(items,
+        BaseDtoUserInfoEnrichedAdapter::new);
+    // deleted items
+    List<ItemDTO> deletedItems = includeDeletedItems
+        ? itemService.findDeletedItems(appId, env, clusterName, namespaceName) : null;
+
+    return transformNamespace2BO(namespace, true, latestRelease, items, deletedItems);
+  }
+
+  private NamespaceDetail loadNamespaceDetailAsync(Env env, NamespaceDTO namespace,
+      boolean fillItemDetail, boolean includeDeletedItems) {
+    if (!fillItemDetail) {
+      return new NamespaceDetail(namespace, CompletableFuture.completedFuture(null),
+          CompletableFuture.completedFuture(Collections.emptyList()),
+          CompletableFuture.completedFuture(null));
+    }
 
     String appId = namespace.getAppId();
     String clusterName = namespace.getClusterName();
     String namespaceName = namespace.getNamespaceName();
 
+    return new NamespaceDetail(namespace,
+        releaseService.loadLatestReleaseAsync(appId, env, clusterName, namespaceName),
+        itemService.findItemsAsync(appId, env, clusterName, namespaceName),
+        includeDeletedItems
+            ? itemService.findDeletedItemsAsync(appId, env, clusterName, namespaceName)
+            : CompletableFuture.completedFuture(null));
+  }
+
+  /**
+   * @param deletedItems the deleted items of the namespace, null if they are not included
+   */
+  private NamespaceBO transformNamespace2BO(NamespaceDTO namespace, boolean fillItemDetail,
+      ReleaseDTO latestRelease, List<ItemDTO> items, List<ItemDTO> deletedItems) {
+    NamespaceBO namespaceBO = new NamespaceBO();
+    namespaceBO.setBaseInfo(namespace);
+
     fillAppNamespaceProperties(namespaceBO);
 
     List<ItemBO> itemBOs = new LinkedList<>();
@@ -311,18 +367,11 @@ public class NamespaceService {
       return namespaceBO;
     }
 
-    // latest Release
-    ReleaseDTO latestRelease;
     Map<String, String> releaseItems = new HashMap<>();
-    latestRelease = releaseService.loadLatestRelease(appId, env, clusterName, namespaceName);
     if (latestRelease != null) {
       releaseItems = GSON.fromJson(latestRelease.getConfigurations(), GsonType.CONFIG);
     }
 
-    // not Release config items
-    List<ItemDTO> items = itemService.findItems(appId, env, clusterName, namespaceName);
-    additionalUserInfoEnrichService.enrichAdditionalUserInfo(items,
-        BaseDtoUserInfoEnrichedAdapter::new);
     int modifiedItemCnt = 0;
     for (ItemDTO itemDTO : items) {
 
@@ -335,16 +384,14 @@ public class NamespaceService {
       itemBOs.add(itemBO);
     }
 
-    if (includeDeletedItems) {
-      // deleted items
-      Map<String, ItemDTO> deletedItemDTOs =
-          itemService.findDeletedItems(appId, env, clusterName, namespaceName).stream()
-              .filter(itemDTO -> !StringUtils.isEmpty(itemDTO.getKey()))
-              .collect(Collectors.toMap(itemDTO -> itemDTO.getKey(), v -> v, (v1, v2) -> v2));
+    if (deletedItems != null) {
+      Map<String, ItemDTO> deletedItemDTOs = deletedItems.stream()
+          .filter(itemDTO -> !StringUtils.isEmpty(itemDTO.getKey()))
+          .collect(Collectors.toMap(itemDTO -> itemDTO.getKey(), v -> v, (v1, v2) -> v2));
 
-      List<ItemBO> deletedItems = parseDeletedItems(items, releaseItems, deletedItemDTOs);
-      itemBOs.addAll(deletedItems);
-      modifiedItemCnt += deletedItems.size();
+      List<ItemBO> deletedItemBOs = parseDeletedItems(items, releaseItems, deletedItemDTOs);
+      itemBOs.addAll(deletedItemBOs);
+      modifiedItemCnt += deletedItemBOs.size();
     }
 
     namespaceBO.setItemModifiedCnt(modifiedItemCnt);
@@ -442,4 +489,24 @@ public class NamespaceService {
         RoleUtils.buildNamespaceRoleName(appId, namespaceName, RoleType.RELEASE_NAMESPACE),
         Sets.newHashSet(operator), operator);
   }
+
+  private static class NamespaceDetail {
+
+    private final NamespaceDTO namespace;
+    private final CompletableFuture<ReleaseDTO> latestRelease;
+    private final CompletableFuture<List<ItemDTO>> items;
+    private final CompletableFuture<List<ItemDTO>> deletedItems;
+
+    private NamespaceDetail(NamespaceDTO namespace, CompletableFuture<ReleaseDTO> latestRelease,
+        CompletableFuture<List<ItemDTO>> items, CompletableFuture<List<ItemDTO>> deletedItems) {
+      this.namespace = namespace;
+      this.latestRelease = latestRelease;
+      this.items = items;
+      this.deletedItems = deletedItems;
+    }
+
+    private void join() {
+      CompletableFuture.allOf(latestRelease, items, deletedItems).join();
+    }
+  }
 }
@@ -44,6 +44,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 public class ReleaseService {
@@ -159,6 +160,11 @@ public class ReleaseService {
     return releaseAPI.loadLatestRelease(appId, env, clusterName, namespaceName);
   }
 
+  public CompletableFuture<ReleaseDTO> loadLatestReleaseAsync(String appId, Env env,
+      String clusterName, String namespaceName) {
+    return releaseAPI.loadLatestReleaseAsync(appId, env, clusterName, namespaceName);
+  }
+
   public void rollback(Env env, long releaseId, String operator) {
     releaseAPI.rollback(env, releaseId, operator);
   }
@@ -17,6 +17,7 @@
 package com.ctrip.framework.apollo.portal.spi.configuration;
 
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.component.UserPermissionCache;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
 import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
@@ -68,6 +69,11 @@ public class RoleConfiguration {
   public RolePermissionService rolePermissionService() {
     return new DefaultRolePermissionService(roleRepository, rolePermissionRepository,
         userRoleRepository, permissionRepository, portalConfig, consumerRoleRepository,
-        userService);
+        userService, userPermissionCache());
+  }
+
+  @Bean
+  public UserPermissionCache userPermissionCache() {
+    return new UserPermissionCache(permissionRepository, userRoleRepository, portalConfig);
   }
 }
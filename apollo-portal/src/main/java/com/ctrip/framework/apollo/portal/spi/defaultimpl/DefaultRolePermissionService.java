@@ -22,6 +22,7 @@ import com.ctrip.framework.apollo.audit.annotation.ApolloAuditLogDataInfluenceTa
 import com.ctrip.framework.apollo.audit.annotation.ApolloAuditLogDataInfluenceTableField;
 import com.ctrip.framework.apollo.audit.annotation.OpType;
 import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.component.UserPermissionCache;
 import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.bo.UserInfo;
 import com.ctrip.framework.apollo.portal.entity.po.Permission;
@@ -65,12 +66,13 @@ public class DefaultRolePermissionService implements RolePermissionService {
   private final PortalConfig portalConfig;
   private final ConsumerRoleRepository consumerRoleRepository;
   private final UserService userService;
+  private final UserPermissionCache userPermissionCache;
 
   public DefaultRolePermissionService(final RoleRepository roleRepository,
       final RolePermissionRepository rolePermissionRepository,
       final UserRoleRepository userRoleRepository, final PermissionRepository permissionRepository,
       final PortalConfig portalConfig, final ConsumerRoleRepository consumerRoleRepository,
-      final UserService userService) {
+      final UserService userService, final UserPermissionCache userPermissionCache) {
     this.roleRepository = roleRepository;
     this.rolePermissionRepository = rolePermissionRepository;
     this.userRoleRepository = userRoleRepository;
@@ -78,6 +80,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
     this.portalConfig = portalConfig;
     this.consumerRoleRepository = consumerRoleRepository;
     this.userService = userService;
+    this.userPermissionCache = userPermissionCache;
   }
 
   /**
@@ -136,6 +139,7 @@ public class DefaultRolePermissionService implements RolePermissionService {
     }).collect(Collectors.toList());
 
     userRoleRepository.saveAll(toCreate);
+    userPermissionCache.invalidate(toAssignUserIds);
     return toAssignUserIds;
   }
 
@@ -164,6 +168,8 @@ public class DefaultRolePermissionService implements RolePermissionService {
     }
 
     userRoleRepository.saveAll(existedUserRoles);
+    userPermissionCache.invalidate(
+        existedUserRoles.stream().map(UserRole::getUserId).collect(Collectors.toSet()));
   }
 
   /**
@@ -202,6 +208,10 @@ public class DefaultRolePermissionService implements RolePermissionService {
    */
   @Override
   public boolean userHasPermission(String userId, String permissionType, String targetId) {
+    if (userPermissionCache.isActive() && !isSuperAdmin(userId)) {
+      return userPermissionCache.hasPermission(userId, permissionType, targetId);
+    }
+
     Permission permission =
         permissionRepository.findTopByPermissionTypeAndTargetId(permissionType, targetId);
     if (permission == null) {
@@ -315,6 +325,10 @@ public class DefaultRolePermissionService implements RolePermissionService {
       // 5. delete Consumer Role
       consumerRoleRepository.batchDeleteByRoleIds(roleIds, operator);
     }
+
+    if (!permissionIds.isEmpty() || !roleIds.isEmpty()) {
+      userPermissionCache.invalidateAll();
+    }
   }
 
   @Transactional
@@ -345,6 +359,10 @@ public class DefaultRolePermissionService implements RolePermissionService {
       // 5. delete Consumer Role
       consumerRoleRepository.batchDeleteByRoleIds(roleIds, operator);
     }
+
+    if (!permissionIds.isEmpty() || !roleIds.isEmpty()) {
+      userPermissionCache.invalidateAll();
+    }
   }
 
   @Transactional
@@ -373,9 +391,17 @@ public class DefaultRolePermissionService implements RolePermissionService {
       // 5. delete Consumer Role
       consumerRoleRepository.batchDeleteByRoleIds(roleIds, operator);
     }
+
+    if (!permissionIds.isEmpty() || !roleIds.isEmpty()) {
+      userPermissionCache.invalidateAll();
+    }
   }
 
   public boolean hasAnyPermission(String userId, List<Permission> permissions) {
+    if (userPermissionCache.isActive()) {
+      return userPermissionCache.hasAnyPermission(userId, permissions);
+    }
+
     List<Permission> userPermissions = permissionRepository.findUserPermissions(userId);
 
     if (CollectionUtils.isEmpty(userPermissions)) {
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.openapi.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
+import com.ctrip.framework.apollo.openapi.repository.ConsumerTokenRepository;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class ConsumerTokenCacheTest {
+
+  private static final long ONE_HOUR = 60 * 60 * 1000;
+
+  @Mock
+  private ConsumerTokenRepository consumerTokenRepository;
+  @Mock
+  private PortalConfig portalConfig;
+
+  private SimpleMeterRegistry meterRegistry;
+  private ConsumerTokenCache consumerTokenCache;
+
+  @Before
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    consumerTokenCache = new ConsumerTokenCache(consumerTokenRepository, portalConfig,
+        meterRegistry);
+    when(portalConfig.isConsumerTokenCacheEnabled()).thenReturn(true);
+    when(consumerTokenRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(Collections.emptyList());
+  }
+
+  @Test
+  public void testGetConsumerTokenFromDatabaseBeforeLoaded() {
+    ConsumerToken someToken = token(1, "someToken", 1, ONE_HOUR);
+    when(consumerTokenRepository.findTopByTokenAndExpiresAfter(eq("someToken"), any(Date.class)))
+        .thenReturn(someToken);
+
+    assertSame(someToken, consumerTokenCache.getConsumerToken("someToken"));
+    assertNull(consumerTokenCache.getConsumerToken(""));
+  }
+
+  @Test
+  public void testGetConsumerTokenFromCache() {
+    ConsumerToken someToken = token(1, "someToken", 1, ONE_HOUR);
+    when(consumerTokenRepository.findAll()).thenReturn(Collections.singletonList(someToken));
+
+    consumerTokenCache.refresh();
+
+    assertSame(someToken, consumerTokenCache.getConsumerToken("someToken"));
+    assertSame(someToken, consumerTokenCache.getConsumerToken("someToken"));
+    verify(consumerTokenRepository, never()).findTopByTokenAndExpiresAfter(any(), any());
+    assertEquals(2, meterRegistry.counter("apollo.openapi.consumer.token.cache", "result", "hit")
+        .count(), 0);
+  }
+
+  @Test
+  public void testExpiredTokenIsRejected() {
+    ConsumerToken someToken = token(1, "someToken", 1, ONE_HOUR);
+    when(consumerTokenRepository.findAll()).thenReturn(Collections.singletonList(someToken));
+    consumerTokenCache.refresh();
+
+    someToken.setExpires(new Date(System.currentTimeMillis() - 1));
+
+    assertNull(consumerTokenCache.getConsumerToken("someToken"));
+    verify(consumerTokenRepository, never()).findTopByTokenAndExpiresAfter(any(), any());
+  }
+
+  @Test
+  public void testUnknownTokenIsLookedUpOnce() {
+    when(consumerTokenRepository.findAll()).thenReturn(Collections.emptyList());
+    consumerTokenCache.refresh();
+
+    assertNull(consumerTokenCache.getConsumerToken("unknownToken"));
+    assertNull(consumerTokenCache.getConsumerToken("unknownToken"));
+
+    verify(consumerTokenRepository, times(1))
+        .findTopByTokenAndExpiresAfter(eq("unknownToken"), any(Date.class));
+    assertEquals(1, meterRegistry.counter("apollo.openapi.consumer.token.cache", "result", "miss")
+        .count(), 0);
+  }
+
+  @Test
+  public void testApplyChanges() {
+    ConsumerToken someToken = token(1, "someToken", 1, ONE_HOUR);
+    ConsumerToken anotherToken = token(2, "anotherToken", 1, ONE_HOUR);
+    when(consumerTokenRepository.findMaxDataChangeLastTime()).thenReturn(new Date());
+    when(consumerTokenRepository.findAll()).thenReturn(Collections.singletonList(someToken));
+    consumerTokenCache.refresh();
+    assertNull(consumerTokenCache.getConsumerToken("anotherToken"));
+
+    ConsumerToken unchangedToken = token(1, "someToken", 1, ONE_HOUR);
+    unchangedToken.setDataChangeLastModifiedTime(someToken.getDataChangeLastModifiedTime());
+    when(consumerTokenRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(Arrays.asList(unchangedToken, anotherToken));
+    consumerTokenCache.refresh();
+
+    assertSame(someToken, consumerTokenCache.getConsumerToken("someToken"));
+    assertSame(anotherToken, consumerTokenCache.getConsumerToken("anotherToken"));
+
+    ConsumerToken deletedToken = token(1, "someToken", 1, ONE_HOUR);
+    deletedToken.setDeleted(true);
+    ConsumerToken changedToken = token(2, "anotherToken", 10, ONE_HOUR);
+    changedToken.setDataChangeLastModifiedTime(
+        new Date(anotherToken.getDataChangeLastModifiedTime().getTime() + 1000));
+    when(consumerTokenRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(Arrays.asList(deletedToken, changedToken));
+    consumerTokenCache.refresh();
+
+    when(consumerTokenRepository.findTopByTokenAndExpiresAfter(eq("someToken"), any(Date.class)))
+        .thenReturn(null);
+    assertNull(consumerTokenCache.getConsumerToken("someToken"));
+    assertSame(changedToken, consumerTokenCache.getConsumerToken("anotherToken"));
+  }
+
+  @Test
+  public void testTokenInDifferentCaseIsRejected() {
+    ConsumerToken someToken = token(1, "someToken", 1, ONE_HOUR);
+    when(consumerTokenRepository.findMaxDataChangeLastTime()).thenReturn(new Date());
+    when(consumerTokenRepository.findAll()).thenReturn(Collections.emptyList());
+    when(consumerTokenRepository.findTopByTokenAndExpiresAfter(any(), any(Date.class)))
+        .thenReturn(someToken);
+    consumerTokenCache.refresh();
+
+    assertNull(consumerTokenCache.getConsumerToken("SOMETOKEN"));
+    assertSame(someToken, consumerTokenCache.getConsumerToken("someToken"));
+
+    ConsumerToken deletedToken = token(1, "someToken", 1, ONE_HOUR);
+    deletedToken.setDeleted(true);
+    when(consumerTokenRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(Collections.singletonList(deletedToken));
+    when(consumerTokenRepository.findTopByTokenAndExpiresAfter(any(), any(Date.class)))
+        .thenReturn(null);
+    consumerTokenCache.refresh();
+
+    assertNull(consumerTokenCache.getConsumerToken("SOMETOKEN"));
+    assertNull(consumerTokenCache.getConsumerToken("someToken"));
+  }
+
+  @Test
+  public void testCacheDisabled() {
+    ConsumerToken someToken = token(1, "someToken", 1, ONE_HOUR);
+    when(consumerTokenRepository.findAll()).thenReturn(Collections.singletonList(someToken));
+    consumerTokenCache.refresh();
+
+    when(portalConfig.isConsumerTokenCacheEnabled()).thenReturn(false);
+    consumerTokenCache.refresh();
+    consumerTokenCache.getConsumerToken("someToken");
+
+    verify(consumerTokenRepository, times(1))
+        .findTopByTokenAndExpiresAfter(eq("someToken"), any(Date.class));
+  }
+
+  private static ConsumerToken token(long id, String token, int rateLimit, long expiresIn) {
+    ConsumerToken consumerToken = new ConsumerToken();
+    consumerToken.setId(id);
+    consumerToken.setToken(token);
+    consumerToken.setConsumerId(id);
+    consumerToken.setRateLimit(rateLimit);
+    consumerToken.setExpires(new Date(System.currentTimeMillis() + expiresIn));
+    consumerToken.setDataChangeLastModifiedTime(new Date(System.currentTimeMillis() + id));
+    return consumerToken;
+  }
+}
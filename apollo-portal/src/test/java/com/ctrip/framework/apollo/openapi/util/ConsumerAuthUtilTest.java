@@ -16,7 +16,9 @@
  */
 package com.ctrip.framework.apollo.openapi.util;
 
+import com.ctrip.framework.apollo.openapi.entity.ConsumerToken;
 import com.ctrip.framework.apollo.openapi.service.ConsumerService;
+import com.ctrip.framework.apollo.openapi.service.ConsumerTokenCache;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -26,6 +28,7 @@ import org.mockito.junit.MockitoJUnitRunner;
 import javax.servlet.http.HttpServletRequest;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Mockito.*;
 
 /**
@@ -37,11 +40,13 @@ public class ConsumerAuthUtilTest {
   @Mock
   private ConsumerService consumerService;
   @Mock
+  private ConsumerTokenCache consumerTokenCache;
+  @Mock
   private HttpServletRequest request;
 
   @Before
   public void setUp() throws Exception {
-    consumerAuthUtil = new ConsumerAuthUtil(consumerService);
+    consumerAuthUtil = new ConsumerAuthUtil(consumerService, consumerTokenCache);
   }
 
   @Test
@@ -55,6 +60,17 @@ public class ConsumerAuthUtilTest {
     verify(consumerService, times(1)).getConsumerIdByToken(someToken);
   }
 
+  @Test
+  public void testGetConsumerToken() throws Exception {
+    String someToken = "someToken";
+    ConsumerToken someConsumerToken = new ConsumerToken();
+
+    when(consumerTokenCache.getConsumerToken(someToken)).thenReturn(someConsumerToken);
+
+    assertSame(someConsumerToken, consumerAuthUtil.getConsumerToken(someToken));
+    verify(consumerService, never()).getConsumerTokenByToken(someToken);
+  }
+
   @Test
   public void testStoreConsumerId() throws Exception {
     long someConsumerId = 1L;
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.common.dto.AppDTO;
+import com.ctrip.framework.apollo.common.exception.ServiceException;
+import com.ctrip.framework.apollo.core.dto.ServiceDTO;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.environment.Env;
+import com.ctrip.framework.apollo.portal.environment.PortalMetaDomainService;
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.http.converter.json.GsonHttpMessageConverter;
+import org.springframework.web.client.HttpClientErrorException;
+
+@ExtendWith(MockitoExtension.class)
+class AdminServiceAsyncClientTest {
+
+  private static final String APP_ID = "someAppId";
+
+  @Mock
+  private AdminServiceAddressLocator adminServiceAddressLocator;
+  @Mock
+  private RetryableRestTemplate retryableRestTemplate;
+  @Mock
+  private PortalMetaDomainService portalMetaDomainService;
+  @Mock
+  private PortalConfig portalConfig;
+
+  private final List<HttpServer> servers = new ArrayList<>();
+  private AdminServiceAsyncClient adminServiceAsyncClient;
+
+  @BeforeEach
+  void setUp() {
+    lenient().when(portalConfig.connectPoolMaxTotal()).thenReturn(20);
+    lenient().when(portalConfig.asyncConnectPoolMaxPerRoute()).thenReturn(10);
+    lenient().when(portalConfig.connectTimeout()).thenReturn(1000);
+    lenient().when(portalConfig.readTimeout()).thenReturn(10000);
+    adminServiceAsyncClient = new AdminServiceAsyncClient(adminServiceAddressLocator,
+        retryableRestTemplate, portalMetaDomainService, portalConfig,
+        new HttpMessageConverters(new GsonHttpMessageConverter(new Gson())));
+  }
+
+  @AfterEach
+  void tearDown() {
+    adminServiceAsyncClient.destroy();
+    servers.forEach(server -> server.stop(0));
+  }
+
+  @Test
+  void getFailsOverWhenServerDown() throws IOException {
+    when(adminServiceAddressLocator.getServiceList(Env.DEV)).thenReturn(
+        Arrays.asList(service(closedPort()), service(startServer(200, 0, new AtomicInteger()))));
+
+    AppDTO app =
+        adminServiceAsyncClient.get(Env.DEV, "apps/{appId}", AppDTO.class, APP_ID).join();
+
+    assertThat(app.getAppId()).isEqualTo(APP_ID);
+  }
+
+  @Test
+  void getIsHedgedWhenServerSlow() {
+    when(portalConfig.hedgeDelay()).thenReturn(100);
+    when(portalConfig.hedgeMaxInFlight()).thenReturn(5);
+    AtomicInteger slowServerRequests = new AtomicInteger();
+    AtomicInteger fastServerRequests = new AtomicInteger();
+    when(adminServiceAddressLocator.getServiceList(Env.DEV)).thenReturn(
+        Arrays.asList(service(startServer(200, 5000, slowServerRequests)),
+            service(startServer(200, 0, fastServerRequests))));
+
+    long start = System.nanoTime();
+    AppDTO app =
+        adminServiceAsyncClient.get(Env.DEV, "apps/{appId}", AppDTO.class, APP_ID).join();
+
+    assertThat(app.getAppId()).isEqualTo(APP_ID);
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5000);
+    assertThat(slowServerRequests.get()).isEqualTo(1);
+    assertThat(fastServerRequests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void getNotHedgedWhileWaitingForConnection() {
+    when(portalConfig.asyncConnectPoolMaxPerRoute()).thenReturn(1);
+    when(portalConfig.hedgeDelay()).thenReturn(200);
+    AtomicInteger otherServerRequests = new AtomicInteger();
+    when(adminServiceAddressLocator.getServiceList(Env.DEV)).thenReturn(
+        Arrays.asList(service(startServer(200, 50, new AtomicInteger())),
+            service(startServer(200, 0, otherServerRequests))));
+
+    List<CompletableFuture<AppDTO>> apps = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      apps.add(adminServiceAsyncClient.get(Env.DEV, "apps/{appId}", AppDTO.class, APP_ID));
+    }
+
+    for (CompletableFuture<AppDTO> app : apps) {
+      assertThat(app.join().getAppId()).isEqualTo(APP_ID);
+    }
+    assertThat(otherServerRequests.get()).isZero();
+  }
+
+  @Test
+  void getHedgesAreCapped() {
+    when(portalConfig.hedgeDelay()).thenReturn(100);
+    when(portalConfig.hedgeMaxInFlight()).thenReturn(1);
+    AtomicInteger fastServerRequests = new AtomicInteger();
+    when(adminServiceAddressLocator.getServiceList(Env.DEV)).thenReturn(
+        Arrays.asList(service(startServer(200, 1000, new AtomicInteger())),
+            service(startServer(200, 500, fastServerRequests))));
+
+    List<CompletableFuture<AppDTO>> apps = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      apps.add(adminServiceAsyncClient.get(Env.DEV, "apps/{appId}", AppDTO.class, APP_ID));
+    }
+
+    for (CompletableFuture<AppDTO> app : apps) {
+      assertThat(app.join().getAppId()).isEqualTo(APP_ID);
+    }
+    assertThat(fastServerRequests.get()).isEqualTo(1);
+  }
+
+  @Test
+  void getNotRetriedOnClientError() {
+    AtomicInteger otherServerRequests = new AtomicInteger();
+    when(adminServiceAddressLocator.getServiceList(Env.DEV)).thenReturn(
+        Arrays.asList(service(startServer(404, 0, new AtomicInteger())),
+            service(startServer(200, 0, otherServerRequests))));
+
+    assertThatThrownBy(
+        () -> adminServiceAsyncClient.get(Env.DEV, "apps/{appId}", AppDTO.class, APP_ID).join())
+        .isInstanceOf(CompletionException.class)
+        .hasCauseInstanceOf(HttpClientErrorException.NotFound.class);
+    assertThat(otherServerRequests.get()).isZero();
+  }
+
+  @Test
+  void getFailsWhenNoServer() {
+    when(adminServiceAddressLocator.getServiceList(any())).thenReturn(Collections.emptyList());
+
+    assertThatThrownBy(
+        () -> adminServiceAsyncClient.get(Env.DEV, "apps/{appId}", AppDTO.class, APP_ID).join())
+        .isInstanceOf(CompletionException.class).hasCauseInstanceOf(ServiceException.class);
+  }
+
+  private int startServer(int status, long delayInMillis, AtomicInteger requests) {
+    HttpServer server;
+    try {
+      server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    } catch (IOException ex) {
+      throw new IllegalStateException(ex);
+    }
+    server.createContext("/apps/" + APP_ID, exchange -> {
+      requests.incrementAndGet();
+      try {
+        TimeUnit.MILLISECONDS.sleep(delayInMillis);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      AppDTO app = new AppDTO();
+      app.setAppId(APP_ID);
+      byte[] body = new Gson().toJson(app).getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    servers.add(server);
+    return server.getAddress().getPort();
+  }
+
+  private static int closedPort() throws IOException {
+    try (ServerSocket socket = new ServerSocket(0)) {
+      return socket.getLocalPort();
+    }
+  }
+
+  private static ServiceDTO service(int port) {
+    ServiceDTO service = new ServiceDTO();
+    service.setHomepageUrl("http://127.0.0.1:" + port);
+    return service;
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.openapi.repository.ConsumerRoleRepository;
+import com.ctrip.framework.apollo.portal.PortalApplication;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.constant.PermissionType;
+import com.ctrip.framework.apollo.portal.entity.po.Permission;
+import com.ctrip.framework.apollo.portal.entity.po.Role;
+import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.RolePermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.RoleRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import com.ctrip.framework.apollo.portal.service.RolePermissionService;
+import com.ctrip.framework.apollo.portal.spi.UserService;
+import com.ctrip.framework.apollo.portal.spi.defaultimpl.DefaultRolePermissionService;
+import com.ctrip.framework.apollo.portal.util.RoleUtils;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the permission checks of an app page, a modify and a release check per namespace, with
+ * and without the {@link UserPermissionCache}, against the in-memory test database. Run it with
+ * the main method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserPermissionCacheBenchmark {
+
+  private static final String APP_ID = "benchmark-app";
+  private static final String USER_ID = "benchmark-user";
+  private static final String OPERATOR = "benchmark";
+
+  @Param({"200"})
+  private int namespaceCount;
+
+  private ConfigurableApplicationContext context;
+  private RolePermissionService uncachedService;
+  private RolePermissionService cachedService;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    context = new SpringApplicationBuilder(PortalApplication.class)
+        .properties("server.port=0").run();
+
+    RolePermissionService rolePermissionService = context.getBean(RolePermissionService.class);
+    for (int i = 0; i < namespaceCount; i++) {
+      String targetId = RoleUtils.buildNamespaceTargetId(APP_ID, namespaceName(i));
+      createRole(rolePermissionService,
+          RoleUtils.buildModifyNamespaceRoleName(APP_ID, namespaceName(i)),
+          PermissionType.MODIFY_NAMESPACE, targetId);
+      createRole(rolePermissionService,
+          RoleUtils.buildReleaseNamespaceRoleName(APP_ID, namespaceName(i)),
+          PermissionType.RELEASE_NAMESPACE, targetId);
+    }
+
+    uncachedService = createService(false);
+    cachedService = createService(true);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    context.close();
+  }
+
+  @Benchmark
+  public void uncached(Blackhole blackhole) {
+    renderAppPage(uncachedService, blackhole);
+  }
+
+  @Benchmark
+  public void cached(Blackhole blackhole) {
+    renderAppPage(cachedService, blackhole);
+  }
+
+  private void renderAppPage(RolePermissionService service, Blackhole blackhole) {
+    for (int i = 0; i < namespaceCount; i++) {
+      String targetId = RoleUtils.buildNamespaceTargetId(APP_ID, namespaceName(i));
+      blackhole.consume(
+          service.userHasPermission(USER_ID, PermissionType.MODIFY_NAMESPACE, targetId));
+      blackhole.consume(
+          service.userHasPermission(USER_ID, PermissionType.RELEASE_NAMESPACE, targetId));
+    }
+  }
+
+  private void createRole(RolePermissionService rolePermissionService, String roleName,
+      String permissionType, String targetId) {
+    Permission permission = new Permission();
+    permission.setPermissionType(permissionType);
+    permission.setTargetId(targetId);
+    permission.setDataChangeCreatedBy(OPERATOR);
+    permission = rolePermissionService.createPermission(permission);
+
+    Role role = new Role();
+    role.setRoleName(roleName);
+    role.setDataChangeCreatedBy(OPERATOR);
+    rolePermissionService.createRoleWithPermissions(role,
+        Collections.singleton(permission.getId()));
+    rolePermissionService.assignRoleToUsers(roleName, Sets.newHashSet(USER_ID), OPERATOR);
+  }
+
+  private RolePermissionService createService(boolean cacheEnabled) {
+    PortalConfig portalConfig = mock(PortalConfig.class);
+    when(portalConfig.isUserPermissionCacheEnabled()).thenReturn(cacheEnabled);
+
+    PermissionRepository permissionRepository = context.getBean(PermissionRepository.class);
+    UserRoleRepository userRoleRepository = context.getBean(UserRoleRepository.class);
+    UserPermissionCache userPermissionCache =
+        new UserPermissionCache(permissionRepository, userRoleRepository, portalConfig);
+    userPermissionCache.refresh();
+
+    return new DefaultRolePermissionService(context.getBean(RoleRepository.class),
+        context.getBean(RolePermissionRepository.class), userRoleRepository,
+        permissionRepository, portalConfig, context.getBean(ConsumerRoleRepository.class),
+        context.getBean(UserService.class), userPermissionCache);
+  }
+
+  private static String namespaceName(int index) {
+    return "namespace" + index;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options options = new OptionsBuilder()
+        .include(UserPermissionCacheBenchmark.class.getSimpleName())
+        .build();
+    new Runner(options).run();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2025 Apollo Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package com.ctrip.framework.apollo.portal.component;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
+import com.ctrip.framework.apollo.portal.entity.po.Permission;
+import com.ctrip.framework.apollo.portal.repository.PermissionRepository;
+import com.ctrip.framework.apollo.portal.repository.UserRoleRepository;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class UserPermissionCacheTest {
+
+  private static final String USER_ID = "test-user";
+  private static final String MODIFY_NAMESPACE = "ModifyNamespace";
+  private static final String RELEASE_NAMESPACE = "ReleaseNamespace";
+  private static final String TARGET_ID = "test-app+application";
+
+  @Mock
+  private PermissionRepository permissionRepository;
+  @Mock
+  private UserRoleRepository userRoleRepository;
+  @Mock
+  private PortalConfig portalConfig;
+
+  private UserPermissionCache userPermissionCache;
+
+  @BeforeEach
+  void setUp() {
+    userPermissionCache =
+        new UserPermissionCache(permissionRepository, userRoleRepository, portalConfig);
+    lenient().when(portalConfig.isUserPermissionCacheEnabled()).thenReturn(true);
+    lenient().when(userRoleRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(Collections.emptyList());
+    lenient().when(permissionRepository.findUserPermissions(USER_ID))
+        .thenReturn(Collections.singletonList(permission(MODIFY_NAMESPACE, TARGET_ID)));
+  }
+
+  @Test
+  void activeOnceEnabled() {
+    assertThat(userPermissionCache.isActive()).isFalse();
+
+    userPermissionCache.refresh();
+    assertThat(userPermissionCache.isActive()).isTrue();
+
+    when(portalConfig.isUserPermissionCacheEnabled()).thenReturn(false);
+    userPermissionCache.refresh();
+    assertThat(userPermissionCache.isActive()).isFalse();
+  }
+
+  @Test
+  void permissionsLoadedOnce() {
+    userPermissionCache.refresh();
+
+    assertThat(userPermissionCache.hasPermission(USER_ID, MODIFY_NAMESPACE, TARGET_ID)).isTrue();
+    assertThat(userPermissionCache.hasPermission(USER_ID, RELEASE_NAMESPACE, TARGET_ID)).isFalse();
+    assertThat(userPermissionCache.hasAnyPermission(USER_ID,
+        Collections.singletonList(permission(MODIFY_NAMESPACE, TARGET_ID)))).isTrue();
+
+    verify(permissionRepository, times(1)).findUserPermissions(USER_ID);
+  }
+
+  @Test
+  void invalidateReloadsPermissions() {
+    userPermissionCache.refresh();
+    assertThat(userPermissionCache.hasPermission(USER_ID, RELEASE_NAMESPACE, TARGET_ID)).isFalse();
+
+    when(permissionRepository.findUserPermissions(USER_ID)).thenReturn(
+        Collections.singletonList(permission(RELEASE_NAMESPACE, TARGET_ID)));
+    userPermissionCache.invalidate(Collections.singleton(USER_ID));
+
+    assertThat(userPermissionCache.hasPermission(USER_ID, RELEASE_NAMESPACE, TARGET_ID)).isTrue();
+
+    userPermissionCache.invalidateAll();
+    userPermissionCache.hasPermission(USER_ID, RELEASE_NAMESPACE, TARGET_ID);
+    verify(permissionRepository, times(3)).findUserPermissions(USER_ID);
+  }
+
+  @Test
+  void userRoleChangesInvalidatePermissions() {
+    Date changeTime = new Date();
+    when(userRoleRepository.findMaxDataChangeLastTime()).thenReturn(changeTime);
+    userPermissionCache.refresh();
+    userPermissionCache.hasPermission(USER_ID, MODIFY_NAMESPACE, TARGET_ID);
+
+    List<Object[]> changes = Collections.singletonList(
+        new Object[]{1L, USER_ID, new Date(changeTime.getTime() + 1), false});
+    when(userRoleRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(changes);
+    userPermissionCache.refresh();
+    userPermissionCache.hasPermission(USER_ID, MODIFY_NAMESPACE, TARGET_ID);
+
+    // the same change read again in the overlap window is ignored
+    userPermissionCache.refresh();
+    userPermissionCache.hasPermission(USER_ID, MODIFY_NAMESPACE, TARGET_ID);
+
+    verify(permissionRepository, times(2)).findUserPermissions(USER_ID);
+  }
+
+  @Test
+  void deletionInTheSameSecondInvalidatesPermissions() {
+    Date changeTime = new Date();
+    when(userRoleRepository.findMaxDataChangeLastTime()).thenReturn(changeTime);
+    userPermissionCache.refresh();
+
+    when(userRoleRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(Collections.singletonList(new Object[]{1L, USER_ID, changeTime, false}));
+    userPermissionCache.refresh();
+    userPermissionCache.hasPermission(USER_ID, MODIFY_NAMESPACE, TARGET_ID);
+
+    // deleted with the same DataChange_LastTime
+    when(userRoleRepository.findChangedAfter(any(Date.class), anyLong(), anyInt()))
+        .thenReturn(Collections.singletonList(new Object[]{1L, USER_ID, changeTime, true}));
+    userPermissionCache.refresh();
+    userPermissionCache.hasPermission(USER_ID, MODIFY_NAMESPACE, TARGET_ID);
+
+    verify(permissionRepository, times(2)).findUserPermissions(USER_ID);
+  }
+
+  private static Permission permission(String permissionType, String targetId) {
+    Permission permission = new Permission();
+    permission.setPermissionType(permissionType);
+    permission.setTargetId(targetId);
+    return permission;
+  }
+}
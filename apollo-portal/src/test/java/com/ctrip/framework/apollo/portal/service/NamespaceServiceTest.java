@@ -23,6 +23,7 @@ import com.ctrip.framework.apollo.common.dto.ReleaseDTO;
 import com.ctrip.framework.apollo.common.entity.AppNamespace;
 import com.ctrip.framework.apollo.core.enums.ConfigFileFormat;
 import com.ctrip.framework.apollo.portal.component.PortalSettings;
+import com.ctrip.framework.apollo.portal.component.config.PortalConfig;
 import com.ctrip.framework.apollo.portal.entity.vo.NamespaceUsage;
 import com.ctrip.framework.apollo.portal.environment.Env;
 import com.ctrip.framework.apollo.portal.AbstractUnitTest;
@@ -41,6 +42,7 @@ import org.mockito.Mock;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
@@ -76,6 +78,8 @@ public class NamespaceServiceTest extends AbstractUnitTest {
   private PortalSettings portalSettings;
   @Mock
   private ClusterService clusterService;
+  @Mock
+  private PortalConfig portalConfig;
 
   @InjectMocks
   private NamespaceService namespaceService;
@@ -86,7 +90,9 @@ public class NamespaceServiceTest extends AbstractUnitTest {
   private Env testEnv = Env.DEV;
 
   @Before
-  public void setup() {}
+  public void setup() {
+    when(portalConfig.asyncConnectPoolMaxPerRoute()).thenReturn(3);
+  }
 
   @Test
   public void testFindNamespace() {
@@ -123,12 +129,16 @@ public class NamespaceServiceTest extends AbstractUnitTest {
     when(appNamespaceService.findPublicAppNamespace("hermes")).thenReturn(hermesAppNamespace);
     when(namespaceAPI.findNamespaceByCluster(testAppId, Env.DEV, testClusterName))
         .thenReturn(namespaces);
-    when(releaseService.loadLatestRelease(testAppId, Env.DEV, testClusterName, testNamespaceName))
-        .thenReturn(someRelease);
-    when(releaseService.loadLatestRelease(testAppId, Env.DEV, testClusterName, "hermes"))
-        .thenReturn(someRelease);
-    when(itemService.findItems(testAppId, Env.DEV, testClusterName, testNamespaceName))
-        .thenReturn(someItems);
+    when(releaseService.loadLatestReleaseAsync(testAppId, Env.DEV, testClusterName,
+        testNamespaceName)).thenReturn(CompletableFuture.completedFuture(someRelease));
+    when(releaseService.loadLatestReleaseAsync(testAppId, Env.DEV, testClusterName, "hermes"))
+        .thenReturn(CompletableFuture.completedFuture(someRelease));
+    when(itemService.findItemsAsync(testAppId, Env.DEV, testClusterName, testNamespaceName))
+        .thenReturn(CompletableFuture.completedFuture(someItems));
+    when(itemService.findItemsAsync(testAppId, Env.DEV, testClusterName, "hermes"))
+        .thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
+    when(itemService.findDeletedItemsAsync(any(), any(), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(Collections.emptyList()));
 
     List<NamespaceBO> namespaceVOs =
         namespaceService.findNamespaceBOs(testAppId, Env.DEV, testClusterName);
@@ -148,8 +158,8 @@ public class NamespaceServiceTest extends AbstractUnitTest {
 
     ReleaseDTO errorRelease = new ReleaseDTO();
     errorRelease.setConfigurations("\"a\":\"123\",\"b\":\"123\"");
-    when(releaseService.loadLatestRelease(testAppId, Env.DEV, testClusterName, testNamespaceName))
-        .thenReturn(errorRelease);
+    when(releaseService.loadLatestReleaseAsync(testAppId, Env.DEV, testClusterName,
+        testNamespaceName)).thenReturn(CompletableFuture.completedFuture(errorRelease));
     assertThatExceptionOfType(RuntimeException.class)
         .isThrownBy(() -> namespaceService.findNamespaceBOs(testAppId, Env.DEV, testClusterName))
         .withMessageStartingWith(
@@ -0,0 +1,25 @@
+--
+-- Copyright 2025 Apollo Authors
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+-- http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+--
+-- delta schema to upgrade apollo config db from v2.4.0 to v2.5.0
+
+-- ${gists.autoGeneratedDeclaration}
+-- ${gists.h2Function}
+-- ${gists.useDatabase}
+
+ALTER TABLE `Namespace`
+    ADD COLUMN `HasUnpublishedChanges` bit(1) NOT NULL DEFAULT b'0' COMMENT '1: has unpublished changes, 0: no unpublished changes' AFTER `NamespaceName`;
+
+-- ${gists.autoGeneratedDeclaration}